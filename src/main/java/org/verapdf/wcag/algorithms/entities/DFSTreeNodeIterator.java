@@ -1,49 +1,65 @@
 package org.verapdf.wcag.algorithms.entities;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
+/**
+ * Iterates nodes of a tree in post order. The path from the root to the current node is kept in an explicit
+ * stack, so a step takes amortized constant time and the depth of the tree is not limited by the call stack.
+ * Children of a node are read when the iteration reaches them.
+ */
 class DFSTreeNodeIterator implements Iterator<INode> {
 
-	private final INode root;
-	private int childIndex;
-	private DFSTreeNodeIterator innerCurrentIterator;
+	private static final int INITIAL_STACK_SIZE = 16;
+
+	private INode[] nodes;
+	private int[] childIndexes;
+	private int depth;
 
 	public DFSTreeNodeIterator(INode root) {
-		this.root = root;
-		this.childIndex = -1;
-		nextInnerIterator();
+		if (root == null) {
+			this.depth = -1;
+			return;
+		}
+		this.nodes = new INode[INITIAL_STACK_SIZE];
+		this.childIndexes = new int[INITIAL_STACK_SIZE];
+		this.nodes[0] = root;
+		this.depth = 0;
 	}
 
 	@Override
 	public boolean hasNext() {
-		return innerCurrentIterator != null;
+		return depth >= 0;
 	}
 
 	@Override
 	public INode next() {
-		if (innerCurrentIterator == null) {
+		if (depth < 0) {
 			return null;
 		}
-		if (!innerCurrentIterator.hasNext()) {
-			nextInnerIterator();
-			if (!innerCurrentIterator.hasNext()) {
-				innerCurrentIterator = null;
-				return root;
+		while (true) {
+			INode node = nodes[depth];
+			List<INode> children = node.getChildren();
+			int childIndex = childIndexes[depth];
+			if (childIndex < children.size()) {
+				childIndexes[depth] = childIndex + 1;
+				push(children.get(childIndex));
+			} else {
+				nodes[depth] = null;
+				depth--;
+				return node;
 			}
 		}
-
-		return innerCurrentIterator.next();
 	}
 
-	private void nextInnerIterator() {
-		if (root == null) {
-			return;
-		}
-		++childIndex;
-		if (childIndex < root.getChildren().size()) {
-			innerCurrentIterator = new DFSTreeNodeIterator(root.getChildren().get(childIndex));
-		} else {
-			innerCurrentIterator = new DFSTreeNodeIterator(null);
+	private void push(INode node) {
+		depth++;
+		if (depth == nodes.length) {
+			nodes = Arrays.copyOf(nodes, 2 * depth);
+			childIndexes = Arrays.copyOf(childIndexes, 2 * depth);
 		}
+		nodes[depth] = node;
+		childIndexes[depth] = 0;
 	}
 }
@@ -0,0 +1,414 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only snapshot of the structure of a semantic tree in arrays indexed by dense node ids.
+ * Ids are assigned in pre-order, so the subtree of a node with id i consists of the ids from i inclusive
+ * to i + getSubtreeSize(i) exclusive. They are equal to {@link INode#getNodeId() node ids} set by semantic
+ * preprocessing, otherwise, for example after edits of the tree, ids of nodes are kept in a separate map.
+ * The snapshot does not follow changes of the tree structure, semantic types are read again by
+ * {@link #updateSemanticTypes()}.
+ * Indexes for common ancestor and level ancestor queries are built on the first query.
+ * <p>
+ * After edits of the tree the snapshot can be kept up to date by {@link #excludeSubtree(int) excluding} subtrees
+ * of moved and removed nodes, as long as the remaining nodes keep their ancestors and their order. Queries by
+ * nodes answer for the current tree: nodes, which are absent in the snapshot, are lifted by their
+ * {@link INode#getParent() parents} and {@link INode#getDepth() depths} to nodes of the snapshot.
+ */
+public class FlatSemanticTree {
+
+	public static final int NO_NODE = -1;
+	public static final int NO_PAGE = -1;
+
+	private static final byte NO_TYPE = -1;
+	private static final SemanticType[] SEMANTIC_TYPES = SemanticType.values();
+
+	private final INode[] nodes;
+	private Map<INode, Integer> ids;
+	private final int[] parents;
+	private final int[] firstChildren;
+	private final int[] nextSiblings;
+	private final int[] depths;
+	private final int[] subtreeSizes;
+	private final int[] firstPages;
+	private final int[] lastPages;
+	private final byte[] semanticTypes;
+	private final byte[] initialSemanticTypes;
+	private int[][] minDepthNodes;
+	private int[][] depthNodes;
+	private int excludedNodesNumber;
+
+	public FlatSemanticTree(ITree tree) {
+		this(tree.getRoot());
+	}
+
+	public FlatSemanticTree(INode root) {
+		int size = root != null ? countNodes(root) : 0;
+		nodes = new INode[size];
+		parents = new int[size];
+		firstChildren = new int[size];
+		nextSiblings = new int[size];
+		depths = new int[size];
+		subtreeSizes = new int[size];
+		firstPages = new int[size];
+		lastPages = new int[size];
+		semanticTypes = new byte[size];
+		initialSemanticTypes = new byte[size];
+		if (root != null) {
+			build(root);
+		}
+		if (ids != null) {
+			for (int id = 0; id < size; id++) {
+				ids.put(nodes[id], id);
+			}
+		}
+	}
+
+	private static int countNodes(INode root) {
+		int size = 0;
+		for (INode ignored : new SemanticTree(root)) {
+			size++;
+		}
+		return size;
+	}
+
+	private void build(INode root) {
+		int[] stack = new int[16];
+		int[] childIndexes = new int[16];
+		int top = 0;
+		int nextId = 0;
+		addNode(root, nextId++, NO_NODE, 0);
+		stack[0] = 0;
+		while (top >= 0) {
+			int id = stack[top];
+			List<INode> children = nodes[id].getChildren();
+			int childIndex = childIndexes[top];
+			if (childIndex < children.size()) {
+				childIndexes[top] = childIndex + 1;
+				int childId = nextId++;
+				addNode(children.get(childIndex), childId, id, depths[id] + 1);
+				if (childIndex == 0) {
+					firstChildren[id] = childId;
+				}
+				top++;
+				if (top == stack.length) {
+					stack = Arrays.copyOf(stack, 2 * top);
+					childIndexes = Arrays.copyOf(childIndexes, 2 * top);
+				}
+				stack[top] = childId;
+				childIndexes[top] = 0;
+			} else {
+				subtreeSizes[id] = nextId - id;
+				top--;
+			}
+		}
+		for (int id = 0; id < nodes.length; id++) {
+			int childId = firstChildren[id];
+			while (childId != NO_NODE) {
+				int siblingId = childId + subtreeSizes[childId];
+				nextSiblings[childId] = siblingId < id + subtreeSizes[id] ? siblingId : NO_NODE;
+				childId = nextSiblings[childId];
+			}
+		}
+	}
+
+	private void addNode(INode node, int id, int parent, int depth) {
+		nodes[id] = node;
+		if (ids == null && node.getNodeId() != id) {
+			ids = new IdentityHashMap<>(nodes.length);
+		}
+		parents[id] = parent;
+		firstChildren[id] = NO_NODE;
+		nextSiblings[id] = NO_NODE;
+		depths[id] = depth;
+		Integer firstPage = node.getPageNumber();
+		Integer lastPage = node.getLastPageNumber();
+		firstPages[id] = firstPage != null ? firstPage : NO_PAGE;
+		lastPages[id] = lastPage != null ? lastPage : NO_PAGE;
+		semanticTypes[id] = getTypeIndex(node.getSemanticType());
+		initialSemanticTypes[id] = getTypeIndex(node.getInitialSemanticType());
+	}
+
+	private static byte getTypeIndex(SemanticType semanticType) {
+		return semanticType != null ? (byte) semanticType.ordinal() : NO_TYPE;
+	}
+
+	/**
+	 * Reads semantic types of all nodes again, for example after the accumulation of nodes.
+	 */
+	public void updateSemanticTypes() {
+		for (int id = 0; id < nodes.length; id++) {
+			if (nodes[id] != null) {
+				semanticTypes[id] = getTypeIndex(nodes[id].getSemanticType());
+			}
+		}
+	}
+
+	/**
+	 * Removes the nodes of the subtree from the snapshot, for example after the subtree was moved or removed
+	 * from the tree. The structure of the remaining nodes is not changed.
+	 */
+	public void excludeSubtree(int id) {
+		for (int subtreeId = id; subtreeId < id + subtreeSizes[id]; subtreeId++) {
+			if (nodes[subtreeId] != null) {
+				if (ids != null) {
+					ids.remove(nodes[subtreeId]);
+				}
+				nodes[subtreeId] = null;
+				excludedNodesNumber++;
+			}
+		}
+	}
+
+	/**
+	 * @return number of nodes removed from the snapshot by {@link #excludeSubtree(int)}
+	 */
+	public int getExcludedNodesNumber() {
+		return excludedNodesNumber;
+	}
+
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return node with the id, or null if it was excluded from the snapshot
+	 */
+	public INode getNode(int id) {
+		return nodes[id];
+	}
+
+	/**
+	 * @return id of the node, or {@link #NO_NODE} if the node does not belong to the snapshot
+	 */
+	public int getId(INode node) {
+		if (ids != null) {
+			Integer id = ids.get(node);
+			return id != null ? id : NO_NODE;
+		}
+		int id = node.getNodeId();
+		return id >= 0 && id < nodes.length && nodes[id] == node ? id : NO_NODE;
+	}
+
+	public int getParent(int id) {
+		return parents[id];
+	}
+
+	public int getFirstChild(int id) {
+		return firstChildren[id];
+	}
+
+	public int getNextSibling(int id) {
+		return nextSiblings[id];
+	}
+
+	public int getDepth(int id) {
+		return depths[id];
+	}
+
+	public int getSubtreeSize(int id) {
+		return subtreeSizes[id];
+	}
+
+	public int getFirstPage(int id) {
+		return firstPages[id];
+	}
+
+	public int getLastPage(int id) {
+		return lastPages[id];
+	}
+
+	public SemanticType getSemanticType(int id) {
+		return semanticTypes[id] != NO_TYPE ? SEMANTIC_TYPES[semanticTypes[id]] : null;
+	}
+
+	public SemanticType getInitialSemanticType(int id) {
+		return initialSemanticTypes[id] != NO_TYPE ? SEMANTIC_TYPES[initialSemanticTypes[id]] : null;
+	}
+
+	/**
+	 * @return true if the first node is an ancestor of the second one or the same node
+	 */
+	public boolean isAncestor(int ancestorId, int id) {
+		return ancestorId <= id && id < ancestorId + subtreeSizes[ancestorId];
+	}
+
+	/**
+	 * @return lowest common ancestor of two nodes in O(1) time, a node is considered an ancestor of itself
+	 */
+	public int getCommonAncestor(int id1, int id2) {
+		if (id1 > id2) {
+			int id = id1;
+			id1 = id2;
+			id2 = id;
+		}
+		if (isAncestor(id1, id2)) {
+			return id1;
+		}
+		// a node of the minimal depth between the two nodes in pre-order is a child of their common ancestor
+		return parents[getMinDepthNode(id1 + 1, id2)];
+	}
+
+	/**
+	 * @return ancestor of the node on the given depth in O(log n) time, or {@link #NO_NODE} if the node
+	 * is higher
+	 */
+	public int getAncestor(int id, int depth) {
+		if (depth > depths[id] || depth < 0) {
+			return NO_NODE;
+		}
+		if (depth == depths[id]) {
+			return id;
+		}
+		if (depthNodes == null) {
+			buildDepthNodes();
+		}
+		// the ancestor is the last node of this depth preceding the node in pre-order
+		int[] nodesOfDepth = depthNodes[depth];
+		int index = Arrays.binarySearch(nodesOfDepth, id);
+		return nodesOfDepth[index >= 0 ? index : -index - 2];
+	}
+
+	/**
+	 * @return true if the first node is an ancestor of the second one or the same node in the current tree
+	 */
+	public boolean isAncestor(INode ancestor, INode node) {
+		int ancestorId = getId(ancestor);
+		while (node != null && node.getDepth() > ancestor.getDepth()) {
+			int id = getId(node);
+			if (id != NO_NODE && ancestorId != NO_NODE) {
+				return isAncestor(ancestorId, id);
+			}
+			node = node.getParent();
+		}
+		return node == ancestor;
+	}
+
+	/**
+	 * @return lowest common ancestor of two nodes of the current tree, a node is considered an ancestor of itself
+	 */
+	public INode getCommonAncestor(INode node1, INode node2) {
+		while (node1 != node2 && node1 != null && node2 != null) {
+			int id1 = getId(node1);
+			int id2 = getId(node2);
+			if (id1 != NO_NODE && id2 != NO_NODE) {
+				return nodes[getCommonAncestor(id1, id2)];
+			}
+			int depth1 = node1.getDepth();
+			int depth2 = node2.getDepth();
+			if (depth1 >= depth2) {
+				node1 = node1.getParent();
+			}
+			if (depth2 >= depth1) {
+				node2 = node2.getParent();
+			}
+		}
+		return node1 == node2 ? node1 : null;
+	}
+
+	/**
+	 * @return ancestor of the node on the given depth in the current tree, or null if the node is higher
+	 */
+	public INode getAncestor(INode node, int depth) {
+		while (node != null && node.getDepth() > depth) {
+			int id = getId(node);
+			if (id != NO_NODE) {
+				int ancestorId = getAncestor(id, depth);
+				return ancestorId != NO_NODE ? nodes[ancestorId] : null;
+			}
+			node = node.getParent();
+		}
+		return node != null && node.getDepth() == depth ? node : null;
+	}
+
+	/**
+	 * Compares positions of two nodes of the current tree in pre-order.
+	 */
+	public int compare(INode node1, INode node2) {
+		if (node1 == node2) {
+			return 0;
+		}
+		int id1 = getId(node1);
+		int id2 = getId(node2);
+		if (id1 != NO_NODE && id2 != NO_NODE) {
+			return Integer.compare(id1, id2);
+		}
+		INode ancestor1 = node1;
+		INode ancestor2 = node2;
+		while (ancestor1.getDepth() > ancestor2.getDepth()) {
+			ancestor1 = ancestor1.getParent();
+		}
+		while (ancestor2.getDepth() > ancestor1.getDepth()) {
+			ancestor2 = ancestor2.getParent();
+		}
+		if (ancestor1 == ancestor2) {
+			return node1.getDepth() < node2.getDepth() ? -1 : 1;
+		}
+		while (true) {
+			id1 = getId(ancestor1);
+			id2 = getId(ancestor2);
+			if (id1 != NO_NODE && id2 != NO_NODE) {
+				return Integer.compare(id1, id2);
+			}
+			if (ancestor1.getParent() == ancestor2.getParent()) {
+				return Integer.compare(ancestor1.getIndex(), ancestor2.getIndex());
+			}
+			ancestor1 = ancestor1.getParent();
+			ancestor2 = ancestor2.getParent();
+		}
+	}
+
+	private int getMinDepthNode(int from, int to) {
+		if (minDepthNodes == null) {
+			buildMinDepthNodes();
+		}
+		int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+		int first = level == 0 ? from : minDepthNodes[level][from];
+		int second = level == 0 ? to : minDepthNodes[level][to - (1 << level) + 1];
+		return depths[first] <= depths[second] ? first : second;
+	}
+
+	/**
+	 * Builds a sparse table, which stores for every level k and id the node of the minimal depth
+	 * among 2^k nodes starting from id.
+	 */
+	private void buildMinDepthNodes() {
+		int levels = nodes.length > 0 ? 32 - Integer.numberOfLeadingZeros(nodes.length) : 0;
+		minDepthNodes = new int[levels][];
+		for (int level = 1; level < levels; level++) {
+			int half = 1 << (level - 1);
+			int[] levelNodes = new int[nodes.length - 2 * half + 1];
+			for (int id = 0; id < levelNodes.length; id++) {
+				int first = level == 1 ? id : minDepthNodes[level - 1][id];
+				int second = level == 1 ? id + half : minDepthNodes[level - 1][id + half];
+				levelNodes[id] = depths[first] <= depths[second] ? first : second;
+			}
+			minDepthNodes[level] = levelNodes;
+		}
+	}
+
+	private void buildDepthNodes() {
+		int maxDepth = 0;
+		for (int depth : depths) {
+			maxDepth = Math.max(maxDepth, depth);
+		}
+		int[] counts = new int[maxDepth + 1];
+		for (int depth : depths) {
+			counts[depth]++;
+		}
+		depthNodes = new int[maxDepth + 1][];
+		for (int depth = 0; depth <= maxDepth; depth++) {
+			depthNodes[depth] = new int[counts[depth]];
+			counts[depth] = 0;
+		}
+		for (int id = 0; id < nodes.length; id++) {
+			depthNodes[depths[id]][counts[depths[id]]++] = id;
+		}
+	}
+}
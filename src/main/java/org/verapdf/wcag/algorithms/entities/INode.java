@@ -7,6 +7,8 @@ import java.util.List;
 
 public interface INode {
 
+	int NO_NODE_ID = -1;
+
 	SemanticType getSemanticType();
 
 	void setSemanticType(SemanticType semanticType);
@@ -67,6 +69,26 @@ public interface INode {
 
 	public void setDepth(int depth);
 
+	/**
+	 * @return number of nodes in the subtree of this node set by semantic preprocessing, or 0 if unknown
+	 */
+	default int getSubtreeSize() {
+		return 0;
+	}
+
+	default void setSubtreeSize(int subtreeSize) {
+	}
+
+	/**
+	 * @return dense pre-order id of this node in its tree set by semantic preprocessing, or {@link #NO_NODE_ID}
+	 */
+	default int getNodeId() {
+		return NO_NODE_ID;
+	}
+
+	default void setNodeId(int nodeId) {
+	}
+
 	public boolean getHasLowestDepthError();
 
 	public void setHasLowestDepthError();
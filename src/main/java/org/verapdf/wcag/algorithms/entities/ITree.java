@@ -1,6 +1,9 @@
 package org.verapdf.wcag.algorithms.entities;
 
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface ITree extends Iterable<INode> {
 
@@ -9,4 +12,27 @@ public interface ITree extends Iterable<INode> {
 	default Iterator<INode> iterator() {
 		return new DFSTreeNodeIterator(getRoot());
 	}
+
+	/**
+	 * @return spliterator over nodes in post order, which splits the tree on subtree boundaries
+	 */
+	@Override
+	default Spliterator<INode> spliterator() {
+		return new TreeSpliterator(getRoot());
+	}
+
+	/**
+	 * @return sequential stream of nodes in post order
+	 */
+	default Stream<INode> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * @return parallel stream of nodes, the encounter order is post order. The tree should not be modified
+	 * while the stream is processed
+	 */
+	default Stream<INode> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
 }
@@ -0,0 +1,117 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import org.verapdf.wcag.algorithms.entities.content.TextLinesSnapshot;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.entities.enums.TextFormat;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.entities.geometry.MultiBoundingBox;
+import org.verapdf.wcag.algorithms.entities.maps.AccumulatedNodeMapper;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * State of a node, which is changed by the semantic checker: its semantic type, score, bounding box, recognized
+ * structure, lowest depth error flag and the reference to its accumulated node with the score and the text format
+ * of that node.
+ */
+public final class NodeSnapshot {
+
+	private final SemanticType semanticType;
+	private final Double correctSemanticScore;
+	private final BoundingBox boundingBox;
+	private final Long recognizedStructureId;
+	private final boolean hasLowestDepthError;
+	private final boolean hasAccumulatedNode;
+	private final INode accumulatedNode;
+	private final Double accumulatedNodeScore;
+	private final TextFormat textFormat;
+	private final TextLinesSnapshot textLinesSnapshot;
+
+	/**
+	 * @param hasTextLines true to record flags of the text lines of the accumulated text node as well
+	 */
+	public NodeSnapshot(INode node, AccumulatedNodeMapper mapper, boolean hasTextLines) {
+		this.semanticType = node.getSemanticType();
+		this.correctSemanticScore = node.getCorrectSemanticScore();
+		BoundingBox bbox = node.getBoundingBox();
+		this.boundingBox = bbox == null ? null :
+				bbox instanceof MultiBoundingBox ? new MultiBoundingBox(bbox) : new BoundingBox(bbox);
+		this.recognizedStructureId = node.getRecognizedStructureId();
+		this.hasLowestDepthError = node.getHasLowestDepthError();
+		this.hasAccumulatedNode = mapper.containsNode(node);
+		this.accumulatedNode = mapper.get(node);
+		this.accumulatedNodeScore = accumulatedNode != null ? accumulatedNode.getCorrectSemanticScore() : null;
+		this.textFormat = accumulatedNode instanceof SemanticTextNode ?
+				((SemanticTextNode) accumulatedNode).getTextFormat() : null;
+		this.textLinesSnapshot = hasTextLines && accumulatedNode instanceof SemanticTextNode ?
+				new TextLinesSnapshot(((SemanticTextNode) accumulatedNode).getLines()) : null;
+	}
+
+	/**
+	 * @return true if restoring of this snapshot does not change the node
+	 */
+	public boolean hasSameState(INode node, AccumulatedNodeMapper mapper) {
+		return semanticType == node.getSemanticType() &&
+		       Objects.equals(correctSemanticScore, node.getCorrectSemanticScore()) &&
+		       isSameBoundingBox(boundingBox, node.getBoundingBox()) &&
+		       Objects.equals(recognizedStructureId, node.getRecognizedStructureId()) &&
+		       hasLowestDepthError == node.getHasLowestDepthError() &&
+		       hasAccumulatedNode == mapper.containsNode(node) && accumulatedNode == mapper.get(node) &&
+		       (accumulatedNode == null || Objects.equals(accumulatedNodeScore, accumulatedNode.getCorrectSemanticScore())) &&
+		       (textFormat == null || textFormat == ((SemanticTextNode) accumulatedNode).getTextFormat()) &&
+		       (textLinesSnapshot == null || textLinesSnapshot.hasSameState());
+	}
+
+	public void restore(INode node, AccumulatedNodeMapper mapper) {
+		node.setSemanticType(semanticType);
+		node.setCorrectSemanticScore(correctSemanticScore);
+		if (boundingBox != null) {
+			node.setBoundingBox(boundingBox);
+		}
+		node.setRecognizedStructureId(recognizedStructureId);
+		if (node instanceof SemanticNode) {
+			((SemanticNode) node).setHasLowestDepthError(hasLowestDepthError);
+		}
+		if (accumulatedNode != null && accumulatedNode != node) {
+			accumulatedNode.setCorrectSemanticScore(accumulatedNodeScore);
+		}
+		if (textFormat != null) {
+			((SemanticTextNode) accumulatedNode).setTextFormat(textFormat);
+		}
+		if (textLinesSnapshot != null) {
+			textLinesSnapshot.restore();
+		}
+		if (hasAccumulatedNode) {
+			mapper.put(node, accumulatedNode);
+		} else {
+			mapper.remove(node);
+		}
+	}
+
+	private static boolean isSameBoundingBox(BoundingBox boundingBox, BoundingBox other) {
+		if (boundingBox == null || other == null) {
+			return boundingBox == other;
+		}
+		if (boundingBox.getClass() != other.getClass() ||
+		    !Objects.equals(boundingBox.getPageNumber(), other.getPageNumber()) ||
+		    !Objects.equals(boundingBox.getLastPageNumber(), other.getLastPageNumber()) ||
+		    boundingBox.getLeftX() != other.getLeftX() || boundingBox.getBottomY() != other.getBottomY() ||
+		    boundingBox.getRightX() != other.getRightX() || boundingBox.getTopY() != other.getTopY()) {
+			return false;
+		}
+		if (boundingBox instanceof MultiBoundingBox) {
+			List<BoundingBox> boundingBoxes = ((MultiBoundingBox) boundingBox).getBoundingBoxes();
+			List<BoundingBox> otherBoundingBoxes = ((MultiBoundingBox) other).getBoundingBoxes();
+			if (boundingBoxes.size() != otherBoundingBoxes.size()) {
+				return false;
+			}
+			for (int i = 0; i < boundingBoxes.size(); i++) {
+				if (!isSameBoundingBox(boundingBoxes.get(i), otherBoundingBoxes.get(i))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
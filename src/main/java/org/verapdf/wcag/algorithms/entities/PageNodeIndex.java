@@ -0,0 +1,337 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import java.util.*;
+
+/**
+ * Index of the nodes of a semantic tree by page number. For every page it keeps the leaf nodes located
+ * on the page and the roots of the minimal set of subtrees covering these leaves, both in reading order.
+ * A subtree root lies entirely on the page, except for a leaf spanning several pages, which is the root
+ * of its own subtree on each of its pages. Pages of nodes are taken from the bounding boxes of leaves,
+ * so the index can be built before the accumulation of nodes.
+ * <p>
+ * After edits of the tree the index is {@link #update(Set, Collection, Collection, Collection) updated} only
+ * on the pages of the edited subtrees, subtree roots of the changed pages are found again on the first request.
+ */
+public class PageNodeIndex {
+
+	private final FlatSemanticTree flatSemanticTree;
+	private final int[] firstPages;
+	private final int[] lastPages;
+	private final Map<INode, int[]> updatedPages = new IdentityHashMap<>();
+	private final List<List<INode>> leafNodes = new ArrayList<>();
+	private final List<List<INode>> subtreeRoots = new ArrayList<>();
+
+	public PageNodeIndex(ITree tree) {
+		this(new FlatSemanticTree(tree));
+	}
+
+	public PageNodeIndex(FlatSemanticTree flatSemanticTree) {
+		this.flatSemanticTree = flatSemanticTree;
+		int size = flatSemanticTree.size();
+		firstPages = new int[size];
+		lastPages = new int[size];
+		for (int id = size - 1; id >= 0; id--) {
+			if (flatSemanticTree.getFirstChild(id) == FlatSemanticTree.NO_NODE) {
+				firstPages[id] = flatSemanticTree.getFirstPage(id);
+				lastPages[id] = flatSemanticTree.getLastPage(id);
+				if (lastPages[id] < firstPages[id]) {
+					lastPages[id] = firstPages[id];
+				}
+			} else {
+				firstPages[id] = FlatSemanticTree.NO_PAGE;
+				lastPages[id] = FlatSemanticTree.NO_PAGE;
+				for (int childId = flatSemanticTree.getFirstChild(id); childId != FlatSemanticTree.NO_NODE;
+				     childId = flatSemanticTree.getNextSibling(childId)) {
+					if (firstPages[childId] == FlatSemanticTree.NO_PAGE) {
+						continue;
+					}
+					if (firstPages[id] == FlatSemanticTree.NO_PAGE || firstPages[childId] < firstPages[id]) {
+						firstPages[id] = firstPages[childId];
+					}
+					lastPages[id] = Math.max(lastPages[id], lastPages[childId]);
+				}
+			}
+		}
+		for (int id = 0; id < size; id++) {
+			if (firstPages[id] != FlatSemanticTree.NO_PAGE && flatSemanticTree.getSubtreeSize(id) == 1) {
+				for (int page = firstPages[id]; page <= lastPages[id]; page++) {
+					getNodes(leafNodes, page).add(flatSemanticTree.getNode(id));
+				}
+			}
+		}
+		for (int id = 0; id < size;) {
+			if (firstPages[id] == FlatSemanticTree.NO_PAGE) {
+				id += flatSemanticTree.getSubtreeSize(id);
+			} else if (firstPages[id] == lastPages[id] || flatSemanticTree.getSubtreeSize(id) == 1) {
+				for (int page = firstPages[id]; page <= lastPages[id]; page++) {
+					getNodes(subtreeRoots, page).add(flatSemanticTree.getNode(id));
+				}
+				id += flatSemanticTree.getSubtreeSize(id);
+			} else {
+				id++;
+			}
+		}
+	}
+
+	private static List<INode> getNodes(List<List<INode>> nodes, int pageNumber) {
+		while (nodes.size() <= pageNumber) {
+			nodes.add(new ArrayList<>());
+		}
+		return nodes.get(pageNumber);
+	}
+
+	/**
+	 * @return number of pages up to the last page containing nodes
+	 */
+	public int getPagesNumber() {
+		return leafNodes.size();
+	}
+
+	/**
+	 * @return leaf nodes located on the page in reading order
+	 */
+	public List<INode> getLeafNodes(Integer pageNumber) {
+		return getUnmodifiableNodes(leafNodes, pageNumber);
+	}
+
+	/**
+	 * @return roots of the minimal set of subtrees covering leaf nodes of the page in reading order
+	 */
+	public synchronized List<INode> getSubtreeRoots(Integer pageNumber) {
+		if (pageNumber != null && pageNumber >= 0 && pageNumber < subtreeRoots.size() &&
+		    subtreeRoots.get(pageNumber) == null) {
+			subtreeRoots.set(pageNumber, findSubtreeRoots(pageNumber));
+		}
+		return getUnmodifiableNodes(subtreeRoots, pageNumber);
+	}
+
+	private static List<INode> getUnmodifiableNodes(List<List<INode>> nodes, Integer pageNumber) {
+		if (pageNumber != null && pageNumber >= 0 && pageNumber < nodes.size()) {
+			return Collections.unmodifiableList(nodes.get(pageNumber));
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * The subtree root of a leaf is its highest ancestor lying entirely on the page, or the leaf itself.
+	 */
+	private List<INode> findSubtreeRoots(int pageNumber) {
+		List<INode> roots = new ArrayList<>();
+		for (INode leafNode : getNodes(leafNodes, pageNumber)) {
+			INode root = leafNode;
+			if (isOnPage(root, pageNumber)) {
+				while (root.getParent() != null && isOnPage(root.getParent(), pageNumber)) {
+					root = root.getParent();
+				}
+			}
+			if (roots.isEmpty() || roots.get(roots.size() - 1) != root) {
+				roots.add(root);
+			}
+		}
+		return roots;
+	}
+
+	private boolean isOnPage(INode node, int pageNumber) {
+		int[] pages = getPages(node);
+		return pages[0] == pageNumber && pages[1] == pageNumber;
+	}
+
+	/**
+	 * @return first page of the leaf nodes of the subtree of the node, or {@link FlatSemanticTree#NO_PAGE}
+	 * if they have no pages
+	 */
+	public int getFirstPage(INode node) {
+		return getPages(node)[0];
+	}
+
+	/**
+	 * @return last page of the leaf nodes of the subtree of the node, or {@link FlatSemanticTree#NO_PAGE}
+	 * if they have no pages
+	 */
+	public int getLastPage(INode node) {
+		return getPages(node)[1];
+	}
+
+	private int[] getPages(INode node) {
+		int[] pages = updatedPages.get(node);
+		if (pages != null) {
+			return pages;
+		}
+		int id = flatSemanticTree.getId(node);
+		if (id == FlatSemanticTree.NO_NODE) {
+			return new int[]{FlatSemanticTree.NO_PAGE, FlatSemanticTree.NO_PAGE};
+		}
+		return new int[]{firstPages[id], lastPages[id]};
+	}
+
+	/**
+	 * @return number of nodes, whose pages are kept apart from the snapshot of the tree after updates
+	 */
+	public int getUpdatedNodesNumber() {
+		return updatedPages.size();
+	}
+
+	/**
+	 * Updates the index after edits of the tree. The snapshot of the tree, which the index is built from, should
+	 * not contain moved and removed subtrees and subtrees, whose order among their siblings has changed.
+	 *
+	 * @param pages pages of the leaf nodes of the moved and removed subtrees before the edits
+	 * @param updatedNodes nodes, whose lists of children have changed
+	 * @param addedNodes roots of added and moved subtrees
+	 * @param removedNodes nodes of removed subtrees
+	 * @return pages, whose leaf nodes have changed
+	 */
+	public synchronized Set<Integer> update(Set<Integer> pages, Collection<INode> updatedNodes,
+	                                        Collection<INode> addedNodes, Collection<INode> removedNodes) {
+		for (INode removedNode : removedNodes) {
+			updatedPages.remove(removedNode);
+		}
+		Set<Integer> changedPages = new TreeSet<>(pages);
+		List<INode> nodes = new ArrayList<>();
+		for (INode addedNode : addedNodes) {
+			addSubtreeNodes(addedNode, nodes);
+		}
+		for (INode updatedNode : updatedNodes) {
+			if (updatedNode.getChildren().isEmpty()) {
+				nodes.add(updatedNode);
+			} else if (wasLeafNode(updatedNode)) {
+				addPages(changedPages, getPages(updatedNode));
+			}
+		}
+		Set<INode> addedLeafNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		Map<Integer, List<INode>> pageAddedLeafNodes = new HashMap<>();
+		for (INode node : nodes) {
+			if (node.getChildren().isEmpty() && addedLeafNodes.add(node)) {
+				addPages(changedPages, getPages(node));
+				int[] leafPages = getLeafPages(node);
+				updatedPages.put(node, leafPages);
+				addPages(changedPages, leafPages);
+				for (int page = leafPages[0]; leafPages[0] != FlatSemanticTree.NO_PAGE && page <= leafPages[1]; page++) {
+					pageAddedLeafNodes.computeIfAbsent(page, key -> new ArrayList<>()).add(node);
+				}
+			}
+		}
+		for (Integer page : changedPages) {
+			List<INode> pageLeafNodes = getNodes(leafNodes, page);
+			List<INode> keptLeafNodes = new ArrayList<>(pageLeafNodes.size());
+			for (INode leafNode : pageLeafNodes) {
+				if (leafNode.getChildren().isEmpty() && !addedLeafNodes.contains(leafNode) &&
+				    (flatSemanticTree.getId(leafNode) != FlatSemanticTree.NO_NODE || updatedPages.containsKey(leafNode))) {
+					keptLeafNodes.add(leafNode);
+				}
+			}
+			List<INode> newLeafNodes = pageAddedLeafNodes.getOrDefault(page, new ArrayList<>());
+			newLeafNodes.sort(flatSemanticTree::compare);
+			pageLeafNodes.clear();
+			merge(keptLeafNodes, newLeafNodes, pageLeafNodes);
+		}
+		Set<Integer> changedRootPages = new TreeSet<>(changedPages);
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			updatePages(nodes.get(i), changedRootPages);
+		}
+		Set<INode> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<INode> sortedAncestors = new ArrayList<>();
+		for (INode updatedNode : updatedNodes) {
+			for (INode node = updatedNode; node != null && ancestors.add(node); node = node.getParent()) {
+				sortedAncestors.add(node);
+			}
+		}
+		for (INode addedNode : addedNodes) {
+			for (INode node = addedNode.getParent(); node != null && ancestors.add(node); node = node.getParent()) {
+				sortedAncestors.add(node);
+			}
+		}
+		sortedAncestors.sort(Comparator.comparingInt(INode::getDepth).reversed());
+		for (INode node : sortedAncestors) {
+			updatePages(node, changedRootPages);
+		}
+		while (subtreeRoots.size() < leafNodes.size()) {
+			subtreeRoots.add(null);
+		}
+		for (Integer page : changedRootPages) {
+			if (page < subtreeRoots.size()) {
+				subtreeRoots.set(page, null);
+			}
+		}
+		return changedPages;
+	}
+
+	/**
+	 * @return true if the node was a leaf, when the snapshot was built, or if it is absent in the snapshot
+	 */
+	private boolean wasLeafNode(INode node) {
+		int id = flatSemanticTree.getId(node);
+		return id == FlatSemanticTree.NO_NODE || flatSemanticTree.getFirstChild(id) == FlatSemanticTree.NO_NODE;
+	}
+
+	private static void addSubtreeNodes(INode root, List<INode> nodes) {
+		Deque<INode> nodeStack = new ArrayDeque<>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			INode node = nodeStack.pop();
+			nodes.add(node);
+			for (int i = node.getChildren().size() - 1; i >= 0; i--) {
+				nodeStack.push(node.getChildren().get(i));
+			}
+		}
+	}
+
+	private static int[] getLeafPages(INode node) {
+		Integer firstPage = node.getPageNumber();
+		Integer lastPage = node.getLastPageNumber();
+		int[] pages = new int[]{firstPage != null ? firstPage : FlatSemanticTree.NO_PAGE,
+		                        lastPage != null ? lastPage : FlatSemanticTree.NO_PAGE};
+		if (pages[1] < pages[0]) {
+			pages[1] = pages[0];
+		}
+		return pages;
+	}
+
+	private static void addPages(Set<Integer> pageNumbers, int[] pages) {
+		for (int page = pages[0]; pages[0] != FlatSemanticTree.NO_PAGE && page <= pages[1]; page++) {
+			pageNumbers.add(page);
+		}
+	}
+
+	/**
+	 * Finds pages of an inner node from the pages of its children. Pages of the node before and after
+	 * the update are added to the changed pages, if they differ.
+	 */
+	private void updatePages(INode node, Set<Integer> changedPages) {
+		if (node.getChildren().isEmpty()) {
+			return;
+		}
+		int[] pages = new int[]{FlatSemanticTree.NO_PAGE, FlatSemanticTree.NO_PAGE};
+		for (INode child : node.getChildren()) {
+			int[] childPages = getPages(child);
+			if (childPages[0] == FlatSemanticTree.NO_PAGE) {
+				continue;
+			}
+			if (pages[0] == FlatSemanticTree.NO_PAGE || childPages[0] < pages[0]) {
+				pages[0] = childPages[0];
+			}
+			pages[1] = Math.max(pages[1], childPages[1]);
+		}
+		int[] oldPages = getPages(node);
+		if (oldPages[0] != pages[0] || oldPages[1] != pages[1]) {
+			addPages(changedPages, oldPages);
+			addPages(changedPages, pages);
+			updatedPages.put(node, pages);
+		} else if (flatSemanticTree.getId(node) == FlatSemanticTree.NO_NODE) {
+			updatedPages.put(node, pages);
+		}
+	}
+
+	private void merge(List<INode> nodes, List<INode> otherNodes, List<INode> mergedNodes) {
+		int index = 0;
+		int otherIndex = 0;
+		while (index < nodes.size() || otherIndex < otherNodes.size()) {
+			if (otherIndex == otherNodes.size() || index < nodes.size() &&
+			    flatSemanticTree.compare(nodes.get(index), otherNodes.get(otherIndex)) < 0) {
+				mergedNodes.add(nodes.get(index++));
+			} else {
+				mergedNodes.add(otherNodes.get(otherIndex++));
+			}
+		}
+	}
+}
@@ -20,6 +20,8 @@ public abstract class SemanticNode implements INode {
 	private final List<INode> children;
 	private final SemanticType initialSemanticType;
 	private int depth;
+	private int subtreeSize;
+	private int nodeId = NO_NODE_ID;
 	private boolean hasLowestDepthError = false;
 
 	public NodeInfo nodeInfo;
@@ -212,6 +214,10 @@ public abstract class SemanticNode implements INode {
 		this.hasLowestDepthError = true;
 	}
 
+	void setHasLowestDepthError(boolean hasLowestDepthError) {
+		this.hasLowestDepthError = hasLowestDepthError;
+	}
+
 	@Override
 	public boolean getHasLowestDepthError() {
 		return hasLowestDepthError;
@@ -222,6 +228,26 @@ public abstract class SemanticNode implements INode {
 		this.depth = depth;
 	}
 
+	@Override
+	public int getSubtreeSize() {
+		return subtreeSize;
+	}
+
+	@Override
+	public void setSubtreeSize(int subtreeSize) {
+		this.subtreeSize = subtreeSize;
+	}
+
+	@Override
+	public int getNodeId() {
+		return nodeId;
+	}
+
+	@Override
+	public void setNodeId(int nodeId) {
+		this.nodeId = nodeId;
+	}
+
 	@Override
 	public NodeInfo getNodeInfo() {
 		return nodeInfo;
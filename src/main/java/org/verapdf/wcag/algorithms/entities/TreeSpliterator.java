@@ -0,0 +1,115 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over nodes of a tree in post order. It covers a sequence of sibling subtrees, possibly followed
+ * by their parent node. A single subtree is split into the subtrees of its children and the root itself,
+ * a sequence is split in halves of about the same number of nodes.
+ * Sizes of subtrees are estimated by {@link INode#getSubtreeSize()}, or by numbers of children if unknown.
+ */
+class TreeSpliterator implements Spliterator<INode> {
+
+	private INode[] nodes;
+	private boolean[] wholeSubtrees;
+	private int from;
+	private int to;
+	private Iterator<INode> currentIterator;
+
+	TreeSpliterator(INode root) {
+		this(root != null ? new INode[]{root} : new INode[0], new boolean[]{true}, 0, root != null ? 1 : 0);
+	}
+
+	private TreeSpliterator(INode[] nodes, boolean[] wholeSubtrees, int from, int to) {
+		this.nodes = nodes;
+		this.wholeSubtrees = wholeSubtrees;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super INode> action) {
+		while (true) {
+			if (currentIterator != null) {
+				if (currentIterator.hasNext()) {
+					action.accept(currentIterator.next());
+					return true;
+				}
+				currentIterator = null;
+			}
+			if (from >= to) {
+				return false;
+			}
+			INode node = nodes[from];
+			boolean wholeSubtree = wholeSubtrees[from];
+			from++;
+			if (wholeSubtree) {
+				currentIterator = new DFSTreeNodeIterator(node);
+			} else {
+				action.accept(node);
+				return true;
+			}
+		}
+	}
+
+	@Override
+	public Spliterator<INode> trySplit() {
+		if (currentIterator != null || from >= to) {
+			return null;
+		}
+		if (to - from == 1) {
+			if (!wholeSubtrees[from] || nodes[from].getChildren().isEmpty()) {
+				return null;
+			}
+			splitSubtree(nodes[from]);
+		}
+		long half = estimateSize() / 2;
+		long size = 0;
+		int middle = from;
+		while (middle < to - 1 && (middle == from || size < half)) {
+			size += getSize(middle);
+			middle++;
+		}
+		TreeSpliterator prefix = new TreeSpliterator(nodes, wholeSubtrees, from, middle);
+		from = middle;
+		return prefix;
+	}
+
+	private void splitSubtree(INode root) {
+		List<INode> children = root.getChildren();
+		nodes = new INode[children.size() + 1];
+		wholeSubtrees = new boolean[children.size() + 1];
+		for (int i = 0; i < children.size(); i++) {
+			nodes[i] = children.get(i);
+			wholeSubtrees[i] = true;
+		}
+		nodes[children.size()] = root;
+		from = 0;
+		to = nodes.length;
+	}
+
+	@Override
+	public long estimateSize() {
+		long size = 0;
+		for (int i = from; i < to; i++) {
+			size += getSize(i);
+		}
+		return size;
+	}
+
+	private long getSize(int index) {
+		if (!wholeSubtrees[index]) {
+			return 1;
+		}
+		int subtreeSize = nodes[index].getSubtreeSize();
+		return subtreeSize > 0 ? subtreeSize : nodes[index].getChildren().size() + 1;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+}
@@ -0,0 +1,102 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs several {@link TreeVisitor visitors} in one depth-first pass over a tree. At every node the visitors
+ * are called in the order they were added. A subtree is descended into only while some visitor still needs it.
+ */
+public class TreeTraversal {
+
+	private static final int NOT_SKIPPED = -1;
+
+	private final List<TreeVisitor> visitors = new ArrayList<>();
+
+	public TreeTraversal addVisitor(TreeVisitor visitor) {
+		visitors.add(visitor);
+		return this;
+	}
+
+	public void traverse(ITree tree) {
+		traverse(tree.getRoot());
+	}
+
+	public void traverse(INode root) {
+		if (root == null || visitors.isEmpty()) {
+			return;
+		}
+		TreeVisitor[] activeVisitors = visitors.toArray(new TreeVisitor[0]);
+		int[] skippedDepths = new int[activeVisitors.length];
+		Arrays.fill(skippedDepths, NOT_SKIPPED);
+		boolean[] finished = new boolean[activeVisitors.length];
+
+		INode[] nodes = new INode[16];
+		int[] childIndexes = new int[16];
+		int depth = 0;
+		nodes[0] = root;
+		childIndexes[0] = enterNode(root, 0, activeVisitors, skippedDepths, finished) ? 0 : Integer.MAX_VALUE;
+		while (depth >= 0) {
+			INode node = nodes[depth];
+			List<INode> children = node.getChildren();
+			int childIndex = childIndexes[depth];
+			if (childIndex < children.size()) {
+				childIndexes[depth] = childIndex + 1;
+				INode child = children.get(childIndex);
+				depth++;
+				if (depth == nodes.length) {
+					nodes = Arrays.copyOf(nodes, 2 * depth);
+					childIndexes = Arrays.copyOf(childIndexes, 2 * depth);
+				}
+				nodes[depth] = child;
+				childIndexes[depth] = enterNode(child, depth, activeVisitors, skippedDepths, finished) ?
+				                      0 : Integer.MAX_VALUE;
+			} else {
+				nodes[depth] = null;
+				if (!exitNode(node, depth, activeVisitors, skippedDepths, finished)) {
+					return;
+				}
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * @return true if some visitor needs the children of the node
+	 */
+	private static boolean enterNode(INode node, int depth, TreeVisitor[] visitors, int[] skippedDepths,
+	                                 boolean[] finished) {
+		boolean descend = false;
+		for (int i = 0; i < visitors.length; i++) {
+			if (finished[i] || skippedDepths[i] != NOT_SKIPPED) {
+				continue;
+			}
+			if (!visitors[i].enterNode(node)) {
+				skippedDepths[i] = depth;
+			}
+			finished[i] = visitors[i].isFinished();
+			descend |= !finished[i] && skippedDepths[i] == NOT_SKIPPED;
+		}
+		return descend;
+	}
+
+	/**
+	 * @return true if some visitor is not finished
+	 */
+	private static boolean exitNode(INode node, int depth, TreeVisitor[] visitors, int[] skippedDepths,
+	                                boolean[] finished) {
+		boolean active = false;
+		for (int i = 0; i < visitors.length; i++) {
+			if (finished[i] || skippedDepths[i] != NOT_SKIPPED && skippedDepths[i] != depth) {
+				active |= !finished[i];
+				continue;
+			}
+			skippedDepths[i] = NOT_SKIPPED;
+			visitors[i].exitNode(node);
+			finished[i] = visitors[i].isFinished();
+			active |= !finished[i];
+		}
+		return active;
+	}
+}
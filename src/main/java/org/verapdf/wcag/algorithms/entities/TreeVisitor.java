@@ -0,0 +1,44 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import java.util.function.Consumer;
+
+/**
+ * Callbacks of a depth-first traversal of a semantic tree. Several visitors are run in a single pass
+ * by {@link TreeTraversal}.
+ */
+public interface TreeVisitor {
+
+	/**
+	 * Called before the children of the node are visited.
+	 *
+	 * @return false if this visitor should skip the children of the node
+	 */
+	default boolean enterNode(INode node) {
+		return true;
+	}
+
+	/**
+	 * Called after the children of the node are visited, also if they were skipped.
+	 */
+	default void exitNode(INode node) {
+	}
+
+	/**
+	 * @return true if this visitor needs no more nodes
+	 */
+	default boolean isFinished() {
+		return false;
+	}
+
+	/**
+	 * @return visitor passing nodes to the consumer in post order, the order of {@link ITree#iterator()}
+	 */
+	static TreeVisitor postOrder(Consumer<INode> consumer) {
+		return new TreeVisitor() {
+			@Override
+			public void exitNode(INode node) {
+				consumer.accept(node);
+			}
+		};
+	}
+}
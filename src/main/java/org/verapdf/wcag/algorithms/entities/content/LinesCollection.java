@@ -4,68 +4,50 @@ import org.verapdf.wcag.algorithms.entities.IDocument;
 
 import java.util.Map;
 import java.util.HashMap;
-import java.util.TreeSet;
 import java.util.SortedSet;
 
 public class LinesCollection {
-	private final Map<Integer, SortedSet<LineChunk>> horizontalLines;
-	private final Map<Integer, SortedSet<LineChunk>> verticalLines;
-	private final Map<Integer, SortedSet<LineChunk>> squares;
+	private final Map<Integer, PageLines> pages;
 
 	private final IDocument document;
 
 	public LinesCollection(IDocument document) {
-		horizontalLines = new HashMap<>();
-		verticalLines = new HashMap<>();
-		squares = new HashMap<>();
+		pages = new HashMap<>();
 		this.document = document;
 	}
 
 	public SortedSet<LineChunk> getHorizontalLines(Integer pageNumber) {
-		SortedSet<LineChunk> horizontalLines = this.horizontalLines.get(pageNumber);
-		if (horizontalLines == null) {
-			parseLines(pageNumber);
-			horizontalLines = this.horizontalLines.get(pageNumber);
-		}
-		return horizontalLines;
-	}
-
-	private void parseLines(Integer pageNumber) {
-		SortedSet<LineChunk> horizontalLines = new TreeSet<>(new LineChunk.HorizontalLineComparator());
-		SortedSet<LineChunk> verticalLines = new TreeSet<>(new LineChunk.VerticalLineComparator());
-		SortedSet<LineChunk> squares = new TreeSet<>(new LineChunk.VerticalLineComparator());
-		for (IChunk chunk : document.getArtifacts(pageNumber)) {
-			if (chunk instanceof LineChunk) {
-				LineChunk lineChunk = (LineChunk) chunk;
-				if (lineChunk.isHorizontalLine()) {
-					horizontalLines.add(lineChunk);
-				} else if (lineChunk.isVerticalLine()) {
-					verticalLines.add(lineChunk);
-				} else if (lineChunk.isSquare()) {
-					squares.add(lineChunk);
-				}
-			}
-		}
-		this.horizontalLines.put(pageNumber, horizontalLines);
-		this.verticalLines.put(pageNumber, verticalLines);
-		this.squares.put(pageNumber, squares);
+		return getPageLines(pageNumber).getHorizontalLines();
 	}
 
 	public SortedSet<LineChunk> getVerticalLines(Integer pageNumber) {
-		SortedSet<LineChunk> verticalLines = this.verticalLines.get(pageNumber);
-		if (verticalLines == null) {
-			parseLines(pageNumber);
-			verticalLines = this.verticalLines.get(pageNumber);
-		}
-		return verticalLines;
+		return getPageLines(pageNumber).getVerticalLines();
 	}
 
 	public SortedSet<LineChunk> getSquares(Integer pageNumber) {
-		SortedSet<LineChunk> squares = this.squares.get(pageNumber);
-		if (squares == null) {
-			parseLines(pageNumber);
-			squares = this.squares.get(pageNumber);
+		return getPageLines(pageNumber).getSquares();
+	}
+
+	public PageLines getPageLines(Integer pageNumber) {
+		PageLines pageLines = pages.get(pageNumber);
+		if (pageLines == null) {
+			pageLines = new PageLines(document, pageNumber);
+			pages.put(pageNumber, pageLines);
 		}
-		return squares;
+		return pageLines;
+	}
+
+	/**
+	 * @return lines of the page, or null if they are not parsed yet
+	 */
+	public PageLines getParsedPageLines(Integer pageNumber) {
+		return pages.get(pageNumber);
+	}
+
+	/**
+	 * Replaces lines of the page, for example by lines parsed and processed by a separate task.
+	 */
+	public void setPageLines(Integer pageNumber, PageLines pageLines) {
+		pages.put(pageNumber, pageLines);
 	}
 }
@@ -0,0 +1,43 @@
+package org.verapdf.wcag.algorithms.entities.content;
+
+import org.verapdf.wcag.algorithms.entities.IDocument;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Horizontal lines, vertical lines and squares of a single page. Lines of different pages are independent,
+ * so pages can be processed concurrently.
+ */
+public class PageLines {
+	private final SortedSet<LineChunk> horizontalLines = new TreeSet<>(new LineChunk.HorizontalLineComparator());
+	private final SortedSet<LineChunk> verticalLines = new TreeSet<>(new LineChunk.VerticalLineComparator());
+	private final SortedSet<LineChunk> squares = new TreeSet<>(new LineChunk.VerticalLineComparator());
+
+	public PageLines(IDocument document, Integer pageNumber) {
+		for (IChunk chunk : document.getArtifacts(pageNumber)) {
+			if (chunk instanceof LineChunk) {
+				LineChunk lineChunk = (LineChunk) chunk;
+				if (lineChunk.isHorizontalLine()) {
+					horizontalLines.add(lineChunk);
+				} else if (lineChunk.isVerticalLine()) {
+					verticalLines.add(lineChunk);
+				} else if (lineChunk.isSquare()) {
+					squares.add(lineChunk);
+				}
+			}
+		}
+	}
+
+	public SortedSet<LineChunk> getHorizontalLines() {
+		return horizontalLines;
+	}
+
+	public SortedSet<LineChunk> getVerticalLines() {
+		return verticalLines;
+	}
+
+	public SortedSet<LineChunk> getSquares() {
+		return squares;
+	}
+}
@@ -0,0 +1,161 @@
+package org.verapdf.wcag.algorithms.entities.content;
+
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.SemanticFigure;
+import org.verapdf.wcag.algorithms.entities.SemanticImageNode;
+import org.verapdf.wcag.algorithms.entities.SemanticTextNode;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.entities.geometry.RTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Spatial index of the content chunks of a page: artifacts of the page and chunks of the leaf nodes
+ * located on the page. Chunks are ranked by their order of addition, artifacts first, and queries return
+ * chunks of the given class by rank, except for nearest chunks, which are ordered by distance.
+ */
+public class PageSpatialIndex {
+
+	private final int pageNumber;
+	private final List<IChunk> chunks = new ArrayList<>();
+	private final List<INode> chunkNodes = new ArrayList<>();
+	private final RTree<Integer> tree;
+
+	public PageSpatialIndex(int pageNumber, List<? extends IChunk> artifacts, List<INode> leafNodes) {
+		this.pageNumber = pageNumber;
+		if (artifacts != null) {
+			for (IChunk artifact : artifacts) {
+				addChunk(artifact, null);
+			}
+		}
+		for (INode node : leafNodes) {
+			addChunks(node);
+		}
+		List<Integer> positions = new ArrayList<>(chunks.size());
+		for (int i = 0; i < chunks.size(); i++) {
+			positions.add(i);
+		}
+		tree = new RTree<>(positions, position -> chunks.get(position).getBoundingBox());
+	}
+
+	private void addChunks(INode node) {
+		if (node instanceof SemanticTextNode) {
+			for (TextLine line : ((SemanticTextNode) node).getLines()) {
+				for (TextChunk chunk : line.getTextChunks()) {
+					addChunkOnPage(chunk, node);
+				}
+			}
+		} else if (node instanceof SemanticImageNode) {
+			addChunkOnPage(((SemanticImageNode) node).getImage(), node);
+		} else if (node instanceof SemanticFigure) {
+			addChunkOnPage(((SemanticFigure) node).getLineArt(), node);
+		}
+	}
+
+	private void addChunkOnPage(IChunk chunk, INode node) {
+		if (chunk != null && chunk.getPageNumber() != null && chunk.getPageNumber() == pageNumber) {
+			addChunk(chunk, node);
+		}
+	}
+
+	private void addChunk(IChunk chunk, INode node) {
+		if (chunk != null && chunk.getBoundingBox() != null) {
+			chunks.add(chunk);
+			chunkNodes.add(node);
+		}
+	}
+
+	public int getPageNumber() {
+		return pageNumber;
+	}
+
+	public int size() {
+		return chunks.size();
+	}
+
+	/**
+	 * @return all chunks of the class
+	 */
+	public <T extends IChunk> List<T> getChunks(Class<T> chunkClass) {
+		List<T> result = new ArrayList<>();
+		for (IChunk chunk : chunks) {
+			if (chunkClass.isInstance(chunk)) {
+				result.add(chunkClass.cast(chunk));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Performs the action for the chunks of the class of leaf nodes, which intersect the bounding box extended
+	 * by epsilon, together with their leaf nodes. Chunks are passed by rank, artifacts are skipped.
+	 */
+	public <T extends IChunk> void forEachLeafChunk(Class<T> chunkClass, BoundingBox boundingBox, double epsilon,
+	                                                BiConsumer<T, INode> action) {
+		for (Integer position : getPositions(chunkClass, getIntersectionFilter(boundingBox, epsilon))) {
+			INode node = chunkNodes.get(position);
+			if (node != null) {
+				action.accept(chunkClass.cast(chunks.get(position)), node);
+			}
+		}
+	}
+
+	/**
+	 * @return chunks of the class, which intersect the bounding box extended by epsilon
+	 */
+	public <T extends IChunk> List<T> getChunks(Class<T> chunkClass, BoundingBox boundingBox, double epsilon) {
+		return getChunks(chunkClass, getIntersectionFilter(boundingBox, epsilon));
+	}
+
+	/**
+	 * @return chunks of the class, which intersect the vertical band between x coordinates extended by epsilon
+	 */
+	public <T extends IChunk> List<T> getChunksInVerticalBand(Class<T> chunkClass, double leftX, double rightX,
+	                                                          double epsilon) {
+		double bandLeftX = leftX - epsilon;
+		double bandRightX = rightX + epsilon;
+		return getChunks(chunkClass, (left, bottom, right, top) -> left <= bandRightX && bandLeftX <= right);
+	}
+
+	/**
+	 * @return at most k chunks of the class nearest to the point
+	 */
+	public <T extends IChunk> List<T> getNearestChunks(Class<T> chunkClass, double x, double y, int k) {
+		List<T> result = new ArrayList<>();
+		for (Integer position : tree.findNearest(x, y, k, position -> chunkClass.isInstance(chunks.get(position)))) {
+			result.add(chunkClass.cast(chunks.get(position)));
+		}
+		return result;
+	}
+
+	private static RTree.RectangleFilter getIntersectionFilter(BoundingBox boundingBox, double epsilon) {
+		double leftX = boundingBox.getLeftX() - epsilon;
+		double bottomY = boundingBox.getBottomY() - epsilon;
+		double rightX = boundingBox.getRightX() + epsilon;
+		double topY = boundingBox.getTopY() + epsilon;
+		return (left, bottom, right, top) -> left <= rightX && leftX <= right && bottom <= topY && bottomY <= top;
+	}
+
+	private <T extends IChunk> List<T> getChunks(Class<T> chunkClass, RTree.RectangleFilter filter) {
+		List<Integer> positions = getPositions(chunkClass, filter);
+		List<T> result = new ArrayList<>(positions.size());
+		for (Integer position : positions) {
+			result.add(chunkClass.cast(chunks.get(position)));
+		}
+		return result;
+	}
+
+	private List<Integer> getPositions(Class<? extends IChunk> chunkClass, RTree.RectangleFilter filter) {
+		List<Integer> positions = new ArrayList<>();
+		tree.forEach(filter, position -> {
+			if (chunkClass.isInstance(chunks.get(position))) {
+				positions.add(position);
+			}
+		});
+		Collections.sort(positions);
+		return positions;
+	}
+}
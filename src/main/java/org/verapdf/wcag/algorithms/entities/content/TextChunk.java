@@ -99,6 +99,10 @@ public class TextChunk extends TextInfoChunk {
         this.hasSpecialStyle = true;
     }
 
+    void setHasSpecialStyle(boolean hasSpecialStyle) {
+        this.hasSpecialStyle = hasSpecialStyle;
+    }
+
     public boolean getIsUnderlinedText() {
         return isUnderlinedText;
     }
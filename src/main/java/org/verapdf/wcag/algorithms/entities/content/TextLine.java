@@ -75,6 +75,10 @@ public class TextLine extends TextInfoChunk {
         fullLine = false;
     }
 
+    void setFullLine(boolean fullLine) {
+        this.fullLine = fullLine;
+    }
+
     public boolean isFullLine() {
         return fullLine;
     }
@@ -0,0 +1,66 @@
+package org.verapdf.wcag.algorithms.entities.content;
+
+import org.verapdf.wcag.algorithms.entities.enums.TextFormat;
+
+import java.util.List;
+
+/**
+ * Flags of text lines and their chunks, which are changed when text nodes are merged.
+ */
+public final class TextLinesSnapshot {
+
+    private final TextLine[] lines;
+    private final boolean[] fullLines;
+    private final TextChunk[] chunks;
+    private final TextFormat[] textFormats;
+    private final boolean[] specialStyles;
+
+    public TextLinesSnapshot(List<TextLine> textLines) {
+        int chunksNumber = 0;
+        for (TextLine line : textLines) {
+            chunksNumber += line.getTextChunks().size();
+        }
+        lines = textLines.toArray(new TextLine[0]);
+        fullLines = new boolean[lines.length];
+        chunks = new TextChunk[chunksNumber];
+        textFormats = new TextFormat[chunksNumber];
+        specialStyles = new boolean[chunksNumber];
+        int chunkIndex = 0;
+        for (int i = 0; i < lines.length; i++) {
+            fullLines[i] = lines[i].isFullLine();
+            for (TextChunk chunk : lines[i].getTextChunks()) {
+                chunks[chunkIndex] = chunk;
+                textFormats[chunkIndex] = chunk.getTextFormat();
+                specialStyles[chunkIndex] = chunk.getHasSpecialStyle();
+                chunkIndex++;
+            }
+        }
+    }
+
+    /**
+     * @return true if the lines and chunks of the snapshot have the recorded flags
+     */
+    public boolean hasSameState() {
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isFullLine() != fullLines[i]) {
+                return false;
+            }
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i].getTextFormat() != textFormats[i] || chunks[i].getHasSpecialStyle() != specialStyles[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void restore() {
+        for (int i = 0; i < lines.length; i++) {
+            lines[i].setFullLine(fullLines[i]);
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i].setTextFormat(textFormats[i]);
+            chunks[i].setHasSpecialStyle(specialStyles[i]);
+        }
+    }
+}
@@ -3,11 +3,24 @@ package org.verapdf.wcag.algorithms.entities.geometry;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.ContextUtils;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 public class BoundingBox {
-    protected Integer pageNumber;
-    protected Integer lastPageNumber;
+    /**
+     * Value of page numbers of a bounding box without pages
+     */
+    public static final int NO_PAGE_NUMBER = Integer.MIN_VALUE;
+
+    // Boxed page numbers returned by the getters, so that the getters do not allocate for most documents
+    private static final Integer[] PAGE_NUMBERS = new Integer[1024];
+
+    static {
+        for (int i = 0; i < PAGE_NUMBERS.length; i++) {
+            PAGE_NUMBERS[i] = i;
+        }
+    }
+
+    protected int pageNumber = NO_PAGE_NUMBER;
+    protected int lastPageNumber = NO_PAGE_NUMBER;
     protected double leftX;
     protected double bottomY;
     protected double rightX;
@@ -21,7 +34,7 @@ public class BoundingBox {
 
     public BoundingBox(Integer pageNumber) {
         init(Double.MAX_VALUE, Double.MAX_VALUE, 0, 0);
-        this.pageNumber = this.lastPageNumber = pageNumber;
+        this.pageNumber = this.lastPageNumber = toPageNumber(pageNumber);
     }
 
     public BoundingBox(double[] bbox) {
@@ -30,13 +43,13 @@ public class BoundingBox {
 
     public BoundingBox(Integer pageNumber, double[] bbox) {
         init(bbox[0], bbox[1], bbox[2], bbox[3]);
-        this.pageNumber = this.lastPageNumber = pageNumber;
+        this.pageNumber = this.lastPageNumber = toPageNumber(pageNumber);
     }
 
     public BoundingBox(Integer pageNumber, Integer lastPageNumber, double[] bbox) {
         init(bbox[0], bbox[1], bbox[2], bbox[3]);
-        this.pageNumber = pageNumber;
-        this.lastPageNumber = lastPageNumber;
+        this.pageNumber = toPageNumber(pageNumber);
+        this.lastPageNumber = toPageNumber(lastPageNumber);
     }
 
     public BoundingBox(double left, double bottom, double right, double top) {
@@ -45,36 +58,51 @@ public class BoundingBox {
 
     public BoundingBox(Integer pageNumber, double left, double bottom, double right, double top) {
         init(left, bottom, right, top);
-        this.pageNumber = this.lastPageNumber = pageNumber;
+        this.pageNumber = this.lastPageNumber = toPageNumber(pageNumber);
     }
 
     public BoundingBox(Integer pageNumber, Integer lastPageNumber, double left, double bottom, double right, double top) {
         init(left, bottom, right, top);
-        this.pageNumber = pageNumber;
-        this.lastPageNumber = lastPageNumber;
+        this.pageNumber = toPageNumber(pageNumber);
+        this.lastPageNumber = toPageNumber(lastPageNumber);
     }
 
     public BoundingBox(BoundingBox o) {
         init(o);
     }
 
+    private static int toPageNumber(Integer pageNumber) {
+        return pageNumber != null ? pageNumber : NO_PAGE_NUMBER;
+    }
+
+    private static Integer toInteger(int pageNumber) {
+        if (pageNumber == NO_PAGE_NUMBER) {
+            return null;
+        }
+        return pageNumber >= 0 && pageNumber < PAGE_NUMBERS.length ? PAGE_NUMBERS[pageNumber] : Integer.valueOf(pageNumber);
+    }
+
     public void setPageNumber(Integer pageNumber) {
-        this.pageNumber = pageNumber;
-        if (lastPageNumber == null || lastPageNumber < pageNumber) {
-            this.lastPageNumber = pageNumber;
+        this.pageNumber = toPageNumber(pageNumber);
+        if (lastPageNumber == NO_PAGE_NUMBER || lastPageNumber < this.pageNumber) {
+            this.lastPageNumber = this.pageNumber;
         }
     }
 
     public void setLastPageNumber(Integer lastPageNumber) {
-        this.lastPageNumber = lastPageNumber;
+        this.lastPageNumber = toPageNumber(lastPageNumber);
     }
 
     public Integer getPageNumber() {
-        return pageNumber;
+        return toInteger(pageNumber);
     }
 
     public Integer getLastPageNumber() {
-        return lastPageNumber;
+        return toInteger(lastPageNumber);
+    }
+
+    public boolean hasPageNumber() {
+        return pageNumber != NO_PAGE_NUMBER;
     }
 
     static public BoundingBox union(BoundingBox first, BoundingBox second) {
@@ -83,10 +111,10 @@ public class BoundingBox {
     }
 
     public BoundingBox union(BoundingBox second) {
-        if (second == null || second.pageNumber == null) {
+        if (second == null || second.pageNumber == NO_PAGE_NUMBER) {
             return this;
         }
-        if (pageNumber == null) {
+        if (pageNumber == NO_PAGE_NUMBER) {
             init(second);
             return this;
         }
@@ -96,14 +124,14 @@ public class BoundingBox {
         if (this.rightX < second.rightX) {
             this.rightX = second.rightX;
         }
-        if (this.pageNumber.equals(second.pageNumber)) {
+        if (this.pageNumber == second.pageNumber) {
             this.topY = Math.max(this.topY, second.topY);
         }
         else if (second.pageNumber < this.pageNumber) {
             this.topY = second.topY;
             this.pageNumber = second.pageNumber;
         }
-        if (this.lastPageNumber.equals(second.lastPageNumber)) {
+        if (this.lastPageNumber == second.lastPageNumber) {
             this.bottomY = Math.min(this.bottomY, second.bottomY);
         }
         else if (this.lastPageNumber < second.lastPageNumber) {
@@ -114,7 +142,7 @@ public class BoundingBox {
     }
 
     public BoundingBox normalize() {
-        if (pageNumber.equals(lastPageNumber)) {
+        if (pageNumber == lastPageNumber) {
             return normalize(leftX, bottomY, rightX, topY);
         }
         return normalize(leftX, rightX);
@@ -125,7 +153,7 @@ public class BoundingBox {
     }
 
     public double getHeight() {
-        return (pageNumber != null && pageNumber.equals(lastPageNumber) && topY > bottomY) ? topY - bottomY : 0;
+        return (pageNumber != NO_PAGE_NUMBER && pageNumber == lastPageNumber && topY > bottomY) ? topY - bottomY : 0;
     }
 
     @Override
@@ -140,10 +168,14 @@ public class BoundingBox {
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         temp = Double.doubleToLongBits(topY);
         result = 31 * result + (int) (temp ^ (temp >>> 32));
-        result = 31 * result + Objects.hash(pageNumber, lastPageNumber);
+        result = 31 * result + 31 * (31 + pageNumberHashCode(pageNumber)) + pageNumberHashCode(lastPageNumber);
         return result;
     }
 
+    private static int pageNumberHashCode(int pageNumber) {
+        return pageNumber != NO_PAGE_NUMBER ? pageNumber : 0;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -155,11 +187,11 @@ public class BoundingBox {
 
         BoundingBox that = (BoundingBox) o;
 
-        if (!Objects.equals(pageNumber, that.pageNumber)) {
+        if (pageNumber != that.pageNumber) {
             return false;
         }
 
-        if (!Objects.equals(lastPageNumber, that.lastPageNumber)) {
+        if (lastPageNumber != that.lastPageNumber) {
             return false;
         }
 
@@ -180,7 +212,7 @@ public class BoundingBox {
     }
 
     public boolean overlaps(BoundingBox other, double eps) {
-        if (pageNumber == null || other.pageNumber == null) {
+        if (pageNumber == NO_PAGE_NUMBER || other.pageNumber == NO_PAGE_NUMBER) {
             return false;
         }
         return !notOverlaps(other, eps);
@@ -191,13 +223,13 @@ public class BoundingBox {
     }
 
     public boolean notOverlaps(BoundingBox other, double eps) {
-        if (pageNumber == null || other.pageNumber == null) {
+        if (pageNumber == NO_PAGE_NUMBER || other.pageNumber == NO_PAGE_NUMBER) {
             return true;
         }
         return leftX > (other.rightX + eps) || (rightX + eps) < other.leftX
                 || pageNumber > other.lastPageNumber || lastPageNumber < other.pageNumber
-                || (bottomY > (other.topY + eps) && lastPageNumber.equals(other.pageNumber))
-                || ((topY + eps) < other.bottomY && pageNumber.equals(other.lastPageNumber));
+                || (bottomY > (other.topY + eps) && lastPageNumber == other.pageNumber)
+                || ((topY + eps) < other.bottomY && pageNumber == other.lastPageNumber);
     }
 
     public boolean contains(BoundingBox other) {
@@ -205,23 +237,23 @@ public class BoundingBox {
     }
 
     public boolean contains(BoundingBox other, double horizontalOffset, double verticalOffset) {
-        if (pageNumber == null || other.pageNumber == null) {
+        if (pageNumber == NO_PAGE_NUMBER || other.pageNumber == NO_PAGE_NUMBER) {
             return false;
         }
         return leftX < (other.leftX + horizontalOffset) && other.rightX < (rightX + horizontalOffset)
                && (pageNumber < other.pageNumber
-                   || (pageNumber.equals(other.pageNumber) && other.topY < (topY + verticalOffset)))
+                   || (pageNumber == other.pageNumber && other.topY < (topY + verticalOffset)))
                && (lastPageNumber > other.lastPageNumber
-                   || (lastPageNumber.equals(other.lastPageNumber) && bottomY < (other.bottomY + verticalOffset)));
+                   || (lastPageNumber == other.lastPageNumber && bottomY < (other.bottomY + verticalOffset)));
     }
 
     public boolean weaklyContains(BoundingBox fullRectangle) {
-        if (pageNumber == null || fullRectangle.pageNumber == null) {
+        if (pageNumber == NO_PAGE_NUMBER || fullRectangle.pageNumber == NO_PAGE_NUMBER) {
             return false;
         }
-        if (pageNumber.equals(fullRectangle.pageNumber)
-                && lastPageNumber.equals(fullRectangle.pageNumber)
-                && pageNumber.equals(lastPageNumber)) {
+        if (pageNumber == fullRectangle.pageNumber
+                && lastPageNumber == fullRectangle.pageNumber
+                && pageNumber == lastPageNumber) {
             BoundingBox part = cross(fullRectangle);
             return part != null && part.getArea() >= fullRectangle.getArea() * 0.7;
         }
@@ -250,14 +282,14 @@ public class BoundingBox {
             pageNumber = other.pageNumber;
             topY = other.topY;
         }
-        else if (pageNumber.equals(other.pageNumber) && other.topY < topY) {
+        else if (pageNumber == other.pageNumber && other.topY < topY) {
             topY = other.topY;
         }
         if (lastPageNumber > other.lastPageNumber) {
             lastPageNumber = other.lastPageNumber;
             bottomY = other.bottomY;
         }
-        else if (lastPageNumber.equals(other.lastPageNumber) && bottomY < other.bottomY) {
+        else if (lastPageNumber == other.lastPageNumber && bottomY < other.bottomY) {
             bottomY = other.bottomY;
         }
 
@@ -293,14 +325,14 @@ public class BoundingBox {
     }
 
     public boolean isEmpty() {
-        return pageNumber == null
+        return pageNumber == NO_PAGE_NUMBER
                 ||leftX > (rightX + EPSILON) || lastPageNumber < pageNumber
-                || (pageNumber.equals(lastPageNumber) && bottomY > (topY + EPSILON));
+                || (pageNumber == lastPageNumber && bottomY > (topY + EPSILON));
     }
 
     public BoundingBox scale(double coeffX, double coeffY) {
         rightX = leftX + (rightX - leftX) * coeffX;
-        if (pageNumber == null || pageNumber.equals(lastPageNumber)) {
+        if (pageNumber == NO_PAGE_NUMBER || pageNumber == lastPageNumber) {
             topY = bottomY + (topY - bottomY) * coeffY;
         }
         return this;
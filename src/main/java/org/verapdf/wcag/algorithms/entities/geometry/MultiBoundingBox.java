@@ -1,57 +1,70 @@
 package org.verapdf.wcag.algorithms.entities.geometry;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Bounding box, which keeps the bounding boxes it is united from. Component boxes are packed into arrays
+ * of coordinates and page numbers, which copies of the box share until one of them changes its components.
+ */
 public class MultiBoundingBox extends BoundingBox {
 
-    private List<BoundingBox> boundingBoxes = new LinkedList<>();
+    private static final int INITIAL_CAPACITY = 4;
+
+    // Left, bottom, right and top coordinates of component boxes
+    private double[] rects;
+    // First and last page numbers of component boxes
+    private int[] pages;
+    private int size;
+    // Whether the arrays may be referenced by other boxes
+    private boolean isShared;
 
     public MultiBoundingBox() {
         init(Double.MAX_VALUE, Double.MAX_VALUE, 0, 0);
-        boundingBoxes.add(new BoundingBox());
+        add(NO_PAGE_NUMBER, NO_PAGE_NUMBER, Double.MAX_VALUE, Double.MAX_VALUE, 0, 0);
     }
 
     public MultiBoundingBox(int pageNumber) {
         init(Double.MAX_VALUE, Double.MAX_VALUE, 0, 0);
         this.pageNumber = this.lastPageNumber = pageNumber;
-        boundingBoxes.add(new BoundingBox(pageNumber));
+        add(pageNumber, pageNumber, Double.MAX_VALUE, Double.MAX_VALUE, 0, 0);
     }
 
     public MultiBoundingBox(double[] bbox) {
         init(bbox[0], bbox[1], bbox[2], bbox[3]);
-        boundingBoxes.add(new BoundingBox(bbox));
+        add(NO_PAGE_NUMBER, NO_PAGE_NUMBER, bbox[0], bbox[1], bbox[2], bbox[3]);
     }
 
     public MultiBoundingBox(int pageNumber, double[] bbox) {
         init(bbox[0], bbox[1], bbox[2], bbox[3]);
         this.pageNumber = this.lastPageNumber = pageNumber;
-        boundingBoxes.add(new BoundingBox(pageNumber, bbox));
+        add(pageNumber, pageNumber, bbox[0], bbox[1], bbox[2], bbox[3]);
     }
 
     public MultiBoundingBox(int pageNumber, int lastPageNumber, double[] bbox) {
         init(bbox[0], bbox[1], bbox[2], bbox[3]);
         this.pageNumber = pageNumber;
         this.lastPageNumber = lastPageNumber;
-        boundingBoxes.add(new BoundingBox(pageNumber, lastPageNumber, bbox));
+        add(pageNumber, lastPageNumber, bbox[0], bbox[1], bbox[2], bbox[3]);
     }
 
     public MultiBoundingBox(double left, double bottom, double right, double top) {
         init(left, bottom, right, top);
-        boundingBoxes.add(new BoundingBox(left, bottom, right, top));
+        add(NO_PAGE_NUMBER, NO_PAGE_NUMBER, left, bottom, right, top);
     }
 
     public MultiBoundingBox(int pageNumber, double left, double bottom, double right, double top) {
         init(left, bottom, right, top);
         this.pageNumber = this.lastPageNumber = pageNumber;
-        boundingBoxes.add(new BoundingBox(pageNumber, left, bottom, right, top));
+        add(pageNumber, pageNumber, left, bottom, right, top);
     }
 
     public MultiBoundingBox(int pageNumber, int lastPageNumber, double left, double bottom, double right, double top) {
         init(left, bottom, right, top);
         this.pageNumber = pageNumber;
         this.lastPageNumber = lastPageNumber;
-        boundingBoxes.add(new BoundingBox(pageNumber, lastPageNumber, left, bottom, right, top));
+        add(pageNumber, lastPageNumber, left, bottom, right, top);
     }
 
     public MultiBoundingBox(BoundingBox o) {
@@ -65,17 +78,17 @@ public class MultiBoundingBox extends BoundingBox {
 
     @Override
     public MultiBoundingBox union(BoundingBox second) {
-        if (second == null || second.getPageNumber() == null) {
+        if (second == null || !second.hasPageNumber()) {
             return this;
         }
-        if (pageNumber == null) {
+        if (pageNumber == NO_PAGE_NUMBER) {
             init(second);
             return this;
         }
         if (second instanceof MultiBoundingBox) {
-            boundingBoxes.addAll(((MultiBoundingBox)second).boundingBoxes);
+            addAll((MultiBoundingBox)second);
         } else {
-            boundingBoxes.add(new BoundingBox(second));
+            add(second);
         }
 
         if (second.leftX < this.leftX) {
@@ -84,14 +97,14 @@ public class MultiBoundingBox extends BoundingBox {
         if (this.rightX < second.rightX) {
             this.rightX = second.rightX;
         }
-        if (this.pageNumber.equals(second.pageNumber)) {
+        if (this.pageNumber == second.pageNumber) {
             this.topY = Math.max(this.topY, second.topY);
         }
         else if (second.pageNumber < this.pageNumber) {
             this.topY = second.topY;
             this.pageNumber = second.pageNumber;
         }
-        if (this.lastPageNumber.equals(second.lastPageNumber)) {
+        if (this.lastPageNumber == second.lastPageNumber) {
             this.bottomY = Math.min(this.bottomY, second.bottomY);
         }
         else if (this.lastPageNumber < second.lastPageNumber) {
@@ -105,16 +118,21 @@ public class MultiBoundingBox extends BoundingBox {
 
     @Override
     public BoundingBox scale(double coeffX, double coeffY) {
-        for (BoundingBox boundingBox : boundingBoxes) {
-            boundingBox.scale(coeffX, coeffY);
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            BoundingBox boundingBox = getBoundingBox(i).scale(coeffX, coeffY);
+            rects[4 * i + 2] = boundingBox.rightX;
+            rects[4 * i + 3] = boundingBox.topY;
         }
         return super.scale(coeffX, coeffY);
     }
 
     @Override
     public BoundingBox move(double xShift, double yShift) {
-        for (BoundingBox boundingBox : boundingBoxes) {
-            boundingBox.move(xShift, yShift);
+        ensureCapacity(size);
+        for (int i = 0; i < 4 * size; i += 2) {
+            rects[i] += xShift;
+            rects[i + 1] += yShift;
         }
         return super.move(xShift, yShift);
     }
@@ -123,11 +141,16 @@ public class MultiBoundingBox extends BoundingBox {
     public void init(BoundingBox rect) {
         super.init(rect);
 
-        boundingBoxes = new LinkedList<>();
         if (rect instanceof MultiBoundingBox) {
-            boundingBoxes.addAll(((MultiBoundingBox)rect).boundingBoxes);
+            MultiBoundingBox multiBoundingBox = (MultiBoundingBox) rect;
+            rects = multiBoundingBox.rects;
+            pages = multiBoundingBox.pages;
+            size = multiBoundingBox.size;
+            isShared = true;
+            multiBoundingBox.isShared = true;
         } else {
-            boundingBoxes.add(new BoundingBox(rect));
+            clear();
+            add(rect);
         }
     }
 
@@ -135,11 +158,75 @@ public class MultiBoundingBox extends BoundingBox {
     public void init(double left, double bottom, double right, double top) {
         super.init(left, bottom, right, top);
 
-        boundingBoxes = new LinkedList<>();
-        boundingBoxes.add(new BoundingBox(this));
+        clear();
+        add(this);
+    }
+
+    private void clear() {
+        rects = new double[4 * INITIAL_CAPACITY];
+        pages = new int[2 * INITIAL_CAPACITY];
+        size = 0;
+        isShared = false;
     }
 
+    /**
+     * Makes the arrays owned by this box and able to keep the given number of component boxes.
+     */
+    private void ensureCapacity(int capacity) {
+        int currentCapacity = pages.length / 2;
+        if (isShared || capacity > currentCapacity) {
+            int newCapacity = capacity > currentCapacity ? Math.max(capacity, 2 * currentCapacity) : currentCapacity;
+            rects = Arrays.copyOf(rects, 4 * newCapacity);
+            pages = Arrays.copyOf(pages, 2 * newCapacity);
+            isShared = false;
+        }
+    }
+
+    private void add(BoundingBox boundingBox) {
+        add(boundingBox.pageNumber, boundingBox.lastPageNumber, boundingBox.leftX, boundingBox.bottomY,
+            boundingBox.rightX, boundingBox.topY);
+    }
+
+    private void add(int pageNumber, int lastPageNumber, double left, double bottom, double right, double top) {
+        ensureCapacity(size + 1);
+        rects[4 * size] = left;
+        rects[4 * size + 1] = bottom;
+        rects[4 * size + 2] = right;
+        rects[4 * size + 3] = top;
+        pages[2 * size] = pageNumber;
+        pages[2 * size + 1] = lastPageNumber;
+        size++;
+    }
+
+    private void addAll(MultiBoundingBox multiBoundingBox) {
+        int otherSize = multiBoundingBox.size;
+        ensureCapacity(size + otherSize);
+        System.arraycopy(multiBoundingBox.rects, 0, rects, 4 * size, 4 * otherSize);
+        System.arraycopy(multiBoundingBox.pages, 0, pages, 2 * size, 2 * otherSize);
+        size += otherSize;
+    }
+
+    private BoundingBox getBoundingBox(int index) {
+        return new BoundingBox(pages[2 * index] != NO_PAGE_NUMBER ? pages[2 * index] : null,
+                               pages[2 * index + 1] != NO_PAGE_NUMBER ? pages[2 * index + 1] : null,
+                               rects[4 * index], rects[4 * index + 1], rects[4 * index + 2], rects[4 * index + 3]);
+    }
+
+    /**
+     * @return number of component boxes
+     */
+    public int getBoundingBoxesNumber() {
+        return size;
+    }
+
+    /**
+     * @return copies of component boxes in the order of their addition
+     */
     public List<BoundingBox> getBoundingBoxes() {
+        List<BoundingBox> boundingBoxes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            boundingBoxes.add(getBoundingBox(i));
+        }
         return boundingBoxes;
     }
 }
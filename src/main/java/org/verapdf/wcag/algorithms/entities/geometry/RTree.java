@@ -0,0 +1,251 @@
+package org.verapdf.wcag.algorithms.entities.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Static R-tree over bounding boxes of items, bulk loaded by Sort-Tile-Recursive packing.
+ * Items are ranked by their positions in the list given on construction, queries return matching items
+ * with the lowest rank first, as a linear scan of the list would do.
+ */
+public class RTree<T> {
+
+    private static final int NODE_CAPACITY = 8;
+
+    private final List<T> items;
+    // Entries of level 0 are items, entries of the next levels are nodes, whose children are the entries
+    // from childStarts inclusive to childEnds exclusive of the previous level.
+    private final double[][] leftXs;
+    private final double[][] bottomYs;
+    private final double[][] rightXs;
+    private final double[][] topYs;
+    private final int[][] minIndexes;
+    private final int[][] childStarts;
+    private final int[][] childEnds;
+
+    /**
+     * Filter of rectangles, which should accept a rectangle if it accepts any rectangle inside it.
+     */
+    public interface RectangleFilter {
+        boolean test(double leftX, double bottomY, double rightX, double topY);
+    }
+
+    public RTree(List<T> items, Function<T, BoundingBox> boundingBoxGetter) {
+        this.items = Collections.unmodifiableList(items);
+        int levelsNumber = 1;
+        for (int size = items.size(); size > NODE_CAPACITY; size = (size + NODE_CAPACITY - 1) / NODE_CAPACITY) {
+            levelsNumber++;
+        }
+        leftXs = new double[levelsNumber][];
+        bottomYs = new double[levelsNumber][];
+        rightXs = new double[levelsNumber][];
+        topYs = new double[levelsNumber][];
+        minIndexes = new int[levelsNumber][];
+        childStarts = new int[levelsNumber][];
+        childEnds = new int[levelsNumber][];
+        int size = items.size();
+        leftXs[0] = new double[size];
+        bottomYs[0] = new double[size];
+        rightXs[0] = new double[size];
+        topYs[0] = new double[size];
+        minIndexes[0] = new int[size];
+        for (int i = 0; i < size; i++) {
+            BoundingBox boundingBox = boundingBoxGetter.apply(items.get(i));
+            leftXs[0][i] = boundingBox.getLeftX();
+            bottomYs[0][i] = boundingBox.getBottomY();
+            rightXs[0][i] = boundingBox.getRightX();
+            topYs[0][i] = boundingBox.getTopY();
+            minIndexes[0][i] = i;
+        }
+        for (int level = 0; level < levelsNumber - 1; level++) {
+            pack(level);
+        }
+    }
+
+    /**
+     * Orders the entries of the level by STR tiles and builds the next level of nodes from them.
+     */
+    private void pack(int level) {
+        int size = minIndexes[level].length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        double[] leftX = leftXs[level];
+        double[] bottomY = bottomYs[level];
+        double[] rightX = rightXs[level];
+        double[] topY = topYs[level];
+        Arrays.sort(order, Comparator.comparingDouble(i -> leftX[i] + rightX[i]));
+        int nodesNumber = (size + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceSize = NODE_CAPACITY * (int) Math.ceil(Math.sqrt(nodesNumber));
+        for (int sliceStart = 0; sliceStart < size; sliceStart += sliceSize) {
+            Arrays.sort(order, sliceStart, Math.min(sliceStart + sliceSize, size),
+                        Comparator.comparingDouble(i -> bottomY[i] + topY[i]));
+        }
+        leftXs[level] = reorder(leftX, order);
+        bottomYs[level] = reorder(bottomY, order);
+        rightXs[level] = reorder(rightX, order);
+        topYs[level] = reorder(topY, order);
+        minIndexes[level] = reorder(minIndexes[level], order);
+        if (level > 0) {
+            childStarts[level] = reorder(childStarts[level], order);
+            childEnds[level] = reorder(childEnds[level], order);
+        }
+        leftXs[level + 1] = new double[nodesNumber];
+        bottomYs[level + 1] = new double[nodesNumber];
+        rightXs[level + 1] = new double[nodesNumber];
+        topYs[level + 1] = new double[nodesNumber];
+        minIndexes[level + 1] = new int[nodesNumber];
+        childStarts[level + 1] = new int[nodesNumber];
+        childEnds[level + 1] = new int[nodesNumber];
+        for (int node = 0; node < nodesNumber; node++) {
+            int start = node * NODE_CAPACITY;
+            int end = Math.min(start + NODE_CAPACITY, size);
+            childStarts[level + 1][node] = start;
+            childEnds[level + 1][node] = end;
+            leftXs[level + 1][node] = Double.MAX_VALUE;
+            bottomYs[level + 1][node] = Double.MAX_VALUE;
+            rightXs[level + 1][node] = -Double.MAX_VALUE;
+            topYs[level + 1][node] = -Double.MAX_VALUE;
+            minIndexes[level + 1][node] = Integer.MAX_VALUE;
+            for (int i = start; i < end; i++) {
+                leftXs[level + 1][node] = Math.min(leftXs[level + 1][node], leftXs[level][i]);
+                bottomYs[level + 1][node] = Math.min(bottomYs[level + 1][node], bottomYs[level][i]);
+                rightXs[level + 1][node] = Math.max(rightXs[level + 1][node], rightXs[level][i]);
+                topYs[level + 1][node] = Math.max(topYs[level + 1][node], topYs[level][i]);
+                minIndexes[level + 1][node] = Math.min(minIndexes[level + 1][node], minIndexes[level][i]);
+            }
+        }
+    }
+
+    private static double[] reorder(double[] values, Integer[] order) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    private static int[] reorder(int[] values, Integer[] order) {
+        int[] result = new int[values.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * @return item with the lowest rank, whose bounding box is accepted by the filter and which is accepted
+     * by the predicate, or null if there is no such item
+     */
+    public T findFirst(RectangleFilter filter, Predicate<T> predicate) {
+        int topLevel = minIndexes.length - 1;
+        int bestIndex = findFirst(filter, predicate, topLevel, 0, minIndexes[topLevel].length, Integer.MAX_VALUE);
+        return bestIndex != Integer.MAX_VALUE ? items.get(bestIndex) : null;
+    }
+
+    private int findFirst(RectangleFilter filter, Predicate<T> predicate, int level, int start, int end,
+                          int bestIndex) {
+        for (int i = start; i < end; i++) {
+            int minIndex = minIndexes[level][i];
+            if (minIndex >= bestIndex ||
+                !filter.test(leftXs[level][i], bottomYs[level][i], rightXs[level][i], topYs[level][i])) {
+                continue;
+            }
+            if (level == 0) {
+                if (predicate.test(items.get(minIndex))) {
+                    bestIndex = minIndex;
+                }
+            } else {
+                bestIndex = findFirst(filter, predicate, level - 1, childStarts[level][i], childEnds[level][i],
+                                      bestIndex);
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * Passes to the consumer all items, whose bounding boxes are accepted by the filter, in no particular order.
+     */
+    public void forEach(RectangleFilter filter, Consumer<T> consumer) {
+        int topLevel = minIndexes.length - 1;
+        forEach(filter, consumer, topLevel, 0, minIndexes[topLevel].length);
+    }
+
+    private void forEach(RectangleFilter filter, Consumer<T> consumer, int level, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!filter.test(leftXs[level][i], bottomYs[level][i], rightXs[level][i], topYs[level][i])) {
+                continue;
+            }
+            if (level == 0) {
+                consumer.accept(items.get(minIndexes[level][i]));
+            } else {
+                forEach(filter, consumer, level - 1, childStarts[level][i], childEnds[level][i]);
+            }
+        }
+    }
+
+    /**
+     * @return at most k items accepted by the predicate, which are nearest to the point, ordered by distance
+     * and then by rank
+     */
+    public List<T> findNearest(double x, double y, int k, Predicate<T> predicate) {
+        List<T> result = new ArrayList<>(Math.max(0, Math.min(k, items.size())));
+        if (k <= 0 || items.isEmpty()) {
+            return result;
+        }
+        // At equal distances nodes are expanded before items are taken, so that items are taken by rank
+        PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingDouble((Entry entry) -> entry.distance)
+                .thenComparing(entry -> -entry.level).thenComparing(entry -> entry.minIndex));
+        int topLevel = minIndexes.length - 1;
+        for (int i = 0; i < minIndexes[topLevel].length; i++) {
+            queue.add(new Entry(topLevel, i, getDistance(topLevel, i, x, y), minIndexes[topLevel][i]));
+        }
+        while (!queue.isEmpty() && result.size() < k) {
+            Entry entry = queue.poll();
+            if (entry.level == 0) {
+                T item = items.get(entry.minIndex);
+                if (predicate.test(item)) {
+                    result.add(item);
+                }
+                continue;
+            }
+            int level = entry.level - 1;
+            for (int i = childStarts[entry.level][entry.index]; i < childEnds[entry.level][entry.index]; i++) {
+                queue.add(new Entry(level, i, getDistance(level, i, x, y), minIndexes[level][i]));
+            }
+        }
+        return result;
+    }
+
+    private double getDistance(int level, int index, double x, double y) {
+        double dx = Math.max(0, Math.max(leftXs[level][index] - x, x - rightXs[level][index]));
+        double dy = Math.max(0, Math.max(bottomYs[level][index] - y, y - topYs[level][index]));
+        return dx * dx + dy * dy;
+    }
+
+    private static class Entry {
+        private final int level;
+        private final int index;
+        private final double distance;
+        private final int minIndex;
+
+        private Entry(int level, int index, double distance, int minIndex) {
+            this.level = level;
+            this.index = index;
+            this.distance = distance;
+            this.minIndex = minIndex;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.verapdf.wcag.algorithms.entities.geometry;
+
+import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set of vertexes, which merges {@link Vertex#areCloseVertexes close} vertexes on insertion. A merged vertex
+ * is a connected component of added vertexes by closeness, its bounds are the union of bounds of its vertexes.
+ * Added vertexes are hashed into grid cells, so that close vertexes are found in expected constant time.
+ */
+public class VertexGrid {
+
+    private static final double CELL_SIZE = 1.0;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<Vertex> vertexes = new ArrayList<>();
+    private final Map<Long, List<Integer>> cells = new HashMap<>();
+    private double maxRadius = 0;
+    private int mergedVertexesNumber = 0;
+    // Parents of added vertexes in the disjoint-set forest and bounds of merged vertexes stored at their roots
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private double[] leftXs = new double[INITIAL_CAPACITY];
+    private double[] bottomYs = new double[INITIAL_CAPACITY];
+    private double[] rightXs = new double[INITIAL_CAPACITY];
+    private double[] topYs = new double[INITIAL_CAPACITY];
+
+    public void add(Vertex vertex) {
+        int index = vertexes.size();
+        if (index == parents.length) {
+            int capacity = 2 * parents.length;
+            parents = Arrays.copyOf(parents, capacity);
+            leftXs = Arrays.copyOf(leftXs, capacity);
+            bottomYs = Arrays.copyOf(bottomYs, capacity);
+            rightXs = Arrays.copyOf(rightXs, capacity);
+            topYs = Arrays.copyOf(topYs, capacity);
+        }
+        vertexes.add(vertex);
+        parents[index] = index;
+        leftXs[index] = vertex.getLeftX();
+        bottomYs[index] = vertex.getBottomY();
+        rightXs[index] = vertex.getRightX();
+        topYs[index] = vertex.getTopY();
+        mergedVertexesNumber++;
+        maxRadius = Math.max(maxRadius, vertex.getRadius());
+        long cellX = getCell(vertex.getX());
+        long cellY = getCell(vertex.getY());
+        int range = (int) Math.ceil((0.5 * (vertex.getRadius() + maxRadius) + NodeUtils.TABLE_BORDER_EPSILON) /
+                                    CELL_SIZE);
+        if ((2L * range + 1) * (2L * range + 1) > index) {
+            for (int i = 0; i < index; i++) {
+                mergeIfClose(index, i);
+            }
+        } else {
+            for (long x = cellX - range; x <= cellX + range; x++) {
+                for (long y = cellY - range; y <= cellY + range; y++) {
+                    List<Integer> cell = cells.get(getKey(x, y));
+                    if (cell != null) {
+                        for (Integer i : cell) {
+                            mergeIfClose(index, i);
+                        }
+                    }
+                }
+            }
+        }
+        cells.computeIfAbsent(getKey(cellX, cellY), key -> new ArrayList<>()).add(index);
+    }
+
+    public void addAll(VertexGrid vertexGrid) {
+        for (Vertex vertex : vertexGrid.vertexes) {
+            add(vertex);
+        }
+    }
+
+    private static long getCell(double coordinate) {
+        return (long) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static Long getKey(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    private void mergeIfClose(int index1, int index2) {
+        if (!Vertex.areCloseVertexes(vertexes.get(index1), vertexes.get(index2))) {
+            return;
+        }
+        int root1 = findRoot(index1);
+        int root2 = findRoot(index2);
+        if (root1 == root2) {
+            return;
+        }
+        int root = Math.min(root1, root2);
+        int child = Math.max(root1, root2);
+        parents[child] = root;
+        leftXs[root] = Math.min(leftXs[root], leftXs[child]);
+        bottomYs[root] = Math.min(bottomYs[root], bottomYs[child]);
+        rightXs[root] = Math.max(rightXs[root], rightXs[child]);
+        topYs[root] = Math.max(topYs[root], topYs[child]);
+        mergedVertexesNumber--;
+    }
+
+    private int findRoot(int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * @return number of merged vertexes
+     */
+    public int size() {
+        return mergedVertexesNumber;
+    }
+
+    /**
+     * @return added vertexes in the order of addition
+     */
+    public List<Vertex> getVertexes() {
+        return Collections.unmodifiableList(vertexes);
+    }
+
+    /**
+     * @return left x coordinates of merged vertexes in the order of their first added vertexes
+     */
+    public double[] getLeftXs() {
+        return getMergedValues(leftXs);
+    }
+
+    public double[] getBottomYs() {
+        return getMergedValues(bottomYs);
+    }
+
+    public double[] getRightXs() {
+        return getMergedValues(rightXs);
+    }
+
+    public double[] getTopYs() {
+        return getMergedValues(topYs);
+    }
+
+    private double[] getMergedValues(double[] values) {
+        double[] result = new double[mergedVertexesNumber];
+        int size = 0;
+        for (int i = 0; i < vertexes.size(); i++) {
+            if (parents[i] == i) {
+                result[size++] = values[i];
+            }
+        }
+        return result;
+    }
+}
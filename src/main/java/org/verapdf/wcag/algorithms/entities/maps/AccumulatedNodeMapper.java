@@ -3,31 +3,135 @@ package org.verapdf.wcag.algorithms.entities.maps;
 import org.verapdf.wcag.algorithms.entities.INode;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
+/**
+ * Maps nodes of the semantic tree to their accumulated nodes by node identity. Accumulated nodes are stored
+ * in an array indexed by {@link INode#getNodeId() node ids}, nodes without id are kept in a separate map.
+ * The mapper also keeps {@link SubtreeSummary summaries} of accumulated subtrees.
+ * The mapper is safe for concurrent use by tasks accumulating disjoint subtrees, if its capacity covers
+ * ids of all nodes in advance.
+ */
 public class AccumulatedNodeMapper {
-    private final Map<INode, INode> nodeToAccumulatedNodeMap;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile INode[] accumulatedNodes;
+    private volatile SubtreeSummary[] summaries;
+    private final Map<INode, INode> nodesWithoutIdMap;
+    private final Map<INode, SubtreeSummary> summariesWithoutIdMap;
 
     public AccumulatedNodeMapper() {
-        nodeToAccumulatedNodeMap = new HashMap<>();
+        accumulatedNodes = new INode[INITIAL_CAPACITY];
+        summaries = new SubtreeSummary[INITIAL_CAPACITY];
+        nodesWithoutIdMap = Collections.synchronizedMap(new IdentityHashMap<>());
+        summariesWithoutIdMap = Collections.synchronizedMap(new IdentityHashMap<>());
+    }
+
+    /**
+     * Makes room for accumulated nodes of nodes with ids less than the given number of nodes.
+     */
+    public synchronized void ensureCapacity(int numberOfNodes) {
+        if (numberOfNodes > accumulatedNodes.length) {
+            int capacity = Math.max(numberOfNodes, 2 * accumulatedNodes.length);
+            summaries = Arrays.copyOf(summaries, capacity);
+            accumulatedNodes = Arrays.copyOf(accumulatedNodes, capacity);
+        }
     }
 
     public INode get(INode node) {
         if (node == null) {
             return null;
         }
-        if (!nodeToAccumulatedNodeMap.containsKey(node)) {
-            return node;
+        INode accumulatedNode = getAccumulatedNode(node);
+        return accumulatedNode != null ? accumulatedNode : node;
+    }
+
+    public boolean containsNode(INode node) {
+        return getAccumulatedNode(node) != null;
+    }
+
+    /**
+     * Removes the accumulated node of the node. The summary of the node is kept, its first leaf depends on
+     * the structure of the subtree only and its content is checked against the current accumulated node.
+     */
+    public INode remove(INode node) {
+        int nodeId = node.getNodeId();
+        if (nodeId == INode.NO_NODE_ID) {
+            return nodesWithoutIdMap.remove(node);
         }
-        return nodeToAccumulatedNodeMap.get(node);
+        INode[] nodes = accumulatedNodes;
+        if (nodeId >= nodes.length) {
+            return null;
+        }
+        INode accumulatedNode = nodes[nodeId];
+        nodes[nodeId] = null;
+        return accumulatedNode;
     }
 
+    /**
+     * Stores the accumulated node of the node. Storing a node with an id beyond the capacity grows the arrays
+     * under the lock of the mapper, concurrent stores of other nodes should not need growth, so concurrent
+     * callers have to {@link #ensureCapacity ensure the capacity} in advance.
+     */
     public void put(INode node, INode accumulatedNode) {
         if (node == null) {
             return;
         }
-        nodeToAccumulatedNodeMap.put(node, accumulatedNode);
+        if (accumulatedNode == null) {
+            remove(node);
+            return;
+        }
+        int nodeId = node.getNodeId();
+        if (nodeId == INode.NO_NODE_ID) {
+            nodesWithoutIdMap.put(node, accumulatedNode);
+            return;
+        }
+        if (nodeId >= accumulatedNodes.length) {
+            synchronized (this) {
+                ensureCapacity(nodeId + 1);
+                accumulatedNodes[nodeId] = accumulatedNode;
+            }
+            return;
+        }
+        accumulatedNodes[nodeId] = accumulatedNode;
+    }
+
+    /**
+     * @return last summary of the subtree of the node, or null if it is not computed
+     */
+    public SubtreeSummary getSummary(INode node) {
+        int nodeId = node.getNodeId();
+        if (nodeId == INode.NO_NODE_ID) {
+            return summariesWithoutIdMap.get(node);
+        }
+        SubtreeSummary[] nodeSummaries = summaries;
+        return nodeId < nodeSummaries.length ? nodeSummaries[nodeId] : null;
+    }
+
+    public void putSummary(INode node, SubtreeSummary summary) {
+        int nodeId = node.getNodeId();
+        if (nodeId == INode.NO_NODE_ID) {
+            if (summary != null) {
+                summariesWithoutIdMap.put(node, summary);
+            } else {
+                summariesWithoutIdMap.remove(node);
+            }
+            return;
+        }
+        if (nodeId >= summaries.length) {
+            if (summary == null) {
+                return;
+            }
+            synchronized (this) {
+                ensureCapacity(nodeId + 1);
+                summaries[nodeId] = summary;
+            }
+            return;
+        }
+        summaries[nodeId] = summary;
     }
 
     public void updateNode(INode node, INode accumulatedNode, double correctSemanticScore, SemanticType semanticType) {
@@ -41,4 +145,13 @@ public class AccumulatedNodeMapper {
         accumulatedNode.setCorrectSemanticScore(correctSemanticScore);
         put(node, accumulatedNode);
     }
+
+    private INode getAccumulatedNode(INode node) {
+        int nodeId = node.getNodeId();
+        if (nodeId == INode.NO_NODE_ID) {
+            return nodesWithoutIdMap.get(node);
+        }
+        INode[] nodes = accumulatedNodes;
+        return nodeId < nodes.length ? nodes[nodeId] : null;
+    }
 }
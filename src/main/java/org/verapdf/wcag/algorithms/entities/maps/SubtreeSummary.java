@@ -0,0 +1,98 @@
+package org.verapdf.wcag.algorithms.entities.maps;
+
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.SemanticFigure;
+import org.verapdf.wcag.algorithms.entities.SemanticImageNode;
+import org.verapdf.wcag.algorithms.entities.SemanticTextNode;
+
+/**
+ * Summary of the content of a subtree, which is computed once and reused by the checks of the parent node.
+ * Content properties are valid for the accumulated node of the summary only.
+ */
+public class SubtreeSummary {
+
+    private final INode firstLeaf;
+    private final INode accumulatedNode;
+    private final boolean hasText;
+
+    private SubtreeSummary(INode firstLeaf, INode accumulatedNode) {
+        this.firstLeaf = firstLeaf;
+        this.accumulatedNode = accumulatedNode;
+        this.hasText = isTextNode(accumulatedNode);
+    }
+
+    /**
+     * Builds the summary of the node from the summary of its first child. Summaries are built bottom-up,
+     * so the summary of the first child has to be built before the summary of the node.
+     *
+     * @throws IllegalStateException if the summary of the first child is not built
+     */
+    public static SubtreeSummary build(AccumulatedNodeMapper mapper, INode node) {
+        INode firstLeaf;
+        if (node.getChildren().isEmpty()) {
+            firstLeaf = node;
+        } else {
+            SubtreeSummary firstChildSummary = mapper.getSummary(node.getChildren().get(0));
+            if (firstChildSummary == null) {
+                throw new IllegalStateException("Summary of the first child of the node is not built");
+            }
+            firstLeaf = firstChildSummary.firstLeaf;
+        }
+        SubtreeSummary summary = new SubtreeSummary(firstLeaf, mapper.get(node));
+        mapper.putSummary(node, summary);
+        return summary;
+    }
+
+    /**
+     * Returns the summary of the node for its current accumulated node, the summary stored in the mapper is
+     * reused if it is computed for the same accumulated node. The summary is {@link #build built} if
+     * the node has no summary yet.
+     */
+    public static SubtreeSummary getSummary(AccumulatedNodeMapper mapper, INode node) {
+        SubtreeSummary summary = mapper.getSummary(node);
+        if (summary == null) {
+            return build(mapper, node);
+        }
+        INode accumulatedNode = mapper.get(node);
+        if (summary.accumulatedNode == accumulatedNode) {
+            return summary;
+        }
+        summary = new SubtreeSummary(summary.firstLeaf, accumulatedNode);
+        mapper.putSummary(node, summary);
+        return summary;
+    }
+
+    private static boolean isTextNode(INode accumulatedNode) {
+        if (!(accumulatedNode instanceof SemanticTextNode)) {
+            return false;
+        }
+        SemanticTextNode textNode = (SemanticTextNode) accumulatedNode;
+        return !textNode.isSpaceNode() && !textNode.isEmpty();
+    }
+
+    /**
+     * @return first leaf of the subtree in reading order
+     */
+    public INode getFirstLeaf() {
+        return firstLeaf;
+    }
+
+    public INode getAccumulatedNode() {
+        return accumulatedNode;
+    }
+
+    /**
+     * @return true if the accumulated node is a text node with non-space text
+     */
+    public boolean hasText() {
+        return hasText;
+    }
+
+    public boolean isImageLeaf() {
+        return firstLeaf instanceof SemanticImageNode;
+    }
+
+    public boolean isFigureLeaf() {
+        return firstLeaf instanceof SemanticFigure;
+    }
+}
@@ -5,6 +5,7 @@ import org.verapdf.wcag.algorithms.entities.content.InfoChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.tables.TableCluster;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
 
@@ -12,19 +13,27 @@ import java.util.*;
 
 public class Table extends InfoChunk {
 
-    private static Long tableCounter = 0L;
     private static final double ROW_GAP_DIFF_TOLERANCE = 0.35; // Sensitive parameter !!!
     private static final double ROW_WIDTH_FACTOR = 1.2; // Validation parameter
     private static final double INTER_TABLE_GAP_FACTOR = 1.8; // Parameter for table separation
 
-    private final Long id = tableCounter++;
+    private final Long id;
     private List<TableRow> rows;
 
     private Double validationScore = null;
     private TableBorder tableBorder;
     private final List<INode> restNodes;
 
+    /**
+     * @deprecated use {@link #Table(Long, List)} with an id of the document context instead.
+     */
+    @Deprecated
     public Table(List<TableCluster> headers) {
+        this(getNextTableListId(), headers);
+    }
+
+    public Table(Long id, List<TableCluster> headers) {
+        this.id = id;
         rows = new ArrayList<>();
         TableRow headersRow = new TableRow(SemanticType.TABLE_HEADERS);
         for (TableCluster header : headers) {
@@ -271,12 +280,22 @@ public class Table extends InfoChunk {
         return restNodes;
     }
 
+    /**
+     * @deprecated use {@link org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext#resetTableListIds}
+     * of the document context instead.
+     */
+    @Deprecated
     public static void updateTableCounter() {
-        tableCounter = 0L;
+        StaticContainers.getDefaultSemanticContext().resetTableListIds();
     }
 
+    /**
+     * @deprecated use {@link org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext#getNextTableListId}
+     * of the document context instead.
+     */
+    @Deprecated
     public static Long getNextTableListId() {
-        return tableCounter++;
+        return StaticContainers.getDefaultSemanticContext().getNextTableListId();
     }
 
     public TableBorder getTableBorder() {
@@ -3,6 +3,7 @@ package org.verapdf.wcag.algorithms.entities.tables;
 import org.verapdf.wcag.algorithms.entities.content.LineChunk;
 import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
 import org.verapdf.wcag.algorithms.entities.geometry.Vertex;
+import org.verapdf.wcag.algorithms.entities.geometry.VertexGrid;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
 
 import java.util.Comparator;
@@ -13,12 +14,12 @@ import java.util.TreeSet;
 public class TableBorderBuilder {
 
     private final BoundingBox boundingBox;
-    private final Set<Vertex> vertexes;
+    private final VertexGrid vertexes;
     private final TreeSet<LineChunk> horizontalLines;
     private final TreeSet<LineChunk> verticalLines;
 
     public TableBorderBuilder(LineChunk lineChunk) {
-        vertexes = new HashSet<>();
+        vertexes = new VertexGrid();
         horizontalLines = new TreeSet<>(new LineChunk.HorizontalLineComparator());
         verticalLines = new TreeSet<>(new LineChunk.VerticalLineComparator());
         boundingBox = new BoundingBox(lineChunk.getBoundingBox());
@@ -69,7 +70,7 @@ public class TableBorderBuilder {
         verticalLines.addAll(border.getVerticalLines());
         horizontalLines.addAll(border.getHorizontalLines());
         boundingBox.union(border.boundingBox);
-        vertexes.addAll(border.getVertexes());
+        vertexes.addAll(border.getVertexGrid());
     }
 
     public int getVertexesNumber() {
@@ -92,7 +93,18 @@ public class TableBorderBuilder {
         return horizontalLines.size();
     }
 
+    /**
+     * @return added vertexes of the border, close vertexes are not merged in this set. It is a copy, use
+     * {@link #getVertexGrid()} for merged vertexes.
+     */
     public Set<Vertex> getVertexes() {
+        return new HashSet<>(vertexes.getVertexes());
+    }
+
+    /**
+     * @return vertexes of the border, in which close vertexes are merged
+     */
+    public VertexGrid getVertexGrid() {
         return vertexes;
     }
 
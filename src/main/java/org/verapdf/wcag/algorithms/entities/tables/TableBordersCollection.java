@@ -1,33 +1,88 @@
 package org.verapdf.wcag.algorithms.entities.tables;
 
 import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.entities.geometry.RTree;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.ArrayList;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
 public class TableBordersCollection {
 
+    private static final int MIN_INDEXED_TABLE_BORDERS_NUMBER = 8;
+
     private final List<SortedSet<TableBorder>> tableBorders;
+    private final List<RTree<TableBorder>> tableBorderIndexes;
 
     public TableBordersCollection() {
         tableBorders = new ArrayList<>();
+        tableBorderIndexes = new ArrayList<>();
     }
 
+    /**
+     * @deprecated use {@link #TableBordersCollection(List, SemanticContext)} with the document context instead.
+     */
+    @Deprecated
     public TableBordersCollection(List<List<TableBorderBuilder>> tableBorderBuilders) {
+        this(tableBorderBuilders, StaticContainers.getDefaultSemanticContext());
+    }
+
+    public TableBordersCollection(List<List<TableBorderBuilder>> tableBorderBuilders, SemanticContext context) {
         tableBorders = new ArrayList<>(tableBorderBuilders.size());
+        tableBorderIndexes = new ArrayList<>(tableBorderBuilders.size());
         for (List<TableBorderBuilder> builders : tableBorderBuilders) {
-            SortedSet<TableBorder> borders = new TreeSet<>(new TableBorder.TableBordersComparator());
-            for (TableBorderBuilder builder : builders) {
-                TableBorder border = new TableBorder(builder);
-                if (!border.isBadTable()) {
-                    borders.add(border);
-                }
+            addTableBorders(builders, context);
+        }
+    }
+
+    /**
+     * Adds table borders of the next page. Table borders of a page with many borders are indexed by an R-tree.
+     */
+    private void addTableBorders(List<TableBorderBuilder> builders, SemanticContext context) {
+        SortedSet<TableBorder> borders = createTableBorders(builders, context);
+        tableBorderIndexes.add(createIndex(borders, tableBorders.size()));
+        tableBorders.add(borders);
+    }
+
+    private static SortedSet<TableBorder> createTableBorders(List<TableBorderBuilder> builders, SemanticContext context) {
+        SortedSet<TableBorder> borders = new TreeSet<>(new TableBorder.TableBordersComparator());
+        for (TableBorderBuilder builder : builders) {
+            TableBorder border = new TableBorder(builder, context.getNextTableListId());
+            if (!border.isBadTable()) {
+                borders.add(border);
+            }
+        }
+        return borders;
+    }
+
+    /**
+     * @return R-tree of the table borders in their sorted order, or null if borders of the page are not indexed
+     */
+    private static RTree<TableBorder> createIndex(SortedSet<TableBorder> borders, int pageNumber) {
+        if (borders.size() < MIN_INDEXED_TABLE_BORDERS_NUMBER) {
+            return null;
+        }
+        for (TableBorder border : borders) {
+            if (!Objects.equals(border.getBoundingBox().getPageNumber(), pageNumber) ||
+                    !Objects.equals(border.getBoundingBox().getLastPageNumber(), pageNumber)) {
+                return null;
             }
-            tableBorders.add(borders);
         }
+        return new RTree<>(new ArrayList<>(borders), TableBorder::getBoundingBox);
+    }
+
+    /**
+     * Replaces table borders of the page by the new ones, which are not recognized yet.
+     */
+    public void setTableBorders(int pageNumber, List<TableBorderBuilder> builders, SemanticContext context) {
+        SortedSet<TableBorder> borders = createTableBorders(builders, context);
+        tableBorderIndexes.set(pageNumber, createIndex(borders, pageNumber));
+        tableBorders.set(pageNumber, borders);
     }
 
     public List<SortedSet<TableBorder>> getTableBorders() {
@@ -41,8 +96,16 @@ public class TableBordersCollection {
         return new TreeSet<>();
     }
 
+    /**
+     * @return first table border in the sorted order of the page, which contains the bounding box
+     */
     public TableBorder getTableBorder(BoundingBox boundingBox) {
-        SortedSet<TableBorder> tableBorders = getTableBorders(boundingBox.getPageNumber());
+        Integer pageNumber = boundingBox.getPageNumber();
+        if (pageNumber != null && pageNumber < tableBorderIndexes.size() && tableBorderIndexes.get(pageNumber) != null &&
+                pageNumber.equals(boundingBox.getLastPageNumber())) {
+            return getTableBorder(tableBorderIndexes.get(pageNumber), boundingBox);
+        }
+        SortedSet<TableBorder> tableBorders = getTableBorders(pageNumber);
         for (TableBorder tableBorder : tableBorders) {
             if (tableBorder.getBoundingBox().contains(boundingBox, TableBorder.TABLE_BORDER_EPSILON,
                     TableBorder.TABLE_BORDER_EPSILON)) {
@@ -51,4 +114,13 @@ public class TableBordersCollection {
         }
         return null;
     }
+
+    private static TableBorder getTableBorder(RTree<TableBorder> index, BoundingBox boundingBox) {
+        double epsilon = TableBorder.TABLE_BORDER_EPSILON;
+        return index.findFirst((leftX, bottomY, rightX, topY) -> leftX < boundingBox.getLeftX() + epsilon &&
+                                       boundingBox.getRightX() < rightX + epsilon &&
+                                       boundingBox.getTopY() < topY + epsilon &&
+                                       bottomY < boundingBox.getBottomY() + epsilon,
+                               tableBorder -> tableBorder.getBoundingBox().contains(boundingBox, epsilon, epsilon));
+    }
 }
@@ -4,24 +4,30 @@ import org.verapdf.wcag.algorithms.entities.INode;
 import org.verapdf.wcag.algorithms.entities.content.LineChunk;
 import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
 import org.verapdf.wcag.algorithms.entities.geometry.MultiBoundingBox;
-import org.verapdf.wcag.algorithms.entities.geometry.Vertex;
-import org.verapdf.wcag.algorithms.entities.tables.Table;
 import org.verapdf.wcag.algorithms.entities.tables.TableBorderBuilder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.IntPredicate;
 
 public class TableBorder {
     public static final double TABLE_BORDER_EPSILON = 0.6;
 
-    private final List<Double> xCoordinates;
-    private final List<Double> xWidths;
-    private final List<Double> yCoordinates;
-    private final List<Double> yWidths;
+    private double[] xCoordinates;
+    private double[] xWidths;
+    private double[] yCoordinates;
+    private double[] yWidths;
+    // Bounds of the grid lines, left and right bounds increase and top and bottom bounds decrease
+    // unless the coordinates are unsorted.
+    private double[] leftXs;
+    private double[] rightXs;
+    private double[] topYs;
+    private double[] bottomYs;
+    private boolean hasSortedBounds;
     private TableBorderRow[] rows;
     private final BoundingBox boundingBox;
     private int numberOfRows;
@@ -30,34 +36,59 @@ public class TableBorder {
     private INode node;
     private boolean isBadTable = false;
 
+    /**
+     * @deprecated use {@link #TableBorder(TableBorderBuilder, Long)} with an id of the document context instead.
+     */
+    @Deprecated
     public TableBorder(TableBorderBuilder builder) {
-        xCoordinates = new LinkedList<>();
-        xWidths = new LinkedList<>();
+        this(builder, StaticContainers.getDefaultSemanticContext().getNextTableListId());
+    }
+
+    public TableBorder(TableBorderBuilder builder, Long id) {
         calculateXCoordinates(builder);
-        yCoordinates = new LinkedList<>();
-        yWidths = new LinkedList<>();
         calculateYCoordinates(builder);
+        calculateBounds();
         boundingBox = new BoundingBox(builder.getBoundingBox());
         createMatrix(builder);
-        id = Table.getNextTableListId();
+        this.id = id;
+    }
+
+    /**
+     * Creates a table border without cells from the centers and widths of its vertical and horizontal lines.
+     */
+    TableBorder(double[] xCoordinates, double[] xWidths, double[] yCoordinates, double[] yWidths) {
+        this.xCoordinates = xCoordinates;
+        this.xWidths = xWidths;
+        this.yCoordinates = yCoordinates;
+        this.yWidths = yWidths;
+        calculateBounds();
+        boundingBox = new BoundingBox();
+        id = null;
     }
 
     private void calculateXCoordinates(TableBorderBuilder builder) {
-        List<Vertex> vertexes = builder.getVertexes().stream().sorted(new Vertex.VertexComparatorX()).collect(Collectors.toList());
-        double x1 = vertexes.get(0).getLeftX();
-        double x2 = vertexes.get(0).getRightX();
-        for (Vertex v : vertexes) {
-            if (x2 < v.getLeftX() - NodeUtils.TABLE_BORDER_EPSILON) {
-                xCoordinates.add(0.5 * (x1 + x2));
-                xWidths.add(x2 - x1);
-                x1 = v.getLeftX();
-                x2 = v.getRightX();
-            } else if (x2 < v.getRightX()) {
-                x2 = v.getRightX();
+        double[] leftXs = builder.getVertexGrid().getLeftXs();
+        double[] rightXs = builder.getVertexGrid().getRightXs();
+        Integer[] vertexes = getOrder(leftXs.length, (i, j) -> Double.compare(leftXs[i], leftXs[j]));
+        xCoordinates = new double[vertexes.length];
+        xWidths = new double[vertexes.length];
+        int size = 0;
+        double x1 = leftXs[vertexes[0]];
+        double x2 = rightXs[vertexes[0]];
+        for (int v : vertexes) {
+            if (x2 < leftXs[v] - NodeUtils.TABLE_BORDER_EPSILON) {
+                xCoordinates[size] = 0.5 * (x1 + x2);
+                xWidths[size++] = x2 - x1;
+                x1 = leftXs[v];
+                x2 = rightXs[v];
+            } else if (x2 < rightXs[v]) {
+                x2 = rightXs[v];
             }
         }
-        xCoordinates.add(0.5 * (x1 + x2));
-        xWidths.add(x2 - x1);
+        xCoordinates[size] = 0.5 * (x1 + x2);
+        xWidths[size++] = x2 - x1;
+        xCoordinates = Arrays.copyOf(xCoordinates, size);
+        xWidths = Arrays.copyOf(xWidths, size);
     }
 
     public TableBorderRow[] getRows() {
@@ -79,26 +110,64 @@ public class TableBorder {
     }
 
     private void calculateYCoordinates(TableBorderBuilder builder) {
-        List<Vertex> vertexes = builder.getVertexes().stream().sorted(new Vertex.VertexComparatorY()).collect(Collectors.toList());
-        double y1 = vertexes.get(0).getTopY();
-        double y2 = vertexes.get(0).getBottomY();
-        for (Vertex v : vertexes) {
-            if (y2 > v.getTopY() + NodeUtils.TABLE_BORDER_EPSILON) {
-                yCoordinates.add(0.5 * (y1 + y2));
-                yWidths.add(y1 - y2);
-                y1 = v.getTopY();
-                y2 = v.getBottomY();
-            } else if (y2 > v.getBottomY()) {
-                y2 = v.getBottomY();
+        double[] topYs = builder.getVertexGrid().getTopYs();
+        double[] bottomYs = builder.getVertexGrid().getBottomYs();
+        Integer[] vertexes = getOrder(topYs.length, (i, j) -> Double.compare(topYs[j], topYs[i]));
+        yCoordinates = new double[vertexes.length];
+        yWidths = new double[vertexes.length];
+        int size = 0;
+        double y1 = topYs[vertexes[0]];
+        double y2 = bottomYs[vertexes[0]];
+        for (int v : vertexes) {
+            if (y2 > topYs[v] + NodeUtils.TABLE_BORDER_EPSILON) {
+                yCoordinates[size] = 0.5 * (y1 + y2);
+                yWidths[size++] = y1 - y2;
+                y1 = topYs[v];
+                y2 = bottomYs[v];
+            } else if (y2 > bottomYs[v]) {
+                y2 = bottomYs[v];
+            }
+        }
+        yCoordinates[size] = 0.5 * (y1 + y2);
+        yWidths[size++] = y1 - y2;
+        yCoordinates = Arrays.copyOf(yCoordinates, size);
+        yWidths = Arrays.copyOf(yWidths, size);
+    }
+
+    private static Integer[] getOrder(int size, Comparator<Integer> comparator) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, comparator);
+        return order;
+    }
+
+    private void calculateBounds() {
+        leftXs = new double[xCoordinates.length];
+        rightXs = new double[xCoordinates.length];
+        hasSortedBounds = true;
+        for (int i = 0; i < xCoordinates.length; i++) {
+            leftXs[i] = xCoordinates[i] - 0.5 * xWidths[i];
+            rightXs[i] = xCoordinates[i] + 0.5 * xWidths[i];
+            if (i > 0 && (leftXs[i] < leftXs[i - 1] || rightXs[i] < rightXs[i - 1])) {
+                hasSortedBounds = false;
+            }
+        }
+        topYs = new double[yCoordinates.length];
+        bottomYs = new double[yCoordinates.length];
+        for (int i = 0; i < yCoordinates.length; i++) {
+            topYs[i] = yCoordinates[i] + 0.5 * yWidths[i];
+            bottomYs[i] = yCoordinates[i] - 0.5 * yWidths[i];
+            if (i > 0 && (topYs[i] > topYs[i - 1] || bottomYs[i] > bottomYs[i - 1])) {
+                hasSortedBounds = false;
             }
         }
-        yCoordinates.add(0.5 * (y1 + y2));
-        yWidths.add(y1 - y2);
     }
 
     private void createMatrix(TableBorderBuilder builder) {
-        int numberOfRows = this.yCoordinates.size() - 1;
-        int numberOfColumns = this.xCoordinates.size() - 1;
+        int numberOfRows = this.yCoordinates.length - 1;
+        int numberOfColumns = this.xCoordinates.length - 1;
         if (numberOfColumns < 1 || numberOfRows < 1) {
             return;
         }
@@ -123,11 +192,8 @@ public class TableBorder {
                 if (rows[rowNumber].cells[colNumber].colNumber == colNumber &&
                         rows[rowNumber].cells[colNumber].rowNumber == rowNumber) {
                     TableBorderCell cell = rows[rowNumber].cells[colNumber];
-                    BoundingBox cellBoundingBox = new BoundingBox(boundingBox.getPageNumber(),
-                            xCoordinates.get(colNumber) - 0.5 * xWidths.get(colNumber),
-                            yCoordinates.get(rowNumber + cell.rowSpan) - 0.5 * yWidths.get(rowNumber + cell.rowSpan),
-                            xCoordinates.get(colNumber + cell.colSpan) + 0.5 * xWidths.get(colNumber + cell.colSpan),
-                            yCoordinates.get(rowNumber) + 0.5 * yWidths.get(rowNumber));
+                    BoundingBox cellBoundingBox = new BoundingBox(boundingBox.getPageNumber(), leftXs[colNumber],
+                            bottomYs[rowNumber + cell.rowSpan], rightXs[colNumber + cell.colSpan], topYs[rowNumber]);
                     cell.setBoundingBox(cellBoundingBox);
                     multiBoundingBox.union(cellBoundingBox);
                 }
@@ -316,16 +382,11 @@ public class TableBorder {
         }
         this.numberOfRows = usefulRows.size();
         this.numberOfColumns = usefulColumns.size();
-        for (int colNumber = redundantColumns.size() - 1; colNumber >= 0; colNumber--) {
-            int oldColNumber = redundantColumns.get(colNumber);
-            xCoordinates.remove(oldColNumber);
-            xWidths.remove(oldColNumber);
-        }
-        for (int rowNumber = redundantRows.size() - 1; rowNumber >= 0; rowNumber--) {
-            int oldRowNumber = redundantRows.get(rowNumber);
-            yCoordinates.remove(oldRowNumber);
-            yWidths.remove(oldRowNumber);
-        }
+        xCoordinates = removeIndexes(xCoordinates, redundantColumns);
+        xWidths = removeIndexes(xWidths, redundantColumns);
+        yCoordinates = removeIndexes(yCoordinates, redundantRows);
+        yWidths = removeIndexes(yWidths, redundantRows);
+        calculateBounds();
         this.rows = new TableBorderRow[this.numberOfRows];
         for (int rowNumber = 0; rowNumber < this.numberOfRows; rowNumber++) {
             int oldRowNumber = usefulRows.get(rowNumber);
@@ -343,48 +404,106 @@ public class TableBorder {
         }
     }
 
+    boolean hasSortedBounds() {
+        return hasSortedBounds;
+    }
+
     public Integer getPageNumber() {
         return boundingBox.getPageNumber();
     }
 
-    private int getCoordinateX(double x) {
-        for (int i = 0; i < xCoordinates.size(); i++) {
-            if (x <= xCoordinates.get(i) + 0.5 * xWidths.get(i) + NodeUtils.EPSILON &&
-                    x >= xCoordinates.get(i) - 0.5 * xWidths.get(i) - NodeUtils.EPSILON) {
-                return i;
+    /**
+     * @return values without the values at the given indexes, which are sorted in ascending order
+     */
+    private static double[] removeIndexes(double[] values, List<Integer> indexes) {
+        double[] result = new double[values.length - indexes.size()];
+        int size = 0;
+        int removedIndex = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (removedIndex < indexes.size() && indexes.get(removedIndex) == i) {
+                removedIndex++;
+            } else {
+                result[size++] = values[i];
             }
         }
-        return -1;
+        return result;
     }
 
-    private int getCoordinateY(double y) {
-        for (int i = 0; i < yCoordinates.size(); i++) {
-            if (y <= yCoordinates.get(i) + 0.5 * yWidths.get(i) + NodeUtils.EPSILON
-                    && y >= yCoordinates.get(i) - 0.5 * yWidths.get(i) - NodeUtils.EPSILON) {
-                return i;
+    /**
+     * @return number of leading indexes, for which the predicate is true. The predicate is expected to be true
+     * on a prefix of indexes, if bounds are sorted, otherwise the indexes are checked one by one.
+     */
+    private int getPrefixLength(int size, IntPredicate predicate) {
+        if (!hasSortedBounds) {
+            int length = 0;
+            while (length < size && predicate.test(length)) {
+                length++;
             }
+            return length;
         }
-        return -1;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (predicate.test(middle)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
     }
 
-    private int getClosestLeftX(double x) {
-        for (int i = xCoordinates.size() - 1; i >= 0; i--) {
-            if (x >= xCoordinates.get(i) - 0.5 * xWidths.get(i) - TABLE_BORDER_EPSILON) {
+    int getCoordinateX(double x) {
+        int i = getPrefixLength(xCoordinates.length, index -> x > rightXs[index] + NodeUtils.EPSILON);
+        if (hasSortedBounds) {
+            return i < xCoordinates.length && x >= leftXs[i] - NodeUtils.EPSILON ? i : -1;
+        }
+        for (; i < xCoordinates.length; i++) {
+            if (x <= rightXs[i] + NodeUtils.EPSILON && x >= leftXs[i] - NodeUtils.EPSILON) {
                 return i;
             }
         }
         return -1;
     }
 
-    private int getClosestTopY(double y) {
-        for (int i = yCoordinates.size() - 1; i >= 0; i--) {
-            if (y <= yCoordinates.get(i) + 0.5 * yWidths.get(i) + TABLE_BORDER_EPSILON) {
+    int getCoordinateY(double y) {
+        int i = getPrefixLength(yCoordinates.length, index -> y < bottomYs[index] - NodeUtils.EPSILON);
+        if (hasSortedBounds) {
+            return i < yCoordinates.length && y <= topYs[i] + NodeUtils.EPSILON ? i : -1;
+        }
+        for (; i < yCoordinates.length; i++) {
+            if (y <= topYs[i] + NodeUtils.EPSILON && y >= bottomYs[i] - NodeUtils.EPSILON) {
                 return i;
             }
         }
         return -1;
     }
 
+    int getClosestLeftX(double x) {
+        if (!hasSortedBounds) {
+            for (int i = xCoordinates.length - 1; i >= 0; i--) {
+                if (x >= leftXs[i] - TABLE_BORDER_EPSILON) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return getPrefixLength(xCoordinates.length, index -> x >= leftXs[index] - TABLE_BORDER_EPSILON) - 1;
+    }
+
+    int getClosestTopY(double y) {
+        if (!hasSortedBounds) {
+            for (int i = yCoordinates.length - 1; i >= 0; i--) {
+                if (y <= topYs[i] + TABLE_BORDER_EPSILON) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        return getPrefixLength(yCoordinates.length, index -> y <= topYs[index] + TABLE_BORDER_EPSILON) - 1;
+    }
+
     public int getNumberOfRows() {
         return numberOfRows;
     }
@@ -3,41 +3,250 @@ package org.verapdf.wcag.algorithms.semanticalgorithms;
 import org.verapdf.wcag.algorithms.entities.IDocument;
 import org.verapdf.wcag.algorithms.entities.INode;
 import org.verapdf.wcag.algorithms.entities.ITree;
-import org.verapdf.wcag.algorithms.entities.tables.Table;
+import org.verapdf.wcag.algorithms.entities.TreeTraversal;
+import org.verapdf.wcag.algorithms.entities.TreeVisitor;
 import org.verapdf.wcag.algorithms.entities.tables.TableBordersCollection;
+import org.verapdf.wcag.algorithms.semanticalgorithms.SemanticCheckerConfig.Stage;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.*;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.CancellationToken;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineListener;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineMonitor;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineStage;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 public class AccumulatedNodeSemanticChecker implements ISemanticsChecker {
 
+	private final SemanticCheckerConfig config;
+
+	public AccumulatedNodeSemanticChecker() {
+		this(SemanticCheckerConfig.defaultConfig());
+	}
+
+	/**
+	 * @param pipelineListener listener notified about every stage of the check, or null
+	 */
+	public AccumulatedNodeSemanticChecker(PipelineListener pipelineListener) {
+		this(SemanticCheckerConfig.builder().pipelineListener(pipelineListener).build());
+	}
+
+	public AccumulatedNodeSemanticChecker(SemanticCheckerConfig config) {
+		this.config = config;
+	}
+
+	public SemanticCheckerConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * Checks the document with a new {@link SemanticContext}, which is published through the deprecated
+	 * {@link StaticContainers} of the current thread. The context stays published after the check, so its results
+	 * are available to legacy callers, and it is reachable until {@link #releaseThreadContext()} is called.
+	 * Use {@link #checkSemanticDocument(IDocument, SemanticContext)} to keep the context out of the thread.
+	 */
 	@Override
+	@SuppressWarnings("deprecation")
 	public void checkSemanticDocument(IDocument document) {
-		StaticContainers.clearAllContainers(document);
+		SemanticContext context = new SemanticContext(document);
+		StaticContainers.setSemanticContext(context);
+		checkSemanticDocument(document, context);
+	}
+
+	/**
+	 * Releases the context published by {@link #checkSemanticDocument(IDocument)} on the current thread.
+	 * Pooled threads should call it once the results of the document are read.
+	 */
+	@SuppressWarnings("deprecation")
+	public static void releaseThreadContext() {
+		StaticContainers.release();
+	}
+
+	/**
+	 * Checks the document using the given context. If the cancellation token of the context is cancelled or
+	 * the time budget expires, the check stops and the context is marked as incomplete.
+	 */
+	public void checkSemanticDocument(IDocument document, SemanticContext context) {
+		runCancellable(context, () -> runStages(document, context));
+	}
+
+	/**
+	 * Runs the stages under the time budget of the configuration. Cancellation stops the stages and marks
+	 * the context as incomplete.
+	 */
+	void runCancellable(SemanticContext context, Runnable stages) {
+		CancellationToken cancellationToken = context.getCancellationToken();
+		if (config.getTimeBudget() > 0) {
+			context.setCancellationToken(cancellationToken != null ?
+					cancellationToken.childWithTimeout(config.getTimeBudget(), TimeUnit.NANOSECONDS) :
+					CancellationToken.withTimeout(config.getTimeBudget(), TimeUnit.NANOSECONDS));
+		}
+		try {
+			stages.run();
+		} catch (CancellationException e) {
+			if (context.getCancellationToken() == null || !context.getCancellationToken().isCancelled()) {
+				throw e;
+			}
+			context.setIncomplete(true);
+		} finally {
+			context.setCancellationToken(cancellationToken);
+		}
+	}
+
+	private void runStages(IDocument document, SemanticContext context) {
+		ITree tree = document.getTree();
+		PipelineMonitor monitor = PipelineMonitor.create(config.getPipelineListener(), document, context);
+		if (config.isFusedTraversal() && isFusedTraversalSupported()) {
+			runFusedStages(document, context, monitor);
+			return;
+		}
 
+		runPreprocessing(document, context, monitor);
+
+		monitor.stageStarted(PipelineStage.ACCUMULATION);
+		if (config.isParallelAccumulation() && isParallelAccumulationSupported()) {
+			new ParallelAccumulationConsumer(context, config.getMinParallelSubtreeSize(),
+					this::createAccumulationConsumer, ForkJoinPool.commonPool()).accumulate(tree);
+		} else {
+			Consumer<INode> semanticDetectionValidator = createAccumulationConsumer(context);
+			tree.forEach(semanticDetectionValidator);
+		}
+		monitor.stageFinished();
+
+		runRecognitionStages(tree, context, monitor);
+	}
+
+	/**
+	 * Runs preprocessing of the semantic tree, accumulation and collection of table border contents in one
+	 * traversal.
+	 */
+	private void runFusedStages(IDocument document, SemanticContext context, PipelineMonitor monitor) {
 		ITree tree = document.getTree();
+		TreeTraversal traversal = new TreeTraversal();
+		if (config.isEnabled(Stage.LINES_PREPROCESSING)) {
+			monitor.stageStarted(PipelineStage.LINES_PREPROCESSING);
+			LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
+			findTableBorders(linesPreprocessingConsumer);
+			monitor.stageFinished();
+
+			monitor.stageStarted(PipelineStage.TABLE_BORDERS_COLLECTION);
+			context.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders(),
+			                                                             context));
+			monitor.stageFinished();
+		}
+		traversal.addVisitor(new SemanticDocumentPreprocessingConsumer(document, context,
+				config.isEnabled(Stage.UNDERLINED_TEXT), false));
+
+		monitor.stageStarted(PipelineStage.ACCUMULATION);
+		traversal.addVisitor(TreeVisitor.postOrder(createAccumulationConsumer(context)));
+		TableBorderConsumer tableBorderConsumer = null;
+		if (config.isEnabled(Stage.TABLE_BORDERS)) {
+			tableBorderConsumer = new TableBorderConsumer(context);
+			traversal.addVisitor(TreeVisitor.postOrder(tableBorderConsumer::addTokens));
+		}
+		traversal.traverse(tree);
+		monitor.stageFinished();
+		context.getFlatSemanticTree(tree);
+
+		if (tableBorderConsumer != null) {
+			monitor.stageStarted(PipelineStage.TABLE_BORDERS);
+			tableBorderConsumer.updateTreeWithRecognizedTables();
+			monitor.stageFinished();
+		}
+		runClusterTablesAndPostprocessing(tree, context, monitor);
+	}
+
+	/**
+	 * Runs table recognition and postprocessing stages, which follow the accumulation of nodes.
+	 * These stages use the snapshot of the tree structure built by semantic preprocessing, accumulation
+	 * does not change the structure of the tree.
+	 */
+	void runRecognitionStages(ITree tree, SemanticContext context, PipelineMonitor monitor) {
+		context.getFlatSemanticTree(tree);
+		if (config.isEnabled(Stage.TABLE_BORDERS)) {
+			monitor.stageStarted(PipelineStage.TABLE_BORDERS);
+			recognizeTables(tree, context);
+			monitor.stageFinished();
+		}
+		runClusterTablesAndPostprocessing(tree, context, monitor);
+	}
 
-		LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document);
-		linesPreprocessingConsumer.findTableBorders();
+	/**
+	 * Recognizes tables in the table borders of the tree.
+	 */
+	void recognizeTables(ITree tree, SemanticContext context) {
+		new TableBorderConsumer(context).recognizeTables(tree);
+	}
 
-		Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document);
-		tree.forEach(semanticDocumentValidator);
+	void runClusterTablesAndPostprocessing(ITree tree, SemanticContext context, PipelineMonitor monitor) {
+		if (config.isEnabled(Stage.CLUSTER_TABLES)) {
+			monitor.stageStarted(PipelineStage.CLUSTER_TABLES);
+			ClusterTableConsumer tableFinder = new ClusterTableConsumer(context);
+			tableFinder.findTables(tree.getRoot());
+			monitor.stageFinished();
+		}
 
-		Table.updateTableCounter();
+		if (config.isEnabled(Stage.TITLE) || config.isEnabled(Stage.REPEATED_CHARACTERS) ||
+		    config.isEnabled(Stage.LOWEST_DEPTH_ERROR)) {
+			monitor.stageStarted(PipelineStage.POSTPROCESSING);
+			SemanticDocumentPostprocessingConsumer documentPostprocessingConsumer = new SemanticDocumentPostprocessingConsumer(context);
+			documentPostprocessingConsumer.runPostprocessingChecks(tree, config.isEnabled(Stage.TITLE),
+					config.isEnabled(Stage.REPEATED_CHARACTERS), config.isEnabled(Stage.LOWEST_DEPTH_ERROR));
+			monitor.stageFinished();
+		}
+	}
 
-		StaticContainers.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders()));
+	Consumer<INode> createAccumulationConsumer(SemanticContext context) {
+		return new AccumulatedNodeConsumer(context);
+	}
 
-		AccumulatedNodeConsumer semanticDetectionValidator = new AccumulatedNodeConsumer();
-		tree.forEach(semanticDetectionValidator);
+	/**
+	 * @return false if consumers of {@link #createAccumulationConsumer} can not be used by concurrent tasks
+	 */
+	boolean isParallelAccumulationSupported() {
+		return true;
+	}
 
-		TableBorderConsumer tableBorderConsumer = new TableBorderConsumer();
-		tableBorderConsumer.recognizeTables(tree);
+	/**
+	 * @return false if tables should be recognized by {@link #recognizeTables} after the accumulation instead of
+	 * collecting table border contents during the accumulation traversal
+	 */
+	boolean isFusedTraversalSupported() {
+		return true;
+	}
+
+	private void runPreprocessing(IDocument document, SemanticContext context, PipelineMonitor monitor) {
+		LinesPreprocessingConsumer linesPreprocessingConsumer = null;
+		if (config.isEnabled(Stage.LINES_PREPROCESSING)) {
+			monitor.stageStarted(PipelineStage.LINES_PREPROCESSING);
+			linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
+			findTableBorders(linesPreprocessingConsumer);
+			monitor.stageFinished();
+		}
 
-		ClusterTableConsumer tableFinder = new ClusterTableConsumer();
-		tableFinder.findTables(tree.getRoot());
+		monitor.stageStarted(PipelineStage.SEMANTIC_PREPROCESSING);
+		Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document, context,
+				config.isEnabled(Stage.UNDERLINED_TEXT));
+		document.getTree().forEach(semanticDocumentValidator);
+		monitor.stageFinished();
+
+		if (linesPreprocessingConsumer != null) {
+			monitor.stageStarted(PipelineStage.TABLE_BORDERS_COLLECTION);
+			context.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders(),
+			                                                             context));
+			monitor.stageFinished();
+		}
+	}
 
-		SemanticDocumentPostprocessingConsumer documentPostprocessingConsumer = new SemanticDocumentPostprocessingConsumer();
-		documentPostprocessingConsumer.runPostprocessingChecks(tree);
+	private void findTableBorders(LinesPreprocessingConsumer linesPreprocessingConsumer) {
+		if (config.isParallelLinesPreprocessing()) {
+			linesPreprocessingConsumer.findTableBorders(ForkJoinPool.commonPool());
+		} else {
+			linesPreprocessingConsumer.findTableBorders();
+		}
 	}
 }
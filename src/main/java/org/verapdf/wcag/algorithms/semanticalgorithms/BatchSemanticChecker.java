@@ -0,0 +1,186 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineListener;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs {@link AccumulatedNodeSemanticChecker} over many documents on a fixed number of worker threads.
+ * Documents are pulled from the source stream lazily: at most parallelism + queueBound documents are
+ * loaded, being checked or waiting to be delivered at any time. Results are handed to the result consumer
+ * on the calling thread.
+ */
+public class BatchSemanticChecker {
+
+	public enum ResultOrder {
+		SUBMISSION,
+		COMPLETION
+	}
+
+	private final int parallelism;
+	private final int queueBound;
+	private final ResultOrder resultOrder;
+	private final SemanticCheckerConfig config;
+
+	public BatchSemanticChecker(int parallelism, int queueBound, ResultOrder resultOrder) {
+		this(parallelism, queueBound, resultOrder, SemanticCheckerConfig.defaultConfig());
+	}
+
+	/**
+	 * @param pipelineListener thread safe listener shared by all worker threads, or null
+	 */
+	public BatchSemanticChecker(int parallelism, int queueBound, ResultOrder resultOrder,
+	                            PipelineListener pipelineListener) {
+		this(parallelism, queueBound, resultOrder,
+		     SemanticCheckerConfig.builder().pipelineListener(pipelineListener).build());
+	}
+
+	/**
+	 * @param config configuration used for every document, its pipeline listener should be thread safe
+	 */
+	public BatchSemanticChecker(int parallelism, int queueBound, ResultOrder resultOrder,
+	                            SemanticCheckerConfig config) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism should be positive: " + parallelism);
+		}
+		if (queueBound < 0) {
+			throw new IllegalArgumentException("Queue bound should not be negative: " + queueBound);
+		}
+		this.parallelism = parallelism;
+		this.queueBound = queueBound;
+		this.resultOrder = Objects.requireNonNull(resultOrder);
+		this.config = Objects.requireNonNull(config);
+	}
+
+	public List<Result> check(Stream<Supplier<IDocument>> documents) {
+		List<Result> results = new ArrayList<>();
+		check(documents, results::add);
+		return results;
+	}
+
+	public void check(Stream<Supplier<IDocument>> documents, Consumer<Result> resultConsumer) {
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, new WorkerThreadFactory());
+		CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+		Deque<Future<Result>> pending = new ArrayDeque<>();
+		int maxPending = parallelism + queueBound;
+		try {
+			Iterator<Supplier<IDocument>> iterator = documents.iterator();
+			int index = 0;
+			while (iterator.hasNext()) {
+				if (pending.size() >= maxPending) {
+					deliverNext(completionService, pending, resultConsumer);
+				}
+				Supplier<IDocument> documentSupplier = iterator.next();
+				int documentIndex = index++;
+				Callable<Result> task = () -> checkDocument(documentIndex, documentSupplier);
+				pending.addLast(resultOrder == ResultOrder.COMPLETION ? completionService.submit(task) : executor.submit(task));
+			}
+			while (!pending.isEmpty()) {
+				deliverNext(completionService, pending, resultConsumer);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Batch semantic check was interrupted");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void deliverNext(CompletionService<Result> completionService, Deque<Future<Result>> pending,
+	                         Consumer<Result> resultConsumer) throws InterruptedException {
+		Future<Result> future;
+		if (resultOrder == ResultOrder.SUBMISSION) {
+			future = pending.pollFirst();
+		} else {
+			future = completionService.take();
+			pending.remove(future);
+		}
+		try {
+			resultConsumer.accept(future.get());
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private Result checkDocument(int index, Supplier<IDocument> documentSupplier) {
+		IDocument document = null;
+		try {
+			document = documentSupplier.get();
+			SemanticContext context = new SemanticContext(document);
+			new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, context);
+			return new Result(index, document, context, null);
+		} catch (RuntimeException | StackOverflowError e) {
+			return new Result(index, document, null, e);
+		}
+	}
+
+	public static class Result {
+
+		private final int index;
+		private final IDocument document;
+		private final SemanticContext context;
+		private final Throwable error;
+
+		private Result(int index, IDocument document, SemanticContext context, Throwable error) {
+			this.index = index;
+			this.document = document;
+			this.context = context;
+			this.error = error;
+		}
+
+		/**
+		 * @return position of the document in the source stream
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public IDocument getDocument() {
+			return document;
+		}
+
+		/**
+		 * @return semantic context of the checked document, or null if the check failed
+		 */
+		public SemanticContext getContext() {
+			return context;
+		}
+
+		public Throwable getError() {
+			return error;
+		}
+
+		public boolean isSuccessful() {
+			return error == null;
+		}
+
+		/**
+		 * @return true if the check succeeded and was not stopped by the time budget
+		 */
+		public boolean isComplete() {
+			return error == null && !context.isIncomplete();
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private static final AtomicInteger poolCounter = new AtomicInteger();
+
+		private final int poolNumber = poolCounter.incrementAndGet();
+		private final AtomicInteger threadCounter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "semantic-checker-" + poolNumber + "-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
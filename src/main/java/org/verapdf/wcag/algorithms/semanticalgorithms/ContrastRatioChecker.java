@@ -6,6 +6,9 @@ import org.verapdf.wcag.algorithms.entities.ITree;
 import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.enums.TextType;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.ContrastRatioConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineListener;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineMonitor;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineStage;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -15,6 +18,19 @@ import java.util.function.Consumer;
 
 public class ContrastRatioChecker {
 
+	private final PipelineListener pipelineListener;
+
+	public ContrastRatioChecker() {
+		this(null);
+	}
+
+	/**
+	 * @param pipelineListener listener notified about the contrast stage of {@link #checkDocument}, or null
+	 */
+	public ContrastRatioChecker(PipelineListener pipelineListener) {
+		this.pipelineListener = pipelineListener;
+	}
+
 	/**
 	 * Traverses the document semantic tree and updates contrast ratio parameter of it's nodes. Uses pdf document
 	 * associated with the tree to determine contrast ratio by rendering it's pages.
@@ -28,6 +44,8 @@ public class ContrastRatioChecker {
 	}
 
 	public void checkDocument(IDocument document, String pdfName) {
+		PipelineMonitor monitor = PipelineMonitor.create(pipelineListener, document, null);
+		monitor.stageStarted(PipelineStage.CONTRAST);
 		ContrastRatioConsumer v = new ContrastRatioConsumer(pdfName);
 		if (document.getTree() != null) {
 			document.getTree().forEach(v);
@@ -35,6 +53,7 @@ public class ContrastRatioChecker {
 		document.getArtifacts().stream()
 				.filter(chunk -> chunk instanceof TextChunk)
 				.forEach(chunk -> v.calculateContrastRatio((TextChunk)chunk));
+		monitor.stageFinished();
 	}
 
 	/**
@@ -0,0 +1,1803 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.verapdf.wcag.algorithms.entities.FlatSemanticTree;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.ITree;
+import org.verapdf.wcag.algorithms.entities.NodeSnapshot;
+import org.verapdf.wcag.algorithms.entities.PageNodeIndex;
+import org.verapdf.wcag.algorithms.entities.RepeatedCharacters;
+import org.verapdf.wcag.algorithms.entities.SemanticSpan;
+import org.verapdf.wcag.algorithms.entities.content.TextChunk;
+import org.verapdf.wcag.algorithms.entities.content.TextLine;
+import org.verapdf.wcag.algorithms.entities.content.TextLinesSnapshot;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.entities.lists.PDFList;
+import org.verapdf.wcag.algorithms.entities.maps.AccumulatedNodeMapper;
+import org.verapdf.wcag.algorithms.entities.maps.SubtreeSummary;
+import org.verapdf.wcag.algorithms.entities.tables.Table;
+import org.verapdf.wcag.algorithms.entities.tables.TableRow;
+import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.SemanticCheckerConfig.Stage;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.ClusterTableConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.ClusterTableConsumer.Checkpoint;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.LinesPreprocessingConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPostprocessingConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPreprocessingConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.TableBorderConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineMonitor;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineStage;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Checks a document once and then re-checks it after edits of its semantic tree. Every stage keeps a journal
+ * of the states of nodes before their first update by it: the accumulation of every inner node, the tables in
+ * table borders of every page, every recognized cluster table and list, the title and the lowest depth error
+ * flags. A re-check updates the snapshot of the tree and the index of its pages locally, rolls back only the
+ * journals of the nodes updated again and accumulates again the modified subtrees and the paths from them to
+ * the root. Tables in table borders are recognized again on the pages of the modified subtrees and on the pages,
+ * whose tables were recognized from nodes changed by the re-accumulation. Cluster tables and lists are
+ * recognized again from the checkpoint of the recognition preceding every changed range of items up to
+ * a checkpoint, which has the same state as in the previous check, and repeated characters are checked again
+ * between the chains of chunks around the modified subtrees. A recognized structure is rolled back and applied
+ * again, only if a later stage or an earlier structure updates one of its nodes. States of removed nodes are
+ * dropped and their ids are reused by added nodes.
+ */
+public class IncrementalSemanticChecker {
+
+	private static final long SEGMENT_ORDER_STEP = 1L << 20;
+
+	private static final Comparator<Structure> STRUCTURE_ORDER = Comparator
+			.comparing((Structure structure) -> structure.list != null)
+			.thenComparingLong(structure -> structure.segment.order)
+			.thenComparingInt(structure -> structure.index);
+
+	private final IDocument document;
+	private final SemanticCheckerConfig config;
+	private final RecordingSemanticChecker checker;
+	private final Map<INode, AccumulationJournal> accumulationJournals = new IdentityHashMap<>();
+	private final SortedMap<Integer, NodeJournal> tableBorderJournals = new TreeMap<>();
+	private final Map<INode, Segment> segments = new IdentityHashMap<>();
+	private final Map<INode, List<Structure>> nodeStructures = new IdentityHashMap<>();
+	private final Map<Integer, List<Structure>> pageStructures = new HashMap<>();
+	private final TreeSet<Structure> pendingStructures = new TreeSet<>(STRUCTURE_ORDER);
+	private final Map<INode, NodeSnapshot> lowestDepthErrorStates = new IdentityHashMap<>();
+	private final List<INode> chainSpans = new ArrayList<>();
+	private final Deque<Integer> freeNodeIds = new ArrayDeque<>();
+	private INode[] registeredNodes = new INode[0];
+	private int registeredNodesNumber;
+	private long nextSequenceNumber;
+	private Segment firstSegment;
+	private NodeJournal titleJournal;
+	private NodeJournal currentJournal;
+	private Recheck recheck;
+	private boolean recordsLowestDepthErrors;
+	private LinesPreprocessingConsumer linesPreprocessingConsumer;
+	private SemanticContext context;
+	private boolean hasNodeStates;
+
+	public IncrementalSemanticChecker(IDocument document) {
+		this(document, SemanticCheckerConfig.defaultConfig());
+	}
+
+	public IncrementalSemanticChecker(IDocument document, SemanticCheckerConfig config) {
+		this.document = Objects.requireNonNull(document);
+		this.config = Objects.requireNonNull(config);
+		this.checker = new RecordingSemanticChecker(config);
+	}
+
+	/**
+	 * @return context of the last check, or null if the document was not checked yet
+	 */
+	public SemanticContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Checks the whole document.
+	 */
+	public SemanticContext check() {
+		clearStates();
+		context = new SemanticContext(document);
+		context.setNodeUpdateListener(this::beforeNodeUpdate);
+		context.setTextLineUpdateListener(this::beforeTextLineUpdate);
+		linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
+		checker.checkSemanticDocument(document, context);
+		hasNodeStates = !context.isIncomplete();
+		if (hasNodeStates) {
+			registerNodes(context.getFlatSemanticTree(document.getTree()));
+		}
+		return context;
+	}
+
+	/**
+	 * Re-checks the document after edits of its semantic tree. A node is modified if its own content or the
+	 * list of its children has changed; added nodes are reported by their parents. If there is no complete
+	 * previous check, the whole document is checked.
+	 *
+	 * @param modifiedNodes nodes of the tree, whose subtrees were edited since the last check
+	 */
+	public SemanticContext recheck(Collection<INode> modifiedNodes) {
+		if (context == null || !hasNodeStates) {
+			return check();
+		}
+		hasNodeStates = false;
+		context.setIncomplete(false);
+		checker.runCancellable(context, () -> recheckNodes(modifiedNodes));
+		hasNodeStates = !context.isIncomplete();
+		return context;
+	}
+
+	private void clearStates() {
+		accumulationJournals.clear();
+		tableBorderJournals.clear();
+		segments.clear();
+		nodeStructures.clear();
+		pageStructures.clear();
+		pendingStructures.clear();
+		lowestDepthErrorStates.clear();
+		chainSpans.clear();
+		freeNodeIds.clear();
+		registeredNodes = new INode[0];
+		registeredNodesNumber = 0;
+		nextSequenceNumber = 0;
+		firstSegment = null;
+		titleJournal = null;
+		currentJournal = null;
+		recheck = null;
+		recordsLowestDepthErrors = false;
+	}
+
+	private void recheckNodes(Collection<INode> modifiedNodes) {
+		ITree tree = document.getTree();
+		PipelineMonitor monitor = PipelineMonitor.create(config.getPipelineListener(), document, context);
+		recheck = new Recheck();
+		try {
+			monitor.stageStarted(PipelineStage.SEMANTIC_PREPROCESSING);
+			if (titleJournal != null) {
+				titleJournal.rollback(recheck::touchRecognizedNode, context.getAccumulatedNodeMapper());
+				titleJournal = null;
+			}
+			TreeEdit edit = updateTree(modifiedNodes);
+			recheck.edit = edit;
+			monitor.stageFinished();
+
+			monitor.stageStarted(PipelineStage.ACCUMULATION);
+			SortedSet<Integer> touchedPages = accumulate(edit);
+			monitor.stageFinished();
+
+			Set<Integer> recognizedPages = Collections.emptySet();
+			if (config.isEnabled(Stage.TABLE_BORDERS)) {
+				monitor.stageStarted(PipelineStage.TABLE_BORDERS);
+				recognizedPages = recognizeTableBorders(touchedPages);
+				monitor.stageFinished();
+			}
+			if (config.isEnabled(Stage.CLUSTER_TABLES)) {
+				monitor.stageStarted(PipelineStage.CLUSTER_TABLES);
+				recognizeClusterTables(getChangedItems(edit, recognizedPages));
+				monitor.stageFinished();
+			}
+			if (config.isEnabled(Stage.TITLE) || config.isEnabled(Stage.REPEATED_CHARACTERS) ||
+			    config.isEnabled(Stage.LOWEST_DEPTH_ERROR)) {
+				monitor.stageStarted(PipelineStage.POSTPROCESSING);
+				runPostprocessing(tree, edit);
+				monitor.stageFinished();
+			}
+			releaseRemovedNodes(edit);
+			compactNodeIds(tree);
+		} finally {
+			recheck = null;
+			currentJournal = null;
+			recordsLowestDepthErrors = false;
+		}
+	}
+
+	private void beforeNodeUpdate(INode node) {
+		if (recordsLowestDepthErrors) {
+			lowestDepthErrorStates.computeIfAbsent(node,
+					key -> new NodeSnapshot(key, context.getAccumulatedNodeMapper(), false));
+			return;
+		}
+		if (recheck != null) {
+			recheck.touch(node);
+		}
+		if (currentJournal != null) {
+			currentJournal.record(node, context.getAccumulatedNodeMapper());
+		}
+	}
+
+	private void beforeTextLineUpdate(TextLine textLine) {
+		if (currentJournal != null) {
+			currentJournal.record(textLine);
+		}
+	}
+
+	private void touch(INode node) {
+		if (recheck != null) {
+			recheck.touch(node);
+		}
+	}
+
+	/**
+	 * Returns the node to its state before the lowest depth error flag was set for it.
+	 */
+	private void rollbackLowestDepthError(INode node) {
+		NodeSnapshot state = lowestDepthErrorStates.remove(node);
+		if (state != null) {
+			state.restore(node, context.getAccumulatedNodeMapper());
+		}
+	}
+
+	private void registerNodes(FlatSemanticTree flatSemanticTree) {
+		registeredNodes = new INode[flatSemanticTree.size()];
+		registeredNodesNumber = registeredNodes.length;
+		freeNodeIds.clear();
+		for (int id = 0; id < flatSemanticTree.size(); id++) {
+			INode node = flatSemanticTree.getNode(id);
+			if (node != null && node.getNodeId() == id) {
+				registeredNodes[id] = node;
+			}
+		}
+	}
+
+	private boolean isRegistered(INode node) {
+		int id = node.getNodeId();
+		return id >= 0 && id < registeredNodesNumber && registeredNodes[id] == node;
+	}
+
+	private void register(INode node) {
+		int id = freeNodeIds.isEmpty() ? registeredNodesNumber++ : freeNodeIds.pop();
+		if (id >= registeredNodes.length) {
+			registeredNodes = Arrays.copyOf(registeredNodes, Math.max(id + 1, 2 * registeredNodes.length));
+		}
+		registeredNodes[id] = node;
+		node.setNodeId(id);
+		context.getAccumulatedNodeMapper().ensureCapacity(registeredNodesNumber);
+	}
+
+	/**
+	 * Updates parents, indexes, depths and subtree sizes of the edited nodes, registers added nodes, finds
+	 * removed nodes, excludes moved and removed subtrees from the snapshot of the tree and updates the index
+	 * of its pages. Modified nodes, which are not attached to the tree, are skipped.
+	 */
+	private TreeEdit updateTree(Collection<INode> modifiedNodes) {
+		INode root = document.getTree().getRoot();
+		FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+		PageNodeIndex pageNodeIndex = context.getPageNodeIndex();
+		TreeEdit edit = new TreeEdit();
+		for (INode node : modifiedNodes) {
+			if (isRegistered(node) && isAttached(node, root)) {
+				edit.modifiedNodes.add(node);
+			}
+		}
+		for (INode node : edit.modifiedNodes) {
+			addPages(edit.pages, pageNodeIndex, node);
+		}
+		Set<INode> newNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<INode> visitedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<INode> reorderedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<INode> nodeStack = new ArrayDeque<>(edit.modifiedNodes);
+		while (!nodeStack.isEmpty()) {
+			context.checkCancelled();
+			INode node = nodeStack.pop();
+			boolean isNewParent = newNodes.contains(node);
+			List<INode> keptChildren = new ArrayList<>();
+			for (int i = 0; i < node.getChildren().size(); i++) {
+				INode child = node.getChildren().get(i);
+				visitedNodes.add(child);
+				if (!isRegistered(child)) {
+					register(child);
+					newNodes.add(child);
+					edit.newNodes.add(child);
+					if (!isNewParent) {
+						edit.addedNodes.add(child);
+					}
+					nodeStack.push(child);
+				} else if (child.getParent() != node) {
+					if (!isNewParent) {
+						edit.addedNodes.add(child);
+					}
+					edit.movedNodes.add(child);
+				} else {
+					keptChildren.add(child);
+				}
+				child.setParent(node);
+				child.setIndex(i);
+			}
+			if (!isNewParent) {
+				for (INode child : getReorderedNodes(keptChildren, flatSemanticTree)) {
+					reorderedNodes.add(child);
+					edit.addedNodes.add(child);
+					edit.movedNodes.add(child);
+				}
+			}
+		}
+		for (INode node : edit.modifiedNodes) {
+			AccumulationJournal journal = accumulationJournals.get(node);
+			if (journal != null) {
+				for (INode child : journal.children) {
+					if (!visitedNodes.contains(child)) {
+						addRemovedNodes(child, visitedNodes, edit);
+					}
+				}
+			}
+		}
+		for (INode node : edit.addedNodes) {
+			setDepths(node);
+		}
+		updateSubtreeSizes(edit);
+		if (config.isEnabled(Stage.UNDERLINED_TEXT)) {
+			for (INode node : edit.newNodes) {
+				checkUnderlinedText(node);
+			}
+			for (INode node : edit.modifiedNodes) {
+				checkUnderlinedText(node);
+			}
+		}
+		Set<Integer> oldPages = new TreeSet<>();
+		for (INode node : edit.movedNodes) {
+			addPages(oldPages, pageNodeIndex, node);
+		}
+		for (INode node : edit.removedRoots) {
+			addPages(oldPages, pageNodeIndex, node);
+		}
+		for (INode node : edit.movedNodes) {
+			excludeSubtree(flatSemanticTree, node);
+		}
+		for (INode node : edit.removedRoots) {
+			excludeSubtree(flatSemanticTree, node);
+		}
+		edit.pages.addAll(oldPages);
+		Set<Integer> changedPages = pageNodeIndex.update(oldPages, edit.modifiedNodes, edit.addedNodes,
+		                                                 edit.removedNodes);
+		context.releasePageSpatialIndexes(changedPages);
+		edit.pages.addAll(changedPages);
+		for (INode node : edit.modifiedNodes) {
+			addPages(edit.pages, pageNodeIndex, node);
+		}
+		return edit;
+	}
+
+	private static boolean isAttached(INode node, INode root) {
+		for (INode child = node; child != root; child = child.getParent()) {
+			INode parent = child.getParent();
+			if (parent == null) {
+				return false;
+			}
+			Integer index = child.getIndex();
+			if (index == null || index >= parent.getChildren().size() || parent.getChildren().get(index) != child) {
+				boolean isChild = false;
+				for (INode sibling : parent.getChildren()) {
+					if (sibling == child) {
+						isChild = true;
+						break;
+					}
+				}
+				if (!isChild) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return children, which have kept their parent, but not their order relative to the longest sequence
+	 * of such children ordered as in the snapshot of the tree
+	 */
+	private static List<INode> getReorderedNodes(List<INode> keptChildren, FlatSemanticTree flatSemanticTree) {
+		List<INode> nodes = new ArrayList<>();
+		for (INode child : keptChildren) {
+			if (flatSemanticTree.getId(child) != FlatSemanticTree.NO_NODE) {
+				nodes.add(child);
+			}
+		}
+		int[] tails = new int[nodes.size()];
+		int[] previous = new int[nodes.size()];
+		int length = 0;
+		for (int i = 0; i < nodes.size(); i++) {
+			int id = flatSemanticTree.getId(nodes.get(i));
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (flatSemanticTree.getId(nodes.get(tails[middle])) < id) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) {
+				length++;
+			}
+		}
+		boolean[] isOrdered = new boolean[nodes.size()];
+		for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+			isOrdered[i] = true;
+		}
+		List<INode> reorderedNodes = new ArrayList<>();
+		for (int i = 0; i < nodes.size(); i++) {
+			if (!isOrdered[i]) {
+				reorderedNodes.add(nodes.get(i));
+			}
+		}
+		return reorderedNodes;
+	}
+
+	/**
+	 * Adds the nodes of the removed subtree, which are not attached to the tree again, to the removed nodes.
+	 * Children of nodes are taken from their last accumulation.
+	 */
+	private void addRemovedNodes(INode removedRoot, Set<INode> attachedNodes, TreeEdit edit) {
+		edit.removedRoots.add(removedRoot);
+		Deque<INode> nodeStack = new ArrayDeque<>();
+		nodeStack.push(removedRoot);
+		while (!nodeStack.isEmpty()) {
+			INode node = nodeStack.pop();
+			if (attachedNodes.contains(node) || !edit.removedNodes.add(node)) {
+				continue;
+			}
+			AccumulationJournal journal = accumulationJournals.get(node);
+			for (INode child : journal != null ? Arrays.asList(journal.children) : node.getChildren()) {
+				nodeStack.push(child);
+			}
+		}
+	}
+
+	private static void setDepths(INode subtreeRoot) {
+		Deque<INode> nodeStack = new ArrayDeque<>();
+		nodeStack.push(subtreeRoot);
+		while (!nodeStack.isEmpty()) {
+			INode node = nodeStack.pop();
+			node.setDepth(node.getParent().getDepth() + 1);
+			for (INode child : node.getChildren()) {
+				nodeStack.push(child);
+			}
+		}
+	}
+
+	/**
+	 * Computes sizes of the subtrees of the new nodes and of the modified nodes from their children and
+	 * propagates changed sizes of the modified subtrees to their ancestors.
+	 */
+	private static void updateSubtreeSizes(TreeEdit edit) {
+		for (int i = edit.newNodes.size() - 1; i >= 0; i--) {
+			edit.newNodes.get(i).setSubtreeSize(getSubtreeSize(edit.newNodes.get(i)));
+		}
+		List<INode> nodes = new ArrayList<>(edit.modifiedNodes);
+		nodes.sort(Comparator.comparingInt(INode::getDepth).reversed());
+		for (INode node : nodes) {
+			int delta = getSubtreeSize(node) - node.getSubtreeSize();
+			if (delta != 0) {
+				for (INode ancestor = node; ancestor != null; ancestor = ancestor.getParent()) {
+					ancestor.setSubtreeSize(ancestor.getSubtreeSize() + delta);
+				}
+			}
+		}
+	}
+
+	private static int getSubtreeSize(INode node) {
+		int subtreeSize = 1;
+		for (INode child : node.getChildren()) {
+			subtreeSize += child.getSubtreeSize();
+		}
+		return subtreeSize;
+	}
+
+	private void checkUnderlinedText(INode node) {
+		if (node instanceof SemanticSpan) {
+			for (TextLine textLine : ((SemanticSpan) node).getLines()) {
+				for (TextChunk textChunk : textLine.getTextChunks()) {
+					SemanticDocumentPreprocessingConsumer.checkUnderlinedText(context, textChunk);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Excludes the subtree from the snapshot of the tree. Subtrees of nodes absent in the snapshot contain no
+	 * nodes of the snapshot, because such nodes were added to the tree or moved after the snapshot was built.
+	 */
+	private static void excludeSubtree(FlatSemanticTree flatSemanticTree, INode node) {
+		int id = flatSemanticTree.getId(node);
+		if (id != FlatSemanticTree.NO_NODE) {
+			flatSemanticTree.excludeSubtree(id);
+		}
+	}
+
+	private static void addPages(Set<Integer> pages, PageNodeIndex pageNodeIndex, INode node) {
+		int firstPage = pageNodeIndex.getFirstPage(node);
+		int lastPage = pageNodeIndex.getLastPage(node);
+		for (int page = firstPage; firstPage != FlatSemanticTree.NO_PAGE && page <= lastPage; page++) {
+			pages.add(page);
+		}
+	}
+
+	/**
+	 * Rolls back the accumulation of the modified nodes, their ancestors and the removed nodes together with
+	 * the later updates of the nodes changed by it, and accumulates the modified nodes, their ancestors and the
+	 * added nodes again.
+	 *
+	 * @return pages, whose tables in table borders should be recognized again
+	 */
+	private SortedSet<Integer> accumulate(TreeEdit edit) {
+		AccumulatedNodeMapper mapper = context.getAccumulatedNodeMapper();
+		Set<INode> accumulatedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<INode> nodes = new ArrayList<>();
+		for (INode node : edit.modifiedNodes) {
+			for (INode ancestor = node; ancestor != null && accumulatedNodes.add(ancestor);
+			     ancestor = ancestor.getParent()) {
+				nodes.add(ancestor);
+			}
+		}
+		for (INode node : edit.newNodes) {
+			if (accumulatedNodes.add(node)) {
+				nodes.add(node);
+			}
+		}
+		nodes.sort(Comparator.comparingInt(INode::getDepth).reversed());
+		Set<INode> journalNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<AccumulationJournal> journals = new ArrayList<>();
+		for (INode node : nodes) {
+			AccumulationJournal journal = accumulationJournals.remove(node);
+			if (journal != null) {
+				journals.add(journal);
+				journalNodes.add(node);
+			}
+		}
+		for (INode node : edit.removedNodes) {
+			AccumulationJournal journal = accumulationJournals.remove(node);
+			if (journal != null) {
+				journals.add(journal);
+			}
+		}
+		journals.sort(Comparator.comparingLong((AccumulationJournal journal) -> journal.sequenceNumber).reversed());
+
+		Set<INode> restoredNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		restoredNodes.addAll(accumulatedNodes);
+		for (AccumulationJournal journal : journals) {
+			restoredNodes.addAll(journal.getNodes());
+		}
+		for (INode node : nodes) {
+			for (INode child : node.getChildren()) {
+				restoredNodes.add(child);
+				restoredNodes.addAll(child.getChildren());
+			}
+		}
+		SortedSet<Integer> touchedPages = new TreeSet<>(edit.pages);
+		touchedPages.addAll(getSharingPages(getJournalNodes(touchedPages), touchedPages));
+		SortedSet<Integer> keptPages = new TreeSet<>(getSharingPages(restoredNodes, touchedPages));
+		for (INode node : getJournalNodes(keptPages)) {
+			touch(node);
+		}
+		Map<INode, NodeSnapshot> recognizedStates = getCurrentStates(keptPages);
+		rollbackTableBorders(touchedPages, keptPages);
+		for (INode node : edit.removedNodes) {
+			touch(node);
+		}
+		for (AccumulationJournal journal : journals) {
+			journal.rollback(this::touch, mapper);
+		}
+		Consumer<INode> accumulationConsumer = checker.createAccumulationConsumer(context);
+		for (INode node : nodes) {
+			context.checkCancelled();
+			touch(node);
+			for (INode child : node.getChildren()) {
+				touch(child);
+				for (INode grandChild : child.getChildren()) {
+					touch(grandChild);
+				}
+			}
+			if (!node.getChildren().isEmpty() && !journalNodes.contains(node)) {
+				mapper.remove(node);
+			}
+			accumulationConsumer.accept(node);
+		}
+		if (hasSameAccumulatedStates(keptPages)) {
+			for (Map.Entry<INode, NodeSnapshot> entry : recognizedStates.entrySet()) {
+				touch(entry.getKey());
+				entry.getValue().restore(entry.getKey(), mapper);
+			}
+		} else {
+			for (Integer pageNumber : keptPages) {
+				tableBorderJournals.remove(pageNumber);
+			}
+			touchedPages.addAll(keptPages);
+		}
+		return touchedPages;
+	}
+
+	/**
+	 * @return nodes updated by tables in table borders of the pages
+	 */
+	private Set<INode> getJournalNodes(Set<Integer> pages) {
+		Set<INode> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Integer pageNumber : pages) {
+			NodeJournal journal = tableBorderJournals.get(pageNumber);
+			if (journal != null) {
+				nodes.addAll(journal.getNodes());
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * @return current states of the nodes updated by tables in table borders of the pages
+	 */
+	private Map<INode, NodeSnapshot> getCurrentStates(Set<Integer> pages) {
+		Map<INode, NodeSnapshot> states = new IdentityHashMap<>();
+		for (INode node : getJournalNodes(pages)) {
+			states.put(node, new NodeSnapshot(node, context.getAccumulatedNodeMapper(), false));
+		}
+		return states;
+	}
+
+	/**
+	 * @return true if the nodes updated by tables in table borders of the pages are accumulated to the same
+	 * states, which these tables were recognized from
+	 */
+	private boolean hasSameAccumulatedStates(SortedSet<Integer> pages) {
+		Set<INode> checkedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Integer pageNumber : pages) {
+			if (!tableBorderJournals.get(pageNumber).hasSameStates(checkedNodes, context.getAccumulatedNodeMapper())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return pages, which are not excluded, whose tables in table borders have updated any of the nodes directly
+	 * or through pages sharing updated nodes
+	 */
+	private Set<Integer> getSharingPages(Set<INode> updatedNodes, Set<Integer> excludedPages) {
+		Set<INode> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		nodes.addAll(updatedNodes);
+		Set<Integer> pages = new TreeSet<>();
+		boolean hasNewPages = true;
+		while (hasNewPages) {
+			hasNewPages = false;
+			for (Map.Entry<Integer, NodeJournal> entry : tableBorderJournals.entrySet()) {
+				if (!excludedPages.contains(entry.getKey()) && !pages.contains(entry.getKey()) &&
+				    entry.getValue().containsAny(nodes)) {
+					pages.add(entry.getKey());
+					nodes.addAll(entry.getValue().getNodes());
+					hasNewPages = true;
+				}
+			}
+		}
+		return pages;
+	}
+
+	/**
+	 * Returns nodes to their states before recognition of tables in table borders of the pages, from the last
+	 * page to the first one. Recorded states of the kept pages are not dropped.
+	 */
+	private void rollbackTableBorders(Set<Integer> pages, Set<Integer> keptPages) {
+		NavigableSet<Integer> rollbackPages = new TreeSet<>(pages);
+		rollbackPages.addAll(keptPages);
+		for (Integer pageNumber : rollbackPages.descendingSet()) {
+			NodeJournal journal = keptPages.contains(pageNumber) ? tableBorderJournals.get(pageNumber) :
+			                      tableBorderJournals.remove(pageNumber);
+			if (journal != null) {
+				journal.rollback(this::touch, context.getAccumulatedNodeMapper());
+			}
+		}
+	}
+
+	/**
+	 * Recognizes tables in table borders page by page, recording updated nodes of every page. If tables of the
+	 * recognized pages share updated nodes with tables of other pages, these pages are recognized again as well.
+	 * On a re-check table borders of the pages are found again and cluster tables and lists on these pages are
+	 * rolled back before the recognition.
+	 *
+	 * @param candidatePages pages to recognize again, or null to recognize all pages
+	 * @return recognized pages
+	 */
+	private SortedSet<Integer> recognizeTableBorders(Set<Integer> candidatePages) {
+		List<SortedSet<TableBorder>> tableBorders = context.getTableBordersCollection().getTableBorders();
+		SortedSet<Integer> pages = new TreeSet<>();
+		for (int pageNumber = 0; pageNumber < tableBorders.size(); pageNumber++) {
+			if (!tableBorders.get(pageNumber).isEmpty() &&
+			    (candidatePages == null || candidatePages.contains(pageNumber))) {
+				pages.add(pageNumber);
+			}
+		}
+		SortedSet<Integer> recognizedPages = new TreeSet<>();
+		TableBorderConsumer tableBorderConsumer = new TableBorderConsumer(context);
+		while (!pages.isEmpty()) {
+			Set<INode> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Integer pageNumber : pages) {
+				if (candidatePages != null) {
+					recheck.rollbackStructures(pageStructures.get(pageNumber));
+					context.getTableBordersCollection().setTableBorders(pageNumber,
+							linesPreprocessingConsumer.findNewTableBorders(pageNumber), context);
+				}
+				currentJournal = new NodeJournal();
+				tableBorderJournals.put(pageNumber, currentJournal);
+				tableBorderConsumer.recognizeTables(pageNumber);
+				currentJournal.close();
+				nodes.addAll(currentJournal.getNodes());
+			}
+			currentJournal = null;
+			recognizedPages.addAll(pages);
+			Set<Integer> sharingPages = getSharingPages(nodes, pages);
+			if (sharingPages.isEmpty()) {
+				break;
+			}
+			pages.addAll(sharingPages);
+			rollbackTableBorders(pages, Collections.emptySet());
+		}
+		return recognizedPages;
+	}
+
+	/**
+	 * @return sorted disjoint ranges of items, whose recognition may differ from the previous check: items of
+	 * the modified subtrees, of the nodes, which have become or stopped being tables in table borders, and of
+	 * the pages, whose tables in table borders were recognized again
+	 */
+	private List<ItemRange> getChangedItems(TreeEdit edit, Set<Integer> recognizedPages) {
+		ClusterTableConsumer items = recheck.items;
+		FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+		List<ItemRange> ranges = new ArrayList<>();
+		for (INode node : edit.modifiedNodes) {
+			ranges.add(getItemRange(items, node));
+		}
+		for (Map.Entry<INode, NodeChange> entry : recheck.touchedNodes.entrySet()) {
+			if (!edit.removedNodes.contains(entry.getKey()) &&
+			    entry.getValue().wasTableItem != items.isTableItem(entry.getKey())) {
+				ranges.add(getItemRange(items, entry.getKey()));
+			}
+		}
+		for (Integer pageNumber : recognizedPages) {
+			List<INode> leafNodes = context.getPageNodeIndex().getLeafNodes(pageNumber);
+			if (!leafNodes.isEmpty()) {
+				ranges.add(new ItemRange(getTopItem(items, leafNodes.get(0)),
+				                         getTopItem(items, leafNodes.get(leafNodes.size() - 1))));
+			}
+		}
+		ranges.sort((range1, range2) -> flatSemanticTree.compare(range1.first, range2.first));
+		List<ItemRange> mergedRanges = new ArrayList<>();
+		for (ItemRange range : ranges) {
+			ItemRange lastRange = mergedRanges.isEmpty() ? null : mergedRanges.get(mergedRanges.size() - 1);
+			if (lastRange != null && flatSemanticTree.compare(range.first, lastRange.last) <= 0) {
+				if (flatSemanticTree.compare(range.last, lastRange.last) > 0) {
+					lastRange.last = range.last;
+				}
+			} else {
+				mergedRanges.add(range);
+			}
+		}
+		return mergedRanges;
+	}
+
+	private static ItemRange getItemRange(ClusterTableConsumer items, INode node) {
+		INode topNode = getTopItem(items, node);
+		return new ItemRange(items.getFirstItem(topNode), items.getLastItem(topNode));
+	}
+
+	/**
+	 * @return the highest table in table borders containing the node, or the node itself
+	 */
+	private static INode getTopItem(ClusterTableConsumer items, INode node) {
+		INode topItem = node;
+		for (INode ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+			if (items.isTableItem(ancestor)) {
+				topItem = ancestor;
+			}
+		}
+		return topItem;
+	}
+
+	private boolean isChanged(List<ItemRange> ranges, INode node) {
+		FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+		int low = 0;
+		int high = ranges.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (flatSemanticTree.compare(ranges.get(middle).first, node) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low > 0 && flatSemanticTree.compare(node, ranges.get(low - 1).last) <= 0;
+	}
+
+	private boolean hasChangedNodes(List<ItemRange> ranges, Checkpoint checkpoint) {
+		for (INode node : checkpoint.getNodes()) {
+			if (recheck.edit.removedNodes.contains(node) || isChanged(ranges, node)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Recognizes cluster tables and lists again from the checkpoint preceding every range of changed items up
+	 * to the first checkpoint after it, which has the same state as in the previous check, and updates the tree
+	 * with the recognized structures, which are not applied yet.
+	 *
+	 * @param ranges sorted ranges of changed items, or null to recognize the whole tree
+	 */
+	private void recognizeClusterTables(List<ItemRange> ranges) {
+		INode root = document.getTree().getRoot();
+		if (ranges == null) {
+			ClusterTableConsumer tableFinder = new ClusterTableConsumer(context);
+			SegmentRecorder recorder = new SegmentRecorder(tableFinder, null, 0, null);
+			tableFinder.recognizeTables(root, null, recorder);
+			recorder.finishSegment();
+			replaceSegments(null, null, recorder.newSegments);
+		}
+		for (int rangeIndex = 0; ranges != null && rangeIndex < ranges.size();) {
+			context.checkCancelled();
+			Segment resumeSegment = findResumeSegment(ranges, ranges.get(rangeIndex).first, root);
+			ClusterTableConsumer tableFinder = new ClusterTableConsumer(context);
+			SegmentRecorder recorder = new SegmentRecorder(tableFinder, ranges, rangeIndex, resumeSegment);
+			tableFinder.recognizeTables(root, resumeSegment != null ? resumeSegment.checkpoint : null, recorder);
+			recorder.finishSegment();
+			replaceSegments(resumeSegment, recorder.stopSegment, recorder.newSegments);
+			if (recorder.stopSegment == null) {
+				break;
+			}
+			rangeIndex = recorder.rangeIndex;
+		}
+		applyStructures();
+	}
+
+	/**
+	 * @return segment of the nearest checkpoint before the item at an unchanged item, whose tokens contain
+	 * no changed items, or null to recognize from the first item
+	 */
+	private Segment findResumeSegment(List<ItemRange> ranges, INode item, INode root) {
+		ClusterTableConsumer items = recheck.items;
+		for (INode previousItem = items.getPreviousItem(item, root); previousItem != null;
+		     previousItem = items.getPreviousItem(previousItem, root)) {
+			Segment segment = segments.get(previousItem);
+			if (segment != null && !isChanged(ranges, previousItem) && !hasChangedNodes(ranges, segment.checkpoint)) {
+				return segment;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Replaces segments of the recognition from the first segment up to the end segment by the new segments.
+	 * Structures of the replaced segments are discarded and rolled back, if they are applied.
+	 *
+	 * @param first first replaced segment, or null to replace from the start of the recognition
+	 * @param end first kept segment, or null to replace up to the end of the recognition
+	 */
+	private void replaceSegments(Segment first, Segment end, List<Segment> newSegments) {
+		Segment previous = first != null ? first.previous : null;
+		List<Structure> discardedStructures = new ArrayList<>();
+		for (Segment segment = first != null ? first : firstSegment; segment != null && segment != end;
+		     segment = segment.next) {
+			if (segments.get(segment.checkpoint.getItem()) == segment) {
+				segments.remove(segment.checkpoint.getItem());
+			}
+			for (Structure structure : segment.structures) {
+				structure.discarded = true;
+				pendingStructures.remove(structure);
+				discardedStructures.add(structure);
+			}
+		}
+		if (recheck != null) {
+			recheck.rollbackStructures(discardedStructures);
+		}
+		int segmentsNumber = newSegments.size();
+		long lowerOrder = previous != null ? previous.order :
+		                  end != null ? end.order - (segmentsNumber + 1) * SEGMENT_ORDER_STEP : 0;
+		long upperOrder = end != null ? end.order : lowerOrder + (segmentsNumber + 1) * SEGMENT_ORDER_STEP;
+		long orderStep = (upperOrder - lowerOrder) / (segmentsNumber + 1);
+		Segment lastSegment = previous;
+		for (int i = 0; i < segmentsNumber; i++) {
+			Segment segment = newSegments.get(i);
+			segment.order = lowerOrder + (i + 1) * orderStep;
+			segment.previous = lastSegment;
+			if (lastSegment != null) {
+				lastSegment.next = segment;
+			} else {
+				firstSegment = segment;
+			}
+			lastSegment = segment;
+			segments.put(segment.checkpoint.getItem(), segment);
+		}
+		if (lastSegment != null) {
+			lastSegment.next = end;
+		} else {
+			firstSegment = end;
+		}
+		if (end != null) {
+			end.previous = lastSegment;
+		}
+		if (orderStep == 0 && segmentsNumber > 0) {
+			long order = 0;
+			for (Segment segment = firstSegment; segment != null; segment = segment.next) {
+				segment.order = order;
+				order += SEGMENT_ORDER_STEP;
+			}
+		}
+		for (Segment segment : newSegments) {
+			pendingStructures.addAll(segment.structures);
+		}
+	}
+
+	/**
+	 * Updates the tree with the recognized structures, which are not applied, in the order of a full
+	 * recognition: tables before lists, each in the order of their recognition.
+	 */
+	private void applyStructures() {
+		ClusterTableConsumer tableFinder = new ClusterTableConsumer(context);
+		while (!pendingStructures.isEmpty()) {
+			context.checkCancelled();
+			Structure structure = pendingStructures.pollFirst();
+			if (recheck != null) {
+				recheck.appliedStructure = structure;
+			}
+			NodeJournal journal = new NodeJournal();
+			currentJournal = journal;
+			try {
+				structure.apply(tableFinder);
+			} finally {
+				currentJournal = null;
+			}
+			journal.close();
+			structure.journal = journal;
+			indexStructure(structure);
+		}
+		if (recheck != null) {
+			recheck.appliedStructure = null;
+		}
+	}
+
+	private void indexStructure(Structure structure) {
+		PageNodeIndex pageNodeIndex = context.getPageNodeIndex();
+		int firstPage = FlatSemanticTree.NO_PAGE;
+		int lastPage = FlatSemanticTree.NO_PAGE;
+		for (INode node : structure.journal.getNodes()) {
+			nodeStructures.computeIfAbsent(node, key -> new ArrayList<>(1)).add(structure);
+			int nodeFirstPage = pageNodeIndex.getFirstPage(node);
+			if (nodeFirstPage != FlatSemanticTree.NO_PAGE) {
+				firstPage = firstPage == FlatSemanticTree.NO_PAGE ? nodeFirstPage : Math.min(firstPage, nodeFirstPage);
+				lastPage = Math.max(lastPage, pageNodeIndex.getLastPage(node));
+			}
+		}
+		structure.firstPage = firstPage;
+		structure.lastPage = lastPage;
+		for (int page = firstPage; firstPage != FlatSemanticTree.NO_PAGE && page <= lastPage; page++) {
+			pageStructures.computeIfAbsent(page, key -> new ArrayList<>()).add(structure);
+		}
+	}
+
+	private void unindexStructure(Structure structure) {
+		for (INode node : structure.journal.getNodes()) {
+			List<Structure> structures = nodeStructures.get(node);
+			if (structures != null) {
+				structures.remove(structure);
+				if (structures.isEmpty()) {
+					nodeStructures.remove(node);
+				}
+			}
+		}
+		for (int page = structure.firstPage; structure.firstPage != FlatSemanticTree.NO_PAGE &&
+		                                     page <= structure.lastPage; page++) {
+			List<Structure> structures = pageStructures.get(page);
+			if (structures != null) {
+				structures.remove(structure);
+				if (structures.isEmpty()) {
+					pageStructures.remove(page);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs postprocessing stages. On a re-check the title is found again, repeated characters are checked
+	 * again between unchanged chain starts around the modified subtrees, and lowest depth error flags are updated
+	 * for the nodes changed by the re-check and the added subtrees.
+	 *
+	 * @param edit edit of the tree, or null to run postprocessing of the whole tree
+	 */
+	private void runPostprocessing(ITree tree, TreeEdit edit) {
+		SemanticDocumentPostprocessingConsumer postprocessingConsumer = new SemanticDocumentPostprocessingConsumer(context);
+		if (recheck != null) {
+			recheck.isPostprocessing = true;
+		}
+		if (config.isEnabled(Stage.TITLE)) {
+			titleJournal = new NodeJournal();
+			currentJournal = titleJournal;
+			try {
+				postprocessingConsumer.checkForTitle(tree);
+			} finally {
+				currentJournal = null;
+			}
+			titleJournal.close();
+		}
+		if (config.isEnabled(Stage.REPEATED_CHARACTERS)) {
+			if (edit == null) {
+				postprocessingConsumer.checkForRepeatedCharacters(getNodes(getFirstNode(tree.getRoot()), null),
+						context.getRepeatedCharacters(), chainSpans);
+			} else {
+				updateRepeatedCharacters(tree.getRoot(), edit, postprocessingConsumer);
+			}
+		}
+		if (config.isEnabled(Stage.LOWEST_DEPTH_ERROR)) {
+			recordsLowestDepthErrors = true;
+			try {
+				if (edit == null) {
+					postprocessingConsumer.setLowestDepthErrorFlag(tree);
+				} else {
+					updateLowestDepthErrors(edit, postprocessingConsumer);
+				}
+			} finally {
+				recordsLowestDepthErrors = false;
+			}
+		}
+	}
+
+	/**
+	 * Checks repeated characters again in the regions of spans between chain starts, which do not depend on the
+	 * modified subtrees, and replaces repeated characters, whose chains started in these regions or in removed
+	 * spans.
+	 */
+	private void updateRepeatedCharacters(INode root, TreeEdit edit,
+	                                      SemanticDocumentPostprocessingConsumer postprocessingConsumer) {
+		FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+		Comparator<INode> regionStartOrder = (node1, node2) -> node1 == null ? (node2 == null ? 0 : -1) :
+		                                                       node2 == null ? 1 : flatSemanticTree.compare(node1, node2);
+		List<SpanRegion> regions = new ArrayList<>();
+		for (INode node : edit.modifiedNodes) {
+			regions.add(new SpanRegion(findRegionStart(getFirstNode(node)), findRegionEnd(node)));
+		}
+		regions.sort((region1, region2) -> regionStartOrder.compare(region1.start, region2.start));
+		List<SpanRegion> mergedRegions = new ArrayList<>();
+		for (SpanRegion region : regions) {
+			SpanRegion lastRegion = mergedRegions.isEmpty() ? null : mergedRegions.get(mergedRegions.size() - 1);
+			if (lastRegion != null && (lastRegion.end == null ||
+			                           regionStartOrder.compare(region.start, lastRegion.end) < 0)) {
+				if (region.end == null || lastRegion.end != null &&
+				                          flatSemanticTree.compare(region.end, lastRegion.end) > 0) {
+					lastRegion.end = region.end;
+				}
+			} else {
+				mergedRegions.add(region);
+			}
+		}
+		Set<INode> checkedSpans = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (SpanRegion region : mergedRegions) {
+			context.checkCancelled();
+			List<INode> spans = new ArrayList<>();
+			Iterator<INode> nodes = getNodes(region.start != null ? region.start : getFirstNode(root), region.end);
+			while (nodes.hasNext()) {
+				INode node = nodes.next();
+				if (node instanceof SemanticSpan) {
+					spans.add(node);
+				}
+			}
+			checkedSpans.addAll(spans);
+			postprocessingConsumer.checkForRepeatedCharacters(spans.iterator(), region.repeatedCharacters,
+			                                                  region.chainSpans);
+		}
+		List<RepeatedCharacters> repeatedCharacters = context.getRepeatedCharacters();
+		List<RepeatedCharacters> keptRepeatedCharacters = new ArrayList<>();
+		List<INode> keptChainSpans = new ArrayList<>();
+		for (int i = 0; i < repeatedCharacters.size(); i++) {
+			INode chainSpan = chainSpans.get(i);
+			if (!checkedSpans.contains(chainSpan) && !edit.removedNodes.contains(chainSpan)) {
+				keptRepeatedCharacters.add(repeatedCharacters.get(i));
+				keptChainSpans.add(chainSpan);
+			}
+		}
+		repeatedCharacters.clear();
+		chainSpans.clear();
+		int keptIndex = 0;
+		for (SpanRegion region : mergedRegions) {
+			int low = keptIndex;
+			int high = keptChainSpans.size();
+			while (region.start != null && low < high) {
+				int middle = (low + high) >>> 1;
+				if (flatSemanticTree.compare(keptChainSpans.get(middle), region.start) < 0) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			int position = region.start != null ? low : keptIndex;
+			repeatedCharacters.addAll(keptRepeatedCharacters.subList(keptIndex, position));
+			chainSpans.addAll(keptChainSpans.subList(keptIndex, position));
+			repeatedCharacters.addAll(region.repeatedCharacters);
+			chainSpans.addAll(region.chainSpans);
+			keptIndex = position;
+		}
+		repeatedCharacters.addAll(keptRepeatedCharacters.subList(keptIndex, keptRepeatedCharacters.size()));
+		chainSpans.addAll(keptChainSpans.subList(keptIndex, keptChainSpans.size()));
+	}
+
+	/**
+	 * @return the nearest span before the node, whose first chunk starts a chain regardless of the spans after it,
+	 * or null if the chain may start at the first span of the tree
+	 */
+	private static INode findRegionStart(INode node) {
+		INode span = null;
+		for (INode previous = getPreviousNode(node); previous != null; previous = getPreviousNode(previous)) {
+			TextChunk lastTextChunk = getLastTextChunk(previous);
+			if (lastTextChunk == null) {
+				continue;
+			}
+			if (span != null &&
+			    SemanticDocumentPostprocessingConsumer.isChainStart(lastTextChunk, getFirstTextChunk(span))) {
+				return span;
+			}
+			span = previous;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the first span after the subtree of the node, whose first chunk starts a chain regardless of the
+	 * subtree, or null if the chain may continue up to the end of the tree
+	 */
+	private static INode findRegionEnd(INode node) {
+		TextChunk lastTextChunk = null;
+		for (INode next = getNextNode(node); next != null; next = getNextNode(next)) {
+			TextChunk firstTextChunk = getFirstTextChunk(next);
+			if (firstTextChunk == null) {
+				continue;
+			}
+			if (lastTextChunk != null &&
+			    SemanticDocumentPostprocessingConsumer.isChainStart(lastTextChunk, firstTextChunk)) {
+				return next;
+			}
+			lastTextChunk = getLastTextChunk(next);
+		}
+		return null;
+	}
+
+	private static TextChunk getFirstTextChunk(INode node) {
+		if (node instanceof SemanticSpan) {
+			for (TextLine textLine : ((SemanticSpan) node).getLines()) {
+				if (!textLine.getTextChunks().isEmpty()) {
+					return textLine.getTextChunks().get(0);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static TextChunk getLastTextChunk(INode node) {
+		if (node instanceof SemanticSpan) {
+			List<TextLine> textLines = ((SemanticSpan) node).getLines();
+			for (int i = textLines.size() - 1; i >= 0; i--) {
+				List<TextChunk> textChunks = textLines.get(i).getTextChunks();
+				if (!textChunks.isEmpty()) {
+					return textChunks.get(textChunks.size() - 1);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the first node of the subtree in post-order
+	 */
+	private static INode getFirstNode(INode node) {
+		while (!node.getChildren().isEmpty()) {
+			node = node.getChildren().get(0);
+		}
+		return node;
+	}
+
+	/**
+	 * @return node following the node in post-order, or null if it is the root
+	 */
+	private static INode getNextNode(INode node) {
+		INode nextNode = node.getNextNeighbor();
+		return nextNode != null ? getFirstNode(nextNode) : node.getParent();
+	}
+
+	/**
+	 * @return node preceding the node in post-order, or null if it is the first node of the tree
+	 */
+	private static INode getPreviousNode(INode node) {
+		if (!node.getChildren().isEmpty()) {
+			return node.getChildren().get(node.getChildren().size() - 1);
+		}
+		for (INode ancestor = node; ancestor != null; ancestor = ancestor.getParent()) {
+			INode previousNode = ancestor.getPreviousNeighbor();
+			if (previousNode != null) {
+				return previousNode;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return nodes in post-order from the first node up to the end node exclusive, or up to the root
+	 */
+	private static Iterator<INode> getNodes(INode first, INode end) {
+		return new Iterator<INode>() {
+
+			private INode next = first;
+
+			@Override
+			public boolean hasNext() {
+				return next != null && next != end;
+			}
+
+			@Override
+			public INode next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				INode node = next;
+				next = getNextNode(node);
+				return node;
+			}
+		};
+	}
+
+	/**
+	 * Updates lowest depth error flags of the nodes changed by the re-check and of the added subtrees from the
+	 * top down. The flag is kept by the highest nodes with a changed table or list type, nodes below them lose
+	 * their flags, and subtrees of nodes, which have lost the changed type, are checked again.
+	 */
+	private void updateLowestDepthErrors(TreeEdit edit, SemanticDocumentPostprocessingConsumer postprocessingConsumer) {
+		Set<INode> addedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		addedNodes.addAll(edit.addedNodes);
+		List<INode> nodes = new ArrayList<>();
+		for (INode node : recheck.touchedNodes.keySet()) {
+			if (!edit.removedNodes.contains(node) && !addedNodes.contains(node)) {
+				nodes.add(node);
+			}
+		}
+		nodes.addAll(addedNodes);
+		nodes.sort(Comparator.comparingInt(INode::getDepth));
+		for (INode node : nodes) {
+			context.checkCancelled();
+			if (node.getParent() == null) {
+				continue;
+			}
+			boolean hasFlaggedAncestor = hasChangedStructureTypeAncestor(node);
+			boolean hasChangedStructureType = SemanticDocumentPostprocessingConsumer.hasChangedStructureType(node);
+			if (hasFlaggedAncestor || !hasChangedStructureType) {
+				rollbackLowestDepthError(node);
+			}
+			if (hasFlaggedAncestor) {
+				if (addedNodes.contains(node)) {
+					clearLowestDepthErrors(node);
+				}
+			} else if (hasChangedStructureType) {
+				if (!lowestDepthErrorStates.containsKey(node)) {
+					context.beforeNodeUpdate(node);
+					node.setHasLowestDepthError();
+					clearLowestDepthErrors(node);
+				}
+			} else {
+				NodeChange change = recheck.touchedNodes.get(node);
+				if (addedNodes.contains(node) || change != null && change.hadChangedStructureType) {
+					postprocessingConsumer.setLowestDepthErrorFlag(node);
+				}
+			}
+		}
+	}
+
+	private static boolean hasChangedStructureTypeAncestor(INode node) {
+		for (INode ancestor = node.getParent(); ancestor != null && ancestor.getParent() != null;
+		     ancestor = ancestor.getParent()) {
+			if (SemanticDocumentPostprocessingConsumer.hasChangedStructureType(ancestor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes lowest depth error flags from the subtree of the node, the node itself keeps its flag.
+	 */
+	private void clearLowestDepthErrors(INode node) {
+		Deque<INode> nodeStack = new ArrayDeque<>(node.getChildren());
+		while (!nodeStack.isEmpty()) {
+			INode descendant = nodeStack.pop();
+			rollbackLowestDepthError(descendant);
+			for (INode child : descendant.getChildren()) {
+				nodeStack.push(child);
+			}
+		}
+	}
+
+	/**
+	 * Drops states of the removed nodes and releases their ids.
+	 */
+	private void releaseRemovedNodes(TreeEdit edit) {
+		AccumulatedNodeMapper mapper = context.getAccumulatedNodeMapper();
+		for (INode node : edit.removedNodes) {
+			mapper.remove(node);
+			mapper.putSummary(node, null);
+			lowestDepthErrorStates.remove(node);
+			nodeStructures.remove(node);
+			int id = node.getNodeId();
+			if (isRegistered(node)) {
+				registeredNodes[id] = null;
+				freeNodeIds.push(id);
+			}
+			node.setNodeId(INode.NO_NODE_ID);
+		}
+	}
+
+	/**
+	 * Renumbers nodes in pre-order and rebuilds the snapshot of the tree and the index of its pages, when most
+	 * of the nodes are excluded from the snapshot or kept apart from it by the index.
+	 */
+	private void compactNodeIds(ITree tree) {
+		FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+		if (2 * (flatSemanticTree.getExcludedNodesNumber() + context.getPageNodeIndex().getUpdatedNodesNumber()) <=
+		    flatSemanticTree.size()) {
+			return;
+		}
+		AccumulatedNodeMapper mapper = context.getAccumulatedNodeMapper();
+		List<INode> nodes = new ArrayList<>();
+		Deque<INode> nodeStack = new ArrayDeque<>();
+		nodeStack.push(tree.getRoot());
+		while (!nodeStack.isEmpty()) {
+			INode node = nodeStack.pop();
+			nodes.add(node);
+			for (int i = node.getChildren().size() - 1; i >= 0; i--) {
+				nodeStack.push(node.getChildren().get(i));
+			}
+		}
+		INode[] accumulatedNodes = new INode[nodes.size()];
+		SubtreeSummary[] summaries = new SubtreeSummary[nodes.size()];
+		for (int id = 0; id < nodes.size(); id++) {
+			INode node = nodes.get(id);
+			accumulatedNodes[id] = mapper.containsNode(node) ? mapper.get(node) : null;
+			summaries[id] = mapper.getSummary(node);
+		}
+		AccumulatedNodeMapper compactMapper = new AccumulatedNodeMapper();
+		compactMapper.ensureCapacity(nodes.size());
+		for (int id = 0; id < nodes.size(); id++) {
+			INode node = nodes.get(id);
+			node.setNodeId(id);
+			compactMapper.put(node, accumulatedNodes[id]);
+			compactMapper.putSummary(node, summaries[id]);
+		}
+		context.setAccumulatedNodeMapper(compactMapper);
+		FlatSemanticTree compactFlatSemanticTree = new FlatSemanticTree(tree);
+		context.setFlatSemanticTree(compactFlatSemanticTree);
+		context.setPageNodeIndex(new PageNodeIndex(compactFlatSemanticTree));
+		registerNodes(compactFlatSemanticTree);
+	}
+
+	private class RecordingSemanticChecker extends AccumulatedNodeSemanticChecker {
+
+		private RecordingSemanticChecker(SemanticCheckerConfig config) {
+			super(config);
+		}
+
+		/**
+		 * Records states of the nodes updated by the accumulation of every inner node before their first update.
+		 */
+		@Override
+		Consumer<INode> createAccumulationConsumer(SemanticContext context) {
+			Consumer<INode> accumulationConsumer = super.createAccumulationConsumer(context);
+			return node -> {
+				if (node.getChildren().isEmpty()) {
+					accumulationConsumer.accept(node);
+					return;
+				}
+				AccumulationJournal journal = new AccumulationJournal(nextSequenceNumber++, node.getChildren());
+				journal.record(node, context.getAccumulatedNodeMapper());
+				currentJournal = journal;
+				try {
+					accumulationConsumer.accept(node);
+				} finally {
+					currentJournal = null;
+				}
+				journal.close();
+				accumulationJournals.put(node, journal);
+			};
+		}
+
+		@Override
+		boolean isParallelAccumulationSupported() {
+			return false;
+		}
+
+		@Override
+		boolean isFusedTraversalSupported() {
+			return false;
+		}
+
+		@Override
+		void recognizeTables(ITree tree, SemanticContext context) {
+			recognizeTableBorders(null);
+		}
+
+		@Override
+		void runClusterTablesAndPostprocessing(ITree tree, SemanticContext context, PipelineMonitor monitor) {
+			if (config.isEnabled(Stage.CLUSTER_TABLES)) {
+				monitor.stageStarted(PipelineStage.CLUSTER_TABLES);
+				recognizeClusterTables(null);
+				monitor.stageFinished();
+			}
+			if (config.isEnabled(Stage.TITLE) || config.isEnabled(Stage.REPEATED_CHARACTERS) ||
+			    config.isEnabled(Stage.LOWEST_DEPTH_ERROR)) {
+				monitor.stageStarted(PipelineStage.POSTPROCESSING);
+				runPostprocessing(tree, null);
+				monitor.stageFinished();
+			}
+		}
+	}
+
+	/**
+	 * State of a re-check: the edit of the tree, nodes changed by the re-check and the recognized structure,
+	 * which is applied.
+	 */
+	private class Recheck {
+
+		private final Map<INode, NodeChange> touchedNodes = new IdentityHashMap<>();
+		private final ClusterTableConsumer items = new ClusterTableConsumer(context);
+		private TreeEdit edit;
+		private Structure appliedStructure;
+		private boolean isPostprocessing;
+
+		/**
+		 * Prepares the node for an update: rolls back its lowest depth error flag and recognized structures,
+		 * which have updated it and are applied after the current structure, together with the later structures
+		 * depending on them. Rolled back structures are applied again later.
+		 */
+		private void touch(INode node) {
+			touchRecognizedNode(node);
+			if (!isPostprocessing) {
+				List<Structure> structures = nodeStructures.get(node);
+				if (structures != null) {
+					rollbackStructures(structures);
+				}
+			}
+		}
+
+		private void touchRecognizedNode(INode node) {
+			if (!touchedNodes.containsKey(node)) {
+				touchedNodes.put(node, new NodeChange(items.isTableItem(node),
+						SemanticDocumentPostprocessingConsumer.hasChangedStructureType(node)));
+			}
+			rollbackLowestDepthError(node);
+		}
+
+		/**
+		 * Rolls back the applied structures, which follow the current structure, and the later applied structures
+		 * sharing updated nodes with them, from the last structure to the first one.
+		 */
+		private void rollbackStructures(Collection<Structure> structures) {
+			if (structures == null || structures.isEmpty()) {
+				return;
+			}
+			TreeSet<Structure> rolledBackStructures = new TreeSet<>(STRUCTURE_ORDER);
+			Deque<Structure> structureStack = new ArrayDeque<>();
+			for (Structure structure : structures) {
+				if (structure.journal != null &&
+				    (appliedStructure == null || STRUCTURE_ORDER.compare(structure, appliedStructure) > 0)) {
+					structureStack.push(structure);
+				}
+			}
+			while (!structureStack.isEmpty()) {
+				Structure structure = structureStack.pop();
+				if (!rolledBackStructures.add(structure)) {
+					continue;
+				}
+				for (INode node : structure.journal.getNodes()) {
+					for (Structure laterStructure : nodeStructures.get(node)) {
+						if (STRUCTURE_ORDER.compare(laterStructure, structure) > 0 &&
+						    !rolledBackStructures.contains(laterStructure)) {
+							structureStack.push(laterStructure);
+						}
+					}
+				}
+			}
+			for (Structure structure : rolledBackStructures.descendingSet()) {
+				NodeJournal journal = structure.journal;
+				unindexStructure(structure);
+				structure.journal = null;
+				journal.rollback(this::touchRecognizedNode, context.getAccumulatedNodeMapper());
+				if (!structure.discarded) {
+					pendingStructures.add(structure);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cluster table and list recognition status and lowest depth error status of a node before the re-check.
+	 */
+	private static final class NodeChange {
+
+		private final boolean wasTableItem;
+		private final boolean hadChangedStructureType;
+
+		private NodeChange(boolean wasTableItem, boolean hadChangedStructureType) {
+			this.wasTableItem = wasTableItem;
+			this.hadChangedStructureType = hadChangedStructureType;
+		}
+	}
+
+	/**
+	 * Edit of the tree reported to a re-check.
+	 */
+	private static final class TreeEdit {
+
+		private final Set<INode> modifiedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		private final List<INode> newNodes = new ArrayList<>();
+		private final List<INode> addedNodes = new ArrayList<>();
+		private final Set<INode> movedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		private final List<INode> removedRoots = new ArrayList<>();
+		private final Set<INode> removedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		private final SortedSet<Integer> pages = new TreeSet<>();
+	}
+
+	private static final class ItemRange {
+
+		private final INode first;
+		private INode last;
+
+		private ItemRange(INode first, INode last) {
+			this.first = first;
+			this.last = last;
+		}
+	}
+
+	private static final class SpanRegion {
+
+		private final INode start;
+		private INode end;
+		private final List<RepeatedCharacters> repeatedCharacters = new ArrayList<>();
+		private final List<INode> chainSpans = new ArrayList<>();
+
+		private SpanRegion(INode start, INode end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Listener of cluster table and list recognition, which splits recognized structures into segments between
+	 * checkpoints and stops the recognition after the changed ranges of items at a checkpoint, which has the same
+	 * state as in the previous recognition.
+	 */
+	private class SegmentRecorder implements Predicate<Checkpoint> {
+
+		private final ClusterTableConsumer tableFinder;
+		private final List<ItemRange> ranges;
+		private final int firstRangeIndex;
+		private final List<Segment> newSegments = new ArrayList<>();
+		private int rangeIndex;
+		private int tablesNumber;
+		private int listsNumber;
+		private Segment stopSegment;
+
+		private SegmentRecorder(ClusterTableConsumer tableFinder, List<ItemRange> ranges, int rangeIndex,
+		                        Segment resumeSegment) {
+			this.tableFinder = tableFinder;
+			this.ranges = ranges;
+			this.firstRangeIndex = rangeIndex;
+			this.rangeIndex = rangeIndex;
+			if (resumeSegment != null) {
+				newSegments.add(new Segment(resumeSegment.checkpoint));
+			}
+		}
+
+		@Override
+		public boolean test(Checkpoint checkpoint) {
+			if (ranges != null) {
+				FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+				INode item = checkpoint.getItem();
+				while (rangeIndex < ranges.size() && flatSemanticTree.compare(ranges.get(rangeIndex).last, item) < 0) {
+					rangeIndex++;
+				}
+				Segment segment = segments.get(item);
+				if (rangeIndex > firstRangeIndex && segment != null &&
+				    (rangeIndex == ranges.size() || flatSemanticTree.compare(ranges.get(rangeIndex).first, item) > 0) &&
+				    !hasChangedNodes(ranges, checkpoint) && segment.checkpoint.hasSameState(checkpoint)) {
+					stopSegment = segment;
+					return false;
+				}
+			}
+			finishSegment();
+			newSegments.add(new Segment(checkpoint));
+			return true;
+		}
+
+		/**
+		 * Adds structures recognized since the last checkpoint to the last segment.
+		 */
+		private void finishSegment() {
+			if (newSegments.isEmpty()) {
+				return;
+			}
+			Segment segment = newSegments.get(newSegments.size() - 1);
+			for (; tablesNumber < tableFinder.getTables().size(); tablesNumber++) {
+				segment.add(new Structure(tableFinder.getTables().get(tablesNumber), null));
+			}
+			for (; listsNumber < tableFinder.getLists().size(); listsNumber++) {
+				segment.add(new Structure(null, tableFinder.getLists().get(listsNumber)));
+			}
+		}
+	}
+
+	/**
+	 * Structures recognized between two checkpoints of cluster table and list recognition. Segments are linked
+	 * in the order of their checkpoints.
+	 */
+	private static final class Segment {
+
+		private final Checkpoint checkpoint;
+		private final List<Structure> structures = new ArrayList<>();
+		private long order;
+		private Segment previous;
+		private Segment next;
+
+		private Segment(Checkpoint checkpoint) {
+			this.checkpoint = checkpoint;
+		}
+
+		private void add(Structure structure) {
+			structure.segment = this;
+			structure.index = structures.size();
+			structures.add(structure);
+		}
+	}
+
+	/**
+	 * Recognized cluster table or list together with the states of nodes before it was applied to the tree.
+	 * Semantic types of table cells are kept as recognized, because applying the table changes them.
+	 */
+	private static final class Structure {
+
+		private final Table table;
+		private final PDFList list;
+		private final SemanticType[][] cellTypes;
+		private Segment segment;
+		private int index;
+		private NodeJournal journal;
+		private int firstPage = FlatSemanticTree.NO_PAGE;
+		private int lastPage = FlatSemanticTree.NO_PAGE;
+		private boolean discarded;
+
+		private Structure(Table table, PDFList list) {
+			this.table = table;
+			this.list = list;
+			if (table != null) {
+				cellTypes = new SemanticType[table.getRows().size()][];
+				for (int i = 0; i < cellTypes.length; i++) {
+					TableRow row = table.getRows().get(i);
+					cellTypes[i] = new SemanticType[row.getCells().size()];
+					for (int j = 0; j < cellTypes[i].length; j++) {
+						cellTypes[i][j] = row.getCells().get(j).getSemanticType();
+					}
+				}
+			} else {
+				cellTypes = null;
+			}
+		}
+
+		private void apply(ClusterTableConsumer tableFinder) {
+			if (table != null) {
+				for (int i = 0; i < cellTypes.length; i++) {
+					TableRow row = table.getRows().get(i);
+					for (int j = 0; j < cellTypes[i].length; j++) {
+						row.getCells().get(j).setSemanticType(cellTypes[i][j]);
+					}
+				}
+				tableFinder.updateTreeWithRecognizedTable(table);
+			} else {
+				tableFinder.updateTreeWithRecognizedList(list);
+			}
+		}
+	}
+
+	/**
+	 * States of nodes before their first update by a stage.
+	 */
+	private static class NodeJournal {
+
+		private final List<INode> nodes = new ArrayList<>();
+		private final List<NodeSnapshot> snapshots = new ArrayList<>();
+		private Set<INode> recordedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		void record(INode node, AccumulatedNodeMapper mapper) {
+			if (recordedNodes.add(node)) {
+				nodes.add(node);
+				snapshots.add(new NodeSnapshot(node, mapper, false));
+			}
+		}
+
+		void record(TextLine textLine) {
+		}
+
+		/**
+		 * Stops recording, the journal keeps recorded states only.
+		 */
+		void close() {
+			recordedNodes = null;
+		}
+
+		List<INode> getNodes() {
+			return nodes;
+		}
+
+		boolean containsAny(Set<INode> checkedNodes) {
+			for (INode node : nodes) {
+				if (checkedNodes.contains(node)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * @return false if a node, which is not checked yet, has another state than before its first update
+		 */
+		boolean hasSameStates(Set<INode> checkedNodes, AccumulatedNodeMapper mapper) {
+			for (int i = 0; i < nodes.size(); i++) {
+				if (checkedNodes.add(nodes.get(i)) && !snapshots.get(i).hasSameState(nodes.get(i), mapper)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Returns nodes to their recorded states in the reverse order of their first updates, the listener is
+		 * notified before a node is restored.
+		 */
+		void rollback(Consumer<INode> restoreListener, AccumulatedNodeMapper mapper) {
+			for (int i = nodes.size() - 1; i >= 0; i--) {
+				restoreListener.accept(nodes.get(i));
+				snapshots.get(i).restore(nodes.get(i), mapper);
+			}
+		}
+	}
+
+	/**
+	 * States of nodes and text lines before their first update by the accumulation of an inner node, together
+	 * with the children of the node at the accumulation.
+	 */
+	private static final class AccumulationJournal extends NodeJournal {
+
+		private final long sequenceNumber;
+		private final INode[] children;
+		private final List<TextLinesSnapshot> textLines = new ArrayList<>();
+		private Set<TextLine> recordedTextLines = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		private AccumulationJournal(long sequenceNumber, List<INode> children) {
+			this.sequenceNumber = sequenceNumber;
+			this.children = children.toArray(new INode[0]);
+		}
+
+		@Override
+		void record(TextLine textLine) {
+			if (recordedTextLines.add(textLine)) {
+				textLines.add(new TextLinesSnapshot(Collections.singletonList(textLine)));
+			}
+		}
+
+		@Override
+		void close() {
+			super.close();
+			recordedTextLines = null;
+		}
+
+		@Override
+		void rollback(Consumer<INode> restoreListener, AccumulatedNodeMapper mapper) {
+			for (int i = textLines.size() - 1; i >= 0; i--) {
+				textLines.get(i).restore();
+			}
+			super.rollback(restoreListener, mapper);
+		}
+	}
+}
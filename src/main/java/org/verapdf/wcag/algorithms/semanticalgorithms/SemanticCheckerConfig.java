@@ -0,0 +1,215 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineListener;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selects optional stages of {@link AccumulatedNodeSemanticChecker}. Preprocessing of the semantic tree and
+ * accumulation of nodes (headings, paragraphs, lists) always run.
+ */
+public class SemanticCheckerConfig {
+
+	public enum Stage {
+		/**
+		 * Collects table borders from line art and removes their lines from the lines collection
+		 */
+		LINES_PREPROCESSING,
+		UNDERLINED_TEXT(LINES_PREPROCESSING),
+		TABLE_BORDERS(LINES_PREPROCESSING),
+		CLUSTER_TABLES,
+		TITLE,
+		REPEATED_CHARACTERS,
+		LOWEST_DEPTH_ERROR;
+
+		private final List<Stage> dependencies;
+
+		Stage(Stage... dependencies) {
+			this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+		}
+
+		public List<Stage> getDependencies() {
+			return dependencies;
+		}
+	}
+
+	private static final SemanticCheckerConfig DEFAULT = builder().build();
+
+	private final Set<Stage> enabledStages;
+	private final PipelineListener pipelineListener;
+	private final long timeBudget;
+	private final boolean fusedTraversal;
+	private final int minParallelSubtreeSize;
+	private final boolean parallelLinesPreprocessing;
+
+	private SemanticCheckerConfig(Builder builder) {
+		this.enabledStages = Collections.unmodifiableSet(EnumSet.copyOf(builder.enabledStages));
+		this.pipelineListener = builder.pipelineListener;
+		this.timeBudget = builder.timeBudget;
+		this.fusedTraversal = builder.fusedTraversal;
+		this.minParallelSubtreeSize = builder.minParallelSubtreeSize;
+		this.parallelLinesPreprocessing = builder.parallelLinesPreprocessing;
+	}
+
+	/**
+	 * @return configuration with all stages enabled and without pipeline listener
+	 */
+	public static SemanticCheckerConfig defaultConfig() {
+		return DEFAULT;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public boolean isEnabled(Stage stage) {
+		return enabledStages.contains(stage);
+	}
+
+	public Set<Stage> getEnabledStages() {
+		return enabledStages;
+	}
+
+	public PipelineListener getPipelineListener() {
+		return pipelineListener;
+	}
+
+	/**
+	 * @return time budget of a single document check in nanoseconds, or 0 if the check is not limited
+	 */
+	public long getTimeBudget() {
+		return timeBudget;
+	}
+
+	public boolean isFusedTraversal() {
+		return fusedTraversal;
+	}
+
+	/**
+	 * @return minimal number of nodes of a subtree accumulated by a separate task, or 0 if the accumulation
+	 * is sequential
+	 */
+	public int getMinParallelSubtreeSize() {
+		return minParallelSubtreeSize;
+	}
+
+	public boolean isParallelAccumulation() {
+		return minParallelSubtreeSize > 0;
+	}
+
+	public boolean isParallelLinesPreprocessing() {
+		return parallelLinesPreprocessing;
+	}
+
+	public static class Builder {
+
+		private final EnumSet<Stage> enabledStages = EnumSet.allOf(Stage.class);
+		private PipelineListener pipelineListener;
+		private long timeBudget;
+		private boolean fusedTraversal;
+		private int minParallelSubtreeSize;
+		private boolean parallelLinesPreprocessing;
+
+		private Builder() {
+		}
+
+		/**
+		 * Enables the stages together with the stages they depend on
+		 */
+		public Builder enable(Stage... stages) {
+			for (Stage stage : stages) {
+				enabledStages.add(stage);
+				enable(stage.getDependencies().toArray(new Stage[0]));
+			}
+			return this;
+		}
+
+		public Builder disable(Stage... stages) {
+			enabledStages.removeAll(Arrays.asList(stages));
+			return this;
+		}
+
+		/**
+		 * Disables all stages except the given ones and the stages they depend on
+		 */
+		public Builder enableOnly(Stage... stages) {
+			enabledStages.clear();
+			return enable(stages);
+		}
+
+		public Builder disableAll() {
+			enabledStages.clear();
+			return this;
+		}
+
+		public Builder pipelineListener(PipelineListener pipelineListener) {
+			this.pipelineListener = pipelineListener;
+			return this;
+		}
+
+		/**
+		 * Limits the time of a single document check. When the budget expires, the check stops at the next loop
+		 * boundary and the semantic context of the document is marked as incomplete.
+		 */
+		public Builder timeBudget(long timeBudget, TimeUnit unit) {
+			if (timeBudget <= 0) {
+				throw new IllegalArgumentException("Time budget should be positive: " + timeBudget);
+			}
+			this.timeBudget = unit.toNanos(timeBudget);
+			return this;
+		}
+
+		/**
+		 * Runs semantic preprocessing, accumulation and collection of table border contents in a single
+		 * traversal of the tree. The pass is reported to the pipeline listener as the accumulation stage.
+		 */
+		public Builder fusedTraversal(boolean fusedTraversal) {
+			this.fusedTraversal = fusedTraversal;
+			return this;
+		}
+
+		/**
+		 * Enables parallel accumulation: subtrees of at least the given number of nodes are accumulated
+		 * in separate tasks of the common fork-join pool. 0 disables the parallel accumulation.
+		 */
+		public Builder parallelAccumulation(int minParallelSubtreeSize) {
+			if (minParallelSubtreeSize < 0) {
+				throw new IllegalArgumentException("Subtree size should not be negative: " + minParallelSubtreeSize);
+			}
+			this.minParallelSubtreeSize = minParallelSubtreeSize;
+			return this;
+		}
+
+		/**
+		 * Finds table borders of different pages in separate tasks of the common fork-join pool.
+		 * Table borders are collected in page order, so the results are the same as for the sequential search.
+		 */
+		public Builder parallelLinesPreprocessing(boolean parallelLinesPreprocessing) {
+			this.parallelLinesPreprocessing = parallelLinesPreprocessing;
+			return this;
+		}
+
+		/**
+		 * @throws IllegalStateException if an enabled stage depends on a disabled one, or if both fused
+		 * traversal and parallel accumulation are enabled
+		 */
+		public SemanticCheckerConfig build() {
+			if (fusedTraversal && minParallelSubtreeSize > 0) {
+				throw new IllegalStateException("Fused traversal can not be combined with parallel accumulation");
+			}
+			for (Stage stage : enabledStages) {
+				for (Stage dependency : stage.getDependencies()) {
+					if (!enabledStages.contains(dependency)) {
+						throw new IllegalStateException("Stage " + stage + " requires disabled stage " + dependency);
+					}
+				}
+			}
+			return new SemanticCheckerConfig(this);
+		}
+	}
+}
@@ -3,7 +3,9 @@ package org.verapdf.wcag.algorithms.semanticalgorithms.consumers;
 import org.verapdf.wcag.algorithms.entities.INode;
 import org.verapdf.wcag.algorithms.entities.enums.TextFormat;
 import org.verapdf.wcag.algorithms.entities.lists.ListInterval;
+import org.verapdf.wcag.algorithms.entities.maps.SubtreeSummary;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
 import org.verapdf.wcag.algorithms.entities.SemanticParagraph;
@@ -39,14 +41,27 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 	public static final double MERGE_PROBABILITY_THRESHOLD = 0.75;
 	public static final double ONE_LINE_MIN_PROBABILITY_THRESHOLD = 0.1;
 
+	private final SemanticContext context;
+
+	/**
+	 * @deprecated use {@link #AccumulatedNodeConsumer(SemanticContext)} with the document context instead.
+	 */
+	@Deprecated
 	public AccumulatedNodeConsumer() {
+		this(StaticContainers.getDefaultSemanticContext());
+	}
+
+	public AccumulatedNodeConsumer(SemanticContext context) {
+		this.context = context;
 	}
 
 	@Override
 	public void accept(INode node) {
+		context.checkCancelled();
+		SubtreeSummary.build(context.getAccumulatedNodeMapper(), node);
 
 		if (node.getChildren().isEmpty()) {
-			StaticContainers.getAccumulatedNodeMapper().updateNode(node, node, 1.0, node.getSemanticType());
+			context.getAccumulatedNodeMapper().updateNode(node, node, 1.0, node.getSemanticType());
 			return;
 		}
 
@@ -82,7 +97,7 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 	}
 
 	private void checkSemanticSpanChildren(INode node) {
-		INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
+		INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
 		if (!(accumulatedNode instanceof SemanticTextNode)) {
 			return;
 		}
@@ -98,13 +113,14 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 			}
 			for (TextLine textLine : ((SemanticSpan)child).getLines()) {
 				for (TextChunk textChunk : textLine.getTextChunks()) {
-					if (TextChunkUtils.isWhiteSpaceChunk(textChunk)) {
+					if (TextChunkUtils.isWhiteSpaceChunk(textChunk) || textChunk.getHasSpecialStyle()) {
 						continue;
 					}
 					if (!Objects.equals(textNode.getFontSize(), textChunk.getFontSize()) ||
 					    !Objects.equals(textNode.getItalicAngle(), textChunk.getItalicAngle()) ||
 					    !Objects.equals(textNode.getFontName(), textChunk.getFontName()) ||
 					    !Arrays.equals(textNode.getTextColor(), textChunk.getFontColor())) {
+						context.beforeTextLineUpdate(textLine);
 						textChunk.setHasSpecialStyle();
 					}
 				}
@@ -115,9 +131,10 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 	private void acceptSemanticImage(INode node) {
 		INode imageNode = null;
 		for (INode child : node.getChildren()) {
-			INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(child);
+			SubtreeSummary childSummary = getSubtreeSummary(child);
+			INode accumulatedChild = childSummary.getAccumulatedNode();
 			if (accumulatedChild instanceof SemanticTextNode) {
-				if (!((SemanticTextNode)accumulatedChild).isEmpty() && !((SemanticTextNode)accumulatedChild).isSpaceNode()) {
+				if (childSummary.hasText()) {
 					return;
 				}
 			} else if (accumulatedChild instanceof SemanticImageNode) {
@@ -133,7 +150,7 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 			}
 		}
 		if (imageNode != null) {
-			StaticContainers.getAccumulatedNodeMapper().updateNode(node, imageNode,
+			context.getAccumulatedNodeMapper().updateNode(node, imageNode,
 					imageNode.getCorrectSemanticScore(), SemanticType.FIFURE);
 		}
 	}
@@ -145,15 +162,15 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 			if (child.getSemanticType() == null || SemanticType.isIgnoredStandardType(child.getInitialSemanticType())) {
 				continue;
 			}
-			INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(child);
+			INode accumulatedChild = context.getAccumulatedNodeMapper().get(child);
 			if (span == null) {
 				span = buildSpanFromNode(accumulatedChild);
 				spanProbability = accumulatedChild.getCorrectSemanticScore();
 			} else {
-				spanProbability = Math.min(spanProbability, toSpanMergeProbability(span, accumulatedChild));
+				spanProbability = Math.min(spanProbability, toSpanMergeProbability(span, child, accumulatedChild));
 			}
 		}
-		StaticContainers.getAccumulatedNodeMapper().updateNode(node, span, spanProbability, SemanticType.SPAN);
+		context.getAccumulatedNodeMapper().updateNode(node, span, spanProbability, SemanticType.SPAN);
 	}
 
 	private SemanticSpan buildSpanFromNode(INode node) {
@@ -168,24 +185,26 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		}
 	}
 
-	private double toSpanMergeProbability(SemanticSpan span, INode node) {
+	private double toSpanMergeProbability(SemanticSpan span, INode child, INode node) {
 		if (isNullableSemanticType(node)) {
 			return 0d;
 		}
 		switch (node.getSemanticType()) {
 			case SPAN:
-				return toSpanMergeProbability(span, (SemanticSpan) node);
+				return toSpanMergeProbability(span, child, (SemanticSpan) node);
 			default:
 				return 0d;
 		}
 	}
 
-	private double toSpanMergeProbability(SemanticSpan span, SemanticSpan secondSpan) {
+	private double toSpanMergeProbability(SemanticSpan span, INode child, SemanticSpan secondSpan) {
 		if (secondSpan.getLinesNumber() == 0) {
 			return 1;
 		}
 		TextLine lastLine = span.getLastLine();
 		TextLine nextLine = secondSpan.getFirstLine();
+		context.beforeNodeUpdate(child);
+		context.beforeTextLineUpdate(lastLine);
 		double oneLineProbability = ChunksMergeUtils.countOneLineProbability(secondSpan, lastLine, nextLine);
 		double differentLinesProbability;
 		if (span.getLinesNumber() > 1 && secondSpan.getLinesNumber() > 1) {
@@ -206,6 +225,7 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		} else {
 			updateTextChunksFormat(secondSpan);
 			mergeProbability = oneLineProbability;
+			context.beforeTextLineUpdate(nextLine);
 			lastLine.setNotFullLine();
 			nextLine.setNotFullLine();
 			lastLine = new TextLine(lastLine);
@@ -232,15 +252,16 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 			if (child.getSemanticType() == null || SemanticType.isIgnoredStandardType(child.getInitialSemanticType())) {
 				continue;
 			}
-			INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(child);
+			INode accumulatedChild = context.getAccumulatedNodeMapper().get(child);
 			if (paragraph == null) {
 				paragraph = buildParagraphFromNode(accumulatedChild);
 				paragraphProbability = accumulatedChild.getCorrectSemanticScore();
 			} else {
-				paragraphProbability = Math.min(paragraphProbability, toParagraphMergeProbability(paragraph, accumulatedChild));
+				paragraphProbability = Math.min(paragraphProbability,
+				                                toParagraphMergeProbability(paragraph, child, accumulatedChild));
 			}
 		}
-		StaticContainers.getAccumulatedNodeMapper().updateNode(node, paragraph, paragraphProbability, SemanticType.PARAGRAPH);
+		context.getAccumulatedNodeMapper().updateNode(node, paragraph, paragraphProbability, SemanticType.PARAGRAPH);
 	}
 
 	private SemanticParagraph buildParagraphFromNode(INode node) {
@@ -256,12 +277,12 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		return null;
 	}
 
-	private double toParagraphMergeProbability(SemanticParagraph paragraph, INode node) {
+	private double toParagraphMergeProbability(SemanticParagraph paragraph, INode child, INode node) {
 		if (isNullableSemanticType(node)) {
 			return 0d;
 		}
 		if (node instanceof SemanticTextNode) {
-			return toParagraphMergeProbability(paragraph, (SemanticTextNode) node);
+			return toParagraphMergeProbability(paragraph, child, (SemanticTextNode) node);
 		}
 		return 0d;
 	}
@@ -274,13 +295,16 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		return false;
 	}
 
-	private double toParagraphMergeProbabilityCount(SemanticParagraph paragraph, SemanticTextNode textNode) {
+	private double toParagraphMergeProbabilityCount(SemanticParagraph paragraph, INode child,
+	                                                SemanticTextNode textNode) {
 		List<TextLine> lines = textNode.getLines();
 		if (lines.isEmpty()) {
 			return 1;
 		}
 		TextLine lastLine = paragraph.getLastLine();
 		TextLine nextLine = lines.get(0);
+		context.beforeNodeUpdate(child);
+		context.beforeTextLineUpdate(lastLine);
 		double oneLineProbability = ChunksMergeUtils.countOneLineProbability(textNode, lastLine, nextLine);
 		double differentLinesProbability;
 		if (paragraph.getLines().size() > 1 && lines.size() > 1) {
@@ -301,6 +325,7 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		} else {
 			updateTextChunksFormat(textNode);
 			mergeProbability = oneLineProbability;
+			context.beforeTextLineUpdate(nextLine);
 			lastLine.setNotFullLine();
 			nextLine.setNotFullLine();
 			lastLine = new TextLine(lastLine);
@@ -319,8 +344,8 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		return mergeProbability;
 	}
 
-	private double toParagraphMergeProbability(SemanticParagraph paragraph, SemanticTextNode textNode) {
-		double mergeProbability = toParagraphMergeProbabilityCount(paragraph, textNode);
+	private double toParagraphMergeProbability(SemanticParagraph paragraph, INode child, SemanticTextNode textNode) {
+		double mergeProbability = toParagraphMergeProbabilityCount(paragraph, child, textNode);
 		paragraph.getBoundingBox().union(textNode.getBoundingBox());
 		return (textNode.getCorrectSemanticScore() == null) ? mergeProbability : (Math.min(textNode.getCorrectSemanticScore(),
 		                                                                                   mergeProbability));
@@ -329,14 +354,8 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 	private void acceptChildrenSemanticHeading(INode node) {
 		List<INode> children = new ArrayList<>(node.getChildren().size());
 		for (INode child : node.getChildren()) {
-			if (child != null) {
-				INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(child);
-				if (accumulatedChild instanceof SemanticTextNode) {
-					SemanticTextNode textNode = (SemanticTextNode)accumulatedChild;
-					if (!textNode.isSpaceNode() && !textNode.isEmpty()) {
-						children.add(child);
-					}
-				}
+			if (child != null && getSubtreeSummary(child).hasText()) {
+				children.add(child);
 			}
 		}
 		if (children.size() <= 1) {
@@ -358,25 +377,26 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		if (SemanticType.LIST.equals(node.getSemanticType())) {
 			return;
 		}
-		double headingProbability = NodeUtils.headingProbability(StaticContainers.getAccumulatedNodeMapper().get(node),
-				StaticContainers.getAccumulatedNodeMapper().get(previousNode), StaticContainers.getAccumulatedNodeMapper().get(nextNode),
-				StaticContainers.getAccumulatedNodeMapper().get(nextNextNode), node.getInitialSemanticType());
+		double headingProbability = NodeUtils.headingProbability(context.getAccumulatedNodeMapper().get(node),
+				context.getAccumulatedNodeMapper().get(previousNode), context.getAccumulatedNodeMapper().get(nextNode),
+				context.getAccumulatedNodeMapper().get(nextNextNode), node.getInitialSemanticType());
 		if (headingProbability >= MERGE_PROBABILITY_THRESHOLD) {
-			INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
+			INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
+			context.beforeNodeUpdate(node);
 			if (node.getInitialSemanticType() == SemanticType.NUMBER_HEADING) {
 				if (accumulatedNode instanceof SemanticSpan) {
-					StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticNumberHeading((SemanticSpan)accumulatedNode),
+					context.getAccumulatedNodeMapper().updateNode(node, new SemanticNumberHeading((SemanticSpan)accumulatedNode),
 					           headingProbability * node.getCorrectSemanticScore(), SemanticType.NUMBER_HEADING);
 				} else if (accumulatedNode instanceof SemanticParagraph) {
-					StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticNumberHeading((SemanticParagraph)accumulatedNode),
+					context.getAccumulatedNodeMapper().updateNode(node, new SemanticNumberHeading((SemanticParagraph)accumulatedNode),
 					           headingProbability * node.getCorrectSemanticScore(), SemanticType.NUMBER_HEADING);
 				}
 			} else {
 				if (accumulatedNode instanceof SemanticSpan) {
-					StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticHeading((SemanticSpan)accumulatedNode),
+					context.getAccumulatedNodeMapper().updateNode(node, new SemanticHeading((SemanticSpan)accumulatedNode),
 					           headingProbability * node.getCorrectSemanticScore(), SemanticType.HEADING);
 				} else if (accumulatedNode instanceof SemanticParagraph) {
-					StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticHeading((SemanticParagraph)accumulatedNode),
+					context.getAccumulatedNodeMapper().updateNode(node, new SemanticHeading((SemanticParagraph)accumulatedNode),
 					           headingProbability * node.getCorrectSemanticScore(), SemanticType.HEADING);
 				}
 			}
@@ -387,13 +407,8 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		List<INode> children = new ArrayList<>(node.getChildren().size());
 		for (INode child : node.getChildren()) {
 			if (child != null) {
-				INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(child);
-				if (accumulatedChild instanceof SemanticTextNode) {
-					SemanticTextNode textNode = (SemanticTextNode)accumulatedChild;
-					if (!textNode.isSpaceNode() && !textNode.isEmpty()) {
-						children.add(child);
-					}
-				} else if (accumulatedChild instanceof SemanticImageNode) {
+				SubtreeSummary childSummary = getSubtreeSummary(child);
+				if (childSummary.hasText() || childSummary.getAccumulatedNode() instanceof SemanticImageNode) {
 					children.add(child);
 				}
 			}
@@ -411,17 +426,18 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		if (node.getSemanticType() == SemanticType.HEADING || node.getSemanticType() == SemanticType.NUMBER_HEADING) {
 			return;
 		}
-		INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
-		double captionProbability = NodeUtils.imageCaptionProbability(accumulatedNode, StaticContainers.getAccumulatedNodeMapper().get(neighborNode));
+		INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
+		double captionProbability = NodeUtils.imageCaptionProbability(accumulatedNode, context.getAccumulatedNodeMapper().get(neighborNode));
 		if (captionProbability >= MERGE_PROBABILITY_THRESHOLD) {
-			StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticCaption((SemanticTextNode) accumulatedNode),
+			context.beforeNodeUpdate(node);
+			context.getAccumulatedNodeMapper().updateNode(node, new SemanticCaption((SemanticTextNode) accumulatedNode),
 			           captionProbability * node.getCorrectSemanticScore(), SemanticType.CAPTION);
 		}
 	}
 
 	private void acceptSemanticList(INode node) {
-		INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
-		TableBorder tableBorder = StaticContainers.getTableBordersCollection().getTableBorder(node.getBoundingBox());
+		INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
+		TableBorder tableBorder = context.getTableBordersCollection().getTableBorder(node.getBoundingBox());
 		if (accumulatedNode != null && tableBorder != null &&
 				tableBorder.getTableBorderCell(accumulatedNode.getBoundingBox()) == null) {
 			return;
@@ -434,27 +450,18 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 		List<LineArtChunk> childrenLineArts = new ArrayList<>(node.getChildren().size());
 		for (INode child : node.getChildren()) {
 			if (child != null) {
-				INode newChild = child;
-				while (!newChild.getChildren().isEmpty()) {
-					newChild = newChild.getChildren().get(0);
-				}
-				if (newChild instanceof SemanticImageNode) {
+				SubtreeSummary childSummary = getSubtreeSummary(child);
+				if (childSummary.isImageLeaf()) {
 					imageChildren.add(child);
-					childrenImages.add(((SemanticImageNode) newChild).getImage());
-				} else if (newChild instanceof SemanticFigure) {
+					childrenImages.add(((SemanticImageNode) childSummary.getFirstLeaf()).getImage());
+				} else if (childSummary.isFigureLeaf()) {
 					lineArtChildren.add(child);
-					childrenLineArts.add(((SemanticFigure) newChild).getLineArt());
-				} else {
-					INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(child);
-					if (accumulatedChild instanceof SemanticTextNode) {
-						SemanticTextNode textNode = (SemanticTextNode)accumulatedChild;
-						if (!textNode.isSpaceNode() && !textNode.isEmpty()) {
-							TextLine line = textNode.getFirstLine();
-							if (!line.getValue().trim().isEmpty()) {
-								textChildren.add(child);
-								childrenFirstLines.add(line);
-							}
-						}
+					childrenLineArts.add(((SemanticFigure) childSummary.getFirstLeaf()).getLineArt());
+				} else if (childSummary.hasText()) {
+					TextLine line = ((SemanticTextNode) childSummary.getAccumulatedNode()).getFirstLine();
+					if (!line.getValue().trim().isEmpty()) {
+						textChildren.add(child);
+						childrenFirstLines.add(line);
 					}
 				}
 			}
@@ -464,28 +471,33 @@ public class AccumulatedNodeConsumer implements Consumer<INode> {
 			for (TextLine line : childrenFirstLines) {
 				listItems.add(line.getValue().trim());
 			}
-			ListUtils.updateTreeWithRecognizedLists(node, textChildren,
-					ListUtils.getChildrenListIntervals(ListLabelsUtils.getListItemsIntervals(listItems), textChildren,
+			ListUtils.updateTreeWithRecognizedLists(context, node, textChildren,
+					ListUtils.getChildrenListIntervals(context, ListLabelsUtils.getListItemsIntervals(listItems), textChildren,
 							childrenFirstLines));
 		} else if (textChildren.size() == 1 && SemanticType.LIST.equals(node.getInitialSemanticType()) &&
 		           ListLabelsUtils.isListLabel(childrenFirstLines.get(0).getValue().trim().charAt(0))) {
-			ListUtils.updateTreeWithRecognizedList(node, textChildren, new ListInterval(0, 0));
+			ListUtils.updateTreeWithRecognizedList(context, node, textChildren, new ListInterval(0, 0));
 		}
 		if (imageChildren.size() > 1) {
-			ListUtils.updateTreeWithRecognizedLists(node, imageChildren,
-					ListUtils.getChildrenListIntervals(ListLabelsUtils.getImageListItemsIntervals(childrenImages),
+			ListUtils.updateTreeWithRecognizedLists(context, node, imageChildren,
+					ListUtils.getChildrenListIntervals(context, ListLabelsUtils.getImageListItemsIntervals(childrenImages),
 							imageChildren, childrenImages));
 		}
 		if (lineArtChildren.size() > 1) {
-			ListUtils.updateTreeWithRecognizedLists(node, lineArtChildren,
-					ListUtils.getChildrenListIntervals(ListLabelsUtils.getImageListItemsIntervals(childrenLineArts),
+			ListUtils.updateTreeWithRecognizedLists(context, node, lineArtChildren,
+					ListUtils.getChildrenListIntervals(context, ListLabelsUtils.getImageListItemsIntervals(childrenLineArts),
 							lineArtChildren, childrenLineArts));
 		}
 	}
 
+	private SubtreeSummary getSubtreeSummary(INode node) {
+		return SubtreeSummary.getSummary(context.getAccumulatedNodeMapper(), node);
+	}
+
 	private void updateTextChunksFormat(SemanticTextNode textNode) {
 		TextFormat format = textNode.getTextFormat();
 		for (TextLine line : textNode.getLines()) {
+			context.beforeTextLineUpdate(line);
 			for (TextChunk chunk : line.getTextChunks()) {
 				chunk.setTextFormat(format);
 			}
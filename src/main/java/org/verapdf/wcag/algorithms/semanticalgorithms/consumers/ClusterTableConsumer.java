@@ -1,6 +1,7 @@
 package org.verapdf.wcag.algorithms.semanticalgorithms.consumers;
 
 import org.verapdf.wcag.algorithms.entities.*;
+import org.verapdf.wcag.algorithms.entities.content.ImageChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextLine;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
@@ -10,6 +11,7 @@ import org.verapdf.wcag.algorithms.entities.lists.ListItem;
 import org.verapdf.wcag.algorithms.entities.lists.PDFList;
 import org.verapdf.wcag.algorithms.entities.tables.*;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.tables.TableRecognitionArea;
 import org.verapdf.wcag.algorithms.semanticalgorithms.tables.TableRecognizer;
@@ -19,6 +21,7 @@ import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TextChunkUtils;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -26,11 +29,25 @@ public class ClusterTableConsumer {
 
     private static final Logger LOGGER = Logger.getLogger(AccumulatedNodeConsumer.class.getCanonicalName());
 
+    private final SemanticContext context;
     private TableRecognitionArea recognitionArea;
     private final List<Table> tables;
     private final List<PDFList> lists;
+    private final List<Object> areaTokenSources = new ArrayList<>();
+    private final List<INode> areaTokenNodes = new ArrayList<>();
+    private boolean isNewArea;
+    private FlatSemanticTree flatSemanticTree;
 
-    public  ClusterTableConsumer() {
+    /**
+     * @deprecated use {@link #ClusterTableConsumer(SemanticContext)} with the document context instead.
+     */
+    @Deprecated
+    public ClusterTableConsumer() {
+        this(StaticContainers.getDefaultSemanticContext());
+    }
+
+    public  ClusterTableConsumer(SemanticContext context) {
+        this.context = context;
         tables = new ArrayList<>();
         lists = new ArrayList<>();
         init();
@@ -38,6 +55,9 @@ public class ClusterTableConsumer {
 
     private void init() {
         recognitionArea = new TableRecognitionArea();
+        areaTokenSources.clear();
+        areaTokenNodes.clear();
+        isNewArea = true;
     }
 
     public List<Table> getTables() {
@@ -49,7 +69,45 @@ public class ClusterTableConsumer {
     }
 
     public void findTables(INode root) {
-        acceptChildren(root);
+        recognizeTables(root, null, checkpoint -> true);
+        updateTreeWithRecognizedTables();
+        updateTreeWithRecognizedLists();
+    }
+
+    /**
+     * Recognizes tables and lists in the items of the tree, without updating the tree with them. Items are leaf
+     * nodes and nodes of tables recognized in table borders, they are accepted in pre-order. A checkpoint is taken
+     * before the first item accepted after the start of every recognition area and passed to the listener, which
+     * stops the recognition by returning false.
+     *
+     * @param checkpoint checkpoint of a previous recognition of the tree to resume from, or null to start from
+     *                   the first item
+     * @return true if the items were recognized up to the end of the tree, false if the listener has stopped
+     * the recognition
+     */
+    public boolean recognizeTables(INode root, Checkpoint checkpoint, Predicate<Checkpoint> checkpointListener) {
+        INode item;
+        if (checkpoint != null) {
+            init();
+            for (int i = 0; i < checkpoint.sources.length; i++) {
+                addToRecognitionArea(createToken(checkpoint.sources[i], checkpoint.nodes[i]), checkpoint.sources[i]);
+            }
+            isNewArea = false;
+            item = checkpoint.item;
+        } else {
+            item = getFirstItem(root);
+        }
+        while (item != null) {
+            if (isNewArea) {
+                isNewArea = false;
+                if (!checkpointListener.test(new Checkpoint(item, areaTokenSources, areaTokenNodes))) {
+                    return false;
+                }
+            }
+            context.checkCancelled();
+            acceptItem(item, root);
+            item = getNextItem(item, root);
+        }
         if (recognitionArea.isValid()) {
             List<INode> restNodes = new ArrayList<>(recognize());
             init();
@@ -58,22 +116,70 @@ public class ClusterTableConsumer {
                 accept(restNode);
             }
         }
-        updateTreeWithRecognizedTables(root);
-        updateTreeWithRecognizedLists(root);
+        return true;
     }
 
-    private void acceptChildren(INode node) {
-        if (node.getSemanticType() == SemanticType.TABLE) {
-            INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
-            if (accumulatedNode instanceof SemanticTable) {
-                TableToken token = new TableToken(((SemanticTable)accumulatedNode).getTableBorder());
-                accept(token);
-                return;
+    /**
+     * @return true if the node is accepted as a single token of the table recognized in table borders
+     */
+    public boolean isTableItem(INode node) {
+        return node.getSemanticType() == SemanticType.TABLE &&
+                context.getAccumulatedNodeMapper().get(node) instanceof SemanticTable;
+    }
+
+    /**
+     * @return first item of the subtree of the node
+     */
+    public INode getFirstItem(INode node) {
+        while (!isTableItem(node) && !node.getChildren().isEmpty()) {
+            node = node.getChildren().get(0);
+        }
+        return node;
+    }
+
+    /**
+     * @return last item of the subtree of the node
+     */
+    public INode getLastItem(INode node) {
+        while (!isTableItem(node) && !node.getChildren().isEmpty()) {
+            node = node.getChildren().get(node.getChildren().size() - 1);
+        }
+        return node;
+    }
+
+    /**
+     * @return item following the given item in the tree of the root, or null if it is the last item
+     */
+    public INode getNextItem(INode item, INode root) {
+        for (INode node = item; node != root && node.getParent() != null; node = node.getParent()) {
+            INode nextNode = node.getNextNeighbor();
+            if (nextNode != null) {
+                return getFirstItem(nextNode);
             }
         }
-        for (INode child : node.getChildren()) {
-            acceptChildren(child);
-            accept(child);
+        return null;
+    }
+
+    /**
+     * @return item preceding the given item in the tree of the root, or null if it is the first item
+     */
+    public INode getPreviousItem(INode item, INode root) {
+        for (INode node = item; node != root && node.getParent() != null; node = node.getParent()) {
+            INode previousNode = node.getPreviousNeighbor();
+            if (previousNode != null) {
+                return getLastItem(previousNode);
+            }
+        }
+        return null;
+    }
+
+    private void acceptItem(INode item, INode root) {
+        if (isTableItem(item)) {
+            TableBorder tableBorder = ((SemanticTable) context.getAccumulatedNodeMapper().get(item)).getTableBorder();
+            accept(new TableToken(tableBorder), tableBorder);
+        }
+        if (item != root) {
+            accept(item);
         }
     }
 
@@ -90,29 +196,28 @@ public class ClusterTableConsumer {
                         }
 
                         TableToken token = new TableToken(chunk, node);
-                        accept(token);
+                        accept(token, chunk);
                     }
                 }
             } else if ((node instanceof SemanticImageNode)) {
                 SemanticImageNode imageNode = (SemanticImageNode) node;
 
                 TableToken token = new TableToken(imageNode.getImage(), imageNode);
-                accept(token);
+                accept(token, imageNode.getImage());
             }
         }
     }
 
     private void findTableBorder() {
-        TableBorder tableBorder = StaticContainers.getTableBordersCollection().getTableBorder(recognitionArea.getBoundingBox());
+        TableBorder tableBorder = context.getTableBordersCollection().getTableBorder(recognitionArea.getBoundingBox());
         if (tableBorder != null) {
             recognitionArea.setTableBorder(tableBorder);
         }
     }
 
-    private void accept(TableToken token) {
-        if (recognitionArea.addTokenToRecognitionArea(token) && recognitionArea.getTableBorder() == null) {
-            findTableBorder();
-        }
+    private void accept(TableToken token, Object source) {
+        context.checkCancelled();
+        addToRecognitionArea(token, source);
         if (recognitionArea.isComplete()) {
             List<INode> restNodes = new ArrayList<>();
             if (recognitionArea.isValid()) {
@@ -127,8 +232,26 @@ public class ClusterTableConsumer {
         }
     }
 
+    private void addToRecognitionArea(TableToken token, Object source) {
+        areaTokenSources.add(source);
+        areaTokenNodes.add(token.getNode());
+        if (recognitionArea.addTokenToRecognitionArea(token) && recognitionArea.getTableBorder() == null) {
+            findTableBorder();
+        }
+    }
+
+    private static TableToken createToken(Object source, INode node) {
+        if (source instanceof TableBorder) {
+            return new TableToken((TableBorder) source);
+        }
+        if (source instanceof ImageChunk) {
+            return new TableToken((ImageChunk) source, node);
+        }
+        return new TableToken((TextChunk) source, node);
+    }
+
     private List<INode> recognize() {
-        TableRecognizer recognizer = new TableRecognizer(recognitionArea);
+        TableRecognizer recognizer = new TableRecognizer(recognitionArea, context);
         recognizer.recognize();
         Table recognizedTable = recognizer.getTable();
 
@@ -144,53 +267,69 @@ public class ClusterTableConsumer {
         return new ArrayList<INode>();
     }
 
-    /**
-     * main algorithm complexity for each table: max{ O(t * h), O(N) },
-     * where N - number of nodes, h - tree height, t - number of table cells
-     * node info initialization: O(M), where M - tree size.
-     * The worst case is when all table roots are the same node - tree root
-     */
-    private void updateTreeWithRecognizedTables(INode root) {
-        initTreeNodeInfo(root);
+    private void updateTreeWithRecognizedTables() {
         for (Table table : tables) {
-            INode tableRoot = updateTreeWithRecognizedTable(table, root);
+            context.checkCancelled();
+            updateTreeWithRecognizedTable(table);
+        }
+    }
 
-            if (tableRoot != null) {
-                if ((TableUtils.isTableNode(tableRoot) || (ListUtils.isListNode(tableRoot) &&
-                        table.getTableBorder() == null)) && tableRoot.getRecognizedStructureId() != table.getId()) {
-                    tableRoot.setRecognizedStructureId(null);
-                } else {
-                    tableRoot.setRecognizedStructureId(table.getId());
-                    tableRoot.setSemanticType(SemanticType.TABLE);
-                    tableRoot.setCorrectSemanticScore(1.0);
-                    detectTableCaptions(table.getBoundingBox(), tableRoot);
-                }
+    /**
+     * Updates the tree with the recognized table. Tables are applied in the order of their recognition before
+     * lists, because a table keeps nodes already assigned to another structure.
+     * main algorithm complexity for each table: O(N), where N - number of nodes,
+     * common ancestors are found by the index of the flat semantic tree in O(1) per node
+     */
+    public void updateTreeWithRecognizedTable(Table table) {
+        INode tableRoot = updateTreeWithRecognizedTableRows(table);
+
+        if (tableRoot != null) {
+            context.beforeNodeUpdate(tableRoot);
+            if ((TableUtils.isTableNode(tableRoot) || (ListUtils.isListNode(tableRoot) &&
+                    table.getTableBorder() == null)) && tableRoot.getRecognizedStructureId() != table.getId()) {
+                tableRoot.setRecognizedStructureId(null);
+            } else {
+                tableRoot.setRecognizedStructureId(table.getId());
+                tableRoot.setSemanticType(SemanticType.TABLE);
+                tableRoot.setCorrectSemanticScore(1.0);
+                detectTableCaptions(context, table.getBoundingBox(), tableRoot);
             }
         }
     }
 
+    /**
+     * @deprecated use {@link #detectTableCaptions(SemanticContext, BoundingBox, INode)} with the document context
+     * instead.
+     */
+    @Deprecated
     public static void detectTableCaptions(BoundingBox tableBoundingBox, INode tableRoot) {
-        detectTableCaption(tableBoundingBox, tableRoot.getPreviousNeighbor());
-        detectTableCaption(tableBoundingBox, tableRoot.getNextNeighbor());
+        detectTableCaptions(StaticContainers.getDefaultSemanticContext(), tableBoundingBox, tableRoot);
+    }
+
+    public static void detectTableCaptions(SemanticContext context, BoundingBox tableBoundingBox, INode tableRoot) {
+        detectTableCaption(context, tableBoundingBox, tableRoot.getPreviousNeighbor());
+        detectTableCaption(context, tableBoundingBox, tableRoot.getNextNeighbor());
     }
 
-    private static void detectTableCaption(BoundingBox tableBoundingBox, INode node) {
+    private static void detectTableCaption(SemanticContext context, BoundingBox tableBoundingBox, INode node) {
         if (node == null) {
             return;
         }
+        // the caption depends on the state of the neighbor, even if the neighbor is not changed
+        context.beforeNodeUpdate(node);
         if (node.getSemanticType() == SemanticType.HEADING ||
                 node.getSemanticType() == SemanticType.NUMBER_HEADING) {
             return;
         }
-        INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
+        INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
         double captionProbability = NodeUtils.tableCaptionProbability(accumulatedNode, tableBoundingBox);
         if (captionProbability >= TableUtils.MERGE_PROBABILITY_THRESHOLD) {
-            StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticCaption((SemanticTextNode) accumulatedNode),
+            context.getAccumulatedNodeMapper().updateNode(node, new SemanticCaption((SemanticTextNode) accumulatedNode),
                     captionProbability * node.getCorrectSemanticScore(), SemanticType.CAPTION);
         }
     }
 
-    private INode updateTreeWithRecognizedTable(Table table, INode root) {
+    private INode updateTreeWithRecognizedTableRows(Table table) {
         Map<SemanticType, Set<INode>> rowNodes = new HashMap<>();
         rowNodes.put(SemanticType.TABLE_HEADERS, new HashSet<>());
         rowNodes.put(SemanticType.TABLE_BODY, new HashSet<>());
@@ -199,6 +338,7 @@ public class ClusterTableConsumer {
             INode rowNode = updateTreeWithRecognizedTableRow(table, row, i == 0 ? null : table.getRows().get(i - 1));
 
             if (rowNode != null) {
+                context.beforeNodeUpdate(rowNode);
                 if (((ListUtils.isListNode(rowNode) && table.getTableBorder() == null) ||
                         TableUtils.isTableNode(rowNode)) && rowNode.getRecognizedStructureId() != table.getId()) {
                     rowNode.setRecognizedStructureId(null);
@@ -228,6 +368,7 @@ public class ClusterTableConsumer {
 
             INode localRoot = findLocalRoot(rows);
             if (localRoot != null) {
+                context.beforeNodeUpdate(localRoot);
                 if ((TableUtils.isTableNode(localRoot) || (ListUtils.isListNode(localRoot) &&
                         table.getTableBorder() == null)) && localRoot.getRecognizedStructureId() != table.getId()) {
                     localRoot.setRecognizedStructureId(null);
@@ -247,11 +388,9 @@ public class ClusterTableConsumer {
         }
 
         List<INode> localRootsList = localRoots.stream().collect(Collectors.toList());
-        if (localRootsList.get(0).getNodeInfo().depth < localRootsList.get(1).getNodeInfo().depth &&
-                isAncestorFor(localRootsList.get(0), localRootsList.get(1))) {
+        if (isAncestorFor(localRootsList.get(0), localRootsList.get(1))) {
             return localRootsList.get(0);
-        } else if (localRootsList.get(1).getNodeInfo().depth < localRootsList.get(0).getNodeInfo().depth &&
-                isAncestorFor(localRootsList.get(1), localRootsList.get(0))) {
+        } else if (isAncestorFor(localRootsList.get(1), localRootsList.get(0))) {
             return localRootsList.get(1);
         } else {
             return findLocalRoot(localRoots);
@@ -281,6 +420,7 @@ public class ClusterTableConsumer {
                 cellNode = cellNode.getParent();
             }
 
+            context.beforeNodeUpdate(cellNode);
             if (((ListUtils.isListNode(cellNode) && table.getTableBorder() == null) ||
                     TableUtils.isTableNode(cellNode)) && cellNode.getRecognizedStructureId() != id) {
                 cellNode.setRecognizedStructureId(null);
@@ -330,27 +470,37 @@ public class ClusterTableConsumer {
         return findLocalRoot(tableLeafNodes);
     }
 
-    private void updateTreeWithRecognizedLists(INode root) {
-        initTreeNodeInfo(root);
+    private void updateTreeWithRecognizedLists() {
         for (PDFList list : lists) {
-            INode listRoot = updateTreeWithRecognizedList(list);
-            if (listRoot != null) {
-                if ((ListUtils.isListNode(listRoot) || TableUtils.isTableNode(listRoot)) && listRoot.getRecognizedStructureId() != list.getId()) {
-                    listRoot.setRecognizedStructureId(null);
-                } else {
-                    listRoot.setRecognizedStructureId(list.getId());
-                    listRoot.setSemanticType(SemanticType.LIST);
-                    listRoot.setCorrectSemanticScore(1.0);
-                }
+            context.checkCancelled();
+            updateTreeWithRecognizedList(list);
+        }
+    }
+
+    /**
+     * Updates the tree with the recognized list. Lists are applied in the order of their recognition after
+     * tables.
+     */
+    public void updateTreeWithRecognizedList(PDFList list) {
+        INode listRoot = updateTreeWithRecognizedListItems(list);
+        if (listRoot != null) {
+            context.beforeNodeUpdate(listRoot);
+            if ((ListUtils.isListNode(listRoot) || TableUtils.isTableNode(listRoot)) && listRoot.getRecognizedStructureId() != list.getId()) {
+                listRoot.setRecognizedStructureId(null);
+            } else {
+                listRoot.setRecognizedStructureId(list.getId());
+                listRoot.setSemanticType(SemanticType.LIST);
+                listRoot.setCorrectSemanticScore(1.0);
             }
         }
     }
 
-    private INode updateTreeWithRecognizedList(PDFList list) {
+    private INode updateTreeWithRecognizedListItems(PDFList list) {
         Set<INode> nodes = new HashSet<>();
         for (ListItem item : list.getListItems()) {
             INode itemNode = updateTreeWithRecognizedListItem(item, list.getId());
             if (itemNode != null) {
+                context.beforeNodeUpdate(itemNode);
                 if ((ListUtils.isListNode(itemNode) || TableUtils.isTableNode(itemNode)) && itemNode.getRecognizedStructureId() != list.getId()) {
                     itemNode.setRecognizedStructureId(null);
                 } else {
@@ -389,6 +539,7 @@ public class ClusterTableConsumer {
                 elementNode = elementNode.getParent();
             }
 
+            context.beforeNodeUpdate(elementNode);
             if ((ListUtils.isListNode(elementNode) || TableUtils.isTableNode(elementNode)) && elementNode.getRecognizedStructureId() != id) {
                 elementNode.setRecognizedStructureId(null);
             } else {
@@ -416,89 +567,78 @@ public class ClusterTableConsumer {
         return findLocalRoot(tableLeafNodes);
     }
 
+    /**
+     * @return the root, if it is one of the nodes, or the lowest common ancestor of parents of the nodes
+     */
     private INode findLocalRoot(Set<INode> nodes) {
-
         INode localRoot = null;
         for (INode node : nodes) {
-
-            if (node.isRoot()) {
-                localRoot = node;
-                break;
-            }
-            if (localRoot == null) {
-                localRoot = node.getParent();
-            }
-
-            while (!node.isRoot()) {
-                INode parent = node.getParent();
-                NodeInfo parentInfo = parent.getNodeInfo();
-
-                parentInfo.counter++;
-                if (parentInfo.counter > 1) {
-                    if (parentInfo.depth < localRoot.getNodeInfo().depth) {
-                        localRoot = parent;
-                    }
-                    break;
-                }
-                node = parent;
+            INode parent = node.getParent();
+            if (parent == null) {
+                return node;
             }
+            localRoot = localRoot == null ? parent : getFlatSemanticTree(parent).getCommonAncestor(localRoot, parent);
         }
-        initTreeCounters(localRoot);
-
         return localRoot;
     }
 
+    /**
+     * @return true if the first node is a proper ancestor of the second one
+     */
     private boolean isAncestorFor(INode first, INode second) {
-        while (!second.isRoot()) {
-            second = second.getParent();
-            if (second == first) {
-                return true;
-            }
-        }
-        return false;
+        return first.getDepth() < second.getDepth() && getFlatSemanticTree(first).isAncestor(first, second);
     }
 
-    private void initTreeCounters(INode root) {
-        if (root == null) {
-            return;
+    private FlatSemanticTree getFlatSemanticTree(INode node) {
+        if (flatSemanticTree == null) {
+            flatSemanticTree = context.getFlatSemanticTree(node);
         }
-        Stack<INode> nodeStack = new Stack<>();
-        nodeStack.push(root);
+        return flatSemanticTree;
+    }
 
-        while (!nodeStack.isEmpty()) {
-            INode node = nodeStack.pop();
-            NodeInfo nodeInfo = node.getNodeInfo();
+    /**
+     * State of the recognition before an item of the tree. The state is kept as the sources of the tokens added
+     * to the recognition area since its start: chunks, images and table borders with their nodes.
+     */
+    public static final class Checkpoint {
 
-            nodeInfo.counter = 0;
-            for (INode child : node.getChildren()) {
-                nodeStack.push(child);
-            }
-        }
+        private final INode item;
+        private final Object[] sources;
+        private final INode[] nodes;
 
-        while (!root.isRoot()) {
-            root = root.getParent();
-            root.getNodeInfo().counter = 0;
+        private Checkpoint(INode item, List<Object> sources, List<INode> nodes) {
+            this.item = item;
+            this.sources = sources.toArray();
+            this.nodes = nodes.toArray(new INode[0]);
         }
-    }
 
-    private void initTreeNodeInfo(INode root) {
-        Stack<INode> nodeStack = new Stack<>();
-        nodeStack.push(root);
+        /**
+         * @return item, which is accepted next after the checkpoint
+         */
+        public INode getItem() {
+            return item;
+        }
 
-        while (!nodeStack.isEmpty()) {
-            INode node = nodeStack.pop();
-            NodeInfo nodeInfo = node.getNodeInfo();
+        /**
+         * @return nodes of the tokens, which are accepted again when the recognition is resumed
+         */
+        public List<INode> getNodes() {
+            return Arrays.asList(nodes);
+        }
 
-            if (node.isRoot()) {
-                nodeInfo.depth = 0;
-            } else {
-                nodeInfo.depth = node.getParent().getNodeInfo().depth + 1;
+        /**
+         * @return true if the recognition has the same state at both checkpoints
+         */
+        public boolean hasSameState(Checkpoint checkpoint) {
+            if (item != checkpoint.item || sources.length != checkpoint.sources.length) {
+                return false;
             }
-            nodeInfo.counter = 0;
-
-            for (INode child : node.getChildren()) {
-                nodeStack.push(child);
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] != checkpoint.sources[i] || nodes[i] != checkpoint.nodes[i]) {
+                    return false;
+                }
             }
+            return true;
         }
     }
 }
@@ -2,25 +2,52 @@ package org.verapdf.wcag.algorithms.semanticalgorithms.consumers;
 
 import org.verapdf.wcag.algorithms.entities.IDocument;
 import org.verapdf.wcag.algorithms.entities.content.LineChunk;
-import org.verapdf.wcag.algorithms.entities.geometry.Vertex;
+import org.verapdf.wcag.algorithms.entities.content.LinesCollection;
+import org.verapdf.wcag.algorithms.entities.content.PageLines;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.entities.geometry.RTree;
 import org.verapdf.wcag.algorithms.entities.tables.TableBorderBuilder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.LinkedList;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class LinesPreprocessingConsumer {
 
     private static final double MAX_LINE_WIDTH = 5.0;
 
+    private static final double INSERT_EVENT = 0;
+    private static final double QUERY_EVENT = 1;
+    private static final double REMOVE_EVENT = 2;
+
     private final IDocument document;
+    private final SemanticContext context;
 
     private List<List<TableBorderBuilder>> tableBorders;
 
+    /**
+     * @deprecated use {@link #LinesPreprocessingConsumer(IDocument, SemanticContext)} with the document context
+     * instead.
+     */
+    @Deprecated
     public LinesPreprocessingConsumer(IDocument document) {
+        this(document, StaticContainers.getDefaultSemanticContext());
+    }
+
+    public LinesPreprocessingConsumer(IDocument document, SemanticContext context) {
         this.document = document;
+        this.context = context;
     }
 
     public List<List<TableBorderBuilder>> getTableBorders() {
@@ -37,45 +64,115 @@ public class LinesPreprocessingConsumer {
         }
     }
 
-    private List<TableBorderBuilder> findTableBorders(Integer pageNumber) {
-        List<TableBorderBuilder> tableBorders = new LinkedList<>();
-        Set<LineChunk> set = new HashSet<>(StaticContainers.getLinesCollection().getHorizontalLines(pageNumber));
-        set.addAll(StaticContainers.getLinesCollection().getVerticalLines(pageNumber));
-        set.addAll(StaticContainers.getLinesCollection().getSquares(pageNumber));
+    /**
+     * Finds table borders of all pages in concurrent tasks of the executor, one task per page.
+     */
+    public void findTableBorders(Executor executor) {
+        tableBorders = new LinkedList<>(findTableBorders(0, document.getPages().size(), executor));
+    }
+
+    /**
+     * Finds table borders of the pages from fromPage inclusive to toPage exclusive in concurrent tasks
+     * of the executor. Every task parses and updates lines of its own page only, lines of the pages are
+     * stored in the lines collection after all tasks are finished.
+     *
+     * @return table borders of the pages in page order
+     */
+    public List<List<TableBorderBuilder>> findTableBorders(int fromPage, int toPage, Executor executor) {
+        LinesCollection linesCollection = context.getLinesCollection();
+        PageLines[] pagesLines = new PageLines[toPage - fromPage];
+        List<CompletableFuture<List<TableBorderBuilder>>> futures = new ArrayList<>(toPage - fromPage);
+        for (int pageNumber = fromPage; pageNumber < toPage; pageNumber++) {
+            int page = pageNumber;
+            PageLines parsedPageLines = linesCollection.getParsedPageLines(pageNumber);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                PageLines pageLines = parsedPageLines != null ? parsedPageLines : new PageLines(document, page);
+                pagesLines[page - fromPage] = pageLines;
+                return findTableBorders(pageLines);
+            }, executor));
+        }
+        List<List<TableBorderBuilder>> result = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<List<TableBorderBuilder>> future : futures) {
+                result.add(future.join());
+            }
+        } catch (CompletionException e) {
+            for (CompletableFuture<List<TableBorderBuilder>> future : futures) {
+                future.cancel(false);
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        for (int pageNumber = fromPage; pageNumber < toPage; pageNumber++) {
+            linesCollection.setPageLines(pageNumber, pagesLines[pageNumber - fromPage]);
+        }
+        return result;
+    }
+
+    public List<TableBorderBuilder> findTableBorders(Integer pageNumber) {
+        return findTableBorders(context.getLinesCollection().getPageLines(pageNumber));
+    }
+
+    /**
+     * Finds table borders of the page in newly parsed lines of the page. Unlike {@link #findTableBorders(Integer)},
+     * lines of the lines collection are not changed, so table borders of a page can be found again.
+     */
+    public List<TableBorderBuilder> findNewTableBorders(int pageNumber) {
+        return findTableBorders(new PageLines(document, pageNumber));
+    }
+
+    private List<TableBorderBuilder> findTableBorders(PageLines pageLines) {
+        List<TableBorderBuilder> tableBorders = new ArrayList<>();
+        Set<LineChunk> set = new HashSet<>(pageLines.getHorizontalLines());
+        set.addAll(pageLines.getVerticalLines());
+        set.addAll(pageLines.getSquares());
+        List<LineChunk> lines = new ArrayList<>(set.size());
         for (LineChunk line : set) {
-            if (line.getWidth() > MAX_LINE_WIDTH) {
-                continue;
+            if (line.getWidth() <= MAX_LINE_WIDTH) {
+                lines.add(line);
             }
-            boolean separateTableBorder = true;
-            for (TableBorderBuilder border : tableBorders) {
-                boolean isCross = false;
-                if (line.isHorizontalLine()) {
-                    for (LineChunk verticalLine : border.getVerticalLines()) {
-                        Vertex vv = LineChunk.getIntersectionVertex(line, verticalLine);
-                        if (vv != null) {
-                            border.addVertex(vv);
-                            isCross = true;
-                        }
-                    }
-                } else if (line.isVerticalLine()) {
-                    for (LineChunk horizontalLine : border.getHorizontalLines()) {
-                        Vertex vv = LineChunk.getIntersectionVertex(horizontalLine, line);
-                        if (vv != null) {
-                            border.addVertex(vv);
-                            isCross = true;
-                        }
-                    }
+        }
+        int[][] crossingLines = findCrossingLines(lines);
+        int[] lineBorders = new int[lines.size()];
+        boolean[] isBorderLine = new boolean[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            context.checkCancelled();
+            LineChunk line = lines.get(i);
+            int borderIndex = tableBorders.size();
+            for (int j : crossingLines[i]) {
+                if (j < i && isBorderLine[j]) {
+                    borderIndex = Math.min(borderIndex, lineBorders[j]);
                 }
-                if (isCross) {
-                    border.addLine(line);
-                    separateTableBorder = false;
-                    break;
+            }
+            lineBorders[i] = borderIndex;
+            if (borderIndex == tableBorders.size()) {
+                tableBorders.add(new TableBorderBuilder(line));
+                isBorderLine[i] = true;
+                continue;
+            }
+            TableBorderBuilder border = tableBorders.get(borderIndex);
+            List<LineChunk> borderCrossingLines = new ArrayList<>();
+            for (int j : crossingLines[i]) {
+                if (j < i && isBorderLine[j] && lineBorders[j] == borderIndex) {
+                    borderCrossingLines.add(lines.get(j));
                 }
             }
-            if (separateTableBorder) {
-                TableBorderBuilder border = new TableBorderBuilder(line);
-                tableBorders.add(border);
+            if (line.isHorizontalLine()) {
+                borderCrossingLines.sort(new LineChunk.VerticalLineComparator());
+                for (LineChunk verticalLine : borderCrossingLines) {
+                    border.addVertex(LineChunk.getIntersectionVertex(line, verticalLine));
+                }
+                isBorderLine[i] = !border.getHorizontalLines().contains(line);
+            } else {
+                borderCrossingLines.sort(new LineChunk.HorizontalLineComparator());
+                for (LineChunk horizontalLine : borderCrossingLines) {
+                    border.addVertex(LineChunk.getIntersectionVertex(horizontalLine, line));
+                }
+                isBorderLine[i] = !border.getVerticalLines().contains(line);
             }
+            border.addLine(line);
         }
         mergeTableBorders(tableBorders);
         for (int i = 0; i < tableBorders.size();) {
@@ -89,10 +186,10 @@ public class LinesPreprocessingConsumer {
         }
         for (TableBorderBuilder border : tableBorders) {
             for (LineChunk lineChunk : border.getVerticalLines()) {
-                StaticContainers.getLinesCollection().getVerticalLines(pageNumber).remove(lineChunk);
+                pageLines.getVerticalLines().remove(lineChunk);
             }
             for (LineChunk lineChunk : border.getHorizontalLines()) {
-                StaticContainers.getLinesCollection().getHorizontalLines(pageNumber).remove(lineChunk);
+                pageLines.getHorizontalLines().remove(lineChunk);
             }
         }
         for (int i = 0; i < tableBorders.size();) {
@@ -107,18 +204,139 @@ public class LinesPreprocessingConsumer {
         return tableBorders;
     }
 
+    /**
+     * Finds pairs of horizontal and vertical lines having an {@link LineChunk#getIntersectionVertex intersection
+     * vertex} by a sweep over y coordinates. Vertical lines are active from their bottom to their top and are kept
+     * sorted by x coordinates, so every horizontal line finds the crossing lines by a range query.
+     *
+     * @return indexes of crossing lines for every line
+     */
+    private static int[][] findCrossingLines(List<LineChunk> lines) {
+        List<double[]> events = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            LineChunk line = lines.get(i);
+            if (line.isVerticalLine()) {
+                events.add(new double[]{line.getBoundingBox().getBottomY() + 0.0, INSERT_EVENT, i});
+                events.add(new double[]{line.getBoundingBox().getTopY() + 0.0, REMOVE_EVENT, i});
+            } else if (line.isHorizontalLine()) {
+                events.add(new double[]{line.getCenterY() + 0.0, QUERY_EVENT, i});
+            }
+        }
+        events.sort((event1, event2) -> {
+            int res = Double.compare(event1[0], event2[0]);
+            return res != 0 ? res : Double.compare(event1[1], event2[1]);
+        });
+        List<List<Integer>> crossingLines = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            crossingLines.add(new ArrayList<>(0));
+        }
+        TreeMap<Double, List<Integer>> activeLines = new TreeMap<>();
+        for (double[] event : events) {
+            int index = (int) event[2];
+            LineChunk line = lines.get(index);
+            if (event[1] == INSERT_EVENT) {
+                activeLines.computeIfAbsent(line.getCenterX() + 0.0, key -> new ArrayList<>()).add(index);
+            } else if (event[1] == REMOVE_EVENT) {
+                List<Integer> sameXLines = activeLines.get(line.getCenterX() + 0.0);
+                sameXLines.remove(Integer.valueOf(index));
+                if (sameXLines.isEmpty()) {
+                    activeLines.remove(line.getCenterX() + 0.0);
+                }
+            } else {
+                for (List<Integer> verticalLines : activeLines.subMap(line.getBoundingBox().getLeftX() + 0.0, true,
+                        line.getBoundingBox().getRightX() + 0.0, true).values()) {
+                    for (Integer verticalLine : verticalLines) {
+                        crossingLines.get(index).add(verticalLine);
+                        crossingLines.get(verticalLine).add(index);
+                    }
+                }
+            }
+        }
+        int[][] result = new int[lines.size()][];
+        for (int i = 0; i < lines.size(); i++) {
+            result[i] = crossingLines.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    /**
+     * Merges connected table borders. Groups of connected borders are found by a disjoint-set union first,
+     * overlapping borders of every round are found by an R-tree over bounding boxes of the groups. Rounds are
+     * repeated until bounding boxes of the groups do not overlap. Every group is merged into its first border.
+     */
     private void mergeTableBorders(List<TableBorderBuilder> tableBorders) {
-        for (int i = tableBorders.size() - 2; i >= 0; i--) {
-            TableBorderBuilder border = tableBorders.get(i);
-            for (int j = i + 1; j < tableBorders.size();) {
-                TableBorderBuilder border2 = tableBorders.get(j);
-                if (border.isConnectedBorder(border2)) {
-                    border.mergeBorder(border2);
-                    tableBorders.remove(j);
+        int[] groups = new int[tableBorders.size()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = i;
+        }
+        boolean isMerged = true;
+        while (isMerged) {
+            context.checkCancelled();
+            isMerged = false;
+            List<Integer> roots = new ArrayList<>();
+            Map<Integer, BoundingBox> groupBoundingBoxes = new HashMap<>();
+            for (int i = 0; i < groups.length; i++) {
+                int root = findGroup(groups, i);
+                BoundingBox boundingBox = groupBoundingBoxes.get(root);
+                if (boundingBox == null) {
+                    roots.add(root);
+                    groupBoundingBoxes.put(root, new BoundingBox(tableBorders.get(i).getBoundingBox()));
                 } else {
-                    j++;
+                    boundingBox.union(tableBorders.get(i).getBoundingBox());
+                }
+            }
+            RTree<Integer> index = new RTree<>(roots, groupBoundingBoxes::get);
+            for (Integer root : roots) {
+                BoundingBox boundingBox = groupBoundingBoxes.get(root);
+                double epsilon = NodeUtils.TABLE_BORDER_EPSILON;
+                List<Integer> overlappingRoots = new ArrayList<>();
+                index.forEach((leftX, bottomY, rightX, topY) -> !(leftX > boundingBox.getRightX() + epsilon ||
+                                rightX + epsilon < boundingBox.getLeftX() || bottomY > boundingBox.getTopY() + epsilon ||
+                                topY + epsilon < boundingBox.getBottomY()),
+                        overlappingRoot -> {
+                            if (!overlappingRoot.equals(root) &&
+                                    boundingBox.overlaps(groupBoundingBoxes.get(overlappingRoot), epsilon)) {
+                                overlappingRoots.add(overlappingRoot);
+                            }
+                        });
+                for (Integer overlappingRoot : overlappingRoots) {
+                    isMerged |= unionGroups(groups, root, overlappingRoot);
                 }
             }
         }
+        List<TableBorderBuilder> mergedTableBorders = new ArrayList<>();
+        for (int i = 0; i < groups.length; i++) {
+            int root = findGroup(groups, i);
+            if (root == i) {
+                mergedTableBorders.add(tableBorders.get(i));
+            } else {
+                tableBorders.get(root).mergeBorder(tableBorders.get(i));
+            }
+        }
+        tableBorders.clear();
+        tableBorders.addAll(mergedTableBorders);
+    }
+
+    private static int findGroup(int[] groups, int i) {
+        while (groups[i] != i) {
+            groups[i] = groups[groups[i]];
+            i = groups[i];
+        }
+        return i;
+    }
+
+    /**
+     * Unites groups of borders, the border with the lowest index becomes the root of the united group.
+     *
+     * @return false if the borders are already in the same group
+     */
+    private static boolean unionGroups(int[] groups, int i, int j) {
+        int root1 = findGroup(groups, i);
+        int root2 = findGroup(groups, j);
+        if (root1 == root2) {
+            return false;
+        }
+        groups[Math.max(root1, root2)] = Math.min(root1, root2);
+        return true;
     }
 }
@@ -0,0 +1,173 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.consumers;
+
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.ITree;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Accumulates the semantic tree in post order, like {@link ITree#forEach} with {@link AccumulatedNodeConsumer},
+ * but runs disjoint subtrees in separate tasks of a fork-join pool. Accumulation of a node depends only on
+ * its subtree, so the results are the same as for the sequential pass. Structure ids of recognized lists
+ * are allocated as placeholders in the tasks and replaced by ids in the order of the sequential pass.
+ */
+public class ParallelAccumulationConsumer {
+
+	private final SemanticContext context;
+	private final int minSubtreeSize;
+	private final Function<SemanticContext, Consumer<INode>> accumulationConsumerFactory;
+	private final ForkJoinPool pool;
+	private final AtomicLong placeholderCounter = new AtomicLong();
+
+	/**
+	 * @param minSubtreeSize minimal number of nodes of a subtree accumulated by a separate task
+	 * @param accumulationConsumerFactory creates accumulation consumers of the tasks from their contexts
+	 */
+	public ParallelAccumulationConsumer(SemanticContext context, int minSubtreeSize,
+	                                    Function<SemanticContext, Consumer<INode>> accumulationConsumerFactory,
+	                                    ForkJoinPool pool) {
+		this.context = context;
+		this.minSubtreeSize = minSubtreeSize;
+		this.accumulationConsumerFactory = accumulationConsumerFactory;
+		this.pool = pool;
+	}
+
+	public void accumulate(ITree tree) {
+		INode root = tree.getRoot();
+		if (root == null) {
+			return;
+		}
+		List<Long> placeholders = pool.invoke(new AccumulationTask(Collections.singletonList(root)));
+		if (placeholders.isEmpty()) {
+			return;
+		}
+		Map<Long, Long> structureIds = new HashMap<>();
+		for (Long placeholder : placeholders) {
+			structureIds.put(placeholder, context.getNextTableListId());
+		}
+		for (INode node : tree) {
+			Long structureId = node.getRecognizedStructureId();
+			if (structureId != null && structureId < 0) {
+				node.setRecognizedStructureId(structureIds.get(structureId));
+			}
+		}
+	}
+
+	/**
+	 * @return number of nodes of the subtree cached by {@link SemanticDocumentPreprocessingConsumer},
+	 * or number of children of the node plus one if unknown
+	 */
+	private static int getSubtreeSize(INode node) {
+		int subtreeSize = node.getSubtreeSize();
+		return subtreeSize > 0 ? subtreeSize : node.getChildren().size() + 1;
+	}
+
+	/**
+	 * Accumulates consecutive sibling subtrees and returns placeholders of the allocated structure ids
+	 * in the order of the sequential pass.
+	 */
+	private class AccumulationTask extends RecursiveTask<List<Long>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<INode> nodes;
+
+		private AccumulationTask(List<INode> nodes) {
+			this.nodes = nodes;
+		}
+
+		@Override
+		protected List<Long> compute() {
+			if (nodes.size() == 1 && getSubtreeSize(nodes.get(0)) >= 2 * minSubtreeSize) {
+				return accumulateSplit(nodes.get(0));
+			}
+			TaskContext taskContext = new TaskContext(context);
+			Consumer<INode> accumulationConsumer = accumulationConsumerFactory.apply(taskContext);
+			for (INode node : nodes) {
+				accumulateSubtree(node, accumulationConsumer);
+			}
+			return taskContext.placeholders;
+		}
+
+		private List<Long> accumulateSplit(INode node) {
+			List<AccumulationTask> tasks = new ArrayList<>();
+			List<INode> group = new ArrayList<>();
+			int groupSize = 0;
+			for (INode child : node.getChildren()) {
+				int childSize = getSubtreeSize(child);
+				if (childSize >= minSubtreeSize) {
+					if (!group.isEmpty()) {
+						tasks.add(new AccumulationTask(group));
+						group = new ArrayList<>();
+						groupSize = 0;
+					}
+					tasks.add(new AccumulationTask(Collections.singletonList(child)));
+				} else {
+					group.add(child);
+					groupSize += childSize;
+					if (groupSize >= minSubtreeSize) {
+						tasks.add(new AccumulationTask(group));
+						group = new ArrayList<>();
+						groupSize = 0;
+					}
+				}
+			}
+			if (!group.isEmpty()) {
+				tasks.add(new AccumulationTask(group));
+			}
+			invokeAll(tasks);
+			List<Long> placeholders = new ArrayList<>();
+			for (AccumulationTask task : tasks) {
+				placeholders.addAll(task.join());
+			}
+			TaskContext taskContext = new TaskContext(context);
+			accumulationConsumerFactory.apply(taskContext).accept(node);
+			placeholders.addAll(taskContext.placeholders);
+			return placeholders;
+		}
+
+		private void accumulateSubtree(INode root, Consumer<INode> accumulationConsumer) {
+			Deque<INode> nodeStack = new ArrayDeque<>();
+			Deque<Integer> childIndexes = new ArrayDeque<>();
+			nodeStack.push(root);
+			childIndexes.push(0);
+			while (!nodeStack.isEmpty()) {
+				INode node = nodeStack.peek();
+				int childIndex = childIndexes.pop();
+				if (childIndex < node.getChildren().size()) {
+					childIndexes.push(childIndex + 1);
+					nodeStack.push(node.getChildren().get(childIndex));
+					childIndexes.push(0);
+				} else {
+					nodeStack.pop();
+					accumulationConsumer.accept(node);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Context of a single task, which allocates negative placeholders instead of structure ids.
+	 */
+	private class TaskContext extends SemanticContext {
+
+		private final List<Long> placeholders = new ArrayList<>();
+
+		private TaskContext(SemanticContext context) {
+			super(context);
+		}
+
+		@Override
+		public Long getNextTableListId() {
+			Long placeholder = -placeholderCounter.incrementAndGet();
+			placeholders.add(placeholder);
+			return placeholder;
+		}
+	}
+}
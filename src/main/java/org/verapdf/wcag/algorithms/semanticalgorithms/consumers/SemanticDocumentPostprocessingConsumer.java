@@ -4,6 +4,7 @@ import org.verapdf.wcag.algorithms.entities.*;
 import org.verapdf.wcag.algorithms.entities.ITree;
 import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextLine;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.ListUtils;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
@@ -13,52 +14,139 @@ import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
 import org.verapdf.wcag.algorithms.entities.geometry.MultiBoundingBox;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TextChunkUtils;
 
+import java.util.Iterator;
+import java.util.List;
+
 public class SemanticDocumentPostprocessingConsumer {
 
-	public void runPostprocessingChecks(ITree tree) {
-		checkForTitle(tree);
-		checkForRepeatedCharacters(tree);
-		setLowestDepthErrorFlag(tree);
+	private final SemanticContext context;
+
+	/**
+	 * @deprecated use {@link #SemanticDocumentPostprocessingConsumer(SemanticContext)} with the document context
+	 * instead.
+	 */
+	@Deprecated
+	public SemanticDocumentPostprocessingConsumer() {
+		this(StaticContainers.getDefaultSemanticContext());
 	}
 
+	public SemanticDocumentPostprocessingConsumer(SemanticContext context) {
+		this.context = context;
+	}
 
-	public void setLowestDepthErrorFlag(ITree tree) {
-		for (INode child : tree.getRoot().getChildren()) {
-			setLowestDepthErrorFlag(child);
+	public void runPostprocessingChecks(ITree tree) {
+		runPostprocessingChecks(tree, true, true, true);
+	}
+
+	/**
+	 * Runs the selected checks in a single traversal of the tree.
+	 */
+	public void runPostprocessingChecks(ITree tree, boolean checkForTitle, boolean checkForRepeatedCharacters,
+	                                    boolean setLowestDepthErrorFlag) {
+		TreeTraversal traversal = new TreeTraversal();
+		if (checkForTitle) {
+			traversal.addVisitor(new TitleVisitor());
+		}
+		RepeatedCharactersVisitor repeatedCharactersVisitor = null;
+		if (checkForRepeatedCharacters) {
+			repeatedCharactersVisitor = new RepeatedCharactersVisitor(context.getRepeatedCharacters(), null);
+			traversal.addVisitor(repeatedCharactersVisitor);
+		}
+		FlatSemanticTree flatSemanticTree = context.getFlatSemanticTree();
+		boolean useFlatSemanticTree = flatSemanticTree != null && flatSemanticTree.size() > 0 &&
+		                              flatSemanticTree.getNode(0) == tree.getRoot() &&
+		                              flatSemanticTree.getExcludedNodesNumber() == 0 &&
+		                              (tree.getRoot().getSubtreeSize() == 0 ||
+		                               tree.getRoot().getSubtreeSize() == flatSemanticTree.size());
+		if (setLowestDepthErrorFlag && !useFlatSemanticTree) {
+			traversal.addVisitor(new LowestDepthErrorVisitor(tree.getRoot()));
+		}
+		traversal.traverse(tree);
+		if (repeatedCharactersVisitor != null) {
+			repeatedCharactersVisitor.finish();
+		}
+		if (setLowestDepthErrorFlag && useFlatSemanticTree) {
+			setLowestDepthErrorFlag(flatSemanticTree);
 		}
 	}
 
-	public void checkForTitle(ITree tree) {
-		for (INode node : tree) {
-			if (checkNode(node)) {
-				break;
+	/**
+	 * Sets the lowest depth error flag scanning nodes of the snapshot in pre-order, subtrees of flagged nodes
+	 * are skipped.
+	 */
+	private void setLowestDepthErrorFlag(FlatSemanticTree flatSemanticTree) {
+		flatSemanticTree.updateSemanticTypes();
+		for (int id = 1; id < flatSemanticTree.size();) {
+			context.checkCancelled();
+			SemanticType semanticType = flatSemanticTree.getSemanticType(id);
+			SemanticType initialSemanticType = flatSemanticTree.getInitialSemanticType(id);
+			if (semanticType != initialSemanticType &&
+			    (TableUtils.isTableSemanticType(semanticType) || TableUtils.isTableSemanticType(initialSemanticType) ||
+			     ListUtils.isListSemanticType(semanticType) || ListUtils.isListSemanticType(initialSemanticType))) {
+				INode node = flatSemanticTree.getNode(id);
+				context.beforeNodeUpdate(node);
+				node.setHasLowestDepthError();
+				id += flatSemanticTree.getSubtreeSize(id);
+			} else {
+				id++;
 			}
 		}
 	}
 
+	public void setLowestDepthErrorFlag(ITree tree) {
+		runPostprocessingChecks(tree, false, false, true);
+	}
+
+	/**
+	 * Sets the lowest depth error flag in the subtree of the node, the node itself is not checked.
+	 */
+	public void setLowestDepthErrorFlag(INode node) {
+		new TreeTraversal().addVisitor(new LowestDepthErrorVisitor(node)).traverse(node);
+	}
+
+	/**
+	 * @return true if the semantic type of the node differs from its initial semantic type and one of them is
+	 * a table or a list type. The lowest depth error flag is set for the highest such nodes of the tree.
+	 */
+	public static boolean hasChangedStructureType(INode node) {
+		return node.getSemanticType() != node.getInitialSemanticType() &&
+		       (TableUtils.isTableNode(node) || TableUtils.isInitialTableNode(node) ||
+		        ListUtils.isListNode(node) || ListUtils.isInitialListNode(node));
+	}
+
+	public void checkForTitle(ITree tree) {
+		runPostprocessingChecks(tree, true, false, false);
+	}
+
 	public void checkForRepeatedCharacters(ITree tree) {
-		String valueToCheck = "";
-		MultiBoundingBox multiBoundingBox = new MultiBoundingBox();
-		for (INode node : tree) {
-			if (node instanceof SemanticSpan) {
-				for (TextLine textLine : ((SemanticSpan) node).getLines()) {
-					for (TextChunk textChunk : textLine.getTextChunks()) {
-						if (!valueToCheck.isEmpty() && areTextChunksChained(valueToCheck, textChunk)) {
-							valueToCheck += textChunk.getValue();
-							multiBoundingBox.union(textChunk.getBoundingBox());
-						} else {
-							checkRepeatedAndAdd(valueToCheck, multiBoundingBox);
-							valueToCheck = textChunk.getValue();
-							multiBoundingBox = new MultiBoundingBox(textChunk.getBoundingBox());
-						}
-					}
-				}
-			}
+		runPostprocessingChecks(tree, false, true, false);
+	}
+
+	/**
+	 * Checks text chunks of the spans for repeated characters, chunks are chained in the given order of the spans.
+	 * Found repeated characters are added to the list together with the spans, where chains of their chunks start.
+	 */
+	public void checkForRepeatedCharacters(Iterator<INode> spans, List<RepeatedCharacters> repeatedCharacters,
+	                                       List<INode> chainSpans) {
+		RepeatedCharactersVisitor repeatedCharactersVisitor = new RepeatedCharactersVisitor(repeatedCharacters,
+		                                                                                    chainSpans);
+		while (spans.hasNext()) {
+			repeatedCharactersVisitor.exitNode(spans.next());
 		}
-		checkRepeatedAndAdd(valueToCheck, multiBoundingBox);
+		repeatedCharactersVisitor.finish();
 	}
 
-	private boolean areTextChunksChained(String previousValue, TextChunk secondTextChunk) {
+	/**
+	 * @return true if the chunk following the previous chunk, or the first chunk if the previous one is null,
+	 * starts a new chain of chunks checked for repeated characters regardless of the chunks before the previous
+	 * one. A chunk following an empty chunk may continue the chain of the chunks before it.
+	 */
+	public static boolean isChainStart(TextChunk previousTextChunk, TextChunk textChunk) {
+		return previousTextChunk == null || !previousTextChunk.getValue().isEmpty() &&
+		       !textChunk.getValue().isEmpty() && !areTextChunksChained(previousTextChunk.getValue(), textChunk);
+	}
+
+	private static boolean areTextChunksChained(String previousValue, TextChunk secondTextChunk) {
 		char firstChar = previousValue.charAt(previousValue.length() - 1);
 		char secondChar = secondTextChunk.getValue().charAt(0);
 		if (TextChunkUtils.isWhiteSpaceChar(firstChar) && TextChunkUtils.isWhiteSpaceChar(secondChar)) {
@@ -70,12 +158,14 @@ public class SemanticDocumentPostprocessingConsumer {
 	private boolean checkNode(INode node) {
 		if (isTextNode(node)) {
 			if (isTitle(node)) {
+				context.beforeNodeUpdate(node);
 				node.setSemanticType(SemanticType.TITLE);
 				return true;
 			}
 			INode parent = node.getParent();
-			while (parent != null && StaticContainers.getAccumulatedNodeMapper().get(parent) instanceof SemanticTextNode) {
+			while (parent != null && context.getAccumulatedNodeMapper().get(parent) instanceof SemanticTextNode) {
 				if (isTitle(parent)) {
+					context.beforeNodeUpdate(parent);
 					parent.setSemanticType(SemanticType.TITLE);
 					break;
 				}
@@ -86,24 +176,8 @@ public class SemanticDocumentPostprocessingConsumer {
 		return false;
 	}
 
-	private void setLowestDepthErrorFlag(INode node) {
-		if ((TableUtils.isTableNode(node) || TableUtils.isInitialTableNode(node)) &&
-				node.getSemanticType() != node.getInitialSemanticType()) {
-			node.setHasLowestDepthError();
-			return;
-		}
-		if ((ListUtils.isListNode(node) || ListUtils.isInitialListNode(node)) &&
-				node.getSemanticType() != node.getInitialSemanticType()) {
-			node.setHasLowestDepthError();
-			return;
-		}
-		for (INode child : node.getChildren()) {
-			setLowestDepthErrorFlag(child);
-		}
-	}
-
 	private boolean isTextNode(INode node) {
-		INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
+		INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
 		return accumulatedNode instanceof SemanticTextNode && !((SemanticTextNode) accumulatedNode).isSpaceNode() &&
 		       !node.getChildren().isEmpty();
 	}
@@ -113,7 +187,8 @@ public class SemanticDocumentPostprocessingConsumer {
 		       SemanticType.NUMBER_HEADING.equals(node.getSemanticType()) && !SemanticType.NUMBER_HEADING.equals(node.getInitialSemanticType());
 	}
 
-	private void checkRepeatedAndAdd(String value, BoundingBox boundingBox) {
+	private static void checkRepeatedAndAdd(String value, BoundingBox boundingBox,
+	                                        List<RepeatedCharacters> repeatedCharacters) {
 		if (value == null || value.isEmpty()) {
 			return;
 		}
@@ -127,8 +202,7 @@ public class SemanticDocumentPostprocessingConsumer {
 				length++;
 			} else {
 				if (length > 2) {
-					StaticContainers.getRepeatedCharacters().add(new RepeatedCharacters(!isLastCharacterWhiteSpace,
-					                                                                    length, boundingBox));
+					repeatedCharacters.add(new RepeatedCharacters(!isLastCharacterWhiteSpace, length, boundingBox));
 				}
 				length = 1;
 				lastCharacter = character;
@@ -136,8 +210,87 @@ public class SemanticDocumentPostprocessingConsumer {
 			}
 		}
 		if (length > 2) {
-			StaticContainers.getRepeatedCharacters().add(new RepeatedCharacters(!isLastCharacterWhiteSpace,
-			                                                                    length, boundingBox));
+			repeatedCharacters.add(new RepeatedCharacters(!isLastCharacterWhiteSpace, length, boundingBox));
+		}
+	}
+
+	private class TitleVisitor implements TreeVisitor {
+
+		private boolean finished = false;
+
+		@Override
+		public void exitNode(INode node) {
+			context.checkCancelled();
+			finished = checkNode(node);
+		}
+
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+	}
+
+	private class RepeatedCharactersVisitor implements TreeVisitor {
+
+		private final List<RepeatedCharacters> repeatedCharacters;
+		private final List<INode> chainSpans;
+		private String valueToCheck = "";
+		private MultiBoundingBox multiBoundingBox = new MultiBoundingBox();
+		private INode chainSpan;
+
+		private RepeatedCharactersVisitor(List<RepeatedCharacters> repeatedCharacters, List<INode> chainSpans) {
+			this.repeatedCharacters = repeatedCharacters;
+			this.chainSpans = chainSpans;
+		}
+
+		@Override
+		public void exitNode(INode node) {
+			context.checkCancelled();
+			if (node instanceof SemanticSpan) {
+				for (TextLine textLine : ((SemanticSpan) node).getLines()) {
+					for (TextChunk textChunk : textLine.getTextChunks()) {
+						if (!valueToCheck.isEmpty() && areTextChunksChained(valueToCheck, textChunk)) {
+							valueToCheck += textChunk.getValue();
+							multiBoundingBox.union(textChunk.getBoundingBox());
+						} else {
+							finish();
+							valueToCheck = textChunk.getValue();
+							multiBoundingBox = new MultiBoundingBox(textChunk.getBoundingBox());
+							chainSpan = node;
+						}
+					}
+				}
+			}
+		}
+
+		private void finish() {
+			checkRepeatedAndAdd(valueToCheck, multiBoundingBox, repeatedCharacters);
+			while (chainSpans != null && chainSpans.size() < repeatedCharacters.size()) {
+				chainSpans.add(chainSpan);
+			}
+		}
+	}
+
+	private class LowestDepthErrorVisitor implements TreeVisitor {
+
+		private final INode root;
+
+		private LowestDepthErrorVisitor(INode root) {
+			this.root = root;
+		}
+
+		@Override
+		public boolean enterNode(INode node) {
+			if (node == root) {
+				return true;
+			}
+			context.checkCancelled();
+			if (hasChangedStructureType(node)) {
+				context.beforeNodeUpdate(node);
+				node.setHasLowestDepthError();
+				return false;
+			}
+			return true;
 		}
 	}
 }
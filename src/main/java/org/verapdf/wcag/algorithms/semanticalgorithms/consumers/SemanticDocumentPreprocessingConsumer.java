@@ -2,11 +2,15 @@ package org.verapdf.wcag.algorithms.semanticalgorithms.consumers;
 
 import org.verapdf.wcag.algorithms.entities.IDocument;
 import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.FlatSemanticTree;
+import org.verapdf.wcag.algorithms.entities.PageNodeIndex;
 import org.verapdf.wcag.algorithms.entities.SemanticSpan;
+import org.verapdf.wcag.algorithms.entities.TreeVisitor;
 import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextLine;
 import org.verapdf.wcag.algorithms.entities.content.LineChunk;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
 
@@ -16,25 +20,59 @@ import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-public class SemanticDocumentPreprocessingConsumer implements Consumer<INode> {
+public class SemanticDocumentPreprocessingConsumer implements Consumer<INode>, TreeVisitor {
     private static final Logger LOGGER = Logger.getLogger(SemanticDocumentPreprocessingConsumer.class.getCanonicalName());
 
     private final IDocument document;
+    private final SemanticContext context;
+    private final boolean checkUnderlinedText;
+    private int nextNodeId;
 
+    /**
+     * @deprecated use {@link #SemanticDocumentPreprocessingConsumer(IDocument, SemanticContext)} with the document
+     * context instead.
+     */
+    @Deprecated
     public SemanticDocumentPreprocessingConsumer(IDocument document) {
+        this(document, StaticContainers.getDefaultSemanticContext());
+    }
+
+    public SemanticDocumentPreprocessingConsumer(IDocument document, SemanticContext context) {
+        this(document, context, true);
+    }
+
+    public SemanticDocumentPreprocessingConsumer(IDocument document, SemanticContext context,
+                                                 boolean checkUnderlinedText) {
+        this(document, context, checkUnderlinedText, true);
+    }
+
+    /**
+     * @param setNodeParents false if the consumer is run as a {@link TreeVisitor}, which sets parents of nodes
+     *                       on entering them
+     */
+    public SemanticDocumentPreprocessingConsumer(IDocument document, SemanticContext context,
+                                                 boolean checkUnderlinedText, boolean setNodeParents) {
         this.document = document;
-        setNodeParents();
+        this.context = context;
+        this.checkUnderlinedText = checkUnderlinedText;
+        if (setNodeParents) {
+            setNodeParents();
+        }
     }
 
+    /**
+     * Sets parents, indexes and depths of nodes, and assigns dense ids to them in pre-order.
+     */
     public void setNodeParents() {
         Stack<INode> nodeStack = new Stack<>();
         INode root = document.getTree().getRoot();
         nodeStack.push(root);
         root.setDepth(0);
-        nodeStack.add(root);
+        int nextNodeId = 0;
         while (!nodeStack.isEmpty()) {
             INode node = nodeStack.pop();
-            for (int i = 0; i < node.getChildren().size(); i++) {
+            node.setNodeId(nextNodeId++);
+            for (int i = node.getChildren().size() - 1; i >= 0; i--) {
                 INode child = node.getChildren().get(i);
                 child.setParent(node);
                 child.setIndex(i);
@@ -42,10 +80,38 @@ public class SemanticDocumentPreprocessingConsumer implements Consumer<INode> {
                 nodeStack.push(child);
             }
         }
+        context.getAccumulatedNodeMapper().ensureCapacity(nextNodeId);
+    }
+
+    @Override
+    public boolean enterNode(INode node) {
+        if (node == document.getTree().getRoot()) {
+            node.setDepth(0);
+            nextNodeId = 0;
+        }
+        node.setNodeId(nextNodeId++);
+        for (int i = 0; i < node.getChildren().size(); i++) {
+            INode child = node.getChildren().get(i);
+            child.setParent(node);
+            child.setIndex(i);
+            child.setDepth(node.getDepth() + 1);
+        }
+        return true;
+    }
+
+    @Override
+    public void exitNode(INode node) {
+        accept(node);
     }
 
     public void accept(INode node) {
+        context.checkCancelled();
         // setup parent nodes for children
+        int subtreeSize = 1;
+        for (INode child : node.getChildren()) {
+            subtreeSize += child.getSubtreeSize();
+        }
+        node.setSubtreeSize(subtreeSize);
 
         if (node instanceof SemanticSpan) {
             if (node.getChildren().size() != 0) {
@@ -60,9 +126,14 @@ public class SemanticDocumentPreprocessingConsumer implements Consumer<INode> {
                 }
             }
         }
-        if (node instanceof SemanticSpan) {
+        if (checkUnderlinedText && node instanceof SemanticSpan) {
             checkUnderlinedText(((SemanticSpan)node));
         }
+        if (document != null && node == document.getTree().getRoot()) {
+            FlatSemanticTree flatSemanticTree = new FlatSemanticTree(node);
+            context.setFlatSemanticTree(flatSemanticTree);
+            context.setPageNodeIndex(new PageNodeIndex(flatSemanticTree));
+        }
     }
 
     private void checkUnderlinedText(SemanticSpan span) {
@@ -74,8 +145,14 @@ public class SemanticDocumentPreprocessingConsumer implements Consumer<INode> {
     }
 
     private void checkUnderlinedText(TextChunk textChunk) {
-        if (textChunk.getPageNumber() != null && document != null) {
-            for (LineChunk lineChunk : getHorizontalLines(textChunk)) {
+        if (document != null) {
+            checkUnderlinedText(context, textChunk);
+        }
+    }
+
+    public static void checkUnderlinedText(SemanticContext context, TextChunk textChunk) {
+        if (textChunk.getPageNumber() != null) {
+            for (LineChunk lineChunk : getHorizontalLines(context, textChunk)) {
                 if (isUnderlinedText(textChunk, lineChunk)) {
                     textChunk.setIsUnderlinedText();
                     return;
@@ -84,8 +161,8 @@ public class SemanticDocumentPreprocessingConsumer implements Consumer<INode> {
         }
     }
 
-    private SortedSet<LineChunk> getHorizontalLines(TextChunk textChunk) {
-        SortedSet<LineChunk> lines = StaticContainers.getLinesCollection().getHorizontalLines(textChunk.getPageNumber());
+    private static SortedSet<LineChunk> getHorizontalLines(SemanticContext context, TextChunk textChunk) {
+        SortedSet<LineChunk> lines = context.getLinesCollection().getHorizontalLines(textChunk.getPageNumber());
         return lines.subSet(new LineChunk(textChunk.getPageNumber(), -Double.MAX_VALUE, textChunk.getBaseLine(),
                         -Double.MAX_VALUE, textChunk.getBaseLine()),
                 new LineChunk(textChunk.getPageNumber(), Double.MAX_VALUE,
@@ -93,7 +170,7 @@ public class SemanticDocumentPreprocessingConsumer implements Consumer<INode> {
                         textChunk.getBaseLine() - NodeUtils.UNDERLINED_TEXT_EPSILONS[2] * textChunk.getBoundingBox().getHeight()));
     }
 
-    private boolean isUnderlinedText(TextChunk textChunk, LineChunk lineChunk) {
+    private static boolean isUnderlinedText(TextChunk textChunk, LineChunk lineChunk) {
         if (NodeUtils.areOverlapping(textChunk, lineChunk) &&
                 (lineChunk.getWidth() < NodeUtils.UNDERLINED_TEXT_EPSILONS[3] * textChunk.getBoundingBox().getHeight())) {
             return true;
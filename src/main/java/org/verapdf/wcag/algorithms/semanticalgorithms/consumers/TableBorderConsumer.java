@@ -1,10 +1,14 @@
 package org.verapdf.wcag.algorithms.semanticalgorithms.consumers;
 
+import org.verapdf.wcag.algorithms.entities.FlatSemanticTree;
 import org.verapdf.wcag.algorithms.entities.INode;
 import org.verapdf.wcag.algorithms.entities.ITree;
 import org.verapdf.wcag.algorithms.entities.SemanticTable;
 import org.verapdf.wcag.algorithms.entities.SemanticTextNode;
 import org.verapdf.wcag.algorithms.entities.SemanticImageNode;
+import org.verapdf.wcag.algorithms.entities.content.IChunk;
+import org.verapdf.wcag.algorithms.entities.content.ImageChunk;
+import org.verapdf.wcag.algorithms.entities.content.PageSpatialIndex;
 import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextLine;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
@@ -12,6 +16,7 @@ import org.verapdf.wcag.algorithms.entities.tables.TableToken;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorderCell;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorderRow;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
 
@@ -20,72 +25,157 @@ import java.util.stream.Collectors;
 
 public class TableBorderConsumer {
 
+    private final SemanticContext context;
+    private FlatSemanticTree flatSemanticTree;
+
+    /**
+     * @deprecated use {@link #TableBorderConsumer(SemanticContext)} with the document context instead.
+     */
+    @Deprecated
+    public TableBorderConsumer() {
+        this(StaticContainers.getDefaultSemanticContext());
+    }
+
+    public TableBorderConsumer(SemanticContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Recognizes tables in the table borders. Contents of the borders of the document tree are found using
+     * spatial indexes of pages with table borders, otherwise all nodes of the tree are added.
+     */
     public void recognizeTables(ITree tree) {
-        for (INode node : tree) {
-            if (node.getChildren().isEmpty()) {
-                if (node instanceof SemanticTextNode) {
-                    SemanticTextNode textNode = (SemanticTextNode) node;
-                    for (TextLine line : textNode.getLines()) {
-                        for (TextChunk chunk : line.getTextChunks()) {
-                            add(new TableToken(chunk, node));
-                        }
+        List<SortedSet<TableBorder>> tableBorders = context.getTableBordersCollection().getTableBorders();
+        if (context.getDocument() != null && tree == context.getDocument().getTree()) {
+            for (int pageNumber = 0; pageNumber < tableBorders.size(); pageNumber++) {
+                if (!tableBorders.get(pageNumber).isEmpty()) {
+                    recognizeTables(pageNumber);
+                }
+            }
+        } else {
+            for (INode node : tree) {
+                addTokens(node);
+            }
+            updateTreeWithRecognizedTables();
+        }
+    }
+
+    /**
+     * Recognizes tables in the table borders of the page of the document tree. Pages are independent as long as
+     * their tables do not share nodes of the tree.
+     */
+    public void recognizeTables(int pageNumber) {
+        SortedSet<TableBorder> tableBorders = context.getTableBordersCollection().getTableBorders(pageNumber);
+        PageSpatialIndex pageSpatialIndex = context.getPageSpatialIndex(pageNumber);
+        for (TableBorder tableBorder : tableBorders) {
+            addTokens(pageSpatialIndex, tableBorder);
+        }
+        updateTreeWithRecognizedTables(tableBorders);
+    }
+
+    /**
+     * Adds content of the leaf node to the cells of table borders, nodes should be added in the tree order.
+     */
+    public void addTokens(INode node) {
+        context.checkCancelled();
+        if (node.getChildren().isEmpty()) {
+            if (node instanceof SemanticTextNode) {
+                SemanticTextNode textNode = (SemanticTextNode) node;
+                for (TextLine line : textNode.getLines()) {
+                    for (TextChunk chunk : line.getTextChunks()) {
+                        add(new TableToken(chunk, node));
                     }
-                } else if ((node instanceof SemanticImageNode)) {
-                    SemanticImageNode imageNode = (SemanticImageNode) node;
-                    add(new TableToken(imageNode.getImage(), imageNode));
                 }
+            } else if ((node instanceof SemanticImageNode)) {
+                SemanticImageNode imageNode = (SemanticImageNode) node;
+                add(new TableToken(imageNode.getImage(), imageNode));
             }
         }
-        updateTreeWithRecognizedTables();
+    }
+
+    /**
+     * Adds chunks of leaf nodes, which are located in the table border, in the tree order. Chunks of the
+     * index intersecting the border are checked to belong to this border and not to another one.
+     */
+    private void addTokens(PageSpatialIndex pageSpatialIndex, TableBorder tableBorder) {
+        pageSpatialIndex.forEachLeafChunk(IChunk.class, tableBorder.getBoundingBox(),
+                TableBorder.TABLE_BORDER_EPSILON, (chunk, node) -> {
+            context.checkCancelled();
+            TableToken token;
+            if (chunk instanceof TextChunk && node instanceof SemanticTextNode) {
+                token = new TableToken((TextChunk) chunk, node);
+            } else if (chunk instanceof ImageChunk && node instanceof SemanticImageNode) {
+                token = new TableToken((ImageChunk) chunk, node);
+            } else {
+                return;
+            }
+            if (context.getTableBordersCollection().getTableBorder(token.getBoundingBox()) == tableBorder) {
+                add(tableBorder, token);
+            }
+        });
     }
 
     private void add(TableToken token) {
-        TableBorder tableBorder = StaticContainers.getTableBordersCollection().getTableBorder(token.getBoundingBox());
+        TableBorder tableBorder = context.getTableBordersCollection().getTableBorder(token.getBoundingBox());
         if (tableBorder != null) {
-            TableBorderCell tableBorderCell = tableBorder.getTableBorderCell(token.getBoundingBox());
-            if (tableBorderCell != null) {
-                tableBorderCell.addContent(token);
-            }
-            //token in table but not in cell?
+            add(tableBorder, token);
+        }
+    }
+
+    private static void add(TableBorder tableBorder, TableToken token) {
+        TableBorderCell tableBorderCell = tableBorder.getTableBorderCell(token.getBoundingBox());
+        if (tableBorderCell != null) {
+            tableBorderCell.addContent(token);
+        }
+        //token in table but not in cell?
+    }
+
+    /**
+     * Updates the tree with tables recognized from the added tokens, requires accumulated nodes.
+     */
+    public void updateTreeWithRecognizedTables() {
+        for (SortedSet<TableBorder> tables : context.getTableBordersCollection().getTableBorders()) {
+            updateTreeWithRecognizedTables(tables);
         }
     }
 
-    private void updateTreeWithRecognizedTables() {
-        for (SortedSet<TableBorder> tables : StaticContainers.getTableBordersCollection().getTableBorders()) {
-            for (TableBorder table : tables) {
-                INode tableNode = getTableNode(table);
-                if (tableNode != null) {
-                    table.setNode(tableNode);
-                    StaticContainers.getAccumulatedNodeMapper().updateNode(tableNode, new SemanticTable(table), 1.0,
-                                SemanticType.TABLE);
-                    Integer depth = Arrays.stream(table.getRows())
-                            .map(TableBorderRow::getNode)
-                            .filter(Objects::nonNull)
-                            .map(INode::getDepth)
-                            .min(Integer::compare).orElse(null);
-                    Set<INode> rowNodes = Arrays.stream(table.getRows())
-                            .map(TableBorderRow::getNode)
-                            .collect(Collectors.toSet());
-                    if (depth != null) {
-                        if (tableNode.getDepth() < depth - 1) {
-                            updateTreeWithRecognizedTableRowsGroups(table, tableNode, rowNodes);
-                        } else {
-                            setTypesForEmptyRowNodes(table, tableNode.getChildren());
-                        }
-                        updateTreeWithRecognizedTableRows(table, depth);
+    private void updateTreeWithRecognizedTables(SortedSet<TableBorder> tables) {
+        for (TableBorder table : tables) {
+            context.checkCancelled();
+            INode tableNode = getTableNode(table);
+            if (tableNode != null) {
+                table.setNode(tableNode);
+                context.beforeNodeUpdate(tableNode);
+                context.getAccumulatedNodeMapper().updateNode(tableNode, new SemanticTable(table), 1.0,
+                            SemanticType.TABLE);
+                Integer depth = Arrays.stream(table.getRows())
+                        .map(TableBorderRow::getNode)
+                        .filter(Objects::nonNull)
+                        .map(INode::getDepth)
+                        .min(Integer::compare).orElse(null);
+                Set<INode> rowNodes = Arrays.stream(table.getRows())
+                        .map(TableBorderRow::getNode)
+                        .collect(Collectors.toSet());
+                if (depth != null) {
+                    if (tableNode.getDepth() < depth - 1) {
+                        updateTreeWithRecognizedTableRowsGroups(table, tableNode, rowNodes);
+                    } else {
+                        setTypesForEmptyRowNodes(table, tableNode.getChildren());
                     }
-                    ClusterTableConsumer.detectTableCaptions(table.getBoundingBox(), tableNode);
+                    updateTreeWithRecognizedTableRows(table, depth);
                 }
+                ClusterTableConsumer.detectTableCaptions(context, table.getBoundingBox(), tableNode);
             }
         }
     }
 
-    private static void setTypesForEmptyRowNodes(TableBorder table, List<INode> rowNodes) {
+    private void setTypesForEmptyRowNodes(TableBorder table, List<INode> rowNodes) {
         if (rowNodes.size() == table.getNumberOfRows()) {
             for (int rowNumber = 0; rowNumber < table.getRows().length; rowNumber++) {
                 TableBorderRow row = table.getRow(rowNumber);
                 INode rowNode = rowNodes.get(rowNumber);
                 if (row.getNumberOfCellWithContent() == 0 && rowNode.getSemanticType() == null) {
+                    context.beforeNodeUpdate(rowNode);
                     rowNode.setSemanticType(SemanticType.TABLE_ROW);
                     rowNode.setBoundingBox(row.getBoundingBox());
                 }
@@ -94,7 +184,7 @@ public class TableBorderConsumer {
         }
     }
 
-    private static void updateTreeWithRecognizedTableRows(TableBorder table, int depth) {
+    private void updateTreeWithRecognizedTableRows(TableBorder table, int depth) {
         for (TableBorderRow row : table.getRows()) {
             INode node = findParent(row.getNode(), depth);
             row.setNode(node);
@@ -103,7 +193,7 @@ public class TableBorderConsumer {
         }
     }
 
-    private static void updateTreeWithRecognizedTableRowsGroups(TableBorder table, INode tableNode, Set<INode> rowNodes) {
+    private void updateTreeWithRecognizedTableRowsGroups(TableBorder table, INode tableNode, Set<INode> rowNodes) {
         Set<INode> nodes = findParents(rowNodes, tableNode.getDepth() + 1);
         Iterator<INode> iterator = nodes.iterator();
         if (nodes.size() < 4) {
@@ -125,7 +215,7 @@ public class TableBorderConsumer {
         }
     }
 
-    private static void updateTreeWithRecognizedTableRow(TableBorderRow row, TableBorder table, int depth) {
+    private void updateTreeWithRecognizedTableRow(TableBorderRow row, TableBorder table, int depth) {
         INode rowNode = row.getNode();
         if (rowNode != null && rowNode.getChildren().size() == row.getNumberOfCells()) {
             int number = 0;
@@ -136,6 +226,7 @@ public class TableBorderConsumer {
                     cellNode = rowNode.getChildren().get(number);
                     if (cell.getContent().isEmpty() && cellNode.getSemanticType() == null) {
                         cell.setNode(cellNode);
+                        context.beforeNodeUpdate(cellNode);
                         cellNode.setBoundingBox(cell.getBoundingBox());
                     }
                     number++;
@@ -158,8 +249,9 @@ public class TableBorderConsumer {
         }
     }
 
-    private static void setType(INode node, SemanticType type, Long id) {
+    private void setType(INode node, SemanticType type, Long id) {
         if (node != null) {
+            context.beforeNodeUpdate(node);
             if ((TableUtils.isTableNode(node)) && node.getRecognizedStructureId() != id) {
                 node.setRecognizedStructureId(null);
             } else {
@@ -263,19 +355,11 @@ public class TableBorderConsumer {
         return findCommonParent(tableLeafNodes);
     }
 
-    private static INode findParent(INode node, int depth) {
-        if (node != null) {
-            while (node.getDepth() > depth) {
-                node = node.getParent();
-            }
-            if (node.getDepth() == depth) {
-                return node;
-            }
-        }
-        return null;
+    private INode findParent(INode node, int depth) {
+        return node != null ? getFlatSemanticTree(node).getAncestor(node, depth) : null;
     }
 
-    private static SortedSet<INode> findParents(Set<INode> nodes, int depth) {
+    private SortedSet<INode> findParents(Set<INode> nodes, int depth) {
         SortedSet<INode> parents = new TreeSet<>(Comparator.comparing(INode::getIndex));
         for (INode node : nodes) {
             if (node != null) {
@@ -285,33 +369,28 @@ public class TableBorderConsumer {
         return parents;
     }
 
-    private static List<INode> findParents(List<INode> nodes, int depth) {
+    private List<INode> findParents(List<INode> nodes, int depth) {
         return nodes.stream().map(node -> findParent(node, depth)).collect(Collectors.toList());
     }
 
-    private static INode findCommonParent(Set<INode> nodes) {
+    private INode findCommonParent(Set<INode> nodes) {
         if (nodes.size() == 0) {
             return null;
         }
         if (nodes.size() == 1) {
             return nodes.iterator().next();
         }
-        int minDepth = nodes.stream().map(INode::getDepth).min(Integer::compareTo).orElse(0);
-        Set<INode> parents = new HashSet<>();
+        INode commonParent = null;
         for (INode node : nodes) {
-            INode parent = node;
-            while (parent.getDepth() > minDepth) {
-                parent = parent.getParent();
-            }
-            parents.add(parent);
+            commonParent = commonParent == null ? node : getFlatSemanticTree(node).getCommonAncestor(commonParent, node);
         }
-        while (parents.size() > 1) {
-            Set<INode> parentsSet = new HashSet<>();
-            for (INode node : parents) {
-                parentsSet.add(node.getParent());
-            }
-            parents = parentsSet;
+        return commonParent;
+    }
+
+    private FlatSemanticTree getFlatSemanticTree(INode node) {
+        if (flatSemanticTree == null) {
+            flatSemanticTree = context.getFlatSemanticTree(node);
         }
-        return parents.iterator().next();
+        return flatSemanticTree;
     }
 }
@@ -0,0 +1,261 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.containers;
+
+import org.verapdf.wcag.algorithms.entities.FlatSemanticTree;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.ITree;
+import org.verapdf.wcag.algorithms.entities.PageNodeIndex;
+import org.verapdf.wcag.algorithms.entities.RepeatedCharacters;
+import org.verapdf.wcag.algorithms.entities.content.LinesCollection;
+import org.verapdf.wcag.algorithms.entities.content.PageSpatialIndex;
+import org.verapdf.wcag.algorithms.entities.content.TextLine;
+import org.verapdf.wcag.algorithms.entities.maps.AccumulatedNodeMapper;
+import org.verapdf.wcag.algorithms.entities.tables.TableBordersCollection;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.CancellationToken;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Per-document state shared by the stages of the semantic checker.
+ * A context is created for a single document and passed explicitly to every consumer, so it is not bound
+ * to any thread and becomes unreachable together with the document once the caller drops it.
+ */
+public class SemanticContext {
+
+	private final IDocument document;
+	private AccumulatedNodeMapper accumulatedNodeMapper;
+	private LinesCollection linesCollection;
+	private List<RepeatedCharacters> repeatedCharacters;
+	private TableBordersCollection tableBordersCollection;
+	private FlatSemanticTree flatSemanticTree;
+	private PageNodeIndex pageNodeIndex;
+	private Map<Integer, PageSpatialIndex> pageSpatialIndexes = new ConcurrentHashMap<>();
+	private final AtomicLong tableListCounter = new AtomicLong();
+	private CancellationToken cancellationToken;
+	private Consumer<INode> nodeUpdateListener;
+	private Consumer<TextLine> textLineUpdateListener;
+	private volatile boolean incomplete;
+
+	public SemanticContext(IDocument document) {
+		this.document = document;
+		this.accumulatedNodeMapper = new AccumulatedNodeMapper();
+		this.linesCollection = new LinesCollection(document);
+		this.repeatedCharacters = new ArrayList<>();
+		this.tableBordersCollection = new TableBordersCollection();
+	}
+
+	/**
+	 * Creates a view of the given context, which shares its state except for the counter of structure ids.
+	 * The view is intended for a part of a stage, which allocates structure ids differently.
+	 */
+	protected SemanticContext(SemanticContext context) {
+		this.document = context.document;
+		this.accumulatedNodeMapper = context.accumulatedNodeMapper;
+		this.linesCollection = context.linesCollection;
+		this.repeatedCharacters = context.repeatedCharacters;
+		this.tableBordersCollection = context.tableBordersCollection;
+		this.flatSemanticTree = context.flatSemanticTree;
+		this.pageNodeIndex = context.pageNodeIndex;
+		this.pageSpatialIndexes = context.pageSpatialIndexes;
+		this.cancellationToken = context.cancellationToken;
+	}
+
+	public IDocument getDocument() {
+		return document;
+	}
+
+	public AccumulatedNodeMapper getAccumulatedNodeMapper() {
+		return accumulatedNodeMapper;
+	}
+
+	public void setAccumulatedNodeMapper(AccumulatedNodeMapper accumulatedNodeMapper) {
+		this.accumulatedNodeMapper = accumulatedNodeMapper;
+	}
+
+	public LinesCollection getLinesCollection() {
+		return linesCollection;
+	}
+
+	public void setLinesCollection(LinesCollection linesCollection) {
+		this.linesCollection = linesCollection;
+	}
+
+	public List<RepeatedCharacters> getRepeatedCharacters() {
+		return repeatedCharacters;
+	}
+
+	public void setRepeatedCharacters(List<RepeatedCharacters> repeatedCharacters) {
+		this.repeatedCharacters = repeatedCharacters;
+	}
+
+	public TableBordersCollection getTableBordersCollection() {
+		return tableBordersCollection;
+	}
+
+	public void setTableBordersCollection(TableBordersCollection tableBordersCollection) {
+		this.tableBordersCollection = tableBordersCollection;
+	}
+
+	/**
+	 * @return snapshot of the structure of the semantic tree, or null if it is not built
+	 */
+	public FlatSemanticTree getFlatSemanticTree() {
+		return flatSemanticTree;
+	}
+
+	public void setFlatSemanticTree(FlatSemanticTree flatSemanticTree) {
+		this.flatSemanticTree = flatSemanticTree;
+	}
+
+	/**
+	 * @return snapshot of the tree, it is built if the current snapshot is not a snapshot of the tree
+	 */
+	public FlatSemanticTree getFlatSemanticTree(ITree tree) {
+		if (flatSemanticTree == null || flatSemanticTree.size() == 0 ||
+		    flatSemanticTree.getNode(0) != tree.getRoot()) {
+			flatSemanticTree = new FlatSemanticTree(tree);
+		}
+		return flatSemanticTree;
+	}
+
+	/**
+	 * @return snapshot of the tree containing the node, it is built from the root of the node if the current
+	 * snapshot is not a snapshot of that tree. The node itself may be absent in the snapshot, if it was added
+	 * to the tree after the snapshot was built.
+	 */
+	public FlatSemanticTree getFlatSemanticTree(INode node) {
+		if (flatSemanticTree == null || flatSemanticTree.getId(node) == FlatSemanticTree.NO_NODE) {
+			INode root = node;
+			while (root.getParent() != null) {
+				root = root.getParent();
+			}
+			if (flatSemanticTree == null || flatSemanticTree.size() == 0 || flatSemanticTree.getNode(0) != root) {
+				flatSemanticTree = new FlatSemanticTree(root);
+			}
+		}
+		return flatSemanticTree;
+	}
+
+	/**
+	 * @return index of the nodes of the document tree by page number, it is built from the snapshot of
+	 * the document tree if semantic preprocessing has not built it
+	 */
+	public PageNodeIndex getPageNodeIndex() {
+		if (pageNodeIndex == null && document != null) {
+			pageNodeIndex = new PageNodeIndex(getFlatSemanticTree(document.getTree()));
+		}
+		return pageNodeIndex;
+	}
+
+	/**
+	 * Replaces the index of the nodes and releases spatial indexes of pages, which are built from it.
+	 */
+	public void setPageNodeIndex(PageNodeIndex pageNodeIndex) {
+		this.pageNodeIndex = pageNodeIndex;
+		pageSpatialIndexes.clear();
+	}
+
+	/**
+	 * Releases spatial indexes of the pages, whose leaf nodes in the index of the nodes have changed.
+	 */
+	public void releasePageSpatialIndexes(Collection<Integer> pageNumbers) {
+		for (Integer pageNumber : pageNumbers) {
+			pageSpatialIndexes.remove(pageNumber);
+		}
+	}
+
+	/**
+	 * @return spatial index of the artifacts of the page and the chunks of the leaf nodes located on the page,
+	 * it is built on the first request
+	 */
+	public PageSpatialIndex getPageSpatialIndex(Integer pageNumber) {
+		return pageSpatialIndexes.computeIfAbsent(pageNumber, page -> new PageSpatialIndex(page,
+				document != null ? document.getArtifacts(page) : null,
+				document != null ? getPageNodeIndex().getLeafNodes(page) : Collections.emptyList()));
+	}
+
+	/**
+	 * @return next recognized structure id (table or list) of this document, starting from 0
+	 */
+	public Long getNextTableListId() {
+		return tableListCounter.getAndIncrement();
+	}
+
+	/**
+	 * Restarts recognized structure ids of this document from 0.
+	 */
+	public void resetTableListIds() {
+		tableListCounter.set(0);
+	}
+
+	/**
+	 * Sets the listener, which is notified by the accumulation of a node before it changes the state of another
+	 * node, and by table, list and postprocessing stages before they change the state of a node, or null.
+	 */
+	public void setNodeUpdateListener(Consumer<INode> nodeUpdateListener) {
+		this.nodeUpdateListener = nodeUpdateListener;
+	}
+
+	/**
+	 * Notifies the node update listener, should be called before the state of the node is changed by
+	 * the accumulation of another node or after the accumulation.
+	 */
+	public void beforeNodeUpdate(INode node) {
+		if (nodeUpdateListener != null) {
+			nodeUpdateListener.accept(node);
+		}
+	}
+
+	/**
+	 * Sets the listener, which is notified by the accumulation of a node before it changes flags of a text line
+	 * or of its chunks, or null.
+	 */
+	public void setTextLineUpdateListener(Consumer<TextLine> textLineUpdateListener) {
+		this.textLineUpdateListener = textLineUpdateListener;
+	}
+
+	/**
+	 * Notifies the text line update listener, should be called before the full line flag of the line or text
+	 * formats and special styles of its chunks are changed.
+	 */
+	public void beforeTextLineUpdate(TextLine textLine) {
+		if (textLineUpdateListener != null) {
+			textLineUpdateListener.accept(textLine);
+		}
+	}
+
+	public CancellationToken getCancellationToken() {
+		return cancellationToken;
+	}
+
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+	}
+
+	/**
+	 * @throws java.util.concurrent.CancellationException if the cancellation token of the context is cancelled
+	 */
+	public void checkCancelled() {
+		if (cancellationToken != null) {
+			cancellationToken.throwIfCancelled();
+		}
+	}
+
+	/**
+	 * @return true if the check of the document was cancelled and the results are partial
+	 */
+	public boolean isIncomplete() {
+		return incomplete;
+	}
+
+	public void setIncomplete(boolean incomplete) {
+		this.incomplete = incomplete;
+	}
+}
@@ -26,55 +26,81 @@ import org.verapdf.wcag.algorithms.entities.content.LinesCollection;
 import org.verapdf.wcag.algorithms.entities.maps.AccumulatedNodeMapper;
 import org.verapdf.wcag.algorithms.entities.tables.TableBordersCollection;
 
-import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Thread-bound access to the {@link SemanticContext} of the last document checked on the current thread.
+ *
+ * @deprecated pass a {@link SemanticContext} to the checker and consumers explicitly instead.
+ * The context kept here stays reachable until {@link #release()} is called on the same thread.
+ */
+@Deprecated
 public class StaticContainers {
 
-	private static final ThreadLocal<AccumulatedNodeMapper> accumulatedNodeMapper = new ThreadLocal<>();
+	private static final ThreadLocal<SemanticContext> semanticContext = new ThreadLocal<>();
 
-	private static final ThreadLocal<TableBordersCollection> tableBordersCollection = new ThreadLocal<>();
+	public static void clearAllContainers(IDocument document) {
+		StaticContainers.semanticContext.set(new SemanticContext(document));
+	}
 
-	private static final ThreadLocal<LinesCollection> linesCollection = new ThreadLocal<>();
+	public static void release() {
+		StaticContainers.semanticContext.remove();
+	}
 
-	private static final ThreadLocal<List<RepeatedCharacters>> repeatedCharacters = new ThreadLocal<>();
+	public static SemanticContext getSemanticContext() {
+		return semanticContext.get();
+	}
 
-	public static void clearAllContainers(IDocument document) {
-		StaticContainers.accumulatedNodeMapper.set(new AccumulatedNodeMapper());
-		StaticContainers.tableBordersCollection.set(new TableBordersCollection());
-		StaticContainers.linesCollection.set(new LinesCollection(document));
-		StaticContainers.repeatedCharacters.set(new ArrayList<>());
+	public static void setSemanticContext(SemanticContext semanticContext) {
+		StaticContainers.semanticContext.set(semanticContext);
 	}
 
 	public static AccumulatedNodeMapper getAccumulatedNodeMapper() {
-		return accumulatedNodeMapper.get();
+		SemanticContext context = semanticContext.get();
+		return context != null ? context.getAccumulatedNodeMapper() : null;
 	}
 
 	public static void setAccumulatedNodeMapper(AccumulatedNodeMapper accumulatedNodeMapper) {
-		StaticContainers.accumulatedNodeMapper.set(accumulatedNodeMapper);
+		getDefaultSemanticContext().setAccumulatedNodeMapper(accumulatedNodeMapper);
 	}
 
 	public static TableBordersCollection getTableBordersCollection() {
-		return tableBordersCollection.get();
+		SemanticContext context = semanticContext.get();
+		return context != null ? context.getTableBordersCollection() : null;
 	}
 
 	public static void setTableBordersCollection(TableBordersCollection tableBordersCollection) {
-		StaticContainers.tableBordersCollection.set(tableBordersCollection);
+		getDefaultSemanticContext().setTableBordersCollection(tableBordersCollection);
 	}
 
 	public static LinesCollection getLinesCollection() {
-		return linesCollection.get();
+		SemanticContext context = semanticContext.get();
+		return context != null ? context.getLinesCollection() : null;
 	}
 
 	public static void setLinesCollection(LinesCollection linesCollection) {
-		StaticContainers.linesCollection.set(linesCollection);
+		getDefaultSemanticContext().setLinesCollection(linesCollection);
 	}
 
 	public static List<RepeatedCharacters> getRepeatedCharacters() {
-		return repeatedCharacters.get();
+		SemanticContext context = semanticContext.get();
+		return context != null ? context.getRepeatedCharacters() : null;
 	}
 
 	public static void setRepeatedCharacters(List<RepeatedCharacters> repeatedCharacters) {
-		StaticContainers.repeatedCharacters.set(repeatedCharacters);
+		getDefaultSemanticContext().setRepeatedCharacters(repeatedCharacters);
+	}
+
+	/**
+	 * @return context of the current thread, which is created without a document if absent. It is the default
+	 * context of the deprecated methods and constructors without a context parameter.
+	 */
+	public static SemanticContext getDefaultSemanticContext() {
+		SemanticContext context = semanticContext.get();
+		if (context == null) {
+			context = new SemanticContext((IDocument) null);
+			semanticContext.set(context);
+		}
+		return context;
 	}
 }
@@ -0,0 +1,63 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.pipeline;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation of a semantic check. The token is cancelled explicitly by {@link #cancel()}, when its
+ * deadline passes or when its parent token is cancelled. Stages of the checker poll the token at loop boundaries.
+ */
+public class CancellationToken {
+
+	private final CancellationToken parent;
+	private final long deadline;
+	private final boolean hasDeadline;
+	private volatile boolean cancelled;
+
+	public CancellationToken() {
+		this(null, 0, false);
+	}
+
+	private CancellationToken(CancellationToken parent, long deadline, boolean hasDeadline) {
+		this.parent = parent;
+		this.deadline = deadline;
+		this.hasDeadline = hasDeadline;
+	}
+
+	/**
+	 * @return token cancelled after the given timeout
+	 */
+	public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+		return new CancellationToken().childWithTimeout(timeout, unit);
+	}
+
+	/**
+	 * @return token cancelled after the given timeout or together with this token
+	 */
+	public CancellationToken childWithTimeout(long timeout, TimeUnit unit) {
+		return new CancellationToken(this, System.nanoTime() + unit.toNanos(timeout), true);
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		if (cancelled) {
+			return true;
+		}
+		if ((hasDeadline && System.nanoTime() - deadline >= 0) || (parent != null && parent.isCancelled())) {
+			cancelled = true;
+		}
+		return cancelled;
+	}
+
+	/**
+	 * @throws CancellationException if the token is cancelled
+	 */
+	public void throwIfCancelled() {
+		if (isCancelled()) {
+			throw new CancellationException("Semantic check was cancelled");
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.pipeline;
+
+import org.verapdf.wcag.algorithms.entities.IDocument;
+
+/**
+ * Receives notifications about the stages of the semantic checker. Notifications of one document come from
+ * the thread checking it, so a listener shared between several threads should be thread safe.
+ * A stage, which ends with an exception, is not reported as finished.
+ */
+public interface PipelineListener {
+
+	default void stageStarted(IDocument document, PipelineStage stage) {
+	}
+
+	void stageFinished(IDocument document, StageMetrics metrics);
+}
@@ -0,0 +1,128 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.pipeline;
+
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.ITree;
+import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.SortedSet;
+
+/**
+ * Measures the stages of a single document check and reports them to a {@link PipelineListener}.
+ * Without a listener every call returns immediately, so the checker does not pay for measurements.
+ * A monitor is used by the thread checking the document only.
+ */
+public class PipelineMonitor {
+
+	private static final PipelineMonitor DISABLED = new PipelineMonitor(null, null, null);
+
+	private final PipelineListener listener;
+	private final IDocument document;
+	private final SemanticContext context;
+
+	private PipelineStage stage;
+	private long startWallTime;
+	private long startCpuTime;
+	private long startAllocatedBytes;
+	private long nodesCount = -1;
+
+	private PipelineMonitor(PipelineListener listener, IDocument document, SemanticContext context) {
+		this.listener = listener;
+		this.document = document;
+		this.context = context;
+	}
+
+	public static PipelineMonitor create(PipelineListener listener, IDocument document, SemanticContext context) {
+		return listener != null ? new PipelineMonitor(listener, document, context) : DISABLED;
+	}
+
+	public void stageStarted(PipelineStage stage) {
+		if (listener == null) {
+			return;
+		}
+		this.stage = stage;
+		listener.stageStarted(document, stage);
+		startAllocatedBytes = getAllocatedBytes();
+		startCpuTime = getCpuTime();
+		startWallTime = System.nanoTime();
+	}
+
+	public void stageFinished() {
+		if (listener == null || stage == null) {
+			return;
+		}
+		long wallTime = System.nanoTime() - startWallTime;
+		long cpuTime = difference(getCpuTime(), startCpuTime);
+		long allocatedBytes = difference(getAllocatedBytes(), startAllocatedBytes);
+		PipelineStage finishedStage = stage;
+		stage = null;
+		listener.stageFinished(document, new StageMetrics(finishedStage, wallTime, cpuTime, allocatedBytes,
+		                                                  getProcessedCount(finishedStage)));
+	}
+
+	private long getProcessedCount(PipelineStage stage) {
+		switch (stage) {
+			case LINES_PREPROCESSING:
+				return document.getArtifacts().size();
+			case TABLE_BORDERS_COLLECTION:
+			case TABLE_BORDERS:
+				return getTableBordersCount();
+			case CONTRAST:
+				return getNodesCount() + document.getArtifacts().size();
+			default:
+				return getNodesCount();
+		}
+	}
+
+	private long getNodesCount() {
+		if (nodesCount < 0) {
+			nodesCount = 0;
+			ITree tree = document.getTree();
+			if (tree != null) {
+				for (INode node : tree) {
+					nodesCount++;
+				}
+			}
+		}
+		return nodesCount;
+	}
+
+	private long getTableBordersCount() {
+		long count = 0;
+		if (context != null) {
+			for (SortedSet<TableBorder> tableBorders : context.getTableBordersCollection().getTableBorders()) {
+				count += tableBorders.size();
+			}
+		}
+		return count;
+	}
+
+	private static long difference(long end, long start) {
+		if (end == StageMetrics.UNSUPPORTED || start == StageMetrics.UNSUPPORTED) {
+			return StageMetrics.UNSUPPORTED;
+		}
+		return end - start;
+	}
+
+	private static long getCpuTime() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+			return threadMXBean.getCurrentThreadCpuTime();
+		}
+		return StageMetrics.UNSUPPORTED;
+	}
+
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+				return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return StageMetrics.UNSUPPORTED;
+	}
+}
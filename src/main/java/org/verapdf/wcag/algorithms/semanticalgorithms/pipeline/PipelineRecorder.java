@@ -0,0 +1,85 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.pipeline;
+
+import org.verapdf.wcag.algorithms.entities.IDocument;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps metrics of every finished stage in memory, grouped by document. Documents are weakly referenced,
+ * so the metrics of a document are dropped after the document is garbage collected. A recorder shared by
+ * a long batch should {@link #removeStageMetrics drain} the metrics of every checked document instead.
+ */
+public class PipelineRecorder implements PipelineListener {
+
+	private final Map<IDocument, List<StageMetrics>> metrics = new WeakHashMap<>();
+
+	@Override
+	public void stageFinished(IDocument document, StageMetrics stageMetrics) {
+		getOrCreateStageMetrics(document).add(stageMetrics);
+	}
+
+	private synchronized List<StageMetrics> getOrCreateStageMetrics(IDocument document) {
+		return metrics.computeIfAbsent(document, key -> new CopyOnWriteArrayList<>());
+	}
+
+	/**
+	 * @return documents, which metrics are recorded, at the moment of the call
+	 */
+	public synchronized Set<IDocument> getDocuments() {
+		return Collections.unmodifiableSet(new HashSet<>(metrics.keySet()));
+	}
+
+	/**
+	 * @return metrics of the document stages in the order they were finished
+	 */
+	public List<StageMetrics> getStageMetrics(IDocument document) {
+		List<StageMetrics> documentMetrics;
+		synchronized (this) {
+			documentMetrics = metrics.get(document);
+		}
+		return documentMetrics != null ? Collections.unmodifiableList(documentMetrics) : Collections.emptyList();
+	}
+
+	/**
+	 * Removes the metrics of the document from the recorder.
+	 *
+	 * @return removed metrics of the document stages in the order they were finished
+	 */
+	public List<StageMetrics> removeStageMetrics(IDocument document) {
+		List<StageMetrics> documentMetrics;
+		synchronized (this) {
+			documentMetrics = metrics.remove(document);
+		}
+		return documentMetrics != null ? Collections.unmodifiableList(documentMetrics) : Collections.emptyList();
+	}
+
+	/**
+	 * @return metrics of the document stages summed up per stage
+	 */
+	public Map<PipelineStage, StageMetrics> getStageBreakdown(IDocument document) {
+		Map<PipelineStage, StageMetrics> breakdown = new EnumMap<>(PipelineStage.class);
+		for (StageMetrics stageMetrics : getStageMetrics(document)) {
+			breakdown.merge(stageMetrics.getStage(), stageMetrics, PipelineRecorder::sum);
+		}
+		return breakdown;
+	}
+
+	public synchronized void clear() {
+		metrics.clear();
+	}
+
+	private static StageMetrics sum(StageMetrics first, StageMetrics second) {
+		return new StageMetrics(first.getStage(), first.getWallTime() + second.getWallTime(),
+		                        sum(first.getCpuTime(), second.getCpuTime()),
+		                        sum(first.getAllocatedBytes(), second.getAllocatedBytes()),
+		                        first.getProcessedCount() + second.getProcessedCount());
+	}
+
+	private static long sum(long first, long second) {
+		if (first == StageMetrics.UNSUPPORTED || second == StageMetrics.UNSUPPORTED) {
+			return StageMetrics.UNSUPPORTED;
+		}
+		return first + second;
+	}
+}
@@ -0,0 +1,12 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.pipeline;
+
+public enum PipelineStage {
+	LINES_PREPROCESSING,
+	SEMANTIC_PREPROCESSING,
+	TABLE_BORDERS_COLLECTION,
+	ACCUMULATION,
+	TABLE_BORDERS,
+	CLUSTER_TABLES,
+	POSTPROCESSING,
+	CONTRAST
+}
@@ -0,0 +1,66 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms.pipeline;
+
+/**
+ * Metrics of a single stage of a document check. Cpu time and allocated bytes are measured on the thread
+ * checking the document only. Work of parallel stages done by pool threads, such as parallel accumulation
+ * or parallel lines preprocessing, is not included, so these values are lower bounds for parallel stages,
+ * while the wall time covers all threads.
+ */
+public class StageMetrics {
+
+	public static final long UNSUPPORTED = -1;
+
+	private final PipelineStage stage;
+	private final long wallTime;
+	private final long cpuTime;
+	private final long allocatedBytes;
+	private final long processedCount;
+
+	public StageMetrics(PipelineStage stage, long wallTime, long cpuTime, long allocatedBytes, long processedCount) {
+		this.stage = stage;
+		this.wallTime = wallTime;
+		this.cpuTime = cpuTime;
+		this.allocatedBytes = allocatedBytes;
+		this.processedCount = processedCount;
+	}
+
+	public PipelineStage getStage() {
+		return stage;
+	}
+
+	/**
+	 * @return elapsed time of the stage in nanoseconds
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	/**
+	 * @return cpu time of the checking thread spent in the stage in nanoseconds, not including pool threads,
+	 * or {@link #UNSUPPORTED}
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+
+	/**
+	 * @return bytes allocated by the checking thread during the stage, not including pool threads,
+	 * or {@link #UNSUPPORTED}
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return number of nodes, chunks or table borders processed by the stage
+	 */
+	public long getProcessedCount() {
+		return processedCount;
+	}
+
+	@Override
+	public String toString() {
+		return stage + ": wall " + wallTime + " ns, cpu " + cpuTime + " ns, allocated " + allocatedBytes +
+		       " bytes, processed " + processedCount;
+	}
+}
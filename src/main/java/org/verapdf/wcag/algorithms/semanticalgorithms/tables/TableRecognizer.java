@@ -3,6 +3,8 @@ package org.verapdf.wcag.algorithms.semanticalgorithms.tables;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
 import org.verapdf.wcag.algorithms.entities.tables.*;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
 
 import java.util.*;
@@ -11,6 +13,8 @@ public class TableRecognizer {
 
     private Long clusterCounter = 0L;
 
+    private final SemanticContext context;
+
     private final List<TableCluster> headers;
     private List<TableCluster> clusters;
     private final Map<TableCluster, TableCluster> columns;
@@ -19,24 +23,44 @@ public class TableRecognizer {
     private Table table = null;
     private TableBorder tableBorder;
 
+    /**
+     * @deprecated use {@link #TableRecognizer(TableRecognitionArea, SemanticContext)} with the document context
+     * instead.
+     */
+    @Deprecated
     public TableRecognizer(TableRecognitionArea recognitionArea) {
+        this(recognitionArea, StaticContainers.getDefaultSemanticContext());
+    }
+
+    public TableRecognizer(TableRecognitionArea recognitionArea, SemanticContext context) {
+        this.context = context;
         headers = recognitionArea.getHeaders();
         clusters = recognitionArea.getClusters();
         columns = new HashMap<>();
         tableBorder = recognitionArea.getTableBorder();
     }
 
+    /**
+     * Recognizes the table of the area, checking cancellation of the context between the steps and on every
+     * round of cluster merging.
+     */
     public void recognize() {
+        context.checkCancelled();
         preprocess();
+        context.checkCancelled();
         calculateInitialColumns();
+        context.checkCancelled();
         mergeWeakClusters();
+        context.checkCancelled();
         mergeClustersByMinGaps();
+        context.checkCancelled();
         postprocess();
     }
 
     private void mergeClustersByMinGaps() {
         int numClusters = 0;
         while (numClusters != clusters.size()) {
+            context.checkCancelled();
             numClusters = clusters.size();
 
             for (TableCluster cluster : clusters) {
@@ -116,6 +140,7 @@ public class TableRecognizer {
     private void mergeWeakClusters() {
         int position = getNextWeakCluster(0);
         while (position < clusters.size()) {
+            context.checkCancelled();
             TableCluster cluster = clusters.get(position);
             TableCluster closestHeader = null;
             double minDist = Double.MAX_VALUE;
@@ -314,7 +339,7 @@ public class TableRecognizer {
 
     private Table constructTable() {
         updateColumns();
-        Table table = new Table(headers);
+        Table table = new Table(context.getNextTableListId(), headers);
         table.setTableBorder(tableBorder);
 
         List<Integer> rowIds = new ArrayList<>(Collections.nCopies(headers.size(), 0));
@@ -12,6 +12,7 @@ import org.verapdf.wcag.algorithms.entities.tables.Table;
 import org.verapdf.wcag.algorithms.entities.tables.TableCell;
 import org.verapdf.wcag.algorithms.entities.tables.TableRow;
 import org.verapdf.wcag.algorithms.entities.tables.TableToken;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 
 import java.util.*;
@@ -32,6 +33,10 @@ public class ListUtils {
 		return listSemanticTypes.contains(node.getInitialSemanticType());
 	}
 
+	static public boolean isListSemanticType(SemanticType semanticType) {
+		return listSemanticTypes.contains(semanticType);
+	}
+
 	public static boolean isList(Table table) {
 		List<String> textLabels = new ArrayList<>(table.getRows().size());
 		List<BoundingBox> imageLabels = new ArrayList<>(table.getRows().size());
@@ -71,23 +76,48 @@ public class ListUtils {
 		return true;
 	}
 
+	/**
+	 * @deprecated use {@link #updateTreeWithRecognizedLists(SemanticContext, INode, List, Set)} with the document
+	 * context instead.
+	 */
+	@Deprecated
 	public static void updateTreeWithRecognizedLists(INode node, List<INode> children, Set<ListInterval> listIntervals) {
+		updateTreeWithRecognizedLists(StaticContainers.getDefaultSemanticContext(), node, children, listIntervals);
+	}
+
+	public static void updateTreeWithRecognizedLists(SemanticContext context, INode node, List<INode> children,
+	                                                 Set<ListInterval> listIntervals) {
 		for (ListInterval listInterval : listIntervals) {
-			updateTreeWithRecognizedList(node, children, listInterval);
+			updateTreeWithRecognizedList(context, node, children, listInterval);
 		}
 	}
 
+	/**
+	 * @deprecated use {@link #updateTreeWithRecognizedList(SemanticContext, INode, List, ListInterval)} with
+	 * the document context instead.
+	 */
+	@Deprecated
 	public static void updateTreeWithRecognizedList(INode node, List<INode> children, ListInterval listInterval) {
-		Long listId = Table.getNextTableListId();
+		updateTreeWithRecognizedList(StaticContainers.getDefaultSemanticContext(), node, children, listInterval);
+	}
+
+	public static void updateTreeWithRecognizedList(SemanticContext context, INode node, List<INode> children,
+	                                                ListInterval listInterval) {
+		Long listId = context.getNextTableListId();
 		for (int i = listInterval.start; i <= listInterval.end; i++) {
-			updateTreeWithRecognizedListItem(children.get(i), listId);
+			INode item = children.get(i);
+			context.beforeNodeUpdate(item);
+			for (INode child : item.getChildren()) {
+				context.beforeNodeUpdate(child);
+			}
+			updateTreeWithRecognizedListItem(item, listId);
 		}
 		if (node.getRecognizedStructureId() == null) {
 			double probability = ((double) (listInterval.end - listInterval.start + 1)) / children.size();
 			if (probability >= TABLE_PROBABILITY_THRESHOLD) {
-				INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
-				StaticContainers.getAccumulatedNodeMapper().updateNode(node, new SemanticList((SemanticTextNode)accumulatedNode),
-				                                                       probability, SemanticType.LIST);
+				INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
+				context.getAccumulatedNodeMapper().updateNode(node, new SemanticList((SemanticTextNode)accumulatedNode),
+				                                              probability, SemanticType.LIST);
 				node.setRecognizedStructureId(listId);
 			}
 		}
@@ -116,11 +146,23 @@ public class ListUtils {
 		}
 	}
 
+	/**
+	 * @deprecated use {@link #getChildrenListIntervals(SemanticContext, Set, List, List)} with the document context
+	 * instead.
+	 */
+	@Deprecated
 	public static Set<ListInterval> getChildrenListIntervals(Set<ListInterval> listIntervals, List<INode> children,
-															  List<? extends InfoChunk> childrenFirstLines) {
+	                                                         List<? extends InfoChunk> childrenFirstLines) {
+		return getChildrenListIntervals(StaticContainers.getDefaultSemanticContext(), listIntervals, children,
+		                                childrenFirstLines);
+	}
+
+	public static Set<ListInterval> getChildrenListIntervals(SemanticContext context, Set<ListInterval> listIntervals,
+	                                                         List<INode> children,
+	                                                         List<? extends InfoChunk> childrenFirstLines) {
 		ListIntervalsCollection listIntervalsCollection = new ListIntervalsCollection();
 		for (ListInterval listInterval : listIntervals) {
-			INode accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(children.get(listInterval.start));
+			INode accumulatedChild = context.getAccumulatedNodeMapper().get(children.get(listInterval.start));
 			double right = accumulatedChild.getRightX();
 			int start = listInterval.start;
 			for (int i = listInterval.start + 1; i <= listInterval.end; i++) {
@@ -130,7 +172,7 @@ public class ListUtils {
 					start = listInterval.end;
 					break;
 				}
-				accumulatedChild = StaticContainers.getAccumulatedNodeMapper().get(children.get(i));
+				accumulatedChild = context.getAccumulatedNodeMapper().get(children.get(i));
 				if (Objects.equals(line1.getPageNumber(), line2.getPageNumber())) {
 					if (!NodeUtils.areCloseNumbers(line1.getLeftX(), line2.getLeftX(),
 							line1.getBoundingBox().getHeight() / 2) && right >= accumulatedChild.getLeftX()) {
@@ -37,6 +37,10 @@ public class TableUtils {
         return tableSemanticTypes.contains(node.getInitialSemanticType());
     }
 
+    static public boolean isTableSemanticType(SemanticType semanticType) {
+        return tableSemanticTypes.contains(semanticType);
+    }
+
     /*
     TODO: add comments
      */
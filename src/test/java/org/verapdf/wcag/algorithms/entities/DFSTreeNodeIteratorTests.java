@@ -86,6 +86,45 @@ class DFSTreeNodeIteratorTests {
         Assertions.assertEquals(expectedList, actualList);
     }
 
+    @Test
+    public void testWithDeepTree() {
+        int depth = 100000;
+        INode root = new SemanticParagraph(new BoundingBox(0));
+        INode node = root;
+        for (int i = 1; i < depth; ++i) {
+            INode child = new SemanticParagraph(new BoundingBox(i));
+            node.getChildren().add(child);
+            node = child;
+        }
+        Iterator<INode> iterator = new SemanticTree(root).iterator();
+        for (int i = depth - 1; i >= 0; --i) {
+            Assertions.assertTrue(iterator.hasNext());
+            Assertions.assertEquals(i, iterator.next().getPageNumber());
+        }
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertNull(iterator.next());
+    }
+
+    @Test
+    public void testWithWideTree() {
+        int width = 1000;
+        INode root = new SemanticParagraph(new BoundingBox(width * 3));
+        List<Integer> expectedList = new ArrayList<>();
+        for (int i = 0; i < width; ++i) {
+            INode child = new SemanticParagraph(new BoundingBox(3 * i + 2));
+            child.getChildren().add(new SemanticParagraph(new BoundingBox(3 * i)));
+            child.getChildren().add(new SemanticParagraph(new BoundingBox(3 * i + 1)));
+            root.getChildren().add(child);
+            expectedList.add(3 * i);
+            expectedList.add(3 * i + 1);
+            expectedList.add(3 * i + 2);
+        }
+        expectedList.add(width * 3);
+        List<Integer> actualList = new ArrayList<>();
+        new SemanticTree(root).forEach(node -> actualList.add(node.getPageNumber()));
+        Assertions.assertEquals(expectedList, actualList);
+    }
+
     private List<INode> getDFSResult(INode root) {
         List<INode> result = new ArrayList<>();
         Set<INode> visited = new HashSet<>();
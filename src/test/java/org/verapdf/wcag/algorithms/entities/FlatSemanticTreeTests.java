@@ -0,0 +1,168 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.semanticalgorithms.AccumulatedNodeSemanticChecker;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPostprocessingConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.io.IOException;
+import java.util.*;
+
+class FlatSemanticTreeTests {
+
+    @Test
+    public void testWithEmptyTree() {
+        FlatSemanticTree flatTree = new FlatSemanticTree(new SemanticTree(null));
+        Assertions.assertEquals(0, flatTree.size());
+        Assertions.assertEquals(FlatSemanticTree.NO_NODE, flatTree.getId(new SemanticParagraph()));
+    }
+
+    @Test
+    public void testStructure() {
+        List<INode> nodeList = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; ++i) {
+            INode node = new SemanticParagraph(new BoundingBox(i));
+            if (i > 0) {
+                nodeList.get(random.nextInt(i)).getChildren().add(node);
+            }
+            nodeList.add(node);
+        }
+        FlatSemanticTree flatTree = new FlatSemanticTree(new SemanticTree(nodeList.get(0)));
+        checkStructure(flatTree, nodeList.get(0));
+        Assertions.assertEquals(nodeList.size(), flatTree.size());
+        for (INode node : nodeList) {
+            int id = flatTree.getId(node);
+            Assertions.assertEquals(node.getPageNumber().intValue(), flatTree.getFirstPage(id));
+            Assertions.assertEquals(SemanticType.PARAGRAPH, flatTree.getSemanticType(id));
+        }
+    }
+
+    @Test
+    public void testNodeIds() {
+        Random random = new Random(6);
+        List<INode> nodeList = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            INode node = new SemanticParagraph(new BoundingBox(i));
+            if (i > 0) {
+                nodeList.get(random.nextInt(i)).getChildren().add(node);
+            }
+            nodeList.add(node);
+        }
+        FlatSemanticTree flatTree = new FlatSemanticTree(nodeList.get(0));
+        for (INode node : nodeList) {
+            node.setNodeId(flatTree.getId(node));
+        }
+        FlatSemanticTree nodeIdsFlatTree = new FlatSemanticTree(nodeList.get(0));
+        for (INode node : nodeList) {
+            Assertions.assertEquals(node.getNodeId(), nodeIdsFlatTree.getId(node));
+        }
+        INode otherNode = new SemanticParagraph();
+        otherNode.setNodeId(1);
+        Assertions.assertEquals(FlatSemanticTree.NO_NODE, nodeIdsFlatTree.getId(otherNode));
+
+        nodeList.get(1).setNodeId(nodeList.size());
+        FlatSemanticTree editedFlatTree = new FlatSemanticTree(nodeList.get(0));
+        for (INode node : nodeList) {
+            Assertions.assertEquals(flatTree.getId(node), editedFlatTree.getId(node));
+        }
+    }
+
+    @Test
+    public void testAncestorQueries() {
+        Random random = new Random(4);
+        List<INode> nodeList = new ArrayList<>();
+        for (int i = 0; i < 3000; ++i) {
+            INode node = new SemanticParagraph(new BoundingBox(i));
+            if (i > 0) {
+                INode parent = nodeList.get(i - 1 - random.nextInt(Math.min(i, 5)));
+                parent.getChildren().add(node);
+                node.setParent(parent);
+            }
+            nodeList.add(node);
+        }
+        FlatSemanticTree flatTree = new FlatSemanticTree(nodeList.get(0));
+        for (int i = 0; i < 5000; ++i) {
+            INode first = nodeList.get(random.nextInt(nodeList.size()));
+            INode second = nodeList.get(random.nextInt(nodeList.size()));
+            Assertions.assertSame(findCommonAncestor(first, second), flatTree.getNode(
+                    flatTree.getCommonAncestor(flatTree.getId(first), flatTree.getId(second))));
+            int id = flatTree.getId(first);
+            int depth = random.nextInt(flatTree.getDepth(id) + 2);
+            int ancestor = flatTree.getAncestor(id, depth);
+            if (depth > flatTree.getDepth(id)) {
+                Assertions.assertEquals(FlatSemanticTree.NO_NODE, ancestor);
+            } else {
+                INode expectedAncestor = first;
+                for (int j = flatTree.getDepth(id); j > depth; j--) {
+                    expectedAncestor = expectedAncestor.getParent();
+                }
+                Assertions.assertSame(expectedAncestor, flatTree.getNode(ancestor));
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/files/tables/PDFUA-Ref-2-06_Brochure.json", "/files/lists/ordered-list1.json",
+                            "/files/tables/PDFUA-Ref-2-02_Invoice.json"})
+    public void testLowestDepthErrorFlag(String filename) throws IOException {
+        IDocument document = JsonToPdfTree.getDocument(filename);
+        SemanticContext context = new SemanticContext(document);
+        new AccumulatedNodeSemanticChecker().checkSemanticDocument(document, context);
+        ITree tree = document.getTree();
+        Assertions.assertNotNull(context.getFlatSemanticTree());
+        checkStructure(context.getFlatSemanticTree(), tree.getRoot());
+
+        List<Boolean> expectedFlags = new ArrayList<>();
+        for (INode node : tree) {
+            expectedFlags.add(node.getHasLowestDepthError());
+            ((SemanticNode) node).setHasLowestDepthError(false);
+        }
+        context.setFlatSemanticTree(null);
+        new SemanticDocumentPostprocessingConsumer(context).setLowestDepthErrorFlag(tree);
+        List<Boolean> actualFlags = new ArrayList<>();
+        for (INode node : tree) {
+            actualFlags.add(node.getHasLowestDepthError());
+        }
+        Assertions.assertEquals(expectedFlags, actualFlags);
+    }
+
+    private static INode findCommonAncestor(INode first, INode second) {
+        Set<INode> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (INode node = first; node != null; node = node.getParent()) {
+            ancestors.add(node);
+        }
+        INode node = second;
+        while (!ancestors.contains(node)) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    private static void checkStructure(FlatSemanticTree flatTree, INode root) {
+        Assertions.assertEquals(0, flatTree.getId(root));
+        Assertions.assertEquals(FlatSemanticTree.NO_NODE, flatTree.getParent(0));
+        for (int id = 0; id < flatTree.size(); id++) {
+            INode node = flatTree.getNode(id);
+            Assertions.assertEquals(id, flatTree.getId(node));
+            int subtreeSize = 1;
+            int childId = flatTree.getFirstChild(id);
+            for (INode child : node.getChildren()) {
+                Assertions.assertSame(child, flatTree.getNode(childId));
+                Assertions.assertEquals(id, flatTree.getParent(childId));
+                Assertions.assertEquals(flatTree.getDepth(id) + 1, flatTree.getDepth(childId));
+                Assertions.assertTrue(flatTree.isAncestor(id, childId));
+                Assertions.assertFalse(flatTree.isAncestor(childId, id));
+                subtreeSize += flatTree.getSubtreeSize(childId);
+                childId = flatTree.getNextSibling(childId);
+            }
+            Assertions.assertEquals(FlatSemanticTree.NO_NODE, childId);
+            Assertions.assertEquals(subtreeSize, flatTree.getSubtreeSize(id));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+
+import java.util.*;
+
+class PageNodeIndexTests {
+
+    @Test
+    public void testWithEmptyTree() {
+        PageNodeIndex pageNodeIndex = new PageNodeIndex(new SemanticTree(null));
+        Assertions.assertEquals(0, pageNodeIndex.getPagesNumber());
+        Assertions.assertTrue(pageNodeIndex.getLeafNodes(0).isEmpty());
+        Assertions.assertTrue(pageNodeIndex.getSubtreeRoots(null).isEmpty());
+    }
+
+    @Test
+    public void testPages() {
+        Random random = new Random(5);
+        List<INode> nodeList = new ArrayList<>();
+        nodeList.add(new SemanticParagraph());
+        for (int i = 1; i < 2000; ++i) {
+            INode parent = nodeList.get(i - 1 - random.nextInt(Math.min(i, 4)));
+            int page = i / 100;
+            INode node = new SemanticParagraph(random.nextInt(20) == 0 ? new BoundingBox(page, page + 1, 0, 0, 1, 1) :
+                                               new BoundingBox(page, 0, 0, 1, 1));
+            parent.getChildren().add(node);
+            node.setParent(parent);
+            nodeList.add(node);
+        }
+        PageNodeIndex pageNodeIndex = new PageNodeIndex(new SemanticTree(nodeList.get(0)));
+        List<INode> preOrderNodes = new ArrayList<>();
+        addPreOrderNodes(nodeList.get(0), preOrderNodes);
+        for (int page = 0; page <= 21; ++page) {
+            List<INode> leafNodes = new ArrayList<>();
+            for (INode node : preOrderNodes) {
+                if (node.getChildren().isEmpty() && isOnPage(node, page)) {
+                    leafNodes.add(node);
+                }
+            }
+            Assertions.assertEquals(leafNodes, pageNodeIndex.getLeafNodes(page));
+            List<INode> coveredLeafNodes = new ArrayList<>();
+            for (INode subtreeRoot : pageNodeIndex.getSubtreeRoots(page)) {
+                List<INode> subtreeLeafNodes = new ArrayList<>();
+                addLeafNodes(subtreeRoot, subtreeLeafNodes);
+                if (!subtreeRoot.getChildren().isEmpty()) {
+                    Assertions.assertTrue(areOnPage(subtreeLeafNodes, page));
+                    List<INode> parentLeafNodes = new ArrayList<>();
+                    addLeafNodes(subtreeRoot.getParent(), parentLeafNodes);
+                    Assertions.assertFalse(areOnPage(parentLeafNodes, page));
+                }
+                coveredLeafNodes.addAll(subtreeLeafNodes);
+            }
+            Assertions.assertEquals(leafNodes, coveredLeafNodes);
+        }
+    }
+
+    private static boolean isOnPage(INode node, int page) {
+        return node.getPageNumber() <= page && page <= node.getLastPageNumber();
+    }
+
+    private static boolean areOnPage(List<INode> nodes, int page) {
+        for (INode node : nodes) {
+            if (node.getPageNumber() != page || node.getLastPageNumber() != page) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addPreOrderNodes(INode node, List<INode> nodes) {
+        nodes.add(node);
+        for (INode child : node.getChildren()) {
+            addPreOrderNodes(child, nodes);
+        }
+    }
+
+    private static void addLeafNodes(INode node, List<INode> nodes) {
+        if (node.getChildren().isEmpty()) {
+            nodes.add(node);
+        }
+        for (INode child : node.getChildren()) {
+            addLeafNodes(child, nodes);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.semanticalgorithms.AccumulatedNodeSemanticChecker;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+class TreeStreamTests {
+
+    @Test
+    public void testWithEmptyTree() {
+        ITree tree = new SemanticTree(null);
+        Assertions.assertEquals(0, tree.stream().count());
+        Assertions.assertEquals(0, tree.parallelStream().count());
+    }
+
+    @Test
+    public void testStreamOrder() {
+        ITree tree = new SemanticTree(createTree(new Random(1), 5000));
+        List<INode> expectedList = new ArrayList<>();
+        tree.forEach(expectedList::add);
+        Assertions.assertEquals(expectedList, tree.stream().collect(Collectors.toList()));
+        Assertions.assertEquals(expectedList, tree.parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSplitWithSubtreeSizes() {
+        ITree tree = new SemanticTree(createTree(new Random(2), 5000));
+        List<INode> expectedList = new ArrayList<>();
+        for (INode node : tree) {
+            int subtreeSize = 1;
+            for (INode child : node.getChildren()) {
+                subtreeSize += child.getSubtreeSize();
+            }
+            node.setSubtreeSize(subtreeSize);
+            expectedList.add(node);
+        }
+        Spliterator<INode> spliterator = tree.spliterator();
+        Assertions.assertEquals(expectedList.size(), spliterator.estimateSize());
+        Spliterator<INode> prefix = spliterator.trySplit();
+        Assertions.assertNotNull(prefix);
+        Assertions.assertEquals(expectedList.size(), prefix.estimateSize() + spliterator.estimateSize());
+        List<INode> actualList = new ArrayList<>();
+        prefix.forEachRemaining(actualList::add);
+        spliterator.forEachRemaining(actualList::add);
+        Assertions.assertEquals(expectedList, actualList);
+        Assertions.assertEquals(expectedList, tree.parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSplitOfLeaf() {
+        ITree tree = new SemanticTree(new SemanticParagraph(new BoundingBox(0)));
+        Spliterator<INode> spliterator = tree.spliterator();
+        Assertions.assertNull(spliterator.trySplit());
+        Assertions.assertEquals(1, tree.stream().count());
+    }
+
+    @Test
+    public void testParallelStreamOfDocument() throws IOException {
+        IDocument document = JsonToPdfTree.getDocument("/files/tables/PDFUA-Ref-2-06_Brochure.json");
+        new AccumulatedNodeSemanticChecker().checkSemanticDocument(document, new SemanticContext(document));
+        ITree tree = document.getTree();
+        List<INode> expectedList = new ArrayList<>();
+        tree.forEach(expectedList::add);
+        Assertions.assertEquals(expectedList.size(), tree.getRoot().getSubtreeSize());
+        Assertions.assertEquals(expectedList.stream().filter(INode::isLeaf).collect(Collectors.toList()),
+                                tree.parallelStream().filter(INode::isLeaf).collect(Collectors.toList()));
+    }
+
+    private static INode createTree(Random random, int size) {
+        List<INode> nodeList = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            INode node = new SemanticParagraph(new BoundingBox(i));
+            if (i > 0) {
+                nodeList.get(random.nextInt(i)).getChildren().add(node);
+            }
+            nodeList.add(node);
+        }
+        return nodeList.get(0);
+    }
+}
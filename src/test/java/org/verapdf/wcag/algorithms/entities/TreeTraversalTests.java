@@ -0,0 +1,101 @@
+package org.verapdf.wcag.algorithms.entities;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+
+import java.util.*;
+
+class TreeTraversalTests {
+
+    @Test
+    public void testPostOrderMatchesIterator() {
+        ITree tree = new SemanticTree(createTree());
+        List<Integer> expectedList = new ArrayList<>();
+        for (INode node : tree) {
+            expectedList.add(node.getPageNumber());
+        }
+        List<Integer> actualList = new ArrayList<>();
+        new TreeTraversal().addVisitor(TreeVisitor.postOrder(node -> actualList.add(node.getPageNumber())))
+                           .traverse(tree);
+        Assertions.assertEquals(expectedList, actualList);
+    }
+
+    @Test
+    public void testVisitorsOrder() {
+        List<String> actualList = new ArrayList<>();
+        new TreeTraversal().addVisitor(new RecordingVisitor("a", actualList, -1, -1))
+                           .addVisitor(new RecordingVisitor("b", actualList, -1, -1))
+                           .traverse(createTree().getChildren().get(0));
+        Assertions.assertEquals(Arrays.asList("a+1", "b+1", "a+4", "b+4", "a-4", "b-4", "a-1", "b-1"), actualList);
+    }
+
+    @Test
+    public void testSkippedSubtree() {
+        List<String> actualList = new ArrayList<>();
+        new TreeTraversal().addVisitor(new RecordingVisitor("a", actualList, 2, -1))
+                           .addVisitor(new RecordingVisitor("b", actualList, 6, -1))
+                           .traverse(createTree().getChildren().get(1));
+        Assertions.assertEquals(Arrays.asList("a+2", "b+2", "b+5", "b-5", "b+6", "b-6", "a-2", "b-2"), actualList);
+    }
+
+    @Test
+    public void testFinishedVisitor() {
+        List<String> actualList = new ArrayList<>();
+        new TreeTraversal().addVisitor(new RecordingVisitor("a", actualList, -1, 5))
+                           .addVisitor(new RecordingVisitor("b", actualList, 2, -1))
+                           .traverse(createTree());
+        Assertions.assertEquals(Arrays.asList("a+0", "b+0", "a+1", "b+1", "a+4", "b+4", "a-4", "b-4", "a-1", "b-1",
+                                              "a+2", "b+2", "a+5", "a-5", "b-2", "b+3", "b+7", "b+10", "b+14", "b-14",
+                                              "b-10", "b+11", "b-11", "b-7", "b-3", "b-0"), actualList);
+    }
+
+    private static INode createTree() {
+        List<INode> nodeList = new ArrayList<>(15);
+        for (int i = 0; i < 15; ++i) {
+            nodeList.add(new SemanticParagraph(new BoundingBox(i)));
+        }
+        nodeList.get(0).getChildren().addAll(nodeList.subList(1, 4));
+        nodeList.get(1).getChildren().add(nodeList.get(4));
+        nodeList.get(2).getChildren().addAll(nodeList.subList(5, 7));
+        nodeList.get(3).getChildren().add(nodeList.get(7));
+        nodeList.get(6).getChildren().addAll(nodeList.subList(8, 10));
+        nodeList.get(7).getChildren().addAll(nodeList.subList(10, 12));
+        nodeList.get(9).getChildren().addAll(nodeList.subList(12, 14));
+        nodeList.get(10).getChildren().add(nodeList.get(14));
+        return nodeList.get(0);
+    }
+
+    private static class RecordingVisitor implements TreeVisitor {
+
+        private final String name;
+        private final List<String> events;
+        private final int skippedPage;
+        private final int lastPage;
+        private boolean finished = false;
+
+        private RecordingVisitor(String name, List<String> events, int skippedPage, int lastPage) {
+            this.name = name;
+            this.events = events;
+            this.skippedPage = skippedPage;
+            this.lastPage = lastPage;
+        }
+
+        @Override
+        public boolean enterNode(INode node) {
+            events.add(name + "+" + node.getPageNumber());
+            return node.getPageNumber() != skippedPage;
+        }
+
+        @Override
+        public void exitNode(INode node) {
+            events.add(name + "-" + node.getPageNumber());
+            finished = node.getPageNumber() == lastPage;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+}
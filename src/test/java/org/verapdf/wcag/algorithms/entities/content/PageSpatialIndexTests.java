@@ -0,0 +1,52 @@
+package org.verapdf.wcag.algorithms.entities.content;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.SemanticImageNode;
+import org.verapdf.wcag.algorithms.entities.SemanticSpan;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+class PageSpatialIndexTests {
+
+    @Test
+    void testQueries() {
+        LineChunk underline = new LineChunk(1, 10, 98, 60, 98);
+        LineChunk border = new LineChunk(1, 200, 0, 200, 500);
+        TextChunk text = new TextChunk(new BoundingBox(1, 10, 100, 60, 110), "text", 10, 100);
+        TextChunk otherPageText = new TextChunk(new BoundingBox(2, 10, 100, 60, 110), "text", 10, 100);
+        ImageChunk image = new ImageChunk(new BoundingBox(1, 100, 300, 150, 350));
+        SemanticSpan span = new SemanticSpan(text);
+        span.add(new TextLine(otherPageText));
+        List<INode> leafNodes = Arrays.asList(span, new SemanticImageNode(image));
+        PageSpatialIndex index = new PageSpatialIndex(1, Arrays.asList(underline, border), leafNodes);
+
+        Assertions.assertEquals(4, index.size());
+        Assertions.assertEquals(Arrays.asList(underline, border, text, image), index.getChunks(IChunk.class));
+        Assertions.assertEquals(Collections.singletonList(underline),
+                                index.getChunks(LineChunk.class, new BoundingBox(1, 20, 100, 30, 110), 2));
+        Assertions.assertTrue(index.getChunks(LineChunk.class, new BoundingBox(1, 20, 100, 30, 110), 1).isEmpty());
+        Assertions.assertEquals(Arrays.asList(underline, text),
+                                index.getChunksInVerticalBand(IChunk.class, 0, 20, 0));
+        Assertions.assertEquals(Arrays.asList(underline, text, image),
+                                index.getChunksInVerticalBand(IChunk.class, 0, 99, 1));
+        Assertions.assertEquals(Arrays.asList(image, border),
+                                index.getNearestChunks(IChunk.class, 160, 340, 2));
+        Assertions.assertEquals(Collections.singletonList(text),
+                                index.getNearestChunks(TextChunk.class, 160, 340, 5));
+
+        List<IChunk> leafChunks = new ArrayList<>();
+        List<INode> chunkNodes = new ArrayList<>();
+        index.forEachLeafChunk(IChunk.class, new BoundingBox(1, 0, 90, 200, 400), 0, (chunk, node) -> {
+            leafChunks.add(chunk);
+            chunkNodes.add(node);
+        });
+        Assertions.assertEquals(Arrays.asList(text, image), leafChunks);
+        Assertions.assertEquals(leafNodes, chunkNodes);
+    }
+}
@@ -0,0 +1,41 @@
+package org.verapdf.wcag.algorithms.entities.geometry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BoundingBoxTests {
+
+    @Test
+    void testBoundingBoxWithoutPage() {
+        BoundingBox boundingBox = new BoundingBox(0, 0, 10, 10);
+        Assertions.assertFalse(boundingBox.hasPageNumber());
+        Assertions.assertNull(boundingBox.getPageNumber());
+        Assertions.assertNull(boundingBox.getLastPageNumber());
+        Assertions.assertTrue(boundingBox.isEmpty());
+        BoundingBox other = new BoundingBox(1, 0, 0, 10, 10);
+        Assertions.assertFalse(boundingBox.overlaps(other));
+        Assertions.assertFalse(other.contains(boundingBox));
+        boundingBox.union(other);
+        Assertions.assertEquals(1, boundingBox.getPageNumber());
+        Assertions.assertEquals(1, boundingBox.getLastPageNumber());
+    }
+
+    @Test
+    void testPageNumbers() {
+        BoundingBox first = new BoundingBox(2000, 0, 0, 10, 10);
+        BoundingBox second = new BoundingBox(2000, 2001, 5, 5, 20, 20);
+        Assertions.assertEquals(2000, first.getPageNumber());
+        Assertions.assertSame(new BoundingBox(5).getPageNumber(), new BoundingBox(5).getPageNumber());
+        Assertions.assertTrue(first.overlaps(second));
+        BoundingBox union = BoundingBox.union(first, second);
+        Assertions.assertEquals(2000, union.getPageNumber());
+        Assertions.assertEquals(2001, union.getLastPageNumber());
+        Assertions.assertEquals(5, union.getBottomY());
+        Assertions.assertEquals(20, union.getTopY());
+        Assertions.assertTrue(union.contains(first));
+        Assertions.assertTrue(union.contains(second, 0.1, 0.1));
+        first.setPageNumber(null);
+        Assertions.assertFalse(first.hasPageNumber());
+        Assertions.assertEquals(2000, first.getLastPageNumber());
+    }
+}
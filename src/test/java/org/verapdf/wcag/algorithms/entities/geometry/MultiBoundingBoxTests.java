@@ -0,0 +1,51 @@
+package org.verapdf.wcag.algorithms.entities.geometry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class MultiBoundingBoxTests {
+
+    @Test
+    void testBoundingBoxes() {
+        MultiBoundingBox multiBoundingBox = new MultiBoundingBox(new BoundingBox(1, 0, 0, 10, 10));
+        for (int i = 0; i < 10; i++) {
+            multiBoundingBox.union(new BoundingBox(2, i, i, 20, 20));
+        }
+        multiBoundingBox.union(new MultiBoundingBox(new BoundingBox(3, 0, 0, 5, 5)));
+        List<BoundingBox> boundingBoxes = multiBoundingBox.getBoundingBoxes();
+        Assertions.assertEquals(12, multiBoundingBox.getBoundingBoxesNumber());
+        Assertions.assertEquals(12, boundingBoxes.size());
+        Assertions.assertEquals(1, boundingBoxes.get(0).getPageNumber());
+        Assertions.assertEquals(9, boundingBoxes.get(10).getLeftX());
+        Assertions.assertEquals(3, boundingBoxes.get(11).getLastPageNumber());
+        Assertions.assertEquals(1, multiBoundingBox.getPageNumber());
+        Assertions.assertEquals(3, multiBoundingBox.getLastPageNumber());
+    }
+
+    @Test
+    void testCopies() {
+        MultiBoundingBox multiBoundingBox = new MultiBoundingBox(1, 0, 0, 10, 10);
+        multiBoundingBox.union(new BoundingBox(1, 20, 0, 30, 10));
+        MultiBoundingBox copy = new MultiBoundingBox(multiBoundingBox);
+        copy.move(5, 5);
+        copy.union(new BoundingBox(1, 40, 0, 50, 10));
+        multiBoundingBox.union(new BoundingBox(2, 0, 0, 10, 10));
+        Assertions.assertEquals(4, multiBoundingBox.getBoundingBoxesNumber());
+        Assertions.assertEquals(20, multiBoundingBox.getBoundingBoxes().get(2).getLeftX());
+        Assertions.assertEquals(2, multiBoundingBox.getBoundingBoxes().get(3).getPageNumber());
+        Assertions.assertEquals(4, copy.getBoundingBoxesNumber());
+        Assertions.assertEquals(25, copy.getBoundingBoxes().get(2).getLeftX());
+        Assertions.assertEquals(40, copy.getBoundingBoxes().get(3).getLeftX());
+    }
+
+    @Test
+    void testLocation() {
+        MultiBoundingBox multiBoundingBox = new MultiBoundingBox(new BoundingBox(1, 0, 0, 10, 10));
+        multiBoundingBox.union(new BoundingBox(2, 5, 5, 20, 20));
+        Assertions.assertEquals("{\"bbox\":[{\"p\":1,\"rect\":[0.000000,0.000000,10.000000,10.000000]}," +
+                                "{\"p\":2,\"rect\":[5.000000,5.000000,20.000000,20.000000]}]}",
+                                multiBoundingBox.getLocation());
+    }
+}
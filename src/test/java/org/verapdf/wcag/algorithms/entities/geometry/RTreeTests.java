@@ -0,0 +1,85 @@
+package org.verapdf.wcag.algorithms.entities.geometry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+class RTreeTests {
+
+    @ParameterizedTest(name = "{index}: ({0}) => {0}")
+    @ValueSource(ints = {0, 1, 8, 9, 100, 1000})
+    void testFindFirst(int size) {
+        Random random = new Random(size);
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            double leftX = random.nextDouble() * 500;
+            double bottomY = random.nextDouble() * 700;
+            boxes.add(new BoundingBox(0, leftX, bottomY, leftX + random.nextDouble() * 200,
+                                      bottomY + random.nextDouble() * 200));
+        }
+        RTree<BoundingBox> tree = new RTree<>(boxes, Function.identity());
+        Assertions.assertEquals(size, tree.size());
+        for (int i = 0; i < 1000; ++i) {
+            double leftX = random.nextDouble() * 600;
+            double bottomY = random.nextDouble() * 800;
+            BoundingBox box = new BoundingBox(0, leftX, bottomY, leftX + random.nextDouble() * 20,
+                                              bottomY + random.nextDouble() * 20);
+            BoundingBox expected = null;
+            for (BoundingBox boundingBox : boxes) {
+                if (boundingBox.contains(box, 1, 1)) {
+                    expected = boundingBox;
+                    break;
+                }
+            }
+            BoundingBox actual = tree.findFirst((left, bottom, right, top) -> left < box.getLeftX() + 1 &&
+                                                        box.getRightX() < right + 1 && box.getTopY() < top + 1 &&
+                                                        bottom < box.getBottomY() + 1,
+                                                boundingBox -> boundingBox.contains(box, 1, 1));
+            Assertions.assertSame(expected, actual);
+        }
+    }
+
+    @ParameterizedTest(name = "{index}: ({0}) => {0}")
+    @ValueSource(ints = {0, 1, 8, 9, 100, 1000})
+    void testFindNearest(int size) {
+        Random random = new Random(size);
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            double leftX = random.nextInt(50) * 10;
+            double bottomY = random.nextInt(70) * 10;
+            boxes.add(new BoundingBox(0, leftX, bottomY, leftX + random.nextInt(20) * 10,
+                                      bottomY + random.nextInt(20) * 10));
+        }
+        RTree<BoundingBox> tree = new RTree<>(boxes, Function.identity());
+        for (int i = 0; i < 100; ++i) {
+            double x = random.nextInt(60) * 10;
+            double y = random.nextInt(80) * 10;
+            int k = random.nextInt(10);
+            List<BoundingBox> expected = new ArrayList<>();
+            for (BoundingBox boundingBox : boxes) {
+                if (boundingBox.getLeftX() < 300) {
+                    expected.add(boundingBox);
+                }
+            }
+            expected.sort(Comparator.comparingDouble(boundingBox -> getDistance(boundingBox, x, y)));
+            expected = expected.subList(0, Math.min(k, expected.size()));
+            List<BoundingBox> actual = tree.findNearest(x, y, k, boundingBox -> boundingBox.getLeftX() < 300);
+            Assertions.assertEquals(expected.size(), actual.size());
+            for (int j = 0; j < expected.size(); ++j) {
+                Assertions.assertSame(expected.get(j), actual.get(j));
+            }
+        }
+    }
+
+    private static double getDistance(BoundingBox boundingBox, double x, double y) {
+        double dx = Math.max(0, Math.max(boundingBox.getLeftX() - x, x - boundingBox.getRightX()));
+        double dy = Math.max(0, Math.max(boundingBox.getBottomY() - y, y - boundingBox.getTopY()));
+        return dx * dx + dy * dy;
+    }
+}
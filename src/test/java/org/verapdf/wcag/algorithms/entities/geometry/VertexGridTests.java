@@ -0,0 +1,77 @@
+package org.verapdf.wcag.algorithms.entities.geometry;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class VertexGridTests {
+
+    @Test
+    void testCloseVertexes() {
+        VertexGrid vertexGrid = new VertexGrid();
+        vertexGrid.add(new Vertex(0, 10, 10, 0.5));
+        vertexGrid.add(new Vertex(0, 10, 10, 0.5));
+        vertexGrid.add(new Vertex(0, 10.25, 9.75, 0.25));
+        vertexGrid.add(new Vertex(0, 20, 10, 0.5));
+        Assertions.assertEquals(2, vertexGrid.size());
+        Assertions.assertEquals(4, vertexGrid.getVertexes().size());
+        Assertions.assertArrayEquals(new double[] {9.5, 19.5}, vertexGrid.getLeftXs());
+        Assertions.assertArrayEquals(new double[] {10.5, 20.5}, vertexGrid.getRightXs());
+        Assertions.assertArrayEquals(new double[] {9.5, 9.5}, vertexGrid.getBottomYs());
+        Assertions.assertArrayEquals(new double[] {10.5, 10.5}, vertexGrid.getTopYs());
+    }
+
+    @ParameterizedTest(name = "{index}: ({0}) => {0}")
+    @ValueSource(ints = {1, 10, 100, 1000})
+    void testMergedVertexes(int size) {
+        Random random = new Random(size);
+        List<Vertex> vertexes = new ArrayList<>();
+        VertexGrid vertexGrid = new VertexGrid();
+        for (int i = 0; i < size; ++i) {
+            Vertex vertex = new Vertex(0, random.nextInt(100) * 0.5, random.nextInt(100) * 0.5,
+                                       random.nextInt(4) * 0.5);
+            vertexes.add(vertex);
+            vertexGrid.add(vertex);
+        }
+        int[] components = new int[size];
+        for (int i = 0; i < size; ++i) {
+            components[i] = i;
+        }
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < i; ++j) {
+                if (Vertex.areCloseVertexes(vertexes.get(i), vertexes.get(j)) && components[i] != components[j]) {
+                    int component = components[i];
+                    for (int k = 0; k < size; ++k) {
+                        if (components[k] == component) {
+                            components[k] = components[j];
+                        }
+                    }
+                }
+            }
+        }
+        List<Double> leftXs = new ArrayList<>();
+        for (int i = 0; i < size; ++i) {
+            double leftX = Double.MAX_VALUE;
+            boolean isFirst = true;
+            for (int j = 0; j < size; ++j) {
+                if (components[j] == components[i]) {
+                    isFirst &= j >= i;
+                    leftX = Math.min(leftX, vertexes.get(j).getLeftX());
+                }
+            }
+            if (isFirst) {
+                leftXs.add(leftX);
+            }
+        }
+        Assertions.assertEquals(leftXs.size(), vertexGrid.size());
+        double[] actualLeftXs = vertexGrid.getLeftXs();
+        for (int i = 0; i < leftXs.size(); ++i) {
+            Assertions.assertEquals(leftXs.get(i), actualLeftXs[i]);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.verapdf.wcag.algorithms.entities.maps;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.verapdf.wcag.algorithms.entities.Document;
+import org.verapdf.wcag.algorithms.entities.FlatSemanticTree;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.SemanticParagraph;
+import org.verapdf.wcag.algorithms.entities.SemanticTree;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPreprocessingConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class AccumulatedNodeMapperTests {
+
+    @Test
+    public void testBoundingBoxChange() {
+        AccumulatedNodeMapper mapper = new AccumulatedNodeMapper();
+        INode node = new SemanticParagraph(new BoundingBox(0, 10, 10, 20, 20));
+        node.setNodeId(5);
+        INode accumulatedNode = new SemanticParagraph(new BoundingBox(0, 10, 10, 30, 30));
+        mapper.updateNode(node, accumulatedNode, 1.0, SemanticType.PARAGRAPH);
+        node.setBoundingBox(new BoundingBox(0, 0, 0, 50, 50));
+        Assertions.assertSame(accumulatedNode, mapper.get(node));
+    }
+
+    @Test
+    public void testIdentity() {
+        AccumulatedNodeMapper mapper = new AccumulatedNodeMapper();
+        INode node = new SemanticParagraph(new BoundingBox(0, 10, 10, 20, 20));
+        INode equalNode = new SemanticParagraph(new BoundingBox(0, 10, 10, 20, 20));
+        INode accumulatedNode = new SemanticParagraph(new BoundingBox(0, 10, 10, 20, 20));
+        mapper.put(node, accumulatedNode);
+        Assertions.assertSame(accumulatedNode, mapper.get(node));
+        Assertions.assertSame(equalNode, mapper.get(equalNode));
+        Assertions.assertFalse(mapper.containsNode(equalNode));
+    }
+
+    @Test
+    public void testCapacity() {
+        AccumulatedNodeMapper mapper = new AccumulatedNodeMapper();
+        INode node = new SemanticParagraph(new BoundingBox(0));
+        node.setNodeId(1000);
+        INode accumulatedNode = new SemanticParagraph(new BoundingBox(0));
+        Assertions.assertFalse(mapper.containsNode(node));
+        mapper.put(node, accumulatedNode);
+        Assertions.assertSame(accumulatedNode, mapper.get(node));
+        Assertions.assertSame(accumulatedNode, mapper.remove(node));
+        Assertions.assertSame(node, mapper.get(node));
+        mapper.put(node, accumulatedNode);
+        mapper.put(node, null);
+        Assertions.assertFalse(mapper.containsNode(node));
+    }
+
+    @Test
+    public void testPreOrderIds() {
+        Random random = new Random(3);
+        List<INode> nodes = new ArrayList<>();
+        nodes.add(new SemanticParagraph(new BoundingBox(0)));
+        for (int i = 1; i < 200; ++i) {
+            INode parent = nodes.get(random.nextInt(i));
+            INode node = new SemanticParagraph(new BoundingBox(0));
+            parent.getChildren().add(node);
+            nodes.add(node);
+        }
+        Document document = new Document(new SemanticTree(nodes.get(0)));
+        new SemanticDocumentPreprocessingConsumer(document, new SemanticContext(document));
+        FlatSemanticTree flatSemanticTree = new FlatSemanticTree(nodes.get(0));
+        for (INode node : nodes) {
+            Assertions.assertEquals(flatSemanticTree.getId(node), node.getNodeId());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.verapdf.wcag.algorithms.entities.maps;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.SemanticParagraph;
+import org.verapdf.wcag.algorithms.entities.SemanticSpan;
+import org.verapdf.wcag.algorithms.entities.content.TextChunk;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
+
+class SubtreeSummaryTests {
+
+    @Test
+    public void testFirstLeaf() {
+        INode root = new SemanticParagraph();
+        INode child = new SemanticParagraph();
+        INode leaf = new SemanticSpan(new BoundingBox(0, 0, 0, 10, 10));
+        root.getChildren().add(child);
+        child.getChildren().add(leaf);
+        INode secondLeaf = new SemanticSpan(new BoundingBox(0, 10, 0, 20, 10));
+        child.getChildren().add(secondLeaf);
+        AccumulatedNodeMapper mapper = new AccumulatedNodeMapper();
+        Assertions.assertThrows(IllegalStateException.class, () -> SubtreeSummary.getSummary(mapper, root));
+        SubtreeSummary.build(mapper, leaf);
+        SubtreeSummary.build(mapper, secondLeaf);
+        SubtreeSummary.build(mapper, child);
+        SubtreeSummary.build(mapper, root);
+        Assertions.assertSame(leaf, SubtreeSummary.getSummary(mapper, root).getFirstLeaf());
+        Assertions.assertSame(leaf, SubtreeSummary.getSummary(mapper, child).getFirstLeaf());
+        Assertions.assertSame(leaf, SubtreeSummary.getSummary(mapper, leaf).getFirstLeaf());
+        Assertions.assertFalse(SubtreeSummary.getSummary(mapper, leaf).isImageLeaf());
+    }
+
+    @Test
+    public void testAccumulatedNodeChange() {
+        INode node = new SemanticParagraph();
+        node.getChildren().add(new SemanticSpan(new BoundingBox(0, 0, 0, 10, 10)));
+        AccumulatedNodeMapper mapper = new AccumulatedNodeMapper();
+        SubtreeSummary.build(mapper, node.getChildren().get(0));
+        mapper.put(node, new SemanticSpan(new TextChunk(new BoundingBox(0, 0, 0, 10, 10), " ",
+                                                         10, 0)));
+        SubtreeSummary summary = SubtreeSummary.getSummary(mapper, node);
+        Assertions.assertFalse(summary.hasText());
+        Assertions.assertSame(summary, SubtreeSummary.getSummary(mapper, node));
+        INode textNode = new SemanticSpan(new TextChunk(new BoundingBox(0, 0, 0, 10, 10), "text",
+                                                         10, 0));
+        mapper.put(node, textNode);
+        summary = SubtreeSummary.getSummary(mapper, node);
+        Assertions.assertTrue(summary.hasText());
+        Assertions.assertSame(textNode, summary.getAccumulatedNode());
+        mapper.remove(node);
+        summary = SubtreeSummary.getSummary(mapper, node);
+        Assertions.assertSame(node.getChildren().get(0), summary.getFirstLeaf());
+        Assertions.assertSame(node, summary.getAccumulatedNode());
+    }
+}
@@ -0,0 +1,108 @@
+package org.verapdf.wcag.algorithms.entities.tables.tableBorders;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.verapdf.wcag.algorithms.semanticalgorithms.utils.NodeUtils;
+
+import java.util.Random;
+
+class TableBorderTests {
+
+    @ParameterizedTest(name = "{index}: ({0}) => {0}")
+    @ValueSource(ints = {1, 2, 10, 100})
+    void testSortedGridLookup(int size) {
+        Random random = new Random(size);
+        double[] xCoordinates = new double[size];
+        double[] xWidths = new double[size];
+        double[] yCoordinates = new double[size];
+        double[] yWidths = new double[size];
+        double x = 0;
+        double y = 1000;
+        for (int i = 0; i < size; i++) {
+            xWidths[i] = random.nextInt(4) * 0.5;
+            yWidths[i] = random.nextInt(4) * 0.5;
+            x += xWidths[i] + random.nextInt(20) + 1;
+            y -= yWidths[i] + random.nextInt(20) + 1;
+            xCoordinates[i] = x;
+            yCoordinates[i] = y;
+        }
+        TableBorder tableBorder = new TableBorder(xCoordinates, xWidths, yCoordinates, yWidths);
+        Assertions.assertTrue(tableBorder.hasSortedBounds());
+        checkLookup(tableBorder, random, xCoordinates, xWidths, yCoordinates, yWidths);
+    }
+
+    @ParameterizedTest(name = "{index}: ({0}) => {0}")
+    @ValueSource(ints = {2, 10, 100})
+    void testUnsortedGridLookup(int size) {
+        Random random = new Random(size);
+        double[] xCoordinates = new double[size];
+        double[] xWidths = new double[size];
+        double[] yCoordinates = new double[size];
+        double[] yWidths = new double[size];
+        for (int i = 0; i < size; i++) {
+            xCoordinates[i] = random.nextInt(200) * 0.5;
+            xWidths[i] = random.nextInt(40) * 0.5;
+            yCoordinates[i] = random.nextInt(200) * 0.5;
+            yWidths[i] = random.nextInt(40) * 0.5;
+        }
+        xCoordinates[1] = xCoordinates[0];
+        xWidths[1] = xWidths[0] + 10;
+        TableBorder tableBorder = new TableBorder(xCoordinates, xWidths, yCoordinates, yWidths);
+        Assertions.assertFalse(tableBorder.hasSortedBounds());
+        checkLookup(tableBorder, random, xCoordinates, xWidths, yCoordinates, yWidths);
+    }
+
+    private static void checkLookup(TableBorder tableBorder, Random random, double[] xCoordinates, double[] xWidths,
+                                    double[] yCoordinates, double[] yWidths) {
+        for (int i = 0; i < xCoordinates.length; i++) {
+            for (double sign = -1; sign <= 1; sign += 2) {
+                checkLookup(tableBorder, xCoordinates[i] + sign * 0.5 * xWidths[i],
+                            yCoordinates[i] + sign * 0.5 * yWidths[i], xCoordinates, xWidths, yCoordinates, yWidths);
+                checkLookup(tableBorder, xCoordinates[i] + sign * (0.5 * xWidths[i] + TableBorder.TABLE_BORDER_EPSILON),
+                            yCoordinates[i] + sign * (0.5 * yWidths[i] + TableBorder.TABLE_BORDER_EPSILON),
+                            xCoordinates, xWidths, yCoordinates, yWidths);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            checkLookup(tableBorder, random.nextDouble() * 2200 - 100, random.nextDouble() * 2200 - 1100,
+                        xCoordinates, xWidths, yCoordinates, yWidths);
+        }
+    }
+
+    private static void checkLookup(TableBorder tableBorder, double x, double y, double[] xCoordinates,
+                                    double[] xWidths, double[] yCoordinates, double[] yWidths) {
+        Assertions.assertEquals(getCoordinate(x, xCoordinates, xWidths), tableBorder.getCoordinateX(x));
+        Assertions.assertEquals(getCoordinate(y, yCoordinates, yWidths), tableBorder.getCoordinateY(y));
+        Assertions.assertEquals(getClosestLeftX(x, xCoordinates, xWidths), tableBorder.getClosestLeftX(x));
+        Assertions.assertEquals(getClosestTopY(y, yCoordinates, yWidths), tableBorder.getClosestTopY(y));
+    }
+
+    private static int getCoordinate(double value, double[] coordinates, double[] widths) {
+        for (int i = 0; i < coordinates.length; i++) {
+            if (value <= coordinates[i] + 0.5 * widths[i] + NodeUtils.EPSILON &&
+                    value >= coordinates[i] - 0.5 * widths[i] - NodeUtils.EPSILON) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getClosestLeftX(double x, double[] xCoordinates, double[] xWidths) {
+        for (int i = xCoordinates.length - 1; i >= 0; i--) {
+            if (x >= xCoordinates[i] - 0.5 * xWidths[i] - TableBorder.TABLE_BORDER_EPSILON) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int getClosestTopY(double y, double[] yCoordinates, double[] yWidths) {
+        for (int i = yCoordinates.length - 1; i >= 0; i--) {
+            if (y <= yCoordinates[i] + 0.5 * yWidths[i] + TableBorder.TABLE_BORDER_EPSILON) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,6 +1,7 @@
 package org.verapdf.wcag.algorithms.semanticalgorithms;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -11,6 +12,8 @@ import org.verapdf.wcag.algorithms.entities.IDocument;
 import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
 import org.verapdf.wcag.algorithms.entities.maps.SemanticTypeMapper;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.AccumulatedNodeConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
 
 import java.io.IOException;
 import java.util.stream.Stream;
@@ -84,6 +87,23 @@ class AccumulatedNodeSemanticsCheckerTests {
 		testTreeStructure(tree);
 	}
 
+	@Test
+	@SuppressWarnings("deprecation")
+	void testStaticContainersRelease() throws IOException {
+		IDocument document = JsonToPdfTree.getDocument("/files/1.json");
+		try {
+			semanticsChecker.checkSemanticDocument(document);
+			SemanticContext context = StaticContainers.getSemanticContext();
+			Assertions.assertNotNull(context);
+			Assertions.assertSame(document, context.getDocument());
+			Assertions.assertSame(context.getAccumulatedNodeMapper(), StaticContainers.getAccumulatedNodeMapper());
+			Assertions.assertSame(context.getRepeatedCharacters(), StaticContainers.getRepeatedCharacters());
+		} finally {
+			AccumulatedNodeSemanticChecker.releaseThreadContext();
+		}
+		Assertions.assertNull(StaticContainers.getSemanticContext());
+	}
+
 	private void testTreeStructure(ITree tree) {
 		for (INode node : tree) {
 			if (node.getInitialSemanticType() != null && SemanticTypeMapper.containsType(node.getInitialSemanticType())) {
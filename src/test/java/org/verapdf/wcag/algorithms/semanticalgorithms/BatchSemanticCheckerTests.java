@@ -0,0 +1,70 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+class BatchSemanticCheckerTests {
+
+	private static final List<String> FILES = Arrays.asList("tables/three-tables.json", "tables/pdfmaker.json",
+			"tables/PDFUA-Ref-2-06_Brochure.json", "tables/PDFUA-Ref-2-02_Invoice.json", "tables/test-document-1.json",
+			"lists/PDFUA-Ref-2-06_Brochure.json", "lists/ordered-list1.json", "lists/7NonTable.json",
+			"headings/Heading1.json", "repeatedCharacters/test-document-3.json");
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@EnumSource(BatchSemanticChecker.ResultOrder.class)
+	void testBatchMatchesSequentialCheck(BatchSemanticChecker.ResultOrder resultOrder) {
+		List<List<String>> expected = new ArrayList<>();
+		for (String file : FILES) {
+			IDocument document = getDocument(file);
+			new AccumulatedNodeSemanticChecker().checkSemanticDocument(document);
+			expected.add(describeTree(document));
+		}
+
+		List<Supplier<IDocument>> suppliers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			for (String file : FILES) {
+				suppliers.add(() -> getDocument(file));
+			}
+		}
+		BatchSemanticChecker checker = new BatchSemanticChecker(4, 2, resultOrder);
+		List<BatchSemanticChecker.Result> results = checker.check(suppliers.stream());
+
+		Assertions.assertEquals(suppliers.size(), results.size());
+		for (int i = 0; i < results.size(); i++) {
+			BatchSemanticChecker.Result result = results.get(i);
+			Assertions.assertTrue(result.isSuccessful());
+			if (resultOrder == BatchSemanticChecker.ResultOrder.SUBMISSION) {
+				Assertions.assertEquals(i, result.getIndex());
+			}
+			Assertions.assertEquals(expected.get(result.getIndex() % FILES.size()), describeTree(result.getDocument()));
+		}
+	}
+
+	private static List<String> describeTree(IDocument document) {
+		List<String> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			nodes.add(node.getSemanticType() + " " + node.getRecognizedStructureId() + " " +
+			          node.getCorrectSemanticScore());
+		}
+		return nodes;
+	}
+
+	private static IDocument getDocument(String file) {
+		try {
+			return JsonToPdfTree.getDocument("/files/" + file);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
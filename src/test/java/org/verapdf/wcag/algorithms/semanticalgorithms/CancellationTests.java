@@ -0,0 +1,107 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.CancellationToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+class CancellationTests {
+
+	static Stream<Arguments> cancellationTestParams() {
+		return Stream.of(
+				Arguments.of("/files/tables/three-tables.json", 0),
+				Arguments.of("/files/tables/three-tables.json", 50),
+				Arguments.of("/files/tables/tableBorder.json", 10),
+				Arguments.of("/files/tables/PDFUA-Ref-2-06_Brochure.json", 500),
+				Arguments.of("/files/lists/ordered-list1.json", 100)
+		);
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}, {1}) => {0}")
+	@MethodSource("cancellationTestParams")
+	void testCancellation(String filename, int checksBeforeCancel) throws IOException {
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		SemanticContext context = new SemanticContext(document);
+		CountingCancellationToken token = new CountingCancellationToken(checksBeforeCancel);
+		context.setCancellationToken(token);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(document, context);
+		Assertions.assertTrue(context.isIncomplete());
+		Assertions.assertEquals(checksBeforeCancel + 1, token.checks);
+	}
+
+	@Test
+	void testUncancelledCheckIsComplete() throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument("/files/tables/three-tables.json");
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument,
+		                                                           new SemanticContext(expectedDocument));
+
+		IDocument document = JsonToPdfTree.getDocument("/files/tables/three-tables.json");
+		SemanticContext context = new SemanticContext(document);
+		context.setCancellationToken(new CancellationToken());
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().timeBudget(1, TimeUnit.HOURS).build();
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, context);
+		Assertions.assertFalse(context.isIncomplete());
+		Assertions.assertEquals(getSemanticTypes(expectedDocument), getSemanticTypes(document));
+	}
+
+	@Test
+	void testExpiredTimeBudget() throws IOException {
+		IDocument document = JsonToPdfTree.getDocument("/files/tables/three-tables.json");
+		SemanticContext context = new SemanticContext(document);
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().timeBudget(1, TimeUnit.NANOSECONDS).build();
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, context);
+		Assertions.assertTrue(context.isIncomplete());
+		Assertions.assertNull(context.getCancellationToken());
+	}
+
+	@Test
+	void testParentTokenCancellation() {
+		CancellationToken parent = new CancellationToken();
+		CancellationToken child = parent.childWithTimeout(1, TimeUnit.HOURS);
+		Assertions.assertFalse(child.isCancelled());
+		parent.cancel();
+		Assertions.assertTrue(child.isCancelled());
+	}
+
+	private static List<SemanticType> getSemanticTypes(IDocument document) {
+		List<SemanticType> semanticTypes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			semanticTypes.add(node.getSemanticType());
+		}
+		return semanticTypes;
+	}
+
+	private static class CountingCancellationToken extends CancellationToken {
+
+		private final int checksBeforeCancel;
+		private int checks;
+
+		private CountingCancellationToken(int checksBeforeCancel) {
+			this.checksBeforeCancel = checksBeforeCancel;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return checks > checksBeforeCancel;
+		}
+
+		@Override
+		public void throwIfCancelled() {
+			checks++;
+			super.throwIfCancelled();
+		}
+	}
+}
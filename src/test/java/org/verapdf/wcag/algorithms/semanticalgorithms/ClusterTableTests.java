@@ -15,7 +15,7 @@ import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.TableBorderConsu
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.ClusterTableConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.LinesPreprocessingConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPreprocessingConsumer;
-import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
 
 import java.io.IOException;
@@ -57,27 +57,25 @@ public class ClusterTableTests {
     void testClusterTableDetection(String filename, int[][] checkSizes, boolean semanticIsValid,
                                    boolean initialSemanticIsValid) throws IOException {
         IDocument document = JsonToPdfTree.getDocument("/files/tables/" + filename);
-        StaticContainers.clearAllContainers(document);
+        SemanticContext context = new SemanticContext(document);
 
         ITree tree = document.getTree();
 
-        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document);
+        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
         linesPreprocessingConsumer.findTableBorders();
 
-        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document);
+        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document, context);
         tree.forEach(semanticDocumentValidator);
 
-        Table.updateTableCounter();
+        context.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders(), context));
 
-        StaticContainers.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders()));
-
-        AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer();
+        AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer(context);
         tree.forEach(paragraphValidator);
 
-        TableBorderConsumer tableBorderConsumer = new TableBorderConsumer();
+        TableBorderConsumer tableBorderConsumer = new TableBorderConsumer(context);
         tableBorderConsumer.recognizeTables(tree);
 
-        ClusterTableConsumer tableFinder = new ClusterTableConsumer();
+        ClusterTableConsumer tableFinder = new ClusterTableConsumer(context);
         tableFinder.findTables(tree.getRoot());
 
         List<Table> resultTables = tableFinder.getTables();
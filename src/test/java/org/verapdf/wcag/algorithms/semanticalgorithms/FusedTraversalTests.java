@@ -0,0 +1,68 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.entities.SemanticSpan;
+import org.verapdf.wcag.algorithms.entities.content.TextChunk;
+import org.verapdf.wcag.algorithms.entities.content.TextLine;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class FusedTraversalTests {
+
+	static Stream<Arguments> fusedTraversalTestParams() {
+		return Stream.of(
+				Arguments.of("/files/tables/tableBorder.json"),
+				Arguments.of("/files/tables/PDFUA-Ref-2-06_Brochure.json"),
+				Arguments.of("/files/tables/PDFUA-Ref-2-02_Invoice.json"),
+				Arguments.of("/files/lists/ordered-list1.json"),
+				Arguments.of("/files/headings/Heading1.json"),
+				Arguments.of("/files/repeatedCharacters/test-document-3.json"),
+				Arguments.of("/files/underlinedText/underlinedText1.json")
+		);
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@MethodSource("fusedTraversalTestParams")
+	void testFusedTraversal(String filename) throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		SemanticContext expectedContext = new SemanticContext(expectedDocument);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument, expectedContext);
+
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		SemanticContext context = new SemanticContext(document);
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().fusedTraversal(true).build();
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, context);
+
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+		Assertions.assertEquals(expectedContext.getRepeatedCharacters().size(), context.getRepeatedCharacters().size());
+	}
+
+	private static List<String> describeTree(IDocument document) {
+		List<String> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			StringBuilder description = new StringBuilder();
+			description.append(node.getSemanticType()).append(' ').append(node.getRecognizedStructureId())
+			           .append(' ').append(node.getCorrectSemanticScore()).append(' ').append(node.getBoundingBox())
+			           .append(' ').append(node.getDepth()).append(' ').append(node.getHasLowestDepthError());
+			if (node instanceof SemanticSpan) {
+				for (TextLine textLine : ((SemanticSpan) node).getLines()) {
+					for (TextChunk textChunk : textLine.getTextChunks()) {
+						description.append(textChunk.getIsUnderlinedText() ? " U" : " -");
+					}
+				}
+			}
+			nodes.add(description.toString());
+		}
+		return nodes;
+	}
+}
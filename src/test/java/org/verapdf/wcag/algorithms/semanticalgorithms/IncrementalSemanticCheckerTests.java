@@ -0,0 +1,164 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.entities.SemanticGroupingNode;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Stream;
+
+class IncrementalSemanticCheckerTests {
+
+	enum Edit {
+		NONE,
+		REMOVE_CHILD,
+		SWAP_CHILDREN,
+		WRAP_CHILD
+	}
+
+	static Stream<Arguments> incrementalCheckTestParams() {
+		List<Arguments> arguments = new ArrayList<>();
+		for (String filename : Arrays.asList("/files/tables/three-tables.json", "/files/tables/pdfmaker.json",
+				"/files/tables/PDFUA-Ref-2-06_Brochure.json", "/files/tables/PDFUA-Ref-2-02_Invoice.json",
+				"/files/lists/ordered-list1.json", "/files/lists/7NonTable.json", "/files/headings/Heading1.json",
+				"/files/repeatedCharacters/test-document-3.json")) {
+			for (Edit edit : Edit.values()) {
+				arguments.add(Arguments.of(filename, edit));
+			}
+		}
+		return arguments.stream();
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}, {1}) => {0}")
+	@MethodSource("incrementalCheckTestParams")
+	void testRecheckMatchesFullCheck(String filename, Edit edit) throws IOException {
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		INode editedNode = getEditedNode(document);
+		IncrementalSemanticChecker incrementalChecker = new IncrementalSemanticChecker(document);
+		incrementalChecker.check();
+		List<INode> modifiedNodes = applyEdit(editedNode, edit);
+		SemanticContext context = incrementalChecker.recheck(modifiedNodes);
+		Assertions.assertFalse(context.isIncomplete());
+
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		applyEdit(getEditedNode(expectedDocument), edit);
+		SemanticContext expectedContext = new SemanticContext(expectedDocument);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument, expectedContext);
+
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+		Assertions.assertEquals(expectedContext.getRepeatedCharacters().size(), context.getRepeatedCharacters().size());
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@ValueSource(strings = {"/files/tables/PDFUA-Ref-2-06_Brochure.json", "/files/lists/ordered-list1.json",
+			"/files/lists/7NonTable.json"})
+	void testSequentialRechecks(String filename) throws IOException {
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		INode editedNode = getEditedNode(document);
+		IncrementalSemanticChecker incrementalChecker = new IncrementalSemanticChecker(document);
+		incrementalChecker.check();
+		incrementalChecker.recheck(applyEdit(editedNode, Edit.SWAP_CHILDREN));
+		incrementalChecker.recheck(applyEdit(editedNode, Edit.REMOVE_CHILD));
+
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		INode expectedEditedNode = getEditedNode(expectedDocument);
+		applyEdit(expectedEditedNode, Edit.SWAP_CHILDREN);
+		applyEdit(expectedEditedNode, Edit.REMOVE_CHILD);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument,
+		                                                           new SemanticContext(expectedDocument));
+
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@ValueSource(strings = {"/files/tables/test-document-1.json", "/files/tables/PDFUA-Ref-2-05_BookChapter-german.json"})
+	void testRecheckKeepsTablesOfOtherPages(String filename) throws IOException {
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		IncrementalSemanticChecker incrementalChecker = new IncrementalSemanticChecker(document);
+		SemanticContext context = incrementalChecker.check();
+		List<SortedSet<TableBorder>> tableBorders = new ArrayList<>(context.getTableBordersCollection().getTableBorders());
+		List<INode> nodes = new ArrayList<>();
+		document.getTree().forEach(nodes::add);
+		int editedIndex = -1;
+		for (int i = 0; i < nodes.size(); i++) {
+			if (nodes.get(i).getChildren().size() > 1 && !hasTableBorders(tableBorders, nodes.get(i))) {
+				editedIndex = i;
+			}
+		}
+		Assertions.assertNotEquals(-1, editedIndex);
+		incrementalChecker.recheck(applyEdit(nodes.get(editedIndex), Edit.SWAP_CHILDREN));
+		for (int pageNumber = 0; pageNumber < tableBorders.size(); pageNumber++) {
+			Assertions.assertSame(tableBorders.get(pageNumber),
+			                      context.getTableBordersCollection().getTableBorders(pageNumber));
+		}
+
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		List<INode> expectedNodes = new ArrayList<>();
+		expectedDocument.getTree().forEach(expectedNodes::add);
+		applyEdit(expectedNodes.get(editedIndex), Edit.SWAP_CHILDREN);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument,
+		                                                           new SemanticContext(expectedDocument));
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+	}
+
+	private static boolean hasTableBorders(List<SortedSet<TableBorder>> tableBorders, INode node) {
+		for (int pageNumber = node.getPageNumber(); pageNumber <= node.getLastPageNumber(); pageNumber++) {
+			if (!tableBorders.get(pageNumber).isEmpty()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static INode getEditedNode(IDocument document) {
+		List<INode> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			if (node.getChildren().size() > 1) {
+				nodes.add(node);
+			}
+		}
+		return nodes.get(nodes.size() / 2);
+	}
+
+	private static List<INode> applyEdit(INode node, Edit edit) {
+		List<INode> children = node.getChildren();
+		switch (edit) {
+			case REMOVE_CHILD:
+				children.remove(children.size() / 2);
+				break;
+			case SWAP_CHILDREN:
+				Collections.swap(children, 0, children.size() - 1);
+				break;
+			case WRAP_CHILD:
+				INode wrapper = new SemanticGroupingNode(SemanticType.DIV);
+				wrapper.getChildren().add(children.get(children.size() / 2));
+				children.set(children.size() / 2, wrapper);
+				break;
+			default:
+				return Collections.emptyList();
+		}
+		return Collections.singletonList(node);
+	}
+
+	private static List<String> describeTree(IDocument document) {
+		Map<Long, Integer> structureIds = new HashMap<>();
+		List<String> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			Long id = node.getRecognizedStructureId();
+			Integer structureId = id == null ? null : structureIds.computeIfAbsent(id, key -> structureIds.size());
+			nodes.add(node.getSemanticType() + " " + structureId + " " + node.getCorrectSemanticScore() + " " +
+			          node.getBoundingBox() + " " + node.getHasLowestDepthError());
+		}
+		return nodes;
+	}
+}
@@ -9,13 +9,12 @@ import org.verapdf.wcag.algorithms.entities.ITree;
 import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
 import org.verapdf.wcag.algorithms.entities.IDocument;
 import org.verapdf.wcag.algorithms.entities.lists.PDFList;
-import org.verapdf.wcag.algorithms.entities.tables.Table;
 import org.verapdf.wcag.algorithms.entities.tables.TableBordersCollection;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.AccumulatedNodeConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.ClusterTableConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.LinesPreprocessingConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPreprocessingConsumer;
-import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.ListUtils;
 
 import java.io.IOException;
@@ -49,22 +48,20 @@ public class ListTests {
         IDocument document = JsonToPdfTree.getDocument("/files/lists/" + filename);
         ITree tree = document.getTree();
 
-        StaticContainers.clearAllContainers(document);
+        SemanticContext context = new SemanticContext(document);
 
-        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document);
+        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
         linesPreprocessingConsumer.findTableBorders();
 
-        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document);
+        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document, context);
         tree.forEach(semanticDocumentValidator);
 
-        Table.updateTableCounter();
+        context.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders(), context));
 
-        StaticContainers.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders()));
-
-        AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer();
+        AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer(context);
         tree.forEach(paragraphValidator);
 
-        ClusterTableConsumer tableFinder = new ClusterTableConsumer();
+        ClusterTableConsumer tableFinder = new ClusterTableConsumer(context);
         tableFinder.findTables(tree.getRoot());
 
         List<PDFList> resultLists = tableFinder.getLists();
@@ -0,0 +1,63 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class ParallelAccumulationTests {
+
+	static Stream<Arguments> parallelAccumulationTestParams() {
+		return Stream.of(
+				Arguments.of("/files/tables/PDFUA-Ref-2-06_Brochure.json", 1),
+				Arguments.of("/files/tables/PDFUA-Ref-2-06_Brochure.json", 8),
+				Arguments.of("/files/tables/PDFUA-Ref-2-02_Invoice.json", 4),
+				Arguments.of("/files/tables/PDFUA-Ref-2-05_BookChapter-german.json", 16),
+				Arguments.of("/files/lists/PDFUA-Ref-2-06_Brochure.json", 2),
+				Arguments.of("/files/lists/ordered-list1.json", 1),
+				Arguments.of("/files/lists/7NonTable.json", 3),
+				Arguments.of("/files/headings/Heading1.json", 2)
+		);
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}, {1}) => {0}")
+	@MethodSource("parallelAccumulationTestParams")
+	void testParallelAccumulation(String filename, int minParallelSubtreeSize) throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument,
+		                                                           new SemanticContext(expectedDocument));
+
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder()
+		                                                    .parallelAccumulation(minParallelSubtreeSize).build();
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, new SemanticContext(document));
+
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+	}
+
+	@Test
+	void testFusedParallelConfig() {
+		Assertions.assertThrows(IllegalStateException.class, () -> SemanticCheckerConfig.builder()
+				.fusedTraversal(true).parallelAccumulation(16).build());
+	}
+
+	private static List<String> describeTree(IDocument document) {
+		List<String> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			nodes.add(node.getSemanticType() + " " + node.getRecognizedStructureId() + " " +
+			          node.getCorrectSemanticScore() + " " + node.getBoundingBox() + " " +
+			          node.getHasLowestDepthError());
+		}
+		return nodes;
+	}
+}
@@ -0,0 +1,108 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
+import org.verapdf.wcag.algorithms.entities.tables.TableBorderBuilder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.LinesPreprocessingConsumer;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+class ParallelLinesPreprocessingTests {
+
+	static Stream<Arguments> parallelLinesPreprocessingTestParams() {
+		return Stream.of(
+				Arguments.of("/files/tables/tableBorder.json"),
+				Arguments.of("/files/tables/PDFUA-Ref-2-06_Brochure.json"),
+				Arguments.of("/files/tables/PDFUA-Ref-2-05_BookChapter-german.json"),
+				Arguments.of("/files/tables/testdocument10.json"),
+				Arguments.of("/files/tables/three-tables.json"),
+				Arguments.of("/files/underlinedText/underlinedText1.json")
+		);
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@MethodSource("parallelLinesPreprocessingTestParams")
+	void testParallelLinesPreprocessing(String filename) throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		SemanticContext expectedContext = new SemanticContext(expectedDocument);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument, expectedContext);
+
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		SemanticContext context = new SemanticContext(document);
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().parallelLinesPreprocessing(true).build();
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, context);
+
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+		Assertions.assertEquals(describeTableBorders(expectedContext), describeTableBorders(context));
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@MethodSource("parallelLinesPreprocessingTestParams")
+	void testTableBordersOrder(String filename) throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		LinesPreprocessingConsumer expectedConsumer = new LinesPreprocessingConsumer(expectedDocument,
+				new SemanticContext(expectedDocument));
+		expectedConsumer.findTableBorders();
+
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		SemanticContext context = new SemanticContext(document);
+		LinesPreprocessingConsumer consumer = new LinesPreprocessingConsumer(document, context);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			consumer.findTableBorders(executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		Assertions.assertEquals(describeBuilders(expectedConsumer.getTableBorders()),
+		                        describeBuilders(consumer.getTableBorders()));
+		for (int pageNumber = 0; pageNumber < document.getPages().size(); pageNumber++) {
+			Assertions.assertNotNull(context.getLinesCollection().getParsedPageLines(pageNumber));
+		}
+	}
+
+	private static List<String> describeTree(IDocument document) {
+		List<String> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			nodes.add(node.getSemanticType() + " " + node.getRecognizedStructureId() + " " +
+			          node.getCorrectSemanticScore() + " " + node.getBoundingBox());
+		}
+		return nodes;
+	}
+
+	private static List<String> describeTableBorders(SemanticContext context) {
+		List<String> tableBorders = new ArrayList<>();
+		for (SortedSet<TableBorder> pageTableBorders : context.getTableBordersCollection().getTableBorders()) {
+			for (TableBorder tableBorder : pageTableBorders) {
+				tableBorders.add(tableBorder.getId() + " " + tableBorder.getBoundingBox() + " " +
+				                 tableBorder.getNumberOfRows() + " " + tableBorder.getNumberOfColumns());
+			}
+		}
+		return tableBorders;
+	}
+
+	private static List<String> describeBuilders(List<List<TableBorderBuilder>> tableBorders) {
+		List<String> builders = new ArrayList<>();
+		for (List<TableBorderBuilder> pageTableBorders : tableBorders) {
+			builders.add("page");
+			for (TableBorderBuilder builder : pageTableBorders) {
+				builders.add(builder.getBoundingBox() + " " + builder.getVertexesNumber() + " " +
+				             builder.getHorizontalLinesNumber() + " " + builder.getVerticalLinesNumber());
+			}
+		}
+		return builders;
+	}
+}
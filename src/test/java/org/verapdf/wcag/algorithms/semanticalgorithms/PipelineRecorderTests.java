@@ -0,0 +1,84 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineRecorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineStage;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.StageMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class PipelineRecorderTests {
+
+	private static final List<PipelineStage> CHECKER_STAGES = Arrays.asList(PipelineStage.LINES_PREPROCESSING,
+			PipelineStage.SEMANTIC_PREPROCESSING, PipelineStage.TABLE_BORDERS_COLLECTION, PipelineStage.ACCUMULATION,
+			PipelineStage.TABLE_BORDERS, PipelineStage.CLUSTER_TABLES, PipelineStage.POSTPROCESSING);
+
+	static Stream<Arguments> pipelineRecorderTestParams() {
+		return Stream.of(
+				Arguments.of("/files/tables/three-tables.json", 0),
+				Arguments.of("/files/tables/tableBorder.json", 1),
+				Arguments.of("/files/lists/ordered-list1.json", 0)
+		);
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}, {1}) => {0}")
+	@MethodSource("pipelineRecorderTestParams")
+	void testPipelineRecorder(String filename, int tableBordersCount) throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument,
+		                                                           new SemanticContext(expectedDocument));
+
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		PipelineRecorder recorder = new PipelineRecorder();
+		new AccumulatedNodeSemanticChecker(recorder).checkSemanticDocument(document, new SemanticContext(document));
+
+		List<StageMetrics> metrics = recorder.getStageMetrics(document);
+		Assertions.assertEquals(CHECKER_STAGES, metrics.stream().map(StageMetrics::getStage).collect(Collectors.toList()));
+		long nodesCount = describeTree(document).size();
+		for (StageMetrics stageMetrics : metrics) {
+			Assertions.assertTrue(stageMetrics.getWallTime() >= 0);
+			Assertions.assertTrue(stageMetrics.getCpuTime() >= StageMetrics.UNSUPPORTED);
+			Assertions.assertTrue(stageMetrics.getAllocatedBytes() >= StageMetrics.UNSUPPORTED);
+		}
+		Map<PipelineStage, StageMetrics> breakdown = recorder.getStageBreakdown(document);
+		Assertions.assertEquals(nodesCount, breakdown.get(PipelineStage.ACCUMULATION).getProcessedCount());
+		Assertions.assertEquals(tableBordersCount, breakdown.get(PipelineStage.TABLE_BORDERS).getProcessedCount());
+		Assertions.assertEquals(describeTree(expectedDocument), describeTree(document));
+	}
+
+	@Test
+	void testRemoveStageMetrics() throws IOException {
+		IDocument document = JsonToPdfTree.getDocument("/files/tables/three-tables.json");
+		PipelineRecorder recorder = new PipelineRecorder();
+		new AccumulatedNodeSemanticChecker(recorder).checkSemanticDocument(document, new SemanticContext(document));
+		Assertions.assertEquals(Collections.singleton(document), recorder.getDocuments());
+
+		List<StageMetrics> metrics = recorder.removeStageMetrics(document);
+		Assertions.assertEquals(CHECKER_STAGES, metrics.stream().map(StageMetrics::getStage).collect(Collectors.toList()));
+		Assertions.assertTrue(recorder.getDocuments().isEmpty());
+		Assertions.assertTrue(recorder.getStageMetrics(document).isEmpty());
+	}
+
+	private static List<String> describeTree(IDocument document) {
+		List<String> nodes = new ArrayList<>();
+		for (INode node : document.getTree()) {
+			nodes.add(node.getSemanticType() + " " + node.getRecognizedStructureId());
+		}
+		return nodes;
+	}
+}
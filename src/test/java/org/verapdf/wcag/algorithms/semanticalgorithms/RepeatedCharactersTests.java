@@ -6,7 +6,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.verapdf.wcag.algorithms.entities.*;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.*;
-import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 
 import java.io.IOException;
 import java.util.List;
@@ -59,13 +59,13 @@ class RepeatedCharactersTests {
 		IDocument document = JsonToPdfTree.getDocument("/files/repeatedCharacters/" + filename);
 		ITree tree = document.getTree();
 
-		StaticContainers.clearAllContainers(null);
+		SemanticContext context = new SemanticContext(null);
 
 		SemanticDocumentPostprocessingConsumer documentPostprocessingConsumer =
-				new SemanticDocumentPostprocessingConsumer();
+				new SemanticDocumentPostprocessingConsumer(context);
 		documentPostprocessingConsumer.checkForRepeatedCharacters(tree);
 
-		testRepeated(checks, StaticContainers.getRepeatedCharacters());
+		testRepeated(checks, context.getRepeatedCharacters());
 	}
 
 	private void testRepeated(RepeatedCharacters[] checks, List<RepeatedCharacters> repeatedCharacters) {
@@ -0,0 +1,101 @@
+package org.verapdf.wcag.algorithms.semanticalgorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.verapdf.wcag.algorithms.entities.IDocument;
+import org.verapdf.wcag.algorithms.entities.INode;
+import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
+import org.verapdf.wcag.algorithms.entities.SemanticSpan;
+import org.verapdf.wcag.algorithms.entities.content.TextChunk;
+import org.verapdf.wcag.algorithms.entities.content.TextLine;
+import org.verapdf.wcag.algorithms.entities.enums.SemanticType;
+import org.verapdf.wcag.algorithms.semanticalgorithms.SemanticCheckerConfig.Stage;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineRecorder;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.PipelineStage;
+import org.verapdf.wcag.algorithms.semanticalgorithms.pipeline.StageMetrics;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class SemanticCheckerConfigTests {
+
+	@Test
+	void testStageDependencies() {
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().enableOnly(Stage.TABLE_BORDERS).build();
+		Assertions.assertEquals(EnumSet.of(Stage.LINES_PREPROCESSING, Stage.TABLE_BORDERS), config.getEnabledStages());
+
+		Assertions.assertEquals(EnumSet.allOf(Stage.class), SemanticCheckerConfig.defaultConfig().getEnabledStages());
+
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> SemanticCheckerConfig.builder().disable(Stage.LINES_PREPROCESSING).build());
+
+		config = SemanticCheckerConfig.builder().disable(Stage.LINES_PREPROCESSING, Stage.UNDERLINED_TEXT,
+		                                                 Stage.TABLE_BORDERS).build();
+		Assertions.assertFalse(config.isEnabled(Stage.LINES_PREPROCESSING));
+		Assertions.assertTrue(config.isEnabled(Stage.CLUSTER_TABLES));
+	}
+
+	static Stream<Arguments> headingsOnlyTestParams() {
+		return Stream.of(
+				Arguments.of("/files/headings/Heading1.json"),
+				Arguments.of("/files/headings/Heading2.json"),
+				Arguments.of("/files/headings/Heading3.json"),
+				Arguments.of("/files/headings/Heading4.json")
+		);
+	}
+
+	@ParameterizedTest(name = "{index}: ({0}) => {0}")
+	@MethodSource("headingsOnlyTestParams")
+	void testHeadingsOnly(String filename) throws IOException {
+		IDocument expectedDocument = JsonToPdfTree.getDocument(filename);
+		new AccumulatedNodeSemanticChecker().checkSemanticDocument(expectedDocument,
+		                                                           new SemanticContext(expectedDocument));
+
+		PipelineRecorder recorder = new PipelineRecorder();
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().disableAll().pipelineListener(recorder).build();
+		IDocument document = JsonToPdfTree.getDocument(filename);
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, new SemanticContext(document));
+
+		Assertions.assertEquals(Arrays.asList(PipelineStage.SEMANTIC_PREPROCESSING, PipelineStage.ACCUMULATION),
+		                        recorder.getStageMetrics(document).stream().map(StageMetrics::getStage)
+		                                .collect(Collectors.toList()));
+		Assertions.assertEquals(getHeadings(expectedDocument), getHeadings(document));
+	}
+
+	@Test
+	void testUnderlinedTextDisabled() throws IOException {
+		IDocument document = JsonToPdfTree.getDocument("/files/underlinedText/underlinedText1.json");
+		SemanticCheckerConfig config = SemanticCheckerConfig.builder().disable(Stage.UNDERLINED_TEXT).build();
+		new AccumulatedNodeSemanticChecker(config).checkSemanticDocument(document, new SemanticContext(document));
+		for (INode node : document.getTree()) {
+			if (node instanceof SemanticSpan) {
+				for (TextLine textLine : ((SemanticSpan) node).getLines()) {
+					for (TextChunk textChunk : textLine.getTextChunks()) {
+						Assertions.assertFalse(textChunk.getIsUnderlinedText());
+					}
+				}
+			}
+		}
+	}
+
+	private static List<String> getHeadings(IDocument document) {
+		return Stream.of(document.getTree().getRoot())
+		             .flatMap(SemanticCheckerConfigTests::flatten)
+		             .filter(node -> node.getSemanticType() == SemanticType.HEADING ||
+		                             node.getSemanticType() == SemanticType.NUMBER_HEADING)
+		             .map(node -> node.getSemanticType() + " " + node.getBoundingBox())
+		             .collect(Collectors.toList());
+	}
+
+	private static Stream<INode> flatten(INode node) {
+		return Stream.concat(Stream.of(node), node.getChildren().stream().flatMap(SemanticCheckerConfigTests::flatten));
+	}
+}
@@ -9,7 +9,7 @@ import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextLine;
 import org.verapdf.wcag.algorithms.entities.enums.TextFormat;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.AccumulatedNodeConsumer;
-import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 
 import java.io.IOException;
 import java.util.stream.Stream;
@@ -67,19 +67,19 @@ class SubscriptSuperscriptTest {
 		IDocument document = JsonToPdfTree.getDocument("/files/" + filename);
 		ITree tree = document.getTree();
 
-		StaticContainers.clearAllContainers(null);
+		SemanticContext context = new SemanticContext(null);
 
-		AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer();
+		AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer(context);
 		tree.forEach(paragraphValidator);
 
-		checkSubscriptSuperscript(nodeChecks, chunkChecks, tree);
+		checkSubscriptSuperscript(context, nodeChecks, chunkChecks, tree);
 	}
 
-	private void checkSubscriptSuperscript(TextFormat[] nodeChecks, TextFormat[] chunkChecks, ITree tree) {
+	private void checkSubscriptSuperscript(SemanticContext context, TextFormat[] nodeChecks, TextFormat[] chunkChecks, ITree tree) {
 		int count = 0;
 		int countChunks = 0;
 		for (INode node : tree) {
-			INode accumulatedNode = StaticContainers.getAccumulatedNodeMapper().get(node);
+			INode accumulatedNode = context.getAccumulatedNodeMapper().get(node);
 			if (accumulatedNode instanceof SemanticTextNode) {
 				SemanticTextNode textNode = ((SemanticTextNode) accumulatedNode);
 				Assertions.assertEquals(nodeChecks[count], textNode.getTextFormat());
@@ -1,6 +1,7 @@
 package org.verapdf.wcag.algorithms.semanticalgorithms;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -8,7 +9,7 @@ import org.verapdf.wcag.algorithms.entities.IDocument;
 import org.verapdf.wcag.algorithms.entities.INode;
 import org.verapdf.wcag.algorithms.entities.ITree;
 import org.verapdf.wcag.algorithms.entities.JsonToPdfTree;
-import org.verapdf.wcag.algorithms.entities.tables.Table;
+import org.verapdf.wcag.algorithms.entities.geometry.BoundingBox;
 import org.verapdf.wcag.algorithms.entities.tables.tableBorders.TableBorder;
 import org.verapdf.wcag.algorithms.entities.tables.TableBorderBuilder;
 import org.verapdf.wcag.algorithms.entities.tables.TableBordersCollection;
@@ -16,7 +17,7 @@ import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.AccumulatedNodeC
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.LinesPreprocessingConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPreprocessingConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.TableBorderConsumer;
-import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 import org.verapdf.wcag.algorithms.semanticalgorithms.utils.TableUtils;
 
 import java.io.IOException;
@@ -64,9 +65,9 @@ public class TableBordersTests {
                                   boolean initialSemanticIsValid) throws IOException {
         IDocument document = JsonToPdfTree.getDocument("/files/tables/" + filename + ".json");
         ITree tree = document.getTree();
-        StaticContainers.clearAllContainers(document);
+        SemanticContext context = new SemanticContext(document);
 
-        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document);
+        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
         List<List<TableBorderBuilder>> tableBorderBuilders = linesPreprocessingConsumer.getTableBorders();
         Assertions.assertEquals(list.length, tableBorderBuilders.size());
         for (int pageNumber = 0; pageNumber < tableBorderBuilders.size(); pageNumber++) {
@@ -79,16 +80,15 @@ public class TableBordersTests {
                         border.getVerticalLinesNumber());
             }
         }
-        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document);
+        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document, context);
         tree.forEach(semanticDocumentValidator);
-        Table.updateTableCounter();
-        StaticContainers.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders()));
-        AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer();
+        context.setTableBordersCollection(new TableBordersCollection(linesPreprocessingConsumer.getTableBorders(), context));
+        AccumulatedNodeConsumer paragraphValidator = new AccumulatedNodeConsumer(context);
         tree.forEach(paragraphValidator);
-        TableBorderConsumer tableBorderConsumer = new TableBorderConsumer();
+        TableBorderConsumer tableBorderConsumer = new TableBorderConsumer(context);
         tableBorderConsumer.recognizeTables(tree);
 
-        List<SortedSet<TableBorder>> tableBorders = StaticContainers.getTableBordersCollection().getTableBorders();
+        List<SortedSet<TableBorder>> tableBorders = context.getTableBordersCollection().getTableBorders();
         Assertions.assertEquals(listN.length, tableBorders.size());
         for (int pageNumber = 0; pageNumber < tableBorders.size(); pageNumber++) {
             SortedSet<TableBorder> borders = tableBorders.get(pageNumber);
@@ -109,6 +109,24 @@ public class TableBordersTests {
         }
     }
 
+    @Test
+    void testCascadingTableBordersMerge() throws IOException {
+        IDocument document = JsonToPdfTree.getDocument("/files/tables/tableBorders/cascading_merge.json");
+        SemanticContext context = new SemanticContext(document);
+        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
+        List<List<TableBorderBuilder>> tableBorderBuilders = linesPreprocessingConsumer.getTableBorders();
+        Assertions.assertEquals(1, tableBorderBuilders.size());
+        Assertions.assertEquals(1, tableBorderBuilders.get(0).size());
+        TableBorderBuilder border = tableBorderBuilders.get(0).get(0);
+        Assertions.assertEquals(7, border.getHorizontalLinesNumber());
+        Assertions.assertEquals(7, border.getVerticalLinesNumber());
+        BoundingBox boundingBox = border.getBoundingBox();
+        Assertions.assertEquals(-0.25, boundingBox.getLeftX());
+        Assertions.assertEquals(-50.25, boundingBox.getBottomY());
+        Assertions.assertEquals(300.25, boundingBox.getRightX());
+        Assertions.assertEquals(200.25, boundingBox.getTopY());
+    }
+
     private void testTableTreeStructure(ITree tree) {
         for (INode node : tree) {
             if (TableUtils.isTableNode(node)) {
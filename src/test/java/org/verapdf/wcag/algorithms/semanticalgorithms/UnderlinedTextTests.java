@@ -13,7 +13,7 @@ import org.verapdf.wcag.algorithms.entities.content.TextChunk;
 import org.verapdf.wcag.algorithms.entities.content.TextLine;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.LinesPreprocessingConsumer;
 import org.verapdf.wcag.algorithms.semanticalgorithms.consumers.SemanticDocumentPreprocessingConsumer;
-import org.verapdf.wcag.algorithms.semanticalgorithms.containers.StaticContainers;
+import org.verapdf.wcag.algorithms.semanticalgorithms.containers.SemanticContext;
 
 import java.io.IOException;
 import java.util.function.Consumer;
@@ -34,11 +34,11 @@ public class UnderlinedTextTests {
     void testUnderlinedTextDetection(String filename, boolean isUnderlined) throws IOException {
         IDocument document = JsonToPdfTree.getDocument("/files/underlinedText/" + filename);
         ITree tree = document.getTree();
-        StaticContainers.clearAllContainers(document);
-        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document);
+        SemanticContext context = new SemanticContext(document);
+        LinesPreprocessingConsumer linesPreprocessingConsumer = new LinesPreprocessingConsumer(document, context);
         linesPreprocessingConsumer.findTableBorders();
 
-        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document);
+        Consumer<INode> semanticDocumentValidator = new SemanticDocumentPreprocessingConsumer(document, context);
         tree.forEach(semanticDocumentValidator);
         testUnderlined(tree, isUnderlined);
     }